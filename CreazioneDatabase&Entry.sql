@@ -28,9 +28,10 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`ORGANIZZAZIONE` (
   `idORGANIZZAZIONE` INT NOT NULL AUTO_INCREMENT,
   `TIPOLOGIA_ORGANIZZAZIONE_idTIPOLOGIA_ORGANIZZAZIONE` INT NOT NULL,
   `nome` VARCHAR(45) NULL,
-  `email` VARCHAR(45) NULL,
+  `email` VARCHAR(45) COLLATE utf8mb3_general_ci NULL,
   `password` VARCHAR(45) NULL,
   PRIMARY KEY (`idORGANIZZAZIONE`),
+  UNIQUE INDEX `uq_ORGANIZZAZIONE_email` (`email` ASC) VISIBLE,
   INDEX `fk_ORGANIZZAZIONE_TIPOLOGIA_ORGANIZZAZIONE1_idx` (`TIPOLOGIA_ORGANIZZAZIONE_idTIPOLOGIA_ORGANIZZAZIONE` ASC) VISIBLE,
   CONSTRAINT `fk_ORGANIZZAZIONE_TIPOLOGIA_ORGANIZZAZIONE1`
     FOREIGN KEY (`TIPOLOGIA_ORGANIZZAZIONE_idTIPOLOGIA_ORGANIZZAZIONE`)
@@ -47,12 +48,32 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`LUOGO_EVENTO` (
   PRIMARY KEY (`idLUOGO_EVENTO`))
 ENGINE = InnoDB;
 
+-- Table SETTORE_POSTI
+-- Disposizione dei posti di un luogo: settori di file uguali, nell'ordine in cui si susseguono le file.
+-- Un luogo senza settori usa la disposizione di default (file da 10 posti fino a maxPosti)
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`SETTORE_POSTI` (
+  `idSETTORE_POSTI` INT NOT NULL AUTO_INCREMENT,
+  `LUOGO_EVENTO_idLUOGO_EVENTO` INT NOT NULL,
+  `ordine` INT NOT NULL,
+  `nome` VARCHAR(45) NOT NULL,
+  `file` INT NOT NULL,
+  `postiPerFila` INT NOT NULL,
+  `categoria` VARCHAR(45) NOT NULL DEFAULT 'STANDARD',
+  PRIMARY KEY (`idSETTORE_POSTI`),
+  UNIQUE INDEX `uq_SETTORE_POSTI_luogo_ordine` (`LUOGO_EVENTO_idLUOGO_EVENTO` ASC, `ordine` ASC) VISIBLE,
+  CONSTRAINT `fk_SETTORE_POSTI_LUOGO_EVENTO1`
+    FOREIGN KEY (`LUOGO_EVENTO_idLUOGO_EVENTO`)
+    REFERENCES `Biglietteria_SE`.`LUOGO_EVENTO` (`idLUOGO_EVENTO`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
 -- Table EVENTI
 CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`EVENTI` (
   `idEvento` INT NOT NULL AUTO_INCREMENT,
   `titolo` VARCHAR(45) NULL,
   `descrizione` VARCHAR(400) NULL,
-  `costi` VARCHAR(45) NOT NULL,
+  `costi` DECIMAL(10,2) NOT NULL,
   `dataEvento` DATE NOT NULL,
   `orarioInizio` TIME NOT NULL,
   `orarioFine` TIME NOT NULL,
@@ -63,8 +84,10 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`EVENTI` (
   `LUOGO_EVENTO_idLUOGO_EVENTO` INT NOT NULL,
   PRIMARY KEY (`idEvento`),
   INDEX `fk_EVENTI_TIPO_EVENTO_idx` (`TIPO_EVENTO_idTIPO_EVENTO` ASC) VISIBLE,
-  INDEX `fk_EVENTI_ORGANIZZAZIONE1_idx` (`ORGANIZZAZIONE_idORGANIZZAZIONE` ASC) VISIBLE,
-  INDEX `fk_EVENTI_LUOGO_EVENTO1_idx` (`LUOGO_EVENTO_idLUOGO_EVENTO` ASC) VISIBLE,
+  -- indici estesi a data e orario: filtri e paginazione della dashboard, ordinati come la query
+  INDEX `fk_EVENTI_ORGANIZZAZIONE1_idx` (`ORGANIZZAZIONE_idORGANIZZAZIONE` ASC, `dataEvento` ASC, `orarioInizio` ASC) VISIBLE,
+  INDEX `fk_EVENTI_LUOGO_EVENTO1_idx` (`LUOGO_EVENTO_idLUOGO_EVENTO` ASC, `dataEvento` ASC, `orarioInizio` ASC) VISIBLE,
+  INDEX `idx_EVENTI_data_orario` (`dataEvento` ASC, `orarioInizio` ASC) VISIBLE,
   CONSTRAINT `fk_EVENTI_TIPO_EVENTO`
     FOREIGN KEY (`TIPO_EVENTO_idTIPO_EVENTO`)
     REFERENCES `Biglietteria_SE`.`TIPO_EVENTO` (`idTIPO_EVENTO`)
@@ -88,9 +111,10 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`CLIENTE` (
   `nome` VARCHAR(45) NOT NULL,
   `cognome` VARCHAR(45) NOT NULL,
   `compleanno` VARCHAR(45) NOT NULL,
-  `email` VARCHAR(45) NOT NULL,
+  `email` VARCHAR(45) COLLATE utf8mb3_general_ci NOT NULL,
   `password` VARCHAR(45) NOT NULL,
-  PRIMARY KEY (`idCLIENTE`))
+  PRIMARY KEY (`idCLIENTE`),
+  UNIQUE INDEX `uq_CLIENTE_email` (`email` ASC) VISIBLE)
 ENGINE = InnoDB;
 
 -- Table STATO_PRENOTAZIONE
@@ -130,6 +154,24 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`PRENOTAZIONE` (
     ON UPDATE NO ACTION)
 ENGINE = InnoDB;
 
+-- Table PRENOTAZIONE_POSTO
+-- Posti di ogni prenotazione (id numerici). Le righe si cancellano con la prenotazione;
+-- l'indice unico su evento e posto dice quale prenotazione occupa un posto.
+-- prezzo è quello pagato per il posto: un annullamento toglie dalle vendite esattamente questo importo
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`PRENOTAZIONE_POSTO` (
+  `PRENOTAZIONE_idPRENOTAZIONE` INT NOT NULL,
+  `EVENTI_idEvento` INT NOT NULL,
+  `idPOSTI` INT NOT NULL,
+  `prezzo` DECIMAL(10,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`PRENOTAZIONE_idPRENOTAZIONE`, `idPOSTI`),
+  UNIQUE INDEX `uq_PRENOTAZIONE_POSTO_evento_posto` (`EVENTI_idEvento` ASC, `idPOSTI` ASC) VISIBLE,
+  CONSTRAINT `fk_PRENOTAZIONE_POSTO_PRENOTAZIONE1`
+    FOREIGN KEY (`PRENOTAZIONE_idPRENOTAZIONE`)
+    REFERENCES `Biglietteria_SE`.`PRENOTAZIONE` (`idPRENOTAZIONE`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
 -- Table POSTI
 CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`POSTI` (
   `idPOSTI` INT NOT NULL,
@@ -143,6 +185,73 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`POSTI` (
     ON UPDATE NO ACTION)
 ENGINE = InnoDB;
 
+-- Table VENDITE_EVENTO
+-- Riepilogo delle vendite per evento, aggiornato a ogni vendita e annullamento (report organizzazione)
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`VENDITE_EVENTO` (
+  `EVENTI_idEvento` INT NOT NULL,
+  `postiVenduti` INT NOT NULL DEFAULT 0,
+  `incasso` DECIMAL(12,2) NOT NULL DEFAULT 0,
+  `aggiornato` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`EVENTI_idEvento`),
+  CONSTRAINT `fk_VENDITE_EVENTO_EVENTI1`
+    FOREIGN KEY (`EVENTI_idEvento`)
+    REFERENCES `Biglietteria_SE`.`EVENTI` (`idEvento`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+-- Table VENDITE_GIORNO
+-- Vendite nette per evento e giorno (annullamenti sottratti nel giorno in cui avvengono): curve delle vendite
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`VENDITE_GIORNO` (
+  `EVENTI_idEvento` INT NOT NULL,
+  `giorno` DATE NOT NULL,
+  `postiVenduti` INT NOT NULL DEFAULT 0,
+  `incasso` DECIMAL(12,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`EVENTI_idEvento`, `giorno`),
+  CONSTRAINT `fk_VENDITE_GIORNO_EVENTI1`
+    FOREIGN KEY (`EVENTI_idEvento`)
+    REFERENCES `Biglietteria_SE`.`EVENTI` (`idEvento`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+-- Table POSTI_HOLD
+-- Blocchi temporanei dei posti durante la selezione (scadono dopo pochi minuti)
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`POSTI_HOLD` (
+  `EVENTI_idEvento` INT NOT NULL,
+  `idPOSTI` INT NOT NULL,
+  `CLIENTE_idCLIENTE` INT NOT NULL,
+  `scadenza` DATETIME NOT NULL,
+  PRIMARY KEY (`EVENTI_idEvento`, `idPOSTI`),
+  INDEX `idx_POSTI_HOLD_scadenza` (`scadenza` ASC) VISIBLE,
+  INDEX `fk_POSTI_HOLD_CLIENTE1_idx` (`CLIENTE_idCLIENTE` ASC) VISIBLE,
+  CONSTRAINT `fk_POSTI_HOLD_EVENTI1`
+    FOREIGN KEY (`EVENTI_idEvento`)
+    REFERENCES `Biglietteria_SE`.`EVENTI` (`idEvento`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION,
+  CONSTRAINT `fk_POSTI_HOLD_CLIENTE1`
+    FOREIGN KEY (`CLIENTE_idCLIENTE`)
+    REFERENCES `Biglietteria_SE`.`CLIENTE` (`idCLIENTE`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+-- Table POSTI_CHANGELOG
+-- Variazioni dei posti (prenotati/liberati/bloccati) lette dalle altre istanze dell'applicazione;
+-- le righe restano pochi minuti, senza chiavi esterne per non rallentare le scritture
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`POSTI_CHANGELOG` (
+  `idCHANGELOG` BIGINT NOT NULL AUTO_INCREMENT,
+  `EVENTI_idEvento` INT NOT NULL,
+  `idPOSTI` INT NOT NULL,
+  `occupato` TINYINT(1) NOT NULL,
+  `CLIENTE_idCLIENTE` INT NULL,
+  `istanza` CHAR(36) NOT NULL,
+  `creato` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`idCHANGELOG`),
+  INDEX `idx_POSTI_CHANGELOG_creato` (`creato` ASC) VISIBLE)
+ENGINE = InnoDB;
+
 -- Table TIPO_COLLABORATORI
 CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`TIPO_COLLABORATORI` (
   `idTIPO_COLLABORATORI` INT NOT NULL AUTO_INCREMENT,
@@ -186,6 +295,34 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`EVENTO_COLLABORATORE` (
     ON UPDATE NO ACTION)
 ENGINE = InnoDB;
 
+-- Table TAG
+-- Tag tematici degli eventi, minuscoli e senza spazi ai lati (normalizzati dall'applicazione)
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`TAG` (
+  `idTAG` INT NOT NULL AUTO_INCREMENT,
+  `nome` VARCHAR(45) NOT NULL,
+  PRIMARY KEY (`idTAG`),
+  UNIQUE INDEX `uq_TAG_nome` (`nome` ASC) VISIBLE)
+ENGINE = InnoDB;
+
+-- Table EVENTO_TAG
+-- Tag di ogni evento, scritti con l'evento a partire da tagTematici (che resta il testo mostrato e modificato)
+CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`EVENTO_TAG` (
+  `EVENTI_idEvento` INT NOT NULL,
+  `TAG_idTAG` INT NOT NULL,
+  PRIMARY KEY (`EVENTI_idEvento`, `TAG_idTAG`),
+  INDEX `fk_EVENTO_TAG_TAG1_idx` (`TAG_idTAG` ASC, `EVENTI_idEvento` ASC) VISIBLE,
+  CONSTRAINT `fk_EVENTO_TAG_EVENTI1`
+    FOREIGN KEY (`EVENTI_idEvento`)
+    REFERENCES `Biglietteria_SE`.`EVENTI` (`idEvento`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION,
+  CONSTRAINT `fk_EVENTO_TAG_TAG1`
+    FOREIGN KEY (`TAG_idTAG`)
+    REFERENCES `Biglietteria_SE`.`TAG` (`idTAG`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
 -- Table Lista_attesa
 CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`Lista_attesa` (
   `data` VARCHAR(45) NULL,
@@ -193,7 +330,8 @@ CREATE TABLE IF NOT EXISTS `Biglietteria_SE`.`Lista_attesa` (
   `EVENTI_idEvento` INT NOT NULL,
   `CLIENTE_idCLIENTE` INT NOT NULL,
   PRIMARY KEY (`EVENTI_idEvento`, `CLIENTE_idCLIENTE`),
-  INDEX `fk_Lista_attesa_EVENTI1_idx` (`EVENTI_idEvento` ASC) VISIBLE,
+  -- indice esteso all'ordine di arrivo: la promozione legge (e blocca) solo i primi in attesa
+  INDEX `fk_Lista_attesa_EVENTI1_idx` (`EVENTI_idEvento` ASC, `data` ASC, `ora` ASC) VISIBLE,
   INDEX `fk_Lista_attesa_CLIENTE1_idx` (`CLIENTE_idCLIENTE` ASC) VISIBLE,
   CONSTRAINT `fk_Lista_attesa_EVENTI1`
     FOREIGN KEY (`EVENTI_idEvento`)
@@ -253,6 +391,12 @@ INSERT IGNORE INTO luogo_evento (idLUOGO_EVENTO, luogo, maxPosti) VALUES
 (3, 'Auditorium', 150),
 (4, 'Galleria Mostre', 80);
 
+-- Settori del Teatro Comunale (200 posti: platea A..O, galleria P..T)
+INSERT IGNORE INTO settore_posti
+(LUOGO_EVENTO_idLUOGO_EVENTO, ordine, nome, file, postiPerFila, categoria) VALUES
+(1, 1, 'Platea', 15, 10, 'PLATEA'),
+(1, 2, 'Galleria', 5, 10, 'GALLERIA');
+
 
 -- --------------------------------------------------
 -- Eventi per l'organizzazione 1
@@ -299,6 +443,39 @@ INSERT INTO evento_collaboratore (COLLABORATORI_idCOLLABORATORI, EVENTI_idEvento
 (2, 10);
 
 
+-- --------------------------------------------------
+-- Tag degli eventi (da tagTematici)
+-- --------------------------------------------------
+INSERT INTO tag (idTAG, nome) VALUES
+(1, 'musica'),
+(2, 'jazz'),
+(3, 'arte'),
+(4, 'moderna'),
+(5, 'cinema'),
+(6, 'indie'),
+(7, 'teatro'),
+(8, 'classico'),
+(9, 'scienza'),
+(10, 'conferenza'),
+(11, 'rock'),
+(12, 'fotografia'),
+(13, 'documentari'),
+(14, 'comico'),
+(15, 'spettacolo'),
+(16, 'letteratura');
+
+INSERT INTO evento_tag (EVENTI_idEvento, TAG_idTAG) VALUES
+(1, 1), (1, 2),
+(2, 3), (2, 4),
+(3, 5), (3, 6),
+(4, 7), (4, 8),
+(5, 9), (5, 10),
+(6, 1), (6, 11),
+(7, 12), (7, 3),
+(8, 5), (8, 13),
+(9, 14), (9, 15),
+(10, 16), (10, 10);
+
 -- Evento 1: Concerto Jazz (18 posti, alcuni "vuoti")
 INSERT INTO posti (idPOSTI, EVENTI_idEvento) VALUES
 (1,1),(2,1),(3,1),(5,1),(6,1),(8,1),(9,1),(10,1),(12,1),(13,1),(14,1),(15,1),(17,1),(18,1),(19,1),(20,1);
@@ -338,3 +515,160 @@ INSERT INTO posti (idPOSTI, EVENTI_idEvento) VALUES
 -- Evento 10: Conferenza Innovazione (12 posti, tutti consecutivi)
 INSERT INTO posti (idPOSTI, EVENTI_idEvento) VALUES
 (1,10),(2,10),(3,10),(4,10),(5,10),(6,10),(7,10),(8,10),(9,10),(10,10),(11,10),(12,10);
+
+
+-- -----------------------------------------------------
+-- 4. MIGRAZIONI (database già esistenti)
+-- -----------------------------------------------------
+-- Si possono eseguire da sole su un database creato con una versione precedente dello script:
+-- ogni indice viene aggiunto solo se manca. Prima di aggiungere gli indici unici sull'email
+-- vanno eliminati eventuali account duplicati (stessa email a meno di maiuscole/minuscole).
+
+-- Email unica e case-insensitive per clienti e organizzazioni (registrazione e login); la collation è
+-- quella del set di caratteri dello schema (utf8, cioè utf8mb3), indicata con il nome non deprecato
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.statistics
+                WHERE LOWER(table_schema) = 'biglietteria_se' AND LOWER(table_name) = 'cliente'
+                  AND index_name = 'uq_CLIENTE_email') = 0,
+               'ALTER TABLE `Biglietteria_SE`.`CLIENTE` MODIFY `email` VARCHAR(45) COLLATE utf8mb3_general_ci NOT NULL, ADD UNIQUE INDEX `uq_CLIENTE_email` (`email` ASC)',
+               'DO 0');
+PREPARE migrazione FROM @sql; EXECUTE migrazione; DEALLOCATE PREPARE migrazione;
+
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.statistics
+                WHERE LOWER(table_schema) = 'biglietteria_se' AND LOWER(table_name) = 'organizzazione'
+                  AND index_name = 'uq_ORGANIZZAZIONE_email') = 0,
+               'ALTER TABLE `Biglietteria_SE`.`ORGANIZZAZIONE` MODIFY `email` VARCHAR(45) COLLATE utf8mb3_general_ci NULL, ADD UNIQUE INDEX `uq_ORGANIZZAZIONE_email` (`email` ASC)',
+               'DO 0');
+PREPARE migrazione FROM @sql; EXECUTE migrazione; DEALLOCATE PREPARE migrazione;
+
+-- Filtri e paginazione degli eventi (dashboard): indici su organizzazione/luogo + data + orario
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.statistics
+                WHERE LOWER(table_schema) = 'biglietteria_se' AND LOWER(table_name) = 'eventi'
+                  AND index_name = 'idx_EVENTI_data_orario') = 0,
+               'ALTER TABLE `Biglietteria_SE`.`EVENTI` DROP INDEX `fk_EVENTI_ORGANIZZAZIONE1_idx`, ADD INDEX `fk_EVENTI_ORGANIZZAZIONE1_idx` (`ORGANIZZAZIONE_idORGANIZZAZIONE` ASC, `dataEvento` ASC, `orarioInizio` ASC), DROP INDEX `fk_EVENTI_LUOGO_EVENTO1_idx`, ADD INDEX `fk_EVENTI_LUOGO_EVENTO1_idx` (`LUOGO_EVENTO_idLUOGO_EVENTO` ASC, `dataEvento` ASC, `orarioInizio` ASC), ADD INDEX `idx_EVENTI_data_orario` (`dataEvento` ASC, `orarioInizio` ASC)',
+               'DO 0');
+PREPARE migrazione FROM @sql; EXECUTE migrazione; DEALLOCATE PREPARE migrazione;
+
+-- Promozione dalla lista d'attesa: indice per evento e ordine di arrivo
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.statistics
+                WHERE LOWER(table_schema) = 'biglietteria_se' AND LOWER(table_name) = 'lista_attesa'
+                  AND index_name = 'fk_Lista_attesa_EVENTI1_idx' AND column_name = 'data') = 0,
+               'ALTER TABLE `Biglietteria_SE`.`Lista_attesa` DROP INDEX `fk_Lista_attesa_EVENTI1_idx`, ADD INDEX `fk_Lista_attesa_EVENTI1_idx` (`EVENTI_idEvento` ASC, `data` ASC, `ora` ASC)',
+               'DO 0');
+PREPARE migrazione FROM @sql; EXECUTE migrazione; DEALLOCATE PREPARE migrazione;
+
+-- Prezzo degli eventi da testo a DECIMAL(10,2): prima si normalizzano i valori (virgola decimale,
+-- simbolo dell'euro, spazi) e quelli non numerici diventano 0, poi si cambia il tipo della colonna.
+-- Entrambi i passi vengono eseguiti solo se la colonna è ancora VARCHAR.
+SET @costiTesto := (SELECT COUNT(*) FROM information_schema.columns
+                    WHERE LOWER(table_schema) = 'biglietteria_se' AND LOWER(table_name) = 'eventi'
+                      AND column_name = 'costi' AND data_type = 'varchar');
+
+SET @sql := IF(@costiTesto > 0,
+               'UPDATE `Biglietteria_SE`.`EVENTI` SET `costi` = IF(REPLACE(REPLACE(REPLACE(`costi`, ''€'', ''''), '' '', ''''), '','', ''.'') REGEXP ''^[0-9]+([.][0-9]{1,2})?$'', REPLACE(REPLACE(REPLACE(`costi`, ''€'', ''''), '' '', ''''), '','', ''.''), ''0'') WHERE `idEvento` > 0',
+               'DO 0');
+PREPARE migrazione FROM @sql; EXECUTE migrazione; DEALLOCATE PREPARE migrazione;
+
+SET @sql := IF(@costiTesto > 0,
+               'ALTER TABLE `Biglietteria_SE`.`EVENTI` MODIFY `costi` DECIMAL(10,2) NOT NULL',
+               'DO 0');
+PREPARE migrazione FROM @sql; EXECUTE migrazione; DEALLOCATE PREPARE migrazione;
+
+-- Prezzo pagato per ogni posto delle prenotazioni: se prenotazione_posto esiste già senza la colonna,
+-- la colonna viene aggiunta; i posti ancora a 0 (colonna appena aggiunta o migrati da una versione
+-- precedente di questo script) prendono il prezzo attuale dell'evento, l'unico noto.
+-- Va eseguito dopo la conversione di costi e prima della migrazione dei posti qui sotto.
+SET @prezzoMancante := (SELECT COUNT(*) = 0 FROM information_schema.columns
+                        WHERE LOWER(table_schema) = 'biglietteria_se' AND LOWER(table_name) = 'prenotazione_posto'
+                          AND column_name = 'prezzo');
+
+SET @sql := IF(@prezzoMancante,
+               'ALTER TABLE `Biglietteria_SE`.`PRENOTAZIONE_POSTO` ADD COLUMN `prezzo` DECIMAL(10,2) NOT NULL DEFAULT 0',
+               'DO 0');
+PREPARE migrazione FROM @sql; EXECUTE migrazione; DEALLOCATE PREPARE migrazione;
+
+UPDATE prenotazione_posto pp
+JOIN eventi e ON e.idEvento = pp.EVENTI_idEvento
+SET pp.prezzo = e.costi
+WHERE pp.PRENOTAZIONE_idPRENOTAZIONE > 0 AND pp.prezzo = 0 AND e.costi <> 0;
+
+-- Posti delle prenotazioni esistenti: da postiPrenotati ("A1, B3") a righe di prenotazione_posto.
+-- Le etichette salvate finora seguono la mappa fissa da 10 posti per fila (A1 = 1, B1 = 11),
+-- la stessa delle disposizioni di default; le prenotazioni già migrate vengono saltate.
+-- Il prezzo pagato non è stato salvato: si usa quello attuale dell'evento, lo stesso da cui
+-- vendite_evento calcola l'incasso, così un annullamento toglie quanto era stato contato.
+INSERT IGNORE INTO prenotazione_posto (PRENOTAZIONE_idPRENOTAZIONE, EVENTI_idEvento, idPOSTI, prezzo)
+WITH RECURSIVE etichette (idPRENOTAZIONE, idEvento, etichetta, resto) AS (
+    SELECT p.idPRENOTAZIONE, p.EVENTI_idEvento,
+           TRIM(SUBSTRING_INDEX(p.postiPrenotati, ',', 1)),
+           IF(LOCATE(',', p.postiPrenotati) > 0, SUBSTRING(p.postiPrenotati, LOCATE(',', p.postiPrenotati) + 1), NULL)
+    FROM prenotazione p
+    WHERE NOT EXISTS (SELECT 1 FROM prenotazione_posto pp WHERE pp.PRENOTAZIONE_idPRENOTAZIONE = p.idPRENOTAZIONE)
+    UNION ALL
+    SELECT idPRENOTAZIONE, idEvento,
+           TRIM(SUBSTRING_INDEX(resto, ',', 1)),
+           IF(LOCATE(',', resto) > 0, SUBSTRING(resto, LOCATE(',', resto) + 1), NULL)
+    FROM etichette
+    WHERE resto IS NOT NULL
+)
+SELECT et.idPRENOTAZIONE, et.idEvento,
+       (ASCII(UPPER(LEFT(et.etichetta, 1))) - ASCII('A')) * 10 + CAST(SUBSTRING(et.etichetta, 2) AS UNSIGNED),
+       e.costi
+FROM etichette et
+JOIN eventi e ON e.idEvento = et.idEvento
+WHERE et.etichetta REGEXP '^[A-Za-z][0-9]+$';
+
+-- Riepiloghi delle vendite per i database esistenti: totale per evento dai posti occupati,
+-- andamento giornaliero dai posti delle prenotazioni (giorno della prenotazione).
+-- Gli eventi e i giorni già presenti non vengono toccati.
+INSERT IGNORE INTO vendite_evento (EVENTI_idEvento, postiVenduti, incasso)
+SELECT e.idEvento, COUNT(*), COUNT(*) * e.costi
+FROM eventi e
+JOIN posti p ON p.EVENTI_idEvento = e.idEvento
+GROUP BY e.idEvento, e.costi;
+
+INSERT IGNORE INTO vendite_giorno (EVENTI_idEvento, giorno, postiVenduti, incasso)
+SELECT e.idEvento, STR_TO_DATE(pr.data, '%d-%m-%Y') AS giorno, COUNT(*), COUNT(*) * e.costi
+FROM prenotazione_posto pp
+JOIN prenotazione pr ON pr.idPRENOTAZIONE = pp.PRENOTAZIONE_idPRENOTAZIONE
+JOIN eventi e ON e.idEvento = pp.EVENTI_idEvento
+WHERE STR_TO_DATE(pr.data, '%d-%m-%Y') IS NOT NULL
+GROUP BY e.idEvento, giorno, e.costi;
+
+-- Tag strutturati per i database esistenti: tagTematici ("musica, jazz") diviso su virgola,
+-- punto e virgola e '#', in minuscolo; gli eventi che hanno già righe in evento_tag vengono saltati.
+-- Le tabelle tag ed evento_tag si creano eseguendo la sezione 2 (CREATE TABLE IF NOT EXISTS).
+INSERT IGNORE INTO tag (nome)
+WITH RECURSIVE pezzi (idEvento, tag, resto) AS (
+    SELECT e.idEvento,
+           LOWER(TRIM(SUBSTRING_INDEX(REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ','), ',', 1))),
+           IF(LOCATE(',', REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ',')) > 0,
+              SUBSTRING(REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ','), LOCATE(',', REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ',')) + 1), NULL)
+    FROM eventi e
+    WHERE e.tagTematici IS NOT NULL
+      AND NOT EXISTS (SELECT 1 FROM evento_tag et WHERE et.EVENTI_idEvento = e.idEvento)
+    UNION ALL
+    SELECT idEvento, LOWER(TRIM(SUBSTRING_INDEX(resto, ',', 1))),
+           IF(LOCATE(',', resto) > 0, SUBSTRING(resto, LOCATE(',', resto) + 1), NULL)
+    FROM pezzi
+    WHERE resto IS NOT NULL
+)
+SELECT DISTINCT tag FROM pezzi WHERE tag <> '';
+
+INSERT IGNORE INTO evento_tag (EVENTI_idEvento, TAG_idTAG)
+WITH RECURSIVE pezzi (idEvento, tag, resto) AS (
+    SELECT e.idEvento,
+           LOWER(TRIM(SUBSTRING_INDEX(REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ','), ',', 1))),
+           IF(LOCATE(',', REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ',')) > 0,
+              SUBSTRING(REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ','), LOCATE(',', REPLACE(REPLACE(e.tagTematici, ';', ','), '#', ',')) + 1), NULL)
+    FROM eventi e
+    WHERE e.tagTematici IS NOT NULL
+      AND NOT EXISTS (SELECT 1 FROM evento_tag et WHERE et.EVENTI_idEvento = e.idEvento)
+    UNION ALL
+    SELECT idEvento, LOWER(TRIM(SUBSTRING_INDEX(resto, ',', 1))),
+           IF(LOCATE(',', resto) > 0, SUBSTRING(resto, LOCATE(',', resto) + 1), NULL)
+    FROM pezzi
+    WHERE resto IS NOT NULL
+)
+SELECT p.idEvento, t.idTAG
+FROM pezzi p
+JOIN tag t ON t.nome = p.tag;
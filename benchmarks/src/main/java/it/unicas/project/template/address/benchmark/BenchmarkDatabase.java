@@ -0,0 +1,106 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.Cliente;
+import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.ClienteDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
+import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.ReferenceDataCache;
+
+import java.util.BitSet;
+
+/**
+ * Configurazione del database per i benchmark che usano i DAO.
+ *
+ * Le credenziali sono lette dalle variabili d'ambiente (ereditate dai fork di JMH e non riportate
+ * nei risultati JSON); quelle non impostate restano ai valori di default di {@link DAOMySQLSettings}:
+ * BIGLIETTERIA_DB_HOST, BIGLIETTERIA_DB_USER, BIGLIETTERIA_DB_PASSWORD, BIGLIETTERIA_DB_SCHEMA.
+ * Con BIGLIETTERIA_DB_PROFILO=embedded si usa invece un database H2 in memoria, creato dallo script
+ * del database (vedi EmbeddedDatabase): ogni fork di JMH ha il suo.
+ *
+ * I benchmark creano un cliente di prova e lo cancellano alla fine; l'evento usato va indicato
+ * con il parametro JMH idEvento (es. -p idEvento=3) e deve avere posti liberi.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Punta il pool dei DAO al database indicato dalle variabili d'ambiente.
+     */
+    static void configura() {
+        if (DAOMySQLSettings.PROFILO_EMBEDDED.equalsIgnoreCase(System.getenv("BIGLIETTERIA_DB_PROFILO"))) {
+            DAOMySQLSettings.setCurrentDAOMySQLSettings(DAOMySQLSettings.getEmbeddedDAOSettings("benchmark"));
+            return;
+        }
+        DAOMySQLSettings settings = DAOMySQLSettings.getDefaultDAOSettings();
+        settings.setHost(env("BIGLIETTERIA_DB_HOST", settings.getHost()));
+        settings.setUserName(env("BIGLIETTERIA_DB_USER", settings.getUserName()));
+        settings.setPwd(env("BIGLIETTERIA_DB_PASSWORD", settings.getPwd()));
+        settings.setSchema(env("BIGLIETTERIA_DB_SCHEMA", settings.getSchema()));
+        DAOMySQLSettings.setCurrentDAOMySQLSettings(settings);
+    }
+
+    /**
+     * Chiude il pool alla fine del benchmark.
+     */
+    static void chiudi() {
+        DAOMySQLSettings.closePool();
+    }
+
+    /**
+     * Crea un cliente di prova, con email univoca.
+     *
+     * @return cliente creato, con id
+     * @throws DAOException in caso di errore SQL
+     */
+    static Cliente creaCliente() throws DAOException {
+        String email = "bench-" + Long.toString(System.nanoTime(), 36) + "@example.invalid";
+        String password = "benchmark";
+        ClienteDAOMySQLImpl dao = (ClienteDAOMySQLImpl) ClienteDAOMySQLImpl.getInstance();
+        dao.insert(new Cliente("Benchmark", "JMH", "01-01-2000", email, password, null));
+        return dao.getClienteEmailPassword(email, password);
+    }
+
+    /**
+     * Cancella il cliente di prova (le sue prenotazioni vanno annullate prima).
+     *
+     * @param cliente cliente creato da {@link #creaCliente()}
+     * @throws DAOException in caso di errore SQL
+     */
+    static void eliminaCliente(Cliente cliente) throws DAOException {
+        if (cliente != null) {
+            ((ClienteDAOMySQLImpl) ClienteDAOMySQLImpl.getInstance()).delete(cliente);
+        }
+    }
+
+    /**
+     * @param idEvento id evento
+     * @return disposizione dei posti del luogo dell'evento
+     * @throws DAOException se l'evento non esiste o in caso di errore SQL
+     */
+    static SeatLayout layout(int idEvento) throws DAOException {
+        Evento evento = EventoDAOMySQLImpl.getInstance().selectById(idEvento);
+        if (evento == null) {
+            throw new DAOException("Evento " + idEvento + " inesistente: indicare un evento con -p idEvento=...");
+        }
+        return ReferenceDataCache.getInstance().getLayout(evento.getIdLuogoEvento());
+    }
+
+    /**
+     * @param layout disposizione dei posti
+     * @param occupati posti occupati
+     * @return numero di posti liberi
+     */
+    static int liberi(SeatLayout layout, BitSet occupati) {
+        return layout.getCapacity() - occupati.get(1, layout.getCapacity() + 1).cardinality();
+    }
+
+    private static String env(String nome, String defaultValue) {
+        String valore = System.getenv(nome);
+        return valore == null || valore.isEmpty() ? defaultValue : valore;
+    }
+}
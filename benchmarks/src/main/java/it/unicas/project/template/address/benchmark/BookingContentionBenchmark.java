@@ -0,0 +1,143 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.BookingResult;
+import it.unicas.project.template.address.model.Cliente;
+import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.BookingEngine;
+import it.unicas.project.template.address.model.dao.mysql.PrenotazioneDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.SeatInventory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acquirenti concorrenti sui posti di un solo evento, come nella mappa posti: ognuno sceglie
+ * a caso tra i posti che vede liberi e prenota con il {@link BookingEngine}.
+ *
+ * Per restare in regime stazionario, quando i posti liberi non bastano l'acquirente annulla
+ * la sua prenotazione più vecchia. I contatori riportano prenotazioni confermate, conflitti
+ * e annullamenti al secondo; il numero di acquirenti si cambia con -t.
+ * Alla fine tutte le prenotazioni create vengono annullate. Database e evento: vedi {@link BenchmarkDatabase}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class BookingContentionBenchmark {
+
+    /**
+     * Evento e cliente condivisi da tutti gli acquirenti.
+     */
+    @State(Scope.Benchmark)
+    public static class Sala {
+
+        @Param({"1"})
+        public int idEvento;
+
+        @Param({"2"})
+        public int postiPerPrenotazione;
+
+        SeatLayout layout;
+        Cliente cliente;
+
+        @Setup
+        public void setup() throws DAOException {
+            BenchmarkDatabase.configura();
+            layout = BenchmarkDatabase.layout(idEvento);
+            cliente = BenchmarkDatabase.creaCliente();
+        }
+
+        @TearDown
+        public void tearDown() throws DAOException {
+            BenchmarkDatabase.eliminaCliente(cliente);
+            BenchmarkDatabase.chiudi();
+        }
+    }
+
+    /**
+     * Prenotazioni ancora attive di un acquirente e contatori degli esiti.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Acquirente {
+
+        public long confermate;
+        public long conflitti;
+        public long annullate;
+
+        final Deque<Prenotazione> attive = new ArrayDeque<>();
+
+        @Setup(Level.Iteration)
+        public void azzera() {
+            confermate = 0;
+            conflitti = 0;
+            annullate = 0;
+        }
+
+        @TearDown(Level.Trial)
+        public void annullaTutte(Sala sala) throws DAOException {
+            // sala come parametro: il suo tearDown (che cancella il cliente) viene eseguito dopo
+            while (!attive.isEmpty()) {
+                PrenotazioneDAOMySQLImpl.getInstance().annulla(attive.poll());
+            }
+        }
+    }
+
+    @Benchmark
+    public void prenota(Sala sala, Acquirente acquirente) throws DAOException {
+        BitSet occupati = SeatInventory.getInstance().snapshot(sala.idEvento);
+        List<Integer> posti = postiCasuali(sala.layout, occupati, sala.postiPerPrenotazione);
+
+        if (posti.size() < sala.postiPerPrenotazione) {
+            if (!acquirente.attive.isEmpty()) {
+                PrenotazioneDAOMySQLImpl.getInstance().annulla(acquirente.attive.poll());
+                acquirente.annullate++;
+            }
+            return;
+        }
+
+        Prenotazione p = new Prenotazione(0, "01-01-2000", "00:00:00",
+                posti.toString(), sala.cliente.getId(), sala.idEvento, 1);
+        BookingResult esito = BookingEngine.getInstance().prenota(p, posti);
+        if (esito.isConfermata()) {
+            acquirente.attive.add(esito.getPrenotazione());
+            acquirente.confermate++;
+        } else {
+            acquirente.conflitti++;
+        }
+    }
+
+    private static List<Integer> postiCasuali(SeatLayout layout, BitSet occupati, int quanti) {
+        List<Integer> liberi = new ArrayList<>(BenchmarkDatabase.liberi(layout, occupati));
+        for (int id = occupati.nextClearBit(1); layout.contiene(id); id = occupati.nextClearBit(id + 1)) {
+            liberi.add(id);
+        }
+        Collections.shuffle(liberi, ThreadLocalRandom.current());
+        return new ArrayList<>(liberi.subList(0, Math.min(quanti, liberi.size())));
+    }
+}
@@ -0,0 +1,129 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.BookingResult;
+import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.BookingEngine;
+import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
+import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.PrenotazioneDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.SeatInventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark di throughput del {@link BookingEngine}: N acquirenti concorrenti si contendono
+ * i posti di un singolo evento finché non è esaurito.
+ *
+ * Richiede il database (vedi {@link BenchmarkDatabase}) e un evento senza posti prenotati;
+ * al termine cancella i posti e le prenotazioni creati.
+ *
+ * Uso: BookingEngineBenchmark idEvento idCliente [acquirenti=16] [postiPerPrenotazione=2] [capienza=50]
+ */
+public class BookingEngineBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Uso: BookingEngineBenchmark idEvento idCliente [acquirenti] [postiPerPrenotazione] [capienza]");
+            System.exit(1);
+        }
+
+        int idEvento = Integer.parseInt(args[0]);
+        int idCliente = Integer.parseInt(args[1]);
+        int acquirenti = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int postiPerPrenotazione = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int capienza = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+
+        BenchmarkDatabase.configura();
+
+        if (!EventoDAOMySQLImpl.getInstance().selectReservedSeats(idEvento).isEmpty()) {
+            System.err.println("L'evento " + idEvento + " ha già posti prenotati: usare un evento vuoto.");
+            System.exit(1);
+        }
+
+        List<Prenotazione> create = Collections.synchronizedList(new ArrayList<>());
+        List<Long> latenzeNanos = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger conflitti = new AtomicInteger();
+        AtomicInteger errori = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(acquirenti);
+        CountDownLatch via = new CountDownLatch(1);
+
+        for (int i = 0; i < acquirenti; i++) {
+            pool.submit(() -> {
+                via.await();
+                while (true) {
+                    // come dalla mappa posti: l'acquirente sceglie tra i posti che vede liberi
+                    List<Integer> posti = postiCasuali(SeatInventory.getInstance().snapshot(idEvento), capienza, postiPerPrenotazione);
+                    if (posti.size() < postiPerPrenotazione) {
+                        return null;
+                    }
+                    Prenotazione p = new Prenotazione(0, "01-01-2000", "00:00:00",
+                            posti.toString(), idCliente, idEvento, 1);
+
+                    long t0 = System.nanoTime();
+                    try {
+                        BookingResult esito = BookingEngine.getInstance().prenota(p, posti);
+                        latenzeNanos.add(System.nanoTime() - t0);
+                        if (esito.isConfermata()) {
+                            create.add(esito.getPrenotazione());
+                        } else {
+                            conflitti.incrementAndGet();
+                        }
+                    } catch (DAOException e) {
+                        if (errori.incrementAndGet() > 100) {
+                            return null; // database non raggiungibile: inutile insistere
+                        }
+                    }
+                }
+            });
+        }
+
+        long inizio = System.nanoTime();
+        via.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        double secondi = (System.nanoTime() - inizio) / 1e9;
+
+        long[] latenze = latenzeNanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(latenze);
+
+        System.out.printf("acquirenti=%d postiPerPrenotazione=%d capienza=%d%n", acquirenti, postiPerPrenotazione, capienza);
+        System.out.printf("prenotazioni=%d conflitti=%d errori=%d tempo=%.2fs%n", create.size(), conflitti.get(), errori.get(), secondi);
+        System.out.printf("throughput=%.1f tentativi/s, %.1f prenotazioni/s%n", latenze.length / secondi, create.size() / secondi);
+        if (latenze.length > 0) {
+            System.out.printf("latenza ms: p50=%.2f p99=%.2f max=%.2f%n",
+                    percentile(latenze, 0.50), percentile(latenze, 0.99), latenze[latenze.length - 1] / 1e6);
+        }
+
+        // Pulizia: l'annullamento libera i posti e riporta indietro il riepilogo delle vendite
+        for (Prenotazione p : create) {
+            PrenotazioneDAOMySQLImpl.getInstance().annulla(p);
+        }
+        DAOMySQLSettings.closePool();
+    }
+
+    private static List<Integer> postiCasuali(BitSet occupati, int capienza, int quanti) {
+        List<Integer> liberi = new ArrayList<>();
+        for (int s = 1; s <= capienza; s++) {
+            if (!occupati.get(s)) liberi.add(s);
+        }
+        Collections.shuffle(liberi, ThreadLocalRandom.current());
+        return new ArrayList<>(liberi.subList(0, Math.min(quanti, liberi.size())));
+    }
+
+    private static double percentile(long[] ordinati, double p) {
+        int i = (int) Math.ceil(p * ordinati.length) - 1;
+        return ordinati[Math.max(0, i)] / 1e6;
+    }
+}
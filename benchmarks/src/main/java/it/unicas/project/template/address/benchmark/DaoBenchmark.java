@@ -0,0 +1,107 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.BookingResult;
+import it.unicas.project.template.address.model.Cliente;
+import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.BookingEngine;
+import it.unicas.project.template.address.model.dao.mysql.ClienteDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.PrenotazioneDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.SeatInventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latenza dei DAO sui percorsi più usati: posti occupati di un evento, prenotazione completa
+ * (transazione del {@link BookingEngine} + annullamento) e login.
+ *
+ * Le scritture usano posti liberi dell'evento indicato e li liberano subito dopo, quindi
+ * l'evento torna com'era. Database e evento: vedi {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+    @Param({"1"})
+    public int idEvento;
+
+    @Param({"2"})
+    public int postiPerPrenotazione;
+
+    private Cliente cliente;
+    private List<Integer> posti;
+
+    @Setup
+    public void setup() throws DAOException {
+        BenchmarkDatabase.configura();
+        cliente = BenchmarkDatabase.creaCliente();
+
+        SeatLayout layout = BenchmarkDatabase.layout(idEvento);
+        BitSet occupati = SeatInventory.getInstance().snapshot(idEvento);
+        posti = new ArrayList<>();
+        for (int id = occupati.nextClearBit(1); layout.contiene(id) && posti.size() < postiPerPrenotazione;
+             id = occupati.nextClearBit(id + 1)) {
+            posti.add(id);
+        }
+        if (posti.size() < postiPerPrenotazione) {
+            throw new DAOException("L'evento " + idEvento + " non ha " + postiPerPrenotazione + " posti liberi");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws DAOException {
+        BenchmarkDatabase.eliminaCliente(cliente);
+        BenchmarkDatabase.chiudi();
+    }
+
+    @Benchmark
+    public List<Integer> selectReservedSeats() throws DAOException {
+        return EventoDAOMySQLImpl.getInstance().selectReservedSeats(idEvento);
+    }
+
+    /**
+     * Bitmap dei posti occupati usata dalla mappa: in memoria dopo il primo caricamento.
+     */
+    @Benchmark
+    public BitSet snapshotPosti() throws DAOException {
+        return SeatInventory.getInstance().snapshot(idEvento);
+    }
+
+    @Benchmark
+    public BookingResult prenotaEAnnulla() throws DAOException {
+        Prenotazione p = new Prenotazione(0, "01-01-2000", "00:00:00",
+                posti.toString(), cliente.getId(), idEvento, 1);
+        BookingResult esito = BookingEngine.getInstance().prenota(p, posti);
+        if (esito.isConfermata()) {
+            PrenotazioneDAOMySQLImpl.getInstance().annulla(esito.getPrenotazione());
+        }
+        return esito;
+    }
+
+    @Benchmark
+    public Cliente login() throws DAOException {
+        return ((ClienteDAOMySQLImpl) ClienteDAOMySQLImpl.getInstance())
+                .getClienteEmailPassword(cliente.getEmail(), cliente.getPassword());
+    }
+}
@@ -0,0 +1,105 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.Collaboratore;
+import it.unicas.project.template.address.model.EventImportReport;
+import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
+import it.unicas.project.template.address.model.dao.mysql.EventImporter;
+import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caricamento di una stagione di eventi (due serate al giorno su tre luoghi, un collaboratore ogni cinque
+ * eventi): un evento per volta con EventoDAOMySQLImpl.insert, come dalla creazione evento, oppure con
+ * EventImporter da CSV (controlli e disponibilità compresi) a blocchi di righePerCommit righe.
+ *
+ * Usa sempre un database H2 in memoria; ogni invocazione usa date nuove, per cui non ci sono conflitti.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventImportBenchmark {
+
+    @Param({"500"})
+    public int eventi;
+
+    @Param({"100"})
+    public int righePerCommit;
+
+    private LocalDate prossimaData;
+    private List<Collaboratore> collaboratori;
+
+    @Setup
+    public void setup() throws DAOException {
+        DAOMySQLSettings.setCurrentDAOMySQLSettings(DAOMySQLSettings.getEmbeddedDAOSettings("importazione"));
+        prossimaData = LocalDate.now().plusYears(1);
+        collaboratori = List.of(new Collaboratore(1, "", 0, "", 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        DAOMySQLSettings.closePool();
+    }
+
+    @Benchmark
+    public int unoAllaVolta() throws DAOException {
+        LocalDate primo = stagione();
+        for (int i = 0; i < eventi; i++) {
+            Evento e = new Evento(0, "Stagione " + i, "Serata in cartellone", BigDecimal.TEN,
+                    primo.plusDays(i / 2).toString(), orarioInizio(i), orarioFine(i), "stagione,musica", "",
+                    1, 1, 1 + i % 3);
+            EventoDAOMySQLImpl.getInstance().insert(e, i % 5 == 0 ? collaboratori : new ArrayList<>());
+        }
+        return eventi;
+    }
+
+    @Benchmark
+    public EventImportReport importazione() throws DAOException {
+        LocalDate primo = stagione();
+        StringBuilder csv = new StringBuilder("titolo,descrizione,costi,data,inizio,fine,tag,tipo,luogo,collaboratori\n");
+        for (int i = 0; i < eventi; i++) {
+            csv.append("Stagione ").append(i).append(",Serata in cartellone,10,").append(primo.plusDays(i / 2))
+                    .append(',').append(orarioInizio(i)).append(',').append(orarioFine(i))
+                    .append(",\"stagione,musica\",1,").append(1 + i % 3).append(',').append(i % 5 == 0 ? "1" : "")
+                    .append('\n');
+        }
+        return EventImporter.getInstance().importa(new StringReader(csv.toString()), EventImporter.Formato.CSV, 1, righePerCommit);
+    }
+
+    // Ogni invocazione occupa giorni nuovi
+    private LocalDate stagione() {
+        LocalDate primo = prossimaData;
+        prossimaData = prossimaData.plusDays(eventi / 2 + 1);
+        return primo;
+    }
+
+    private static String orarioInizio(int i) {
+        return i % 2 == 0 ? "18:00" : "21:00";
+    }
+
+    private static String orarioFine(int i) {
+        return i % 2 == 0 ? "20:30" : "23:00";
+    }
+}
@@ -0,0 +1,148 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.EventSearchResult;
+import it.unicas.project.template.address.model.EventoFiltro;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
+import it.unicas.project.template.address.model.dao.mysql.EventSearchIndex;
+import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ricerca testuale sugli eventi (EventoDAOMySQLImpl.cerca): parola esatta, prefisso, più parole
+ * e parola con tag richiesto, sui primi 20 risultati per rilevanza.
+ *
+ * Usa sempre un database H2 in memoria, riempito all'avvio con eventi sintetici (titoli, descrizioni
+ * e tag da un vocabolario fisso); il tempo comprende la ricerca sull'indice e la lettura dei 20 eventi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSearchBenchmark {
+
+    private static final int RISULTATI = 20;
+    private static final int RIGHE_PER_BATCH = 1000;
+
+    private static final String[] GENERI = {"Concerto", "Mostra", "Rassegna", "Spettacolo", "Conferenza",
+            "Festival", "Laboratorio", "Incontro", "Proiezione", "Degustazione"};
+    private static final String[] TEMI = {"jazz", "rock", "blues", "classica", "lirica", "fotografia",
+            "pittura", "scultura", "cinema", "documentari", "teatro", "cabaret", "scienza", "astronomia",
+            "letteratura", "poesia", "storia", "filosofia", "vino", "cucina", "danza", "elettronica",
+            "folk", "architettura", "design", "fumetti", "robotica", "ambiente", "viaggi", "sport"};
+    private static final String[] PAROLE = {"serata", "dedicata", "artisti", "locali", "internazionali",
+            "ospiti", "speciali", "ingresso", "libero", "guidata", "apertura", "straordinaria", "centro",
+            "storico", "giovani", "famiglie", "studenti", "nuova", "edizione", "programma", "dibattito",
+            "autori", "premiazione", "anteprima", "nazionale", "racconti", "percorso", "esperienza"};
+
+    @Param({"100000"})
+    public int eventi;
+
+    private EventoFiltro esatta;
+    private EventoFiltro prefisso;
+    private EventoFiltro piuParole;
+    private EventoFiltro conTag;
+
+    @Setup
+    public void setup() throws DAOException, SQLException {
+        DAOMySQLSettings.setCurrentDAOMySQLSettings(DAOMySQLSettings.getEmbeddedDAOSettings("ricerca"));
+        popola();
+
+        EventSearchIndex.getInstance().invalidateAll();
+        EventSearchIndex.getInstance().preload();
+
+        esatta = filtro("jazz", Set.of());
+        prefisso = filtro("fotog", Set.of());
+        piuParole = filtro("concerto blues serata", Set.of());
+        conTag = filtro("festival", Set.of("vino"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        DAOMySQLSettings.closePool();
+    }
+
+    @Benchmark
+    public EventSearchResult parolaEsatta() throws DAOException {
+        return EventoDAOMySQLImpl.getInstance().cerca(esatta, RISULTATI);
+    }
+
+    @Benchmark
+    public EventSearchResult prefisso() throws DAOException {
+        return EventoDAOMySQLImpl.getInstance().cerca(prefisso, RISULTATI);
+    }
+
+    @Benchmark
+    public EventSearchResult piuParole() throws DAOException {
+        return EventoDAOMySQLImpl.getInstance().cerca(piuParole, RISULTATI);
+    }
+
+    @Benchmark
+    public EventSearchResult parolaConTag() throws DAOException {
+        return EventoDAOMySQLImpl.getInstance().cerca(conTag, RISULTATI);
+    }
+
+    private static EventoFiltro filtro(String testo, Set<String> tag) {
+        EventoFiltro filtro = new EventoFiltro();
+        filtro.setTesto(testo);
+        filtro.setTag(tag);
+        return filtro;
+    }
+
+    // Eventi sintetici riproducibili: organizzazione, tipo e luogo sono quelli dello script del database
+    private void popola() throws SQLException {
+        String sql = "INSERT INTO eventi (titolo, descrizione, costi, dataEvento, orarioInizio, orarioFine, " +
+                "tagTematici, noteOrganizzative, TIPO_EVENTO_idTIPO_EVENTO, ORGANIZZAZIONE_idORGANIZZAZIONE, " +
+                "LUOGO_EVENTO_idLUOGO_EVENTO) VALUES (?, ?, 10, ?, '20:00:00', '22:00:00', ?, '', 1, 1, ?)";
+        Random random = new Random(42);
+        LocalDate primo = LocalDate.now();
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (int i = 1; i <= eventi; i++) {
+                String tema = TEMI[random.nextInt(TEMI.length)];
+                String altroTema = TEMI[random.nextInt(TEMI.length)];
+                StringBuilder descrizione = new StringBuilder();
+                for (int k = 0; k < 12; k++) {
+                    descrizione.append(PAROLE[random.nextInt(PAROLE.length)]).append(' ');
+                }
+                descrizione.append(altroTema);
+
+                ps.setString(1, GENERI[random.nextInt(GENERI.length)] + " " + tema + " " + i);
+                ps.setString(2, descrizione.toString());
+                ps.setString(3, primo.plusDays(random.nextInt(365)).toString());
+                ps.setString(4, tema + "," + altroTema);
+                ps.setInt(5, 1 + random.nextInt(4));
+                ps.addBatch();
+                if (i % RIGHE_PER_BATCH == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+}
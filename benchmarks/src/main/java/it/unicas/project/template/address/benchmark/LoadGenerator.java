@@ -0,0 +1,266 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.BookingResult;
+import it.unicas.project.template.address.model.Cliente;
+import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.BookingEngine;
+import it.unicas.project.template.address.model.dao.mysql.ClienteDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
+import it.unicas.project.template.address.model.dao.mysql.DaoMetrics;
+import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.PrenotazioneDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.ReferenceDataCache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generatore di carico: migliaia di acquirenti concorrenti (un thread ciascuno) ripetono la sessione
+ * tipica dell'applicazione sui DAO degli eventi e delle prenotazioni:
+ * elenco eventi, posti occupati dell'evento scelto, prenotazione, elenco delle proprie prenotazioni
+ * e, a volte, annullamento.
+ *
+ * Al termine stampa, per ogni operazione, throughput, errori e percentili di latenza, seguiti dalle
+ * metriche per metodo DAO di {@link DaoMetrics}; le prenotazioni ancora attive vengono annullate
+ * e i clienti di prova cancellati.
+ *
+ * Con il profilo embedded (default) usa un database H2 in memoria creato dallo script del database,
+ * quindi non serve MySQL; con il profilo mysql usa il database di {@link BenchmarkDatabase}.
+ *
+ * Uso: LoadGenerator [acquirenti=2000] [secondi=30] [connessioni=20] [profilo=embedded|mysql]
+ *      [postiPerPrenotazione=2] [annullamenti%=30] [pausaMs=0]
+ */
+public class LoadGenerator {
+
+    private static final int EVENTI_PER_PAGINA = 50;
+    private static final int PRENOTAZIONI_PER_PAGINA = 10;
+
+    public static void main(String[] args) throws Exception {
+        int acquirenti = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int secondi = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int connessioni = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String profilo = args.length > 3 ? args[3] : DAOMySQLSettings.PROFILO_EMBEDDED;
+        int postiPerPrenotazione = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        int percentualeAnnullamenti = args.length > 5 ? Integer.parseInt(args[5]) : 30;
+        long pausaMs = args.length > 6 ? Long.parseLong(args[6]) : 0;
+
+        // una riga di log per ogni query renderebbe il log il vero collo di bottiglia
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        DAOMySQLSettings settings;
+        if (DAOMySQLSettings.PROFILO_EMBEDDED.equalsIgnoreCase(profilo)) {
+            settings = DAOMySQLSettings.getEmbeddedDAOSettings("carico");
+        } else {
+            BenchmarkDatabase.configura();
+            settings = DAOMySQLSettings.getCurrentDAOMySQLSettings();
+        }
+        // con migliaia di acquirenti l'attesa di una connessione fa parte della latenza misurata
+        settings.setPoolMaxSize(connessioni);
+        settings.setPoolBorrowTimeoutMillis(TimeUnit.SECONDS.toMillis(60));
+        DAOMySQLSettings.setCurrentDAOMySQLSettings(settings);
+
+        List<Evento> eventi = EventoDAOMySQLImpl.getInstance().selectPage(null, null, EVENTI_PER_PAGINA);
+        if (eventi.isEmpty()) {
+            System.err.println("Nessun evento nel database.");
+            System.exit(1);
+        }
+        Map<Integer, SeatLayout> layouts = new LinkedHashMap<>();
+        for (Evento e : eventi) {
+            layouts.put(e.getId(), ReferenceDataCache.getInstance().getLayout(e.getIdLuogoEvento()));
+        }
+
+        System.out.printf("profilo=%s acquirenti=%d secondi=%d connessioni=%d eventi=%d%n",
+                profilo, acquirenti, secondi, connessioni, eventi.size());
+
+        List<Cliente> clienti = new ArrayList<>();
+        for (int i = 0; i < acquirenti; i++) {
+            clienti.add(BenchmarkDatabase.creaCliente());
+        }
+
+        Map<String, Latenze> operazioni = new LinkedHashMap<>();
+        for (String nome : new String[]{"elencoEventi", "postiOccupati", "prenota", "prenotazioniCliente", "annulla"}) {
+            operazioni.put(nome, new Latenze());
+        }
+        AtomicLong confermate = new AtomicLong();
+        AtomicLong conflitti = new AtomicLong();
+        AtomicLong esaurite = new AtomicLong();
+
+        AtomicBoolean fine = new AtomicBoolean(false);
+        CountDownLatch via = new CountDownLatch(1);
+        List<Deque<Prenotazione>> attivePerCliente = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (Cliente cliente : clienti) {
+            Deque<Prenotazione> attive = new ArrayDeque<>();
+            attivePerCliente.add(attive);
+
+            Thread t = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    via.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!fine.get()) {
+                    try {
+                        List<Evento> pagina = misura(operazioni.get("elencoEventi"),
+                                () -> EventoDAOMySQLImpl.getInstance().selectPage(null, null, EVENTI_PER_PAGINA));
+                        Evento evento = pagina.get(random.nextInt(pagina.size()));
+                        SeatLayout layout = layouts.get(evento.getId());
+
+                        List<Integer> occupati = misura(operazioni.get("postiOccupati"),
+                                () -> EventoDAOMySQLImpl.getInstance().selectReservedSeats(evento.getId()));
+
+                        List<Integer> posti = postiCasuali(layout, occupati, postiPerPrenotazione);
+                        if (posti.size() < postiPerPrenotazione) {
+                            esaurite.incrementAndGet();
+                        } else {
+                            Prenotazione p = new Prenotazione(0, "01-01-2000", "00:00:00",
+                                    posti.toString(), cliente.getId(), evento.getId(), 1);
+                            BookingResult esito = misura(operazioni.get("prenota"),
+                                    () -> BookingEngine.getInstance().prenota(p, posti));
+                            if (esito.isConfermata()) {
+                                confermate.incrementAndGet();
+                                attive.add(esito.getPrenotazione());
+                            } else {
+                                conflitti.incrementAndGet();
+                            }
+                        }
+
+                        misura(operazioni.get("prenotazioniCliente"),
+                                () -> PrenotazioneDAOMySQLImpl.getInstance().selectByCliente(cliente.getId(), null, PRENOTAZIONI_PER_PAGINA));
+
+                        if (!attive.isEmpty() && random.nextInt(100) < percentualeAnnullamenti) {
+                            Prenotazione daAnnullare = attive.poll();
+                            misura(operazioni.get("annulla"),
+                                    () -> PrenotazioneDAOMySQLImpl.getInstance().annulla(daAnnullare));
+                        }
+
+                        if (pausaMs > 0) {
+                            Thread.sleep(pausaMs);
+                        }
+                    } catch (DAOException e) {
+                        // già contato nelle statistiche dell'operazione: la sessione ricomincia
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "acquirente-" + cliente.getId());
+            threads.add(t);
+            t.start();
+        }
+
+        long inizio = System.nanoTime();
+        via.countDown();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(secondi));
+        fine.set(true);
+        for (Thread t : threads) {
+            t.join();
+        }
+        double durata = (System.nanoTime() - inizio) / 1e9;
+
+        System.out.printf("durata=%.1fs prenotazioni confermate=%d conflitti=%d eventi esauriti=%d%n",
+                durata, confermate.get(), conflitti.get(), esaurite.get());
+        System.out.printf("%-20s %10s %8s %9s %9s %9s %9s %9s%n",
+                "operazione", "op/s", "errori", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Latenze> e : operazioni.entrySet()) {
+            e.getValue().stampa(e.getKey(), durata);
+        }
+        System.out.println();
+        System.out.print(DaoMetrics.getInstance().report());
+
+        // Pulizia: annullamenti (liberano posti e riepiloghi) e clienti di prova
+        for (Deque<Prenotazione> attive : attivePerCliente) {
+            for (Prenotazione p : attive) {
+                PrenotazioneDAOMySQLImpl.getInstance().annulla(p);
+            }
+        }
+        ClienteDAOMySQLImpl clienteDao = (ClienteDAOMySQLImpl) ClienteDAOMySQLImpl.getInstance();
+        for (Cliente c : clienti) {
+            clienteDao.delete(c);
+        }
+        BenchmarkDatabase.chiudi();
+        System.exit(0);
+    }
+
+    /**
+     * Operazione DAO misurata.
+     */
+    private interface Operazione<T> {
+        T esegui() throws DAOException;
+    }
+
+    private static <T> T misura(Latenze latenze, Operazione<T> operazione) throws DAOException {
+        long t0 = System.nanoTime();
+        try {
+            T risultato = operazione.esegui();
+            latenze.aggiungi(System.nanoTime() - t0);
+            return risultato;
+        } catch (DAOException e) {
+            latenze.errore();
+            throw e;
+        }
+    }
+
+    private static List<Integer> postiCasuali(SeatLayout layout, List<Integer> occupati, int quanti) {
+        Set<Integer> presi = new HashSet<>(occupati);
+        List<Integer> liberi = new ArrayList<>();
+        for (int id = 1; id <= layout.getCapacity(); id++) {
+            if (!presi.contains(id)) liberi.add(id);
+        }
+        Collections.shuffle(liberi, ThreadLocalRandom.current());
+        return new ArrayList<>(liberi.subList(0, Math.min(quanti, liberi.size())));
+    }
+
+    /**
+     * Latenze di un'operazione (nanosecondi) ed errori, raccolti da tutti gli acquirenti.
+     */
+    private static final class Latenze {
+        private long[] valori = new long[1024];
+        private int n = 0;
+        private final AtomicLong errori = new AtomicLong();
+
+        synchronized void aggiungi(long nanos) {
+            if (n == valori.length) {
+                valori = Arrays.copyOf(valori, n * 2);
+            }
+            valori[n++] = nanos;
+        }
+
+        void errore() {
+            errori.incrementAndGet();
+        }
+
+        synchronized void stampa(String nome, double secondi) {
+            long[] ordinati = Arrays.copyOf(valori, n);
+            Arrays.sort(ordinati);
+            System.out.printf("%-20s %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", nome, n / secondi, errori.get(),
+                    percentile(ordinati, 0.50), percentile(ordinati, 0.90), percentile(ordinati, 0.99),
+                    percentile(ordinati, 0.999), n > 0 ? ordinati[n - 1] / 1e6 : 0);
+        }
+
+        private static double percentile(long[] ordinati, double p) {
+            if (ordinati.length == 0) return 0;
+            int i = (int) Math.ceil(p * ordinati.length) - 1;
+            return ordinati[Math.max(0, i)] / 1e6;
+        }
+    }
+}
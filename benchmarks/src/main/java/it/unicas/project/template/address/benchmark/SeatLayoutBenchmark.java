@@ -0,0 +1,101 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.SeatLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversioni id ↔ etichetta dei posti ({@link SeatLayout}): usate dalla mappa posti a ogni click,
+ * dalla ricevuta e dalla promozione dalla lista d'attesa. Non richiede il database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatLayoutBenchmark {
+
+    private static final int CAMPIONI = 1024;
+    private static final int POSTI_PER_PRENOTAZIONE = 6;
+
+    @Param({"100", "2600", "20000"})
+    public int capienza;
+
+    private SeatLayout layout;
+    private int[] ids;
+    private String[] etichette;
+    private List<Integer> selezione;
+
+    @Setup
+    public void setup() {
+        layout = SeatLayout.standard(capienza);
+
+        Random random = new Random(42);
+        ids = new int[CAMPIONI];
+        etichette = new String[CAMPIONI];
+        for (int i = 0; i < CAMPIONI; i++) {
+            ids[i] = 1 + random.nextInt(capienza);
+            // come arrivano dalla stringa postiPrenotati: minuscole e spazi inclusi
+            etichette[i] = " " + layout.getEtichetta(ids[i]).toLowerCase() + " ";
+        }
+
+        selezione = new ArrayList<>();
+        for (int i = 0; i < POSTI_PER_PRENOTAZIONE; i++) {
+            selezione.add(ids[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAMPIONI)
+    public void etichettaDaId(Blackhole bh) {
+        for (int id : ids) {
+            bh.consume(layout.getEtichetta(id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAMPIONI)
+    public void idDaEtichetta(Blackhole bh) {
+        for (String etichetta : etichette) {
+            bh.consume(layout.getId(etichetta));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAMPIONI)
+    public void posizioneNellaMappa(Blackhole bh) {
+        for (int id : ids) {
+            bh.consume(layout.getId(layout.getFila(id), layout.getColonna(id)));
+        }
+    }
+
+    /**
+     * Testo dei posti di una prenotazione (postiPrenotati, ricevuta).
+     */
+    @Benchmark
+    public String selezioneComeTesto() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int id : selezione) {
+            joiner.add(layout.getEtichetta(id));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package it.unicas.project.template.address.benchmark;
+
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.view.SeatCanvas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costruzione e aggiornamento della mappa posti: disposizione del luogo, mappa su Canvas
+ * (usata oltre i 500 posti) e aggiornamento dei posti occupati dopo una variazione.
+ *
+ * Il Canvas non richiede lo Stage, ma serve il modulo grafico di JavaFX; la mappa con un
+ * ToggleButton per posto non è misurata perché i controlli richiedono il toolkit avviato.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatMapBenchmark {
+
+    private static final double CELLA = 18;
+
+    @Param({"600", "5000", "20000"})
+    public int capienza;
+
+    // Posti che cambiano stato a ogni aggiornamento (prenotazioni e annullamenti arrivati insieme)
+    @Param({"10"})
+    public int variazioni;
+
+    private SeatLayout layout;
+    private SeatCanvas canvas;
+    private BitSet occupatiA;
+    private BitSet occupatiB;
+    private boolean alterna;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        layout = SeatLayout.standard(capienza);
+        canvas = new SeatCanvas(layout, CELLA);
+
+        // metà sala occupata, poi "variazioni" posti che cambiano stato
+        Random random = new Random(42);
+        occupatiA = new BitSet(capienza + 1);
+        for (int id = 1; id <= capienza; id++) {
+            if (random.nextBoolean()) occupatiA.set(id);
+        }
+        occupatiB = (BitSet) occupatiA.clone();
+        for (int i = 0; i < variazioni; i++) {
+            occupatiB.flip(1 + random.nextInt(capienza));
+        }
+        canvas.setOccupati(occupatiA);
+    }
+
+    @Benchmark
+    public SeatLayout costruisciLayout() {
+        return SeatLayout.standard(capienza);
+    }
+
+    @Benchmark
+    public SeatCanvas costruisciMappa() {
+        return new SeatCanvas(layout, CELLA);
+    }
+
+    /**
+     * Aggiornamento dopo una variazione: solo i posti cambiati vengono ridisegnati.
+     */
+    @Benchmark
+    public void aggiornaOccupati() {
+        alterna = !alterna;
+        canvas.setOccupati(alterna ? occupatiB : occupatiA);
+    }
+}
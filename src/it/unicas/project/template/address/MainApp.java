@@ -5,6 +5,14 @@ import java.util.Optional;
 import it.unicas.project.template.address.model.Cliente;
 import it.unicas.project.template.address.model.Evento;
 import it.unicas.project.template.address.model.Organizzazione;
+import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
+import it.unicas.project.template.address.model.dao.mysql.AsyncDAO;
+import it.unicas.project.template.address.model.dao.mysql.DaoMetrics;
+import it.unicas.project.template.address.model.dao.mysql.EventSearchIndex;
+import it.unicas.project.template.address.model.dao.mysql.ReferenceDataCache;
+import it.unicas.project.template.address.model.dao.mysql.SchedulingEngine;
+import it.unicas.project.template.address.model.dao.mysql.SeatEventBus;
+import it.unicas.project.template.address.model.dao.mysql.SeatHoldManager;
 import it.unicas.project.template.address.view.*;
 import javafx.application.Application;
 import javafx.event.EventHandler;
@@ -80,6 +88,46 @@ public class MainApp extends Application {
 
         initLoginRegisterLayout();
         primaryStage.show();
+
+        // Tabelle di riferimento (luoghi e tipi) caricate in background mentre si mostra il login
+        AsyncDAO.getInstance().submit(() -> {
+            ReferenceDataCache.getInstance().preload();
+            return null;
+        }).exceptionally(ex -> {
+            System.err.println("Precaricamento tabelle di riferimento non riuscito: " + ex.getMessage());
+            return null;
+        });
+        // Indice di ricerca e disponibilità di luoghi e collaboratori, così la prima ricerca dalla dashboard
+        // e la prima scelta degli orari di un evento non attendono la lettura delle tabelle
+        AsyncDAO.getInstance().submit(() -> {
+            EventSearchIndex.getInstance().preload();
+            return null;
+        }).exceptionally(ex -> {
+            System.err.println("Costruzione dell'indice di ricerca non riuscita: " + ex.getMessage());
+            return null;
+        });
+        AsyncDAO.getInstance().submit(() -> {
+            SchedulingEngine.getInstance().preload();
+            return null;
+        }).exceptionally(ex -> {
+            System.err.println("Caricamento delle disponibilità non riuscito: " + ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Metodo chiamato da JavaFX alla chiusura dell'applicazione.
+     * Stampa le statistiche di cache e DAO, ferma le query in background, rilascia le hold sui posti
+     * e chiude il pool di connessioni al database.
+     */
+    @Override
+    public void stop() {
+        System.out.println(ReferenceDataCache.getInstance().getStatistiche());
+        System.out.print(DaoMetrics.getInstance().report());
+        AsyncDAO.shutdown();
+        SeatHoldManager.shutdown();
+        SeatEventBus.shutdown();
+        DAOMySQLSettings.closePool();
     }
 
     /**
@@ -101,6 +149,10 @@ public class MainApp extends Application {
         // showAndWait ritorna l'optional del bottone cliccato dall'utente
         Optional<ButtonType> result = alert.showAndWait();
         if (result.get() == buttonTypeOne){
+            AsyncDAO.shutdown();
+            SeatHoldManager.shutdown();
+            SeatEventBus.shutdown();
+            DAOMySQLSettings.closePool();
             System.exit(0);
         }
     }
@@ -0,0 +1,95 @@
+package it.unicas.project.template.address.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Esito di una richiesta di prenotazione di più posti.
+ * Se la prenotazione è confermata contiene la Prenotazione salvata (con id generato);
+ * altrimenti contiene l'elenco dei posti già presi da altri, così la UI può chiedere
+ * all'utente di sostituire solo quelli.
+ */
+public class BookingResult {
+
+    /******************************************
+     VARIABILI DI ISTANZA
+     ********************************************/
+
+    private final boolean confermata;
+    private final Prenotazione prenotazione;
+    private final List<Integer> postiConfermati;
+    private final List<Integer> postiInConflitto;
+
+    /******************************************
+     COSTRUTTORI
+     ********************************************/
+
+    private BookingResult(boolean confermata, Prenotazione prenotazione,
+                          List<Integer> postiConfermati, List<Integer> postiInConflitto) {
+        this.confermata = confermata;
+        this.prenotazione = prenotazione;
+        this.postiConfermati = Collections.unmodifiableList(postiConfermati);
+        this.postiInConflitto = Collections.unmodifiableList(postiInConflitto);
+    }
+
+    /**
+     * Esito positivo: tutti i posti sono stati riservati e la prenotazione salvata.
+     *
+     * @param prenotazione prenotazione salvata
+     * @param posti id dei posti riservati
+     * @return esito confermato
+     */
+    public static BookingResult confermata(Prenotazione prenotazione, List<Integer> posti) {
+        return new BookingResult(true, prenotazione, posti, Collections.emptyList());
+    }
+
+    /**
+     * Esito negativo: almeno un posto era già occupato, nessuna modifica è stata salvata.
+     *
+     * @param postiLiberi posti richiesti che erano ancora liberi
+     * @param postiInConflitto posti richiesti già presi da altri
+     * @return esito con conflitti
+     */
+    public static BookingResult conflitto(List<Integer> postiLiberi, List<Integer> postiInConflitto) {
+        return new BookingResult(false, null, postiLiberi, postiInConflitto);
+    }
+
+    /******************************************
+     GET METHODS
+     ********************************************/
+
+    /**
+     * @return true se la prenotazione è stata salvata
+     */
+    public boolean isConfermata() {
+        return confermata;
+    }
+
+    /**
+     * @return prenotazione salvata, null in caso di conflitto
+     */
+    public Prenotazione getPrenotazione() {
+        return prenotazione;
+    }
+
+    /**
+     * @return posti riservati (se confermata) oppure posti ancora liberi tra quelli richiesti
+     */
+    public List<Integer> getPostiConfermati() {
+        return postiConfermati;
+    }
+
+    /**
+     * @return posti già occupati da altri (vuota se confermata)
+     */
+    public List<Integer> getPostiInConflitto() {
+        return postiInConflitto;
+    }
+
+    @Override
+    public String toString() {
+        return confermata
+                ? "BookingResult{confermata, posti=" + postiConfermati + "}"
+                : "BookingResult{conflitto, posti occupati=" + postiInConflitto + "}";
+    }
+}
@@ -0,0 +1,102 @@
+package it.unicas.project.template.address.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Esito di un'importazione massiva di eventi da file (CSV o JSON).
+ * Contiene gli id degli eventi salvati e, per ogni riga scartata, il numero di riga nel file
+ * e il motivo (dato non valido, luogo o collaboratore già occupato, errore di scrittura).
+ */
+public class EventImportReport {
+
+    /**
+     * Riga del file non importata.
+     */
+    public static class Errore {
+
+        private final int riga;
+        private final String messaggio;
+
+        /**
+         * @param riga numero di riga nel file (la prima è 1)
+         * @param messaggio motivo dello scarto
+         */
+        public Errore(int riga, String messaggio) {
+            this.riga = riga;
+            this.messaggio = messaggio;
+        }
+
+        /**
+         * @return numero di riga nel file (la prima è 1)
+         */
+        public int getRiga() {
+            return riga;
+        }
+
+        /**
+         * @return motivo dello scarto
+         */
+        public String getMessaggio() {
+            return messaggio;
+        }
+
+        @Override
+        public String toString() {
+            return "riga " + riga + ": " + messaggio;
+        }
+    }
+
+    /******************************************
+     VARIABILI DI ISTANZA
+     ********************************************/
+
+    private final int righeLette;
+    private final List<Integer> idImportati;
+    private final List<Errore> errori;
+
+    /******************************************
+     COSTRUTTORI
+     ********************************************/
+
+    /**
+     * @param righeLette eventi letti dal file
+     * @param idImportati id degli eventi salvati, nell'ordine del file
+     * @param errori righe scartate, nell'ordine del file
+     */
+    public EventImportReport(int righeLette, List<Integer> idImportati, List<Errore> errori) {
+        this.righeLette = righeLette;
+        this.idImportati = Collections.unmodifiableList(idImportati);
+        this.errori = Collections.unmodifiableList(errori);
+    }
+
+    /******************************************
+     GET METHODS
+     ********************************************/
+
+    /**
+     * @return eventi letti dal file
+     */
+    public int getRigheLette() {
+        return righeLette;
+    }
+
+    /**
+     * @return id degli eventi salvati
+     */
+    public List<Integer> getIdImportati() {
+        return idImportati;
+    }
+
+    /**
+     * @return righe scartate con il motivo
+     */
+    public List<Errore> getErrori() {
+        return errori;
+    }
+
+    @Override
+    public String toString() {
+        return "EventImportReport{lette=" + righeLette + ", importate=" + idImportati.size() + ", errori=" + errori.size() + "}";
+    }
+}
@@ -0,0 +1,48 @@
+package it.unicas.project.template.address.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Risultato di una ricerca testuale sugli eventi: i primi eventi in ordine di rilevanza,
+ * il numero totale di eventi trovati e i tag più frequenti tra questi (faccette).
+ */
+public class EventSearchResult {
+
+    private final List<Evento> eventi;
+    private final int totale;
+    private final Map<String, Integer> tag;
+
+    /**
+     * @param eventi eventi trovati, dal più rilevante
+     * @param totale numero di eventi che soddisfano la ricerca (anche oltre quelli restituiti)
+     * @param tag tag → numero di eventi trovati con quel tag, dal più frequente
+     */
+    public EventSearchResult(List<Evento> eventi, int totale, Map<String, Integer> tag) {
+        this.eventi = Collections.unmodifiableList(eventi);
+        this.totale = totale;
+        this.tag = Collections.unmodifiableMap(tag);
+    }
+
+    /**
+     * @return eventi trovati, dal più rilevante (senza descrizione e note)
+     */
+    public List<Evento> getEventi() {
+        return eventi;
+    }
+
+    /**
+     * @return numero di eventi che soddisfano la ricerca
+     */
+    public int getTotale() {
+        return totale;
+    }
+
+    /**
+     * @return tag → numero di eventi trovati con quel tag, dal più frequente
+     */
+    public Map<String, Integer> getTag() {
+        return tag;
+    }
+}
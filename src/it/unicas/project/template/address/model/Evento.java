@@ -2,6 +2,8 @@ package it.unicas.project.template.address.model;
 
 import com.mysql.cj.x.protobuf.MysqlxDatatypes;
 import javafx.beans.property.*;
+
+import java.math.BigDecimal;
 import it.unicas.project.template.address.model.Luogo;
 
 /**
@@ -17,7 +19,7 @@ public class Evento {
     private final IntegerProperty id;
     private final StringProperty titolo;
     private final StringProperty descrizione;
-    private final StringProperty costi;
+    private final ObjectProperty<BigDecimal> costi;
     private final StringProperty dataEvento;
     private final StringProperty orarioInizio;
     private final StringProperty orarioFine;
@@ -37,7 +39,7 @@ public class Evento {
      * @param id identificatore evento
      * @param titolo titolo descrittivo
      * @param descrizione descrizione dell'evento
-     * @param costi costi/ prezzo rappresentato come String (es. "€10")
+     * @param costi prezzo di un posto in euro (due decimali)
      * @param dataEvento data dell'evento (String)
      * @param orarioInizio orario di inizio (String)
      * @param orarioFine orario di fine (String)
@@ -50,7 +52,7 @@ public class Evento {
     public Evento(int id,
                   String titolo,
                   String descrizione,
-                  String costi,
+                  BigDecimal costi,
                   String dataEvento,
                   String orarioInizio,
                   String orarioFine,
@@ -63,7 +65,7 @@ public class Evento {
         this.id = new SimpleIntegerProperty(id);
         this.titolo = new SimpleStringProperty(titolo);
         this.descrizione = new SimpleStringProperty(descrizione);
-        this.costi = new SimpleStringProperty(costi);
+        this.costi = new SimpleObjectProperty<>(costi);
         this.dataEvento = new SimpleStringProperty(dataEvento);
         this.orarioInizio = new SimpleStringProperty(orarioInizio);
         this.orarioFine = new SimpleStringProperty(orarioFine);
@@ -136,23 +138,23 @@ public class Evento {
     public StringProperty descrizioneProperty() {return descrizione;}
 
     /**
-     * Restituisce i costi (String).
+     * Restituisce il prezzo di un posto.
      *
-     * @return costi
+     * @return costi in euro
      */
-    public String getCosti() {return costi.get();}
+    public BigDecimal getCosti() {return costi.get();}
     /**
-     * Imposta i costi.
+     * Imposta il prezzo di un posto.
      *
-     * @param costi costi come String
+     * @param costi costi in euro
      */
-    public void setCosti(String costi) {this.costi.set(costi);}
+    public void setCosti(BigDecimal costi) {this.costi.set(costi);}
     /**
      * Proprietà JavaFX dei costi.
      *
-     * @return StringProperty costi
+     * @return ObjectProperty costi
      */
-    public StringProperty costiProperty() {return costi;}
+    public ObjectProperty<BigDecimal> costiProperty() {return costi;}
 
     /**
      * Restituisce la data dell'evento.
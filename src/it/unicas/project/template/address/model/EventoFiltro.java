@@ -0,0 +1,143 @@
+package it.unicas.project.template.address.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Criteri di ricerca degli eventi, applicati direttamente nella query
+ * (vedi EventoDAOMySQLImpl.selectPage). Un campo null non filtra.
+ */
+public class EventoFiltro {
+
+    /******************************************
+     VARIABILI DI ISTANZA
+     ********************************************/
+
+    private Integer idLuogo;
+    private Integer idOrganizzazione;
+    private LocalDate dataDa;
+    private LocalDate dataA;
+    private LocalDateTime inizioDopo;
+    private String testo;
+    private Set<String> tag = Collections.emptySet();
+    private boolean tuttiITag = true;
+
+    /******************************************
+     GETTER E SETTER
+     ********************************************/
+
+    /**
+     * @return id del luogo, null per tutti i luoghi
+     */
+    public Integer getIdLuogo() {
+        return idLuogo;
+    }
+
+    /**
+     * @param idLuogo id del luogo, null per tutti i luoghi
+     */
+    public void setIdLuogo(Integer idLuogo) {
+        this.idLuogo = idLuogo;
+    }
+
+    /**
+     * @return id dell'organizzazione, null per tutte
+     */
+    public Integer getIdOrganizzazione() {
+        return idOrganizzazione;
+    }
+
+    /**
+     * @param idOrganizzazione id dell'organizzazione, null per tutte
+     */
+    public void setIdOrganizzazione(Integer idOrganizzazione) {
+        this.idOrganizzazione = idOrganizzazione;
+    }
+
+    /**
+     * @return prima data ammessa (inclusa)
+     */
+    public LocalDate getDataDa() {
+        return dataDa;
+    }
+
+    /**
+     * @param dataDa prima data ammessa (inclusa)
+     */
+    public void setDataDa(LocalDate dataDa) {
+        this.dataDa = dataDa;
+    }
+
+    /**
+     * @return ultima data ammessa (inclusa)
+     */
+    public LocalDate getDataA() {
+        return dataA;
+    }
+
+    /**
+     * @param dataA ultima data ammessa (inclusa)
+     */
+    public void setDataA(LocalDate dataA) {
+        this.dataA = dataA;
+    }
+
+    /**
+     * @return istante minimo di inizio dell'evento (esclude gli eventi già iniziati)
+     */
+    public LocalDateTime getInizioDopo() {
+        return inizioDopo;
+    }
+
+    /**
+     * @param inizioDopo istante minimo di inizio dell'evento
+     */
+    public void setInizioDopo(LocalDateTime inizioDopo) {
+        this.inizioDopo = inizioDopo;
+    }
+
+    /**
+     * @return testo cercato nel titolo (per la ricerca testuale: titolo, descrizione e tag)
+     */
+    public String getTesto() {
+        return testo;
+    }
+
+    /**
+     * @param testo testo cercato nel titolo (vuoto o null per non filtrare)
+     */
+    public void setTesto(String testo) {
+        this.testo = testo;
+    }
+
+    /**
+     * @return tag richiesti (tutti o almeno uno, vedi isTuttiITag), usati dalla ricerca testuale (EventoDAOMySQLImpl.cerca)
+     */
+    public Set<String> getTag() {
+        return tag;
+    }
+
+    /**
+     * @param tag tag richiesti; null o vuoto per non filtrare
+     */
+    public void setTag(Set<String> tag) {
+        this.tag = tag != null ? new LinkedHashSet<>(tag) : Collections.emptySet();
+    }
+
+    /**
+     * @return true se gli eventi devono avere tutti i tag richiesti, false se ne basta uno
+     */
+    public boolean isTuttiITag() {
+        return tuttiITag;
+    }
+
+    /**
+     * @param tuttiITag true per richiedere tutti i tag (default), false per almeno uno
+     */
+    public void setTuttiITag(boolean tuttiITag) {
+        this.tuttiITag = tuttiITag;
+    }
+}
@@ -0,0 +1,108 @@
+package it.unicas.project.template.address.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Riepilogo degli incassi degli eventi passati di un'organizzazione per categoria (tipo di evento),
+ * calcolato dal database con un'unica query aggregata. La riga con idTipoEvento = -1 è il totale.
+ */
+public class IncassiCategoria {
+
+    /******************************************
+     VARIABILI DI ISTANZA
+     ********************************************/
+
+    private final int idTipoEvento;
+    private final String categoria;
+    private final int eventi;
+    private final int postiVenduti;
+    private final BigDecimal incasso;
+    private final BigDecimal incassoMedio;
+    private final BigDecimal prezzoMedio;
+
+    /******************************************
+     COSTRUTTORE
+     ********************************************/
+
+    /**
+     * Costruttore del riepilogo di una categoria.
+     *
+     * @param idTipoEvento id del tipo di evento, -1 per il totale
+     * @param categoria nome della categoria
+     * @param eventi numero di eventi
+     * @param postiVenduti posti venduti
+     * @param incasso incasso totale
+     * @param incassoMedio incasso medio per evento
+     * @param prezzoMedio prezzo medio di un posto
+     */
+    public IncassiCategoria(int idTipoEvento, String categoria, int eventi, int postiVenduti,
+                            BigDecimal incasso, BigDecimal incassoMedio, BigDecimal prezzoMedio) {
+        this.idTipoEvento = idTipoEvento;
+        this.categoria = categoria;
+        this.eventi = eventi;
+        this.postiVenduti = postiVenduti;
+        this.incasso = incasso;
+        this.incassoMedio = incassoMedio;
+        this.prezzoMedio = prezzoMedio;
+    }
+
+    /******************************************
+     GET METHODS
+     ********************************************/
+
+    /**
+     * @return id del tipo di evento, -1 per il totale
+     */
+    public int getIdTipoEvento() {
+        return idTipoEvento;
+    }
+
+    /**
+     * @return true se la riga è il totale di tutte le categorie
+     */
+    public boolean isTotale() {
+        return idTipoEvento < 0;
+    }
+
+    /**
+     * @return nome della categoria
+     */
+    public String getCategoria() {
+        return categoria;
+    }
+
+    /**
+     * @return numero di eventi
+     */
+    public int getEventi() {
+        return eventi;
+    }
+
+    /**
+     * @return posti venduti
+     */
+    public int getPostiVenduti() {
+        return postiVenduti;
+    }
+
+    /**
+     * @return incasso totale
+     */
+    public BigDecimal getIncasso() {
+        return incasso;
+    }
+
+    /**
+     * @return incasso medio per evento
+     */
+    public BigDecimal getIncassoMedio() {
+        return incassoMedio;
+    }
+
+    /**
+     * @return prezzo medio di un posto
+     */
+    public BigDecimal getPrezzoMedio() {
+        return prezzoMedio;
+    }
+}
@@ -0,0 +1,89 @@
+package it.unicas.project.template.address.model;
+
+/**
+ * Evento con i dati di occupazione necessari al calendario:
+ * nome e capienza del luogo e numero di posti già prenotati.
+ * Viene letto con un'unica query raggruppata per tutti gli eventi di un periodo.
+ */
+public class OccupazioneEvento {
+
+    /******************************************
+     VARIABILI DI ISTANZA
+     ********************************************/
+
+    private final Evento evento;
+    private final String nomeLuogo;
+    private final int maxPosti;
+    private final int postiPrenotati;
+
+    /******************************************
+     COSTRUTTORE
+     ********************************************/
+
+    /**
+     * Costruttore dell'occupazione di un evento.
+     *
+     * @param evento evento
+     * @param nomeLuogo nome del luogo (null se il luogo non esiste)
+     * @param maxPosti capienza del luogo
+     * @param postiPrenotati posti prenotati per l'evento
+     */
+    public OccupazioneEvento(Evento evento, String nomeLuogo, int maxPosti, int postiPrenotati) {
+        this.evento = evento;
+        this.nomeLuogo = nomeLuogo;
+        this.maxPosti = maxPosti;
+        this.postiPrenotati = postiPrenotati;
+    }
+
+    /******************************************
+     GET METHODS
+     ********************************************/
+
+    /**
+     * @return evento
+     */
+    public Evento getEvento() {
+        return evento;
+    }
+
+    /**
+     * @return id dell'evento
+     */
+    public int getIdEvento() {
+        return evento.getId();
+    }
+
+    /**
+     * @return nome del luogo, null se il luogo non esiste
+     */
+    public String getNomeLuogo() {
+        return nomeLuogo;
+    }
+
+    /**
+     * @return capienza del luogo
+     */
+    public int getMaxPosti() {
+        return maxPosti;
+    }
+
+    /**
+     * @return posti prenotati
+     */
+    public int getPostiPrenotati() {
+        return postiPrenotati;
+    }
+
+    /**
+     * @return true se restano posti liberi
+     */
+    public boolean isDisponibile() {
+        return postiPrenotati < maxPosti;
+    }
+
+    @Override
+    public String toString() {
+        return "OccupazioneEvento{evento=" + getIdEvento() + ", luogo=" + nomeLuogo +
+                ", posti=" + postiPrenotati + "/" + maxPosti + "}";
+    }
+}
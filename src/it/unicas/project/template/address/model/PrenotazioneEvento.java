@@ -0,0 +1,72 @@
+package it.unicas.project.template.address.model;
+
+/**
+ * Prenotazione di un cliente con i dati dell'evento e del luogo mostrati nel profilo utente.
+ * Viene letta con un'unica query che unisce prenotazione, evento e luogo.
+ */
+public class PrenotazioneEvento {
+
+    /******************************************
+     VARIABILI DI ISTANZA
+     ********************************************/
+
+    private final Prenotazione prenotazione;
+    private final Evento evento;
+    private final String nomeLuogo;
+
+    /******************************************
+     COSTRUTTORE
+     ********************************************/
+
+    /**
+     * Costruttore della prenotazione con i dati dell'evento.
+     *
+     * @param prenotazione prenotazione
+     * @param evento evento prenotato, senza descrizione e note (null se l'evento non esiste più)
+     * @param nomeLuogo nome del luogo dell'evento (null se non disponibile)
+     */
+    public PrenotazioneEvento(Prenotazione prenotazione, Evento evento, String nomeLuogo) {
+        this.prenotazione = prenotazione;
+        this.evento = evento;
+        this.nomeLuogo = nomeLuogo;
+    }
+
+    /******************************************
+     GET METHODS
+     ********************************************/
+
+    /**
+     * @return prenotazione
+     */
+    public Prenotazione getPrenotazione() {
+        return prenotazione;
+    }
+
+    /**
+     * @return id della prenotazione
+     */
+    public Integer getIdPrenotazione() {
+        return prenotazione.getIdPrenotazione();
+    }
+
+    /**
+     * @return evento prenotato, null se non esiste più
+     */
+    public Evento getEvento() {
+        return evento;
+    }
+
+    /**
+     * @return nome del luogo dell'evento, null se non disponibile
+     */
+    public String getNomeLuogo() {
+        return nomeLuogo;
+    }
+
+    @Override
+    public String toString() {
+        return "PrenotazioneEvento{prenotazione=" + getIdPrenotazione() +
+                ", evento=" + (evento == null ? prenotazione.getEventoId() : evento.getTitolo()) +
+                ", luogo=" + nomeLuogo + "}";
+    }
+}
@@ -2,9 +2,12 @@ package it.unicas.project.template.address.model;
 
 import javafx.beans.property.*;
 
+import java.math.BigDecimal;
+
 /**
  * Classe usata per rappresentare un report delle vendite per un dato evento:
- * contiene id evento, titolo, data, posti venduti e costo totale/posto.
+ * contiene id evento, titolo, data, posti venduti, costo per posto e incasso.
+ * Posti venduti e incasso sono letti dal riepilogo 'vendite_evento', aggiornato a ogni vendita.
  */
 public class ReportEventoVendite {
 
@@ -16,7 +19,8 @@ public class ReportEventoVendite {
     private final StringProperty titolo;
     private final StringProperty dataEvento;
     private final IntegerProperty postiVenduti;
-    private final IntegerProperty costoPosti;
+    private final ObjectProperty<BigDecimal> costoPosti;
+    private final ObjectProperty<BigDecimal> incasso;
 
     /******************************************
      COSTRUTTORE
@@ -29,19 +33,22 @@ public class ReportEventoVendite {
      * @param titolo titolo dell'evento
      * @param dataEvento data dell'evento
      * @param postiVenduti numero di posti venduti
-     * @param costoPosti costo totale o costo riferito ai posti (dipende dalla query che popola il modello)
+     * @param costoPosti costo attuale di un posto
+     * @param incasso incasso dei posti venduti, ciascuno al prezzo del momento della vendita
      */
     public ReportEventoVendite(int idEvento,
                                String titolo,
                                String dataEvento,
                                int postiVenduti,
-                               int costoPosti) {
+                               BigDecimal costoPosti,
+                               BigDecimal incasso) {
 
         this.idEvento = new SimpleIntegerProperty(idEvento);
         this.titolo = new SimpleStringProperty(titolo);
         this.dataEvento = new SimpleStringProperty(dataEvento);
         this.postiVenduti = new SimpleIntegerProperty(postiVenduti);
-        this.costoPosti = new SimpleIntegerProperty(costoPosti);
+        this.costoPosti = new SimpleObjectProperty<>(costoPosti);
+        this.incasso = new SimpleObjectProperty<>(incasso);
     }
 
     /******************************************
@@ -164,7 +171,7 @@ public class ReportEventoVendite {
      *
      * @return costoPosti
      */
-    public int getCostoPosti() {
+    public BigDecimal getCostoPosti() {
         return costoPosti.get();
     }
 
@@ -173,16 +180,43 @@ public class ReportEventoVendite {
      *
      * @param costoPosti costo
      */
-    public void setCostoPosti(int costoPosti) {
+    public void setCostoPosti(BigDecimal costoPosti) {
         this.costoPosti.set(costoPosti);
     }
 
     /**
      * Proprietà JavaFX del costo posti.
      *
-     * @return IntegerProperty costoPosti
+     * @return ObjectProperty costoPosti
      */
-    public IntegerProperty costoPostiProperty() {
+    public ObjectProperty<BigDecimal> costoPostiProperty() {
         return costoPosti;
     }
+
+    /**
+     * Restituisce l'incasso dei posti venduti.
+     *
+     * @return incasso
+     */
+    public BigDecimal getIncasso() {
+        return incasso.get();
+    }
+
+    /**
+     * Imposta l'incasso dei posti venduti.
+     *
+     * @param incasso incasso
+     */
+    public void setIncasso(BigDecimal incasso) {
+        this.incasso.set(incasso);
+    }
+
+    /**
+     * Proprietà JavaFX dell'incasso.
+     *
+     * @return ObjectProperty incasso
+     */
+    public ObjectProperty<BigDecimal> incassoProperty() {
+        return incasso;
+    }
 }
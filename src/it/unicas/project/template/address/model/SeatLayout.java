@@ -0,0 +1,306 @@
+package it.unicas.project.template.address.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Disposizione dei posti di un luogo: settori, file e posti per fila, con la categoria di ogni settore.
+ *
+ * Gli id dei posti partono da 1 e seguono le file in ordine (prima fila del primo settore, poi la
+ * seconda, ...). Le file sono numerate di seguito attraverso i settori con lettere (A..Z, poi AA, AB, ...)
+ * e l'etichetta di un posto è fila + numero nella fila (es. "A1", "AB12"), quindi è unica nel luogo.
+ *
+ * Etichette, file e colonne sono precalcolate alla costruzione: le conversioni id ↔ etichetta
+ * costano O(1) anche per luoghi con decine di migliaia di posti.
+ */
+public final class SeatLayout {
+
+    /**
+     * Settore del luogo: un blocco di file con lo stesso numero di posti e la stessa categoria.
+     */
+    public static final class Settore {
+        private final String nome;
+        private final int file;
+        private final int postiPerFila;
+        private final String categoria;
+
+        /**
+         * @param nome nome del settore (es. "Platea")
+         * @param file numero di file
+         * @param postiPerFila posti in ogni fila
+         * @param categoria categoria dei posti (es. "STANDARD", "VIP")
+         */
+        public Settore(String nome, int file, int postiPerFila, String categoria) {
+            if (file <= 0 || postiPerFila <= 0) {
+                throw new IllegalArgumentException("Settore " + nome + ": file e posti per fila devono essere positivi");
+            }
+            this.nome = nome;
+            this.file = file;
+            this.postiPerFila = postiPerFila;
+            this.categoria = categoria;
+        }
+
+        /**
+         * @return nome del settore
+         */
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * @return numero di file
+         */
+        public int getFile() {
+            return file;
+        }
+
+        /**
+         * @return posti in ogni fila
+         */
+        public int getPostiPerFila() {
+            return postiPerFila;
+        }
+
+        /**
+         * @return categoria dei posti
+         */
+        public String getCategoria() {
+            return categoria;
+        }
+    }
+
+    public static final String CATEGORIA_STANDARD = "STANDARD";
+
+    // Disposizione di default (luogo senza settori): 10 posti per fila finché bastano le lettere A..Z,
+    // come nella vecchia mappa fissa; oltre, file quadrate per non avere mappe troppo lunghe
+    private static final int POSTI_PER_FILA_DEFAULT = 10;
+    private static final int FILE_UNA_LETTERA = 26;
+
+    private final List<Settore> settori;
+    private final int capacity;
+    private final int file;
+    private final int colonne;
+
+    // Indicizzati per id del posto (indice 0 non usato)
+    private final String[] etichette;
+    private final int[] filaDelPosto;
+    private final int[] colonnaDelPosto;
+    private final byte[] settoreDelPosto;
+
+    // Id del primo posto di ogni fila; l'elemento in più vale capacity + 1
+    private final int[] primoPostoDellaFila;
+
+    private final Map<String, Integer> idPerEtichetta;
+
+    /**
+     * Costruisce la disposizione a partire dai settori, nell'ordine indicato.
+     *
+     * @param settori settori del luogo (almeno uno, al più 127)
+     */
+    public SeatLayout(List<Settore> settori) {
+        if (settori == null || settori.isEmpty() || settori.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Numero di settori non valido");
+        }
+        this.settori = Collections.unmodifiableList(new ArrayList<>(settori));
+
+        int totPosti = 0, totFile = 0, maxColonne = 0;
+        for (Settore s : settori) {
+            totPosti += s.getFile() * s.getPostiPerFila();
+            totFile += s.getFile();
+            maxColonne = Math.max(maxColonne, s.getPostiPerFila());
+        }
+        this.capacity = totPosti;
+        this.file = totFile;
+        this.colonne = maxColonne;
+
+        etichette = new String[capacity + 1];
+        filaDelPosto = new int[capacity + 1];
+        colonnaDelPosto = new int[capacity + 1];
+        settoreDelPosto = new byte[capacity + 1];
+        primoPostoDellaFila = new int[file + 1];
+        idPerEtichetta = new HashMap<>(capacity * 4 / 3 + 1);
+
+        int seatId = 1;
+        int fila = 0;
+        for (int s = 0; s < settori.size(); s++) {
+            Settore settore = settori.get(s);
+            for (int f = 0; f < settore.getFile(); f++, fila++) {
+                String nomeFila = nomeFila(fila);
+                primoPostoDellaFila[fila] = seatId;
+                for (int c = 0; c < settore.getPostiPerFila(); c++, seatId++) {
+                    String etichetta = nomeFila + (c + 1);
+                    etichette[seatId] = etichetta;
+                    filaDelPosto[seatId] = fila;
+                    colonnaDelPosto[seatId] = c;
+                    settoreDelPosto[seatId] = (byte) s;
+                    idPerEtichetta.put(etichetta, seatId);
+                }
+            }
+        }
+        primoPostoDellaFila[file] = seatId;
+    }
+
+    /**
+     * Disposizione di default per un luogo senza settori: un solo settore STANDARD con maxPosti posti.
+     * Fino a 260 posti le file hanno 10 posti (A1..A10, B1..), come la mappa fissa usata in passato;
+     * l'ultima fila può essere incompleta, quindi la capienza resta esattamente maxPosti.
+     *
+     * @param maxPosti numero di posti del luogo
+     * @return disposizione di default
+     */
+    public static SeatLayout standard(int maxPosti) {
+        if (maxPosti <= 0) {
+            throw new IllegalArgumentException("Numero di posti non valido: " + maxPosti);
+        }
+        int postiPerFila = POSTI_PER_FILA_DEFAULT;
+        if (maxPosti > POSTI_PER_FILA_DEFAULT * FILE_UNA_LETTERA) {
+            postiPerFila = (int) Math.ceil(Math.sqrt(maxPosti));
+        }
+
+        int fileComplete = maxPosti / postiPerFila;
+        int resto = maxPosti % postiPerFila;
+
+        List<Settore> settori = new ArrayList<>();
+        if (fileComplete > 0) {
+            settori.add(new Settore("Posti", fileComplete, postiPerFila, CATEGORIA_STANDARD));
+        }
+        if (resto > 0) {
+            settori.add(new Settore("Posti", 1, resto, CATEGORIA_STANDARD));
+        }
+        return new SeatLayout(settori);
+    }
+
+    /******************************************
+     CONVERSIONI
+     ********************************************/
+
+    /**
+     * @param seatId id del posto
+     * @return etichetta del posto (es. "A1")
+     * @throws IllegalArgumentException se l'id non appartiene al luogo
+     */
+    public String getEtichetta(int seatId) {
+        verificaId(seatId);
+        return etichette[seatId];
+    }
+
+    /**
+     * @param etichetta etichetta del posto, senza distinzione maiuscole/minuscole (es. "a1")
+     * @return id del posto
+     * @throws IllegalArgumentException se l'etichetta non appartiene al luogo
+     */
+    public int getId(String etichetta) {
+        Integer id = etichetta == null ? null : idPerEtichetta.get(etichetta.trim().toUpperCase(Locale.ROOT));
+        if (id == null) {
+            throw new IllegalArgumentException("Posto non valido: " + etichetta);
+        }
+        return id;
+    }
+
+    /**
+     * @param seatId id del posto
+     * @return fila del posto, da 0
+     */
+    public int getFila(int seatId) {
+        verificaId(seatId);
+        return filaDelPosto[seatId];
+    }
+
+    /**
+     * @param seatId id del posto
+     * @return posizione nella fila, da 0
+     */
+    public int getColonna(int seatId) {
+        verificaId(seatId);
+        return colonnaDelPosto[seatId];
+    }
+
+    /**
+     * @param fila fila, da 0
+     * @param colonna posizione nella fila, da 0
+     * @return id del posto in quella posizione, -1 se non c'è un posto
+     */
+    public int getId(int fila, int colonna) {
+        if (fila < 0 || fila >= file || colonna < 0) {
+            return -1;
+        }
+        int seatId = primoPostoDellaFila[fila] + colonna;
+        return seatId < primoPostoDellaFila[fila + 1] ? seatId : -1;
+    }
+
+    /**
+     * @param seatId id del posto
+     * @return settore del posto
+     */
+    public Settore getSettore(int seatId) {
+        verificaId(seatId);
+        return settori.get(settoreDelPosto[seatId]);
+    }
+
+    /**
+     * @param seatId id del posto
+     * @return categoria del posto
+     */
+    public String getCategoria(int seatId) {
+        return getSettore(seatId).getCategoria();
+    }
+
+    /**
+     * @param seatId id del posto
+     * @return true se l'id appartiene al luogo
+     */
+    public boolean contiene(int seatId) {
+        return seatId >= 1 && seatId <= capacity;
+    }
+
+    /******************************************
+     GETTER
+     ********************************************/
+
+    /**
+     * @return numero di posti
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return numero totale di file
+     */
+    public int getFile() {
+        return file;
+    }
+
+    /**
+     * @return posti della fila più lunga (larghezza della mappa)
+     */
+    public int getColonne() {
+        return colonne;
+    }
+
+    /**
+     * @return settori, nell'ordine degli id
+     */
+    public List<Settore> getSettori() {
+        return settori;
+    }
+
+    private void verificaId(int seatId) {
+        if (!contiene(seatId)) {
+            throw new IllegalArgumentException("Posto " + seatId + " fuori dalla disposizione (1.." + capacity + ")");
+        }
+    }
+
+    // 0 -> A, 25 -> Z, 26 -> AA, 27 -> AB, ...
+    private static String nomeFila(int fila) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = fila + 1; n > 0; n = (n - 1) / 26) {
+            sb.append((char) ('A' + (n - 1) % 26));
+        }
+        return sb.reverse().toString();
+    }
+}
@@ -0,0 +1,70 @@
+package it.unicas.project.template.address.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Vendite di un periodo (giorno o settimana) per gli eventi di un'organizzazione:
+ * un punto della curva delle vendite mostrata nel report.
+ * I valori sono netti: gli annullamenti del periodo sono già sottratti.
+ */
+public class VenditePeriodo {
+
+    /**
+     * Ampiezza dei periodi della serie.
+     */
+    public enum Granularita {
+        GIORNO,
+        SETTIMANA
+    }
+
+    /******************************************
+     VARIABILI DI ISTANZA
+     ********************************************/
+
+    private final LocalDate inizio;
+    private final int postiVenduti;
+    private final BigDecimal incasso;
+
+    /******************************************
+     COSTRUTTORE
+     ********************************************/
+
+    /**
+     * Costruttore delle vendite di un periodo.
+     *
+     * @param inizio primo giorno del periodo (il lunedì per le settimane)
+     * @param postiVenduti posti venduti nel periodo
+     * @param incasso incasso del periodo
+     */
+    public VenditePeriodo(LocalDate inizio, int postiVenduti, BigDecimal incasso) {
+        this.inizio = inizio;
+        this.postiVenduti = postiVenduti;
+        this.incasso = incasso;
+    }
+
+    /******************************************
+     GET METHODS
+     ********************************************/
+
+    /**
+     * @return primo giorno del periodo
+     */
+    public LocalDate getInizio() {
+        return inizio;
+    }
+
+    /**
+     * @return posti venduti nel periodo
+     */
+    public int getPostiVenduti() {
+        return postiVenduti;
+    }
+
+    /**
+     * @return incasso del periodo
+     */
+    public BigDecimal getIncasso() {
+        return incasso;
+    }
+}
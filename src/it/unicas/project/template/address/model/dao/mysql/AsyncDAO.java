@@ -0,0 +1,149 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Esecuzione asincrona delle chiamate ai DAO, per non bloccare il thread JavaFX sulle query MySQL.
+ *
+ * Ogni chiamata restituisce un CompletableFuture; cancellarlo interrompe il thread che la sta eseguendo
+ * (o evita che parta, se è ancora in coda). Le chiamate in esecuzione contemporanea sono al massimo
+ * {@link DAOMySQLSettings#POOL_MAX_SIZE}, come le connessioni del pool: oltre quel numero resterebbero
+ * comunque in attesa di una connessione.
+ *
+ * Se la JVM li supporta si usano i virtual thread, altrimenti un pool fisso di thread daemon.
+ */
+public class AsyncDAO {
+
+    /**
+     * Chiamata a un DAO da eseguire fuori dal thread JavaFX.
+     *
+     * @param <T> tipo del risultato
+     */
+    @FunctionalInterface
+    public interface DAOCall<T> {
+        T call() throws DAOException;
+    }
+
+    private static final int MAX_IN_CODA = 200;
+
+    private static AsyncDAO asyncDAO = null;
+    private static final Logger logger = Logger.getLogger(AsyncDAO.class.getName());
+
+    private final ExecutorService executor;
+    private final Semaphore permessi = new Semaphore(DAOMySQLSettings.POOL_MAX_SIZE);
+
+    private AsyncDAO() {
+        ExecutorService virtuali = creaExecutorVirtuale();
+        if (virtuali != null) {
+            executor = virtuali;
+            logger.info("AsyncDAO: virtual thread");
+        } else {
+            AtomicInteger contatore = new AtomicInteger();
+            ThreadPoolExecutor tpe = new ThreadPoolExecutor(
+                    DAOMySQLSettings.POOL_MAX_SIZE, DAOMySQLSettings.POOL_MAX_SIZE,
+                    30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(MAX_IN_CODA),
+                    r -> {
+                        Thread t = new Thread(r, "biglietteria-dao-" + contatore.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            tpe.allowCoreThreadTimeOut(true);
+            executor = tpe;
+            logger.info("AsyncDAO: pool di " + DAOMySQLSettings.POOL_MAX_SIZE + " thread");
+        }
+    }
+
+    /**
+     * Restituisce l'istanza singleton dell'esecutore asincrono.
+     *
+     * @return istanza singleton AsyncDAO
+     */
+    public static synchronized AsyncDAO getInstance() {
+        if (asyncDAO == null) {
+            asyncDAO = new AsyncDAO();
+        }
+        return asyncDAO;
+    }
+
+    /**
+     * Esegue la chiamata in background.
+     *
+     * @param call chiamata al DAO
+     * @param <T> tipo del risultato
+     * @return future completato con il risultato o con l'eccezione della chiamata
+     */
+    public <T> CompletableFuture<T> submit(DAOCall<T> call) {
+        CompletableFuture<T> risultato = new CompletableFuture<>();
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> esegui(call, risultato));
+        } catch (RejectedExecutionException e) {
+            risultato.completeExceptionally(new DAOException("In submit(): troppe richieste in coda"));
+            return risultato;
+        }
+
+        risultato.whenComplete((r, ex) -> {
+            if (risultato.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return risultato;
+    }
+
+    private <T> void esegui(DAOCall<T> call, CompletableFuture<T> risultato) {
+        if (risultato.isDone()) {
+            return; // cancellata mentre era in coda
+        }
+        try {
+            permessi.acquire();
+        } catch (InterruptedException e) {
+            risultato.cancel(false);
+            return;
+        }
+        try {
+            if (!risultato.isDone()) {
+                risultato.complete(call.call());
+            }
+        } catch (Throwable t) {
+            risultato.completeExceptionally(t);
+        } finally {
+            permessi.release();
+        }
+    }
+
+    /**
+     * Ferma l'esecutore interrompendo le chiamate in corso (chiusura dell'applicazione).
+     * Non fa nulla se non è mai stato usato.
+     */
+    public static synchronized void shutdown() {
+        if (asyncDAO != null) {
+            asyncDAO.executor.shutdownNow();
+            asyncDAO = null;
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() esiste solo da Java 21: lo si cerca per reflection
+    private static ExecutorService creaExecutorVirtuale() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.FINE, "Virtual thread non disponibili", e);
+            return null;
+        }
+    }
+}
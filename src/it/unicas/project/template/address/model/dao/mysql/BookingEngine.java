@@ -0,0 +1,230 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.BookingResult;
+import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Motore di prenotazione: riserva N posti e salva la Prenotazione in un'unica transazione.
+ *
+ * Non usa lock di tabella: ogni posto viene inserito in 'posti', la cui chiave primaria
+ * (idPOSTI, EVENTI_idEvento) fa fallire con chiave duplicata l'inserimento di un posto già preso da un
+ * altro acquirente; quell'errore (e solo quello) è trattato come conflitto sul posto. Un posto bloccato
+ * temporaneamente da un altro cliente (vedi {@link SeatHoldManager}) produce 0 righe ed è anch'esso
+ * un conflitto. Gli altri errori, ad esempio un evento cancellato nel frattempo, diventano una
+ * DAOException. Se anche un solo posto è in conflitto la transazione viene annullata e l'esito
+ * riporta esattamente quali posti sono stati persi.
+ * Alla conferma le hold del cliente sui posti prenotati vengono cancellate e i posti vengono
+ * associati alla prenotazione in 'prenotazione_posto'.
+ */
+public class BookingEngine {
+
+    private BookingEngine() {
+    }
+
+    private static BookingEngine engine = null;
+    private static final Logger logger = Logger.getLogger(BookingEngine.class.getName());
+
+    // Tentativi in caso di deadlock/lock wait timeout tra acquirenti concorrenti sugli stessi posti
+    private static final int MAX_TENTATIVI = 3;
+
+    // Usate anche da WaitlistPromoter, che assegna posti e prenotazioni con le stesse regole
+    static final String SQL_POSTO =
+            "INSERT INTO posti (idPOSTI, EVENTI_idEvento) " +
+                    "SELECT ?, ? FROM DUAL WHERE NOT EXISTS (" +
+                    "SELECT 1 FROM posti_hold WHERE EVENTI_idEvento = ? AND idPOSTI = ? " +
+                    "AND CLIENTE_idCLIENTE <> ? AND scadenza > NOW())";
+
+    private static final String SQL_HOLD_CONVERTITA =
+            "DELETE FROM posti_hold WHERE EVENTI_idEvento = ? AND idPOSTI = ? AND CLIENTE_idCLIENTE = ?";
+
+    static final String SQL_PRENOTAZIONE =
+            "INSERT INTO prenotazione (data, time, postiPrenotati, CLIENTE_idCLIENTE, EVENTI_idEvento, " +
+                    "STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE) VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Restituisce l'istanza singleton del motore di prenotazione.
+     *
+     * @return istanza singleton BookingEngine
+     */
+    public static synchronized BookingEngine getInstance() {
+        if (engine == null) {
+            engine = new BookingEngine();
+        }
+        return engine;
+    }
+
+    /**
+     * Riserva i posti e salva la prenotazione, tutto o niente.
+     *
+     * @param prenotazione prenotazione da salvare (l'id viene aggiornato con quello generato)
+     * @param posti id numerici dei posti richiesti
+     * @return esito: confermato oppure elenco dei posti in conflitto
+     * @throws DAOException in caso di errore SQL diverso da un conflitto sui posti
+     */
+    public BookingResult prenota(Prenotazione prenotazione, List<Integer> posti) throws DAOException {
+        if (prenotazione == null || posti == null || posti.isEmpty()) {
+            throw new DAOException("In prenota(): prenotazione e posti non possono essere vuoti");
+        }
+
+        for (Integer posto : posti) {
+            if (posto == null || posto <= 0) {
+                throw new DAOException("In prenota(): posto non valido " + posto);
+            }
+        }
+
+        int idEvento = prenotazione.getEventoId();
+
+        // Ordine fisso di inserimento: due acquirenti con posti in comune non si bloccano a vicenda
+        List<Integer> ordinati = new ArrayList<>(new TreeSet<>(posti));
+
+        for (int tentativo = 1; ; tentativo++) {
+            try {
+                BookingResult esito = eseguiTransazione(prenotazione, idEvento, ordinati);
+
+                if (esito.isConfermata()) {
+                    SeatInventory.getInstance().markOccupied(idEvento, ordinati);
+                    SeatHoldManager.getInstance().converted(idEvento, ordinati, prenotazione.getClienteId());
+                    SeatEventBus.getInstance().publish(idEvento, ordinati, true, prenotazione.getClienteId());
+                } else {
+                    // il conflitto può essere una riga di 'posti' o una hold altrui: si rilegge dal DB
+                    SeatInventory.getInstance().invalidate(idEvento);
+                    logger.info("Prenotazione evento " + idEvento + " in conflitto sui posti " + esito.getPostiInConflitto());
+                }
+                return esito;
+
+            } catch (SQLException sq) {
+                if (isRitentabile(sq) && tentativo < MAX_TENTATIVI) {
+                    logger.warning("In prenota(): tentativo " + tentativo + " fallito (" + sq.getMessage() + "), riprovo");
+                    continue;
+                }
+                SeatInventory.getInstance().invalidate(idEvento);
+                throw new DAOException("In prenota(): " + sq.getMessage());
+            }
+        }
+    }
+
+    private BookingResult eseguiTransazione(Prenotazione p, int idEvento, List<Integer> posti) throws SQLException {
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                BigDecimal prezzo = VenditeDAOMySQLImpl.prezzo(conn, idEvento);
+                List<Integer> liberi = new ArrayList<>();
+                List<Integer> conflitti = new ArrayList<>();
+
+                try (PreparedStatement ps = conn.prepareStatement(SQL_POSTO)) {
+                    for (Integer posto : posti) {
+                        if (inserisciPosto(ps, idEvento, posto, p.getClienteId())) {
+                            liberi.add(posto);
+                        } else {
+                            conflitti.add(posto);
+                        }
+                    }
+                }
+
+                if (!conflitti.isEmpty()) {
+                    conn.rollback();
+                    return BookingResult.conflitto(liberi, conflitti);
+                }
+
+                try (PreparedStatement ps = conn.prepareStatement(SQL_PRENOTAZIONE, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, p.getData());
+                    ps.setString(2, p.getTime());
+                    ps.setString(3, p.getPostoPrenotato());
+                    ps.setInt(4, p.getClienteId());
+                    ps.setInt(5, p.getEventoId());
+                    ps.setInt(6, p.getStatoPrenotazioneId());
+                    ps.executeUpdate();
+
+                    p.setIdPrenotazione(idGenerato(ps));
+                }
+
+                PrenotazioneDAOMySQLImpl.insertPosti(conn, p.getIdPrenotazione(), idEvento, posti, prezzo);
+
+                try (PreparedStatement ps = conn.prepareStatement(SQL_HOLD_CONVERTITA)) {
+                    for (Integer posto : posti) {
+                        ps.setInt(1, idEvento);
+                        ps.setInt(2, posto);
+                        ps.setInt(3, p.getClienteId());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                VenditeDAOMySQLImpl.registra(conn, idEvento, posti.size(), prezzo.multiply(BigDecimal.valueOf(posti.size())));
+
+                conn.commit();
+                return BookingResult.confermata(p, posti);
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Inserisce un posto in 'posti' con SQL_POSTO (già preparata sulla connessione della transazione).
+     *
+     * @param ps statement SQL_POSTO
+     * @param idEvento id evento
+     * @param posto id del posto
+     * @param idCliente cliente che prenota (le sue hold non sono un conflitto)
+     * @return false se il posto è già prenotato o bloccato da un altro cliente
+     * @throws SQLException per ogni errore diverso dalla chiave duplicata (la transazione va annullata)
+     */
+    static boolean inserisciPosto(PreparedStatement ps, int idEvento, int posto, int idCliente) throws SQLException {
+        ps.setInt(1, posto);
+        ps.setInt(2, idEvento);
+        ps.setInt(3, idEvento);
+        ps.setInt(4, posto);
+        ps.setInt(5, idCliente);
+        try {
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            // un errore di chiave duplicata annulla solo l'istruzione, non la transazione
+            if (isChiaveDuplicata(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Legge l'id generato dall'INSERT appena eseguito.
+     *
+     * @param ps statement preparato con RETURN_GENERATED_KEYS
+     * @return id generato
+     * @throws SQLException se il database non restituisce l'id
+     */
+    static int idGenerato(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            if (!rs.next()) {
+                throw new SQLException("Id della prenotazione non restituito dal database");
+            }
+            return rs.getInt(1);
+        }
+    }
+
+    // 1062 = chiave duplicata in MySQL, 23505 = SQLState di H2 (EmbeddedDatabase)
+    static boolean isChiaveDuplicata(SQLException e) {
+        return e.getErrorCode() == 1062 || "23505".equals(e.getSQLState());
+    }
+
+    // 40001 = deadlock, 1205 = lock wait timeout: la transazione è stata annullata e si può ripetere
+    static boolean isRitentabile(SQLException e) {
+        return "40001".equals(e.getSQLState()) || e.getErrorCode() == 1205;
+    }
+}
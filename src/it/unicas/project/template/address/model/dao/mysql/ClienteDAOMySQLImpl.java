@@ -4,13 +4,12 @@ import it.unicas.project.template.address.model.Cliente;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * DAO per la tabella 'cliente'.
@@ -22,7 +21,6 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
     private ClienteDAOMySQLImpl() {}
 
     private static DAO dao = null;
-    private static Logger logger = null;
 
     /**
      * Restituisce l'istanza singleton del DAO Cliente.
@@ -32,7 +30,6 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
     public static DAO getInstance() {
         if (dao == null) {
             dao = new ClienteDAOMySQLImpl();
-            logger = Logger.getLogger(ClienteDAOMySQLImpl.class.getName());
         }
         return dao;
     }
@@ -49,19 +46,13 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
     public List<Cliente> select(Cliente a) throws DAOException {
 
         ArrayList<Cliente> lista = new ArrayList<>();
-        try {
 
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "select * from cliente";
 
-            String sql = "select * from cliente";
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
-
-            ResultSet rs = st.executeQuery(sql);
             while (rs.next()) {
                 lista.add(new Cliente(rs.getString("nome"),
                         rs.getString("cognome"),
@@ -71,8 +62,6 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
                         rs.getInt("idCLIENTE")));
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
             throw new DAOException("In select(): " + sq.getMessage());
         }
@@ -88,19 +77,19 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
     @Override
     public void delete(Cliente a) throws DAOException {
         if (a == null || a.getId() == null){
-            throw new DAOException("In delete: idAmici cannot be null");
-        }
-        String query = "DELETE FROM amici WHERE idAmici='" + a.getId() + "';";
-
-        try{
-            logger.info("SQL: " + query);
-        } catch (NullPointerException nullPointerException){
-            System.out.println("SQL: " + query);
+            throw new DAOException("In delete: idCLIENTE cannot be null");
         }
+        String query = "DELETE FROM cliente WHERE idCLIENTE = ?";
 
-        executeUpdate(query);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
 
+            ps.setInt(1, a.getId());
+            ps.executeUpdate();
 
+        } catch (SQLException e) {
+            throw new DAOException("In delete(): " + e.getMessage());
+        }
     }
 
     /**
@@ -112,24 +101,17 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
     @Override
     public void insert(Cliente a) throws DAOException {
 
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "INSERT INTO cliente (nome, cognome, compleanno, email, password) VALUES (?, ?, ?, ?, ?)";
 
-            String sql = "INSERT INTO cliente (nome, cognome,compleanno, email, password) VALUES ('"
-                    + a.getNome() + "', '"
-                    + a.getCognome() + "', '"
-                    + a.getCompleanno() + "', '"
-                    + a.getEmail() + "', '"
-                    + a.getPassword() + "')";
-
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            st.executeUpdate(sql);
-            DAOMySQLSettings.closeStatement(st);
+            ps.setString(1, a.getNome());
+            ps.setString(2, a.getCognome());
+            ps.setString(3, a.getCompleanno());
+            ps.setString(4, a.getEmail());
+            ps.setString(5, a.getPassword());
+            ps.executeUpdate();
 
         } catch (SQLException sq) {
             throw new DAOException("In insert(): " + sq.getMessage());
@@ -147,14 +129,25 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
     public void update(Cliente a) throws DAOException {
         verifyObject(a);
 
-        String query = "UPDATE cliente SET nome = '" + a.getNome() + "', cognome = '" + a.getCognome() + "', email = '" + a.getEmail() + "', password = '" + a.getPassword() + "', compleanno = '" + a.getCompleanno() + "'";
-        query = query + " WHERE idCLIENTE = " + a.getId() + ";";
-        logger.info("SQL: " + query);
+        String query = "UPDATE cliente SET nome = ?, cognome = ?, email = ?, password = ?, compleanno = ? WHERE idCLIENTE = ?";
 
-        executeUpdate(query);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setString(1, a.getNome());
+            ps.setString(2, a.getCognome());
+            ps.setString(3, a.getEmail());
+            ps.setString(4, a.getPassword());
+            ps.setString(5, a.getCompleanno());
+            ps.setInt(6, a.getId());
+            ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new DAOException("In update(): " + e.getMessage());
+        }
 
     }
-    
+
     private void verifyObject(Cliente a) throws DAOException {
         if (a == null  || a.getCognome() == null ||
         a.getNome() == null ||
@@ -166,15 +159,40 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
         }
     }
 
-    private void executeUpdate(String query) throws DAOException{
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-            int n = st.executeUpdate(query);
+    /**
+     * Verifica se l'email è già registrata, come cliente o come organizzazione:
+     * la stessa email non può essere usata per due account di nessun tipo.
+     *
+     * @param email email da verificare (confronto senza distinzione maiuscole/minuscole)
+     * @return true se l'email è già in uso
+     * @throws DAOException in caso di errore SQL
+     */
+    public boolean existsByEmail(String email) throws DAOException {
+        return emailRegistrata(email);
+    }
+
+    /**
+     * Cerca l'email in 'cliente' e 'organizzazione' con una sola query. Ogni EXISTS usa l'indice
+     * unico sull'email della sua tabella; la collation case-insensitive delle colonne rende
+     * il confronto indipendente da maiuscole/minuscole.
+     */
+    static boolean emailRegistrata(String email) throws DAOException {
+
+        String sql = "SELECT EXISTS(SELECT 1 FROM cliente WHERE email = ?) " +
+                "OR EXISTS(SELECT 1 FROM organizzazione WHERE email = ?) AS presente";
 
-            DAOMySQLSettings.closeStatement(st);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, email.trim());
+            ps.setString(2, email.trim());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean("presente");
+            }
 
         } catch (SQLException e) {
-            throw new DAOException("In insert(): " + e.getMessage());
+            throw new DAOException("In existsByEmail(): " + e.getMessage());
         }
     }
 
@@ -190,29 +208,24 @@ public class ClienteDAOMySQLImpl implements DAO<Cliente> {
 
         String sql = "SELECT * FROM cliente WHERE email = ? AND password = ?";
 
-        try {
-            PreparedStatement ps = DAOMySQLSettings.getStatement().getConnection().prepareStatement(sql);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
             ps.setString(1, email);
             ps.setString(2, password);
 
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-
-                Cliente c = new Cliente(
-                        rs.getString("nome"),
-                        rs.getString("cognome"),
-                        rs.getString("compleanno"),
-                        rs.getString("email"),
-                        rs.getString("password"),
-                        rs.getInt("idCLIENTE")
-                );
-
-                DAOMySQLSettings.closeStatement(ps);
-                return c;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new Cliente(
+                            rs.getString("nome"),
+                            rs.getString("cognome"),
+                            rs.getString("compleanno"),
+                            rs.getString("email"),
+                            rs.getString("password"),
+                            rs.getInt("idCLIENTE")
+                    );
+                }
             }
-
-            DAOMySQLSettings.closeStatement(ps);
             return null;
 
         } catch (SQLException e) {
@@ -5,12 +5,12 @@ import it.unicas.project.template.address.model.Evento;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * DAO per la tabella 'collaboratori'.
@@ -23,7 +23,6 @@ public class CollaboratoreDAOMySQLImpl implements DAO<Collaboratore> {
     }
 
     private static CollaboratoreDAOMySQLImpl dao = null;
-    private static Logger logger = null;
 
     /**
      * Restituisce l'istanza singleton del DAO Collaboratore.
@@ -33,7 +32,6 @@ public class CollaboratoreDAOMySQLImpl implements DAO<Collaboratore> {
     public static CollaboratoreDAOMySQLImpl getInstance() {
         if (dao == null) {
             dao = new CollaboratoreDAOMySQLImpl();
-            logger = Logger.getLogger(CollaboratoreDAOMySQLImpl.class.getName());
         }
         return dao;
     }
@@ -49,30 +47,17 @@ public class CollaboratoreDAOMySQLImpl implements DAO<Collaboratore> {
     public List<Collaboratore> select(Collaboratore collab) throws DAOException
     {
         ArrayList<Collaboratore> lista = new ArrayList<>();
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
 
-            String sql = "select * from collaboratori";
+        String sql = "select * from collaboratori";
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
 
-            ResultSet rs = st.executeQuery(sql);
             while (rs.next()) {
-                lista.add(new Collaboratore(
-                        rs.getInt("idCOLLABORATORI"),
-                        rs.getString("nome"),
-                        rs.getInt("compenso"),
-                        rs.getString("comunicazioniInterne"),
-                        rs.getInt("TIPO_COLLABORATORI_idTIPO_COLLABORATORI")
-                ));
+                lista.add(leggiCollaboratore(rs));
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
             throw new DAOException("In select(): " + sq.getMessage());
         }
@@ -89,33 +74,23 @@ public class CollaboratoreDAOMySQLImpl implements DAO<Collaboratore> {
     public List<Collaboratore> select(Evento e) throws DAOException
     {
         ArrayList<Collaboratore> lista = new ArrayList<>();
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            String sql = "SELECT c.*" +
-                         "FROM collaboratori c " +
-                         "JOIN evento_collaboratore ev " +
-                         "ON c.idCOLLABORATORI = ev.COLLABORATORI_idCOLLABORATORI " +
-                         "WHERE ev.EVENTI_idEvento = " + e.getId();
-
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
 
-            ResultSet rs = st.executeQuery(sql);
-            while (rs.next()) {
-                lista.add(new Collaboratore(
-                        rs.getInt("idCOLLABORATORI"),
-                        rs.getString("nome"),
-                        rs.getInt("compenso"),
-                        rs.getString("comunicazioniInterne"),
-                        rs.getInt("TIPO_COLLABORATORI_idTIPO_COLLABORATORI")
-                ));
-            }
+        String sql = "SELECT c.* " +
+                     "FROM collaboratori c " +
+                     "JOIN evento_collaboratore ev " +
+                     "ON c.idCOLLABORATORI = ev.COLLABORATORI_idCOLLABORATORI " +
+                     "WHERE ev.EVENTI_idEvento = ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            DAOMySQLSettings.closeStatement(st);
+            ps.setInt(1, e.getId());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(leggiCollaboratore(rs));
+                }
+            }
 
         } catch (SQLException sq) {
             throw new DAOException("In select(): " + sq.getMessage());
@@ -124,56 +99,18 @@ public class CollaboratoreDAOMySQLImpl implements DAO<Collaboratore> {
     }
 
     /**
-     * Trova collaboratori disponibili in un dato intervallo temporale.
+     * Trova collaboratori disponibili in un dato intervallo temporale: quelli non assegnati a eventi
+     * che si sovrappongono all'intervallo, anche a cavallo della mezzanotte (vedi {@link SchedulingEngine}).
      *
      * @param dataEvento data dell'evento (formato stringa)
      * @param orarioInizio orario di inizio
-     * @param orarioFine orario di fine
-     * @return lista di collaboratori liberi
+     * @param orarioFine orario di fine (se non successivo all'inizio, il giorno dopo)
+     * @return lista di collaboratori liberi (vuota se data o orari mancano o non sono validi)
      * @throws DAOException in caso di errore SQL
      */
     public List<Collaboratore> selectCollaboratoriDisponibili(String dataEvento, String orarioInizio, String orarioFine) throws DAOException
     {
-        ArrayList<Collaboratore> lista = new ArrayList<>();
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            String sql = "SELECT c.*\n" +
-                    "FROM biglietteria_se.collaboratori c\n" +
-                    "WHERE NOT EXISTS (\n" +
-                    "    SELECT 1\n" +
-                    "    FROM biglietteria_se.evento_collaboratore ec\n" +
-                    "    JOIN biglietteria_se.eventi e\n" +
-                    "        ON e.idEvento = ec.EVENTI_idEvento\n" +
-                    "    WHERE ec.COLLABORATORI_idCOLLABORATORI = c.idCOLLABORATORI\n" +
-                    "       AND e.dataEvento = '" + dataEvento + "' " +
-                    "       AND e.orarioInizio < '" + orarioInizio + "' " +
-                    "       AND e.orarioFine > '" + orarioFine + "' " +
-                    ");";
-
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
-
-            ResultSet rs = st.executeQuery(sql);
-            while (rs.next()) {
-                lista.add(new Collaboratore(
-                        rs.getInt("idCOLLABORATORI"),
-                        rs.getString("nome"),
-                        rs.getInt("compenso"),
-                        rs.getString("comunicazioniInterne"),
-                        rs.getInt("TIPO_COLLABORATORI_idTIPO_COLLABORATORI")
-                ));
-            }
-
-            DAOMySQLSettings.closeStatement(st);
-
-        } catch (SQLException sq) {
-            throw new DAOException("In select(): " + sq.getMessage());
-        }
-        return lista;
+        return SchedulingEngine.getInstance().collaboratoriLiberi(select((Collaboratore) null), dataEvento, orarioInizio, orarioFine);
     }
 
     /**
@@ -185,22 +122,15 @@ public class CollaboratoreDAOMySQLImpl implements DAO<Collaboratore> {
     @Override
     public void insert(Collaboratore c) throws DAOException
     {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            String sql = "INSERT INTO collaboratori (nome,compenso,comunicazioniInterne,TIPO_COLLABORATORI_idTIPO_COLLABORATORI) VALUES ('"
-                    + c.getNome() + "', '"
-                    + c.getCompenso() + "', '"
-                    + c.getComunicazioniInterne() + "', '"
-                    + c.getIdTipo() + "')";
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+        String sql = "INSERT INTO collaboratori (nome,compenso,comunicazioniInterne,TIPO_COLLABORATORI_idTIPO_COLLABORATORI) VALUES (?, ?, ?, ?)";
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            st.executeUpdate(sql);
-            DAOMySQLSettings.closeStatement(st);
+            ps.setString(1, c.getNome());
+            ps.setString(2, String.valueOf(c.getCompenso()));
+            ps.setString(3, c.getComunicazioniInterne());
+            ps.setInt(4, c.getIdTipo());
+            ps.executeUpdate();
 
         } catch (SQLException sq) {
             throw new DAOException("In insert(): " + sq.getMessage());
@@ -230,4 +160,14 @@ public class CollaboratoreDAOMySQLImpl implements DAO<Collaboratore> {
 
     }
 
+    private Collaboratore leggiCollaboratore(ResultSet rs) throws SQLException {
+        return new Collaboratore(
+                rs.getInt("idCOLLABORATORI"),
+                rs.getString("nome"),
+                rs.getInt("compenso"),
+                rs.getString("comunicazioniInterne"),
+                rs.getInt("TIPO_COLLABORATORI_idTIPO_COLLABORATORI")
+        );
+    }
+
 }
@@ -0,0 +1,638 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool di connessioni JDBC verso MySQL usato da tutti i DAO tramite {@link DAOMySQLSettings}.
+ * Mantiene tra minSize e maxSize connessioni fisiche aperte, le valida prima di prestarle,
+ * chiude quelle inattive da troppo tempo o che hanno superato la durata massima,
+ * e segnala (con lo stack del chiamante) le connessioni non restituite entro la soglia di leak.
+ *
+ * Le connessioni restituite al chiamante sono proxy: close() le rimette nel pool invece di chiuderle.
+ * Gli stessi proxy (connessione, statement e ResultSet) misurano ogni prestito per {@link DaoMetrics}:
+ * durata, attesa, righe, errori SQL e query lente, attribuiti al metodo DAO che ha preso la connessione.
+ */
+public class ConnectionPool {
+
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+
+    // Una connessione inattiva da meno di questo tempo si considera valida senza ping al server
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 5_000;
+
+    private final String url;
+    private final String userName;
+    private final String pwd;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final long borrowTimeoutNanos;
+    private final long leakDetectionThresholdNanos;
+    private final int validationTimeoutSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+    // LIFO: la connessione usata più di recente è quella con più probabilità di essere ancora valida
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<Lease> leased = ConcurrentHashMap.newKeySet();
+    private int totalConnections = 0;
+    private int threadsAwaiting = 0;
+    private boolean shutdown = false;
+
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsDestroyed = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final AtomicLong acquireNanosTotal = new AtomicLong();
+    private final AtomicLong acquireNanosMax = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+    private final DaoMetrics metrics = DaoMetrics.getInstance();
+
+    /**
+     * Crea il pool e apre subito minSize connessioni.
+     *
+     * @param url URL JDBC completo
+     * @param userName utente del database
+     * @param pwd password del database
+     * @param settings impostazioni da cui leggere i parametri del pool
+     */
+    public ConnectionPool(String url, String userName, String pwd, DAOMySQLSettings settings) {
+        this.url = url;
+        this.userName = userName;
+        this.pwd = pwd;
+
+        this.maxSize = Math.max(1, settings.getPoolMaxSize());
+        this.minSize = Math.max(0, Math.min(settings.getPoolMinSize(), maxSize));
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getPoolIdleTimeoutMillis());
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(settings.getPoolMaxLifetimeMillis());
+        this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getPoolBorrowTimeoutMillis());
+        this.leakDetectionThresholdNanos = TimeUnit.MILLISECONDS.toNanos(settings.getPoolLeakDetectionThresholdMillis());
+        this.validationTimeoutSeconds = Math.max(1, settings.getPoolValidationTimeoutSeconds());
+        metrics.setSlowQueryThresholdMillis(settings.getSlowQueryThresholdMillis());
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "biglietteria-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+
+        fillToMinimum();
+        housekeeper.scheduleWithFixedDelay(this::housekeeping,
+                HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una connessione dal pool, aspettando al massimo il borrow timeout se il pool è pieno.
+     *
+     * @return connessione (proxy) da chiudere con close() per restituirla al pool
+     * @throws SQLException se non è possibile aprire una connessione o se scade il timeout
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + borrowTimeoutNanos;
+
+        while (true) {
+            PooledConnection pc = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (pc == null && !create) {
+                    if (shutdown) {
+                        throw new SQLException("Il pool di connessioni è stato chiuso");
+                    }
+                    pc = idle.pollFirst();
+                    if (pc == null) {
+                        if (totalConnections < maxSize) {
+                            totalConnections++;
+                            create = true;
+                        } else {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                borrowTimeouts.incrementAndGet();
+                                throw new SQLTimeoutException("Nessuna connessione disponibile entro "
+                                        + TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos) + " ms "
+                                        + "(attive: " + leased.size() + ", max: " + maxSize + ")");
+                            }
+                            threadsAwaiting++;
+                            try {
+                                available.awaitNanos(remaining);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new SQLException("Interrotto in attesa di una connessione");
+                            } finally {
+                                threadsAwaiting--;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    pc = openPhysical();
+                } catch (SQLException e) {
+                    releaseSlot();
+                    throw e;
+                }
+            } else if (!isUsable(pc)) {
+                destroy(pc);
+                continue;
+            }
+
+            long elapsed = System.nanoTime() - start;
+            borrowCount.incrementAndGet();
+            acquireNanosTotal.addAndGet(elapsed);
+            acquireNanosMax.accumulateAndGet(elapsed, Math::max);
+
+            return new Lease(pc, elapsed).proxy;
+        }
+    }
+
+    /**
+     * Restituisce una fotografia dello stato del pool (per monitoraggio).
+     *
+     * @return statistiche correnti
+     */
+    public ConnectionPoolStats getStats() {
+        lock.lock();
+        try {
+            long borrows = borrowCount.get();
+            return new ConnectionPoolStats(
+                    totalConnections,
+                    idle.size(),
+                    leased.size(),
+                    threadsAwaiting,
+                    minSize,
+                    maxSize,
+                    connectionsCreated.get(),
+                    connectionsDestroyed.get(),
+                    borrows,
+                    borrowTimeouts.get(),
+                    leaksDetected.get(),
+                    borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquireNanosTotal.get() / borrows),
+                    TimeUnit.NANOSECONDS.toMicros(acquireNanosMax.get()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Chiude il pool: le connessioni inattive vengono chiuse subito,
+     * quelle in uso verranno chiuse quando restituite.
+     */
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            shutdown = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            destroy(pc);
+        }
+    }
+
+    /***********************************
+     GESTIONE CONNESSIONI FISICHE
+     **************************************/
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, userName, pwd);
+        connectionsCreated.incrementAndGet();
+        return new PooledConnection(physical, physical.getTransactionIsolation());
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.nanoTime();
+        if (isExpired(pc, now)) {
+            return false;
+        }
+        if (now - pc.lastReturnedAt < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pc.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledConnection pc, long now) {
+        return maxLifetimeNanos > 0 && now - pc.createdAt > maxLifetimeNanos;
+    }
+
+    private void destroy(PooledConnection pc) {
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Errore chiudendo una connessione del pool", e);
+        }
+        connectionsDestroyed.incrementAndGet();
+        releaseSlot();
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rimette nel pool una connessione appena restituita, dopo averne ripulito lo stato.
+     */
+    private void giveBack(PooledConnection pc) {
+        boolean reusable;
+        try {
+            if (!pc.physical.getAutoCommit()) {
+                // transazione lasciata aperta dal chiamante: non deve finire sul prossimo utilizzatore
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            if (pc.sessioneModificata) {
+                // sola lettura o isolamento cambiati dal chiamante: si torna ai valori di apertura
+                pc.physical.setReadOnly(false);
+                pc.physical.setTransactionIsolation(pc.isolamentoIniziale);
+                pc.sessioneModificata = false;
+            }
+            reusable = !pc.physical.isClosed() && !isExpired(pc, System.nanoTime());
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            lock.lock();
+            try {
+                if (!shutdown) {
+                    pc.lastReturnedAt = System.nanoTime();
+                    idle.offerFirst(pc);
+                    available.signal();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        destroy(pc);
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (shutdown || totalConnections >= minSize) {
+                    return;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                giveBack(openPhysical());
+            } catch (SQLException e) {
+                releaseSlot();
+                logger.warning("Impossibile aprire le connessioni minime del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Eseguito periodicamente: chiude le connessioni inattive/scadute oltre il minimo,
+     * riporta il pool a minSize e segnala le connessioni trattenute troppo a lungo.
+     */
+    private void housekeeping() {
+        try {
+            long now = System.nanoTime();
+            List<PooledConnection> toClose = new ArrayList<>();
+
+            lock.lock();
+            try {
+                int removable = totalConnections - minSize;
+                var it = idle.descendingIterator(); // dalle meno usate di recente
+                while (it.hasNext()) {
+                    PooledConnection pc = it.next();
+                    boolean idleTooLong = idleTimeoutNanos > 0 && now - pc.lastReturnedAt > idleTimeoutNanos && removable > 0;
+                    if (isExpired(pc, now) || idleTooLong) {
+                        it.remove();
+                        toClose.add(pc);
+                        removable--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            for (PooledConnection pc : toClose) {
+                destroy(pc);
+            }
+            fillToMinimum();
+
+            if (leakDetectionThresholdNanos > 0) {
+                for (Lease lease : leased) {
+                    if (!lease.leakReported && now - lease.borrowedAt > leakDetectionThresholdNanos) {
+                        lease.leakReported = true;
+                        leaksDetected.incrementAndGet();
+                        logger.log(Level.WARNING, "Possibile leak: connessione non restituita dopo "
+                                + TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedAt) + " ms", lease.origin);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Errore nella manutenzione del pool", e);
+        }
+    }
+
+    /***********************************
+     CLASSI DI SUPPORTO
+     **************************************/
+
+    /**
+     * Connessione fisica gestita dal pool.
+     */
+    private static final class PooledConnection {
+        final Connection physical;
+        final int isolamentoIniziale;
+        final long createdAt = System.nanoTime();
+        volatile long lastReturnedAt = createdAt;
+        // true se durante un prestito sono stati chiamati setReadOnly o setTransactionIsolation
+        volatile boolean sessioneModificata = false;
+
+        PooledConnection(Connection physical, int isolamentoIniziale) {
+            this.physical = physical;
+            this.isolamentoIniziale = isolamentoIniziale;
+        }
+    }
+
+    /**
+     * Singolo prestito di una connessione: il proxy restituito al chiamante inoltra le chiamate
+     * alla connessione fisica, tiene traccia degli statement aperti e intercetta close().
+     * Alla restituzione passa a {@link DaoMetrics} le misure raccolte durante il prestito.
+     */
+    private final class Lease implements InvocationHandler {
+        final PooledConnection pc;
+        final Connection proxy;
+        final long borrowedAt = System.nanoTime();
+        final Throwable origin;
+        final List<Statement> openStatements = new ArrayList<>();
+        volatile boolean leakReported = false;
+        private boolean released = false;
+
+        // Misure del prestito: la connessione è usata da un thread alla volta
+        final long acquireNanos;
+        final DaoMetrics.Origine origine;
+        long righeLette = 0;
+        long righeModificate = 0;
+        int queryLente = 0;
+        boolean errore = false;
+
+        Lease(PooledConnection pc, long acquireNanos) {
+            this.pc = pc;
+            this.acquireNanos = acquireNanos;
+            this.origin = leakDetectionThresholdNanos > 0 ? new Throwable("Connessione prestata qui") : null;
+            // con il rilevamento dei leak attivo lo stack è già stato catturato: non si rilegge
+            this.origine = origin != null ? DaoMetrics.origine(origin.getStackTrace()) : DaoMetrics.origine();
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+            leased.add(this);
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    return released || pc.physical.isClosed();
+                case "equals":
+                    return p == args[0];
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + "]";
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                    pc.sessioneModificata = true;
+                    break;
+                default:
+                    break;
+            }
+
+            synchronized (this) {
+                if (released) {
+                    throw new SQLException("Connessione già restituita al pool");
+                }
+            }
+
+            Object result;
+            try {
+                result = method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw failure(e);
+            }
+
+            if (result instanceof Statement) {
+                // per prepareStatement/prepareCall il primo argomento è il testo SQL
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return wrapStatement((Statement) result, method.getReturnType(), false, sql);
+            }
+            return result;
+        }
+
+        private Throwable failure(InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                errore = true;
+            }
+            return e.getCause();
+        }
+
+        /**
+         * Avvolge uno statement in modo che getConnection() restituisca il proxy (e non la connessione
+         * fisica) e che venga chiuso automaticamente quando la connessione torna nel pool.
+         *
+         * Le esecuzioni vengono cronometrate (query lente, log SQL a livello FINE) e i ResultSet
+         * avvolti per contare le righe lette.
+         *
+         * @param ownsConnection se true, chiudere lo statement restituisce anche la connessione
+         * @param sql testo dello statement preparato, null per uno Statement semplice
+         */
+        Statement wrapStatement(Statement st, Class<?> type, boolean ownsConnection, String sql) {
+            synchronized (this) {
+                openStatements.add(st);
+            }
+            Class<?> iface = CallableStatement.class.isAssignableFrom(type) ? CallableStatement.class
+                    : PreparedStatement.class.isAssignableFrom(type) ? PreparedStatement.class
+                    : Statement.class;
+
+            return (Statement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{iface},
+                    (sp, m, a) -> {
+                        switch (m.getName()) {
+                            case "getConnection":
+                                return proxy;
+                            case "close":
+                                synchronized (this) {
+                                    openStatements.remove(st);
+                                }
+                                st.close();
+                                if (ownsConnection) {
+                                    release();
+                                }
+                                return null;
+                            case "equals":
+                                return sp == a[0];
+                            case "hashCode":
+                                return System.identityHashCode(sp);
+                            default:
+                                break;
+                        }
+                        if (!m.getName().startsWith("execute")) {
+                            Object result;
+                            try {
+                                result = m.invoke(st, a);
+                            } catch (InvocationTargetException e) {
+                                throw failure(e);
+                            }
+                            return result instanceof ResultSet ? wrapResultSet((ResultSet) result, (Statement) sp) : result;
+                        }
+
+                        String testo = a != null && a.length > 0 && a[0] instanceof String ? (String) a[0] : sql;
+                        if (logger.isLoggable(Level.FINE)) {
+                            logger.fine("SQL [" + origine.metodo + "]: " + testo);
+                        }
+                        long start = System.nanoTime();
+                        try {
+                            Object result = m.invoke(st, a);
+                            if (result instanceof ResultSet) {
+                                return wrapResultSet((ResultSet) result, (Statement) sp);
+                            } else if (result instanceof Integer || result instanceof Long) {
+                                righeModificate += ((Number) result).longValue();
+                            } else if (result instanceof int[]) {
+                                for (int n : (int[]) result) {
+                                    righeModificate += Math.max(0, n);
+                                }
+                            }
+                            return result;
+                        } catch (InvocationTargetException e) {
+                            throw failure(e);
+                        } finally {
+                            long elapsed = System.nanoTime() - start;
+                            if (metrics.isLenta(elapsed)) {
+                                queryLente++;
+                                metrics.queryLenta(origine, testo, elapsed);
+                            }
+                        }
+                    });
+        }
+
+        /**
+         * Avvolge un ResultSet per contare le righe lette e far restituire a getStatement() il proxy.
+         */
+        ResultSet wrapResultSet(ResultSet rs, Statement owner) {
+            return (ResultSet) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (rp, m, a) -> {
+                        switch (m.getName()) {
+                            case "getStatement":
+                                return owner;
+                            case "equals":
+                                return rp == a[0];
+                            case "hashCode":
+                                return System.identityHashCode(rp);
+                            default:
+                                break;
+                        }
+                        Object result;
+                        try {
+                            result = m.invoke(rs, a);
+                        } catch (InvocationTargetException e) {
+                            throw failure(e);
+                        }
+                        if (Boolean.TRUE.equals(result) && m.getName().equals("next")) {
+                            righeLette++;
+                        }
+                        return result;
+                    });
+        }
+
+        void release() {
+            List<Statement> toClose;
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                toClose = new ArrayList<>(openStatements);
+                openStatements.clear();
+            }
+            leased.remove(this);
+            for (Statement st : toClose) {
+                try {
+                    st.close();
+                } catch (SQLException e) {
+                    logger.log(Level.FINE, "Errore chiudendo uno statement rimasto aperto", e);
+                }
+            }
+            long duration = System.nanoTime() - borrowedAt;
+            giveBack(pc);
+            metrics.registra(origine, duration, acquireNanos, righeLette, righeModificate, queryLente, errore);
+        }
+    }
+
+    /**
+     * Presta una connessione e vi crea uno Statement; chiudere lo statement restituisce anche la connessione.
+     * Usato da {@link DAOMySQLSettings#getStatement()} per i chiamanti che chiudono solo lo statement.
+     *
+     * @return statement proprietario della propria connessione
+     * @throws SQLException in caso di errore
+     */
+    Statement getStatement() throws SQLException {
+        Connection conn = getConnection();
+        Lease lease = (Lease) Proxy.getInvocationHandler(conn);
+        try {
+            return lease.wrapStatement(lease.pc.physical.createStatement(), Statement.class, true, null);
+        } catch (SQLException e) {
+            lease.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+/**
+ * Fotografia (immutabile) dello stato del {@link ConnectionPool}, usata per il monitoraggio.
+ */
+public class ConnectionPoolStats {
+
+    private final int totalConnections;
+    private final int idleConnections;
+    private final int activeConnections;
+    private final int threadsAwaiting;
+    private final int minSize;
+    private final int maxSize;
+    private final long connectionsCreated;
+    private final long connectionsDestroyed;
+    private final long borrowCount;
+    private final long borrowTimeouts;
+    private final long leaksDetected;
+    private final long avgAcquireMicros;
+    private final long maxAcquireMicros;
+
+    ConnectionPoolStats(int totalConnections, int idleConnections, int activeConnections, int threadsAwaiting,
+                        int minSize, int maxSize, long connectionsCreated, long connectionsDestroyed,
+                        long borrowCount, long borrowTimeouts, long leaksDetected,
+                        long avgAcquireMicros, long maxAcquireMicros) {
+        this.totalConnections = totalConnections;
+        this.idleConnections = idleConnections;
+        this.activeConnections = activeConnections;
+        this.threadsAwaiting = threadsAwaiting;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.connectionsCreated = connectionsCreated;
+        this.connectionsDestroyed = connectionsDestroyed;
+        this.borrowCount = borrowCount;
+        this.borrowTimeouts = borrowTimeouts;
+        this.leaksDetected = leaksDetected;
+        this.avgAcquireMicros = avgAcquireMicros;
+        this.maxAcquireMicros = maxAcquireMicros;
+    }
+
+    /** @return connessioni fisiche aperte (in uso + inattive) */
+    public int getTotalConnections() { return totalConnections; }
+
+    /** @return connessioni aperte e pronte all'uso */
+    public int getIdleConnections() { return idleConnections; }
+
+    /** @return connessioni attualmente prestate ai DAO */
+    public int getActiveConnections() { return activeConnections; }
+
+    /** @return thread in attesa di una connessione */
+    public int getThreadsAwaiting() { return threadsAwaiting; }
+
+    /** @return numero minimo di connessioni mantenute aperte */
+    public int getMinSize() { return minSize; }
+
+    /** @return numero massimo di connessioni */
+    public int getMaxSize() { return maxSize; }
+
+    /** @return connessioni fisiche aperte dall'avvio del pool */
+    public long getConnectionsCreated() { return connectionsCreated; }
+
+    /** @return connessioni fisiche chiuse dall'avvio del pool */
+    public long getConnectionsDestroyed() { return connectionsDestroyed; }
+
+    /** @return prestiti totali */
+    public long getBorrowCount() { return borrowCount; }
+
+    /** @return richieste fallite per timeout di attesa */
+    public long getBorrowTimeouts() { return borrowTimeouts; }
+
+    /** @return connessioni segnalate come possibili leak */
+    public long getLeaksDetected() { return leaksDetected; }
+
+    /** @return tempo medio di acquisizione di una connessione (microsecondi) */
+    public long getAvgAcquireMicros() { return avgAcquireMicros; }
+
+    /** @return tempo massimo di acquisizione di una connessione (microsecondi) */
+    public long getMaxAcquireMicros() { return maxAcquireMicros; }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "total=" + totalConnections +
+                ", idle=" + idleConnections +
+                ", active=" + activeConnections +
+                ", awaiting=" + threadsAwaiting +
+                ", min=" + minSize +
+                ", max=" + maxSize +
+                ", created=" + connectionsCreated +
+                ", destroyed=" + connectionsDestroyed +
+                ", borrows=" + borrowCount +
+                ", timeouts=" + borrowTimeouts +
+                ", leaks=" + leaksDetected +
+                ", avgAcquireUs=" + avgAcquireMicros +
+                ", maxAcquireUs=" + maxAcquireMicros +
+                '}';
+    }
+}
@@ -1,7 +1,6 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -11,7 +10,34 @@ public class DAOMySQLSettings {
     public final static String USERNAME = "root";
     public final static String PWD = "password";
     public final static String SCHEMA = "biglietteria_se";
-    public final static String PARAMETERS = "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+    // useServerPrepStmts/cachePrepStmts: ogni connessione del pool mantiene una cache LRU
+    // dei PreparedStatement già preparati sul server, riusati a ogni chiamata dei DAO.
+    // rewriteBatchedStatements: il driver invia i batch di INSERT come un'unica INSERT a più righe
+    // (i conteggi per riga diventano SUCCESS_NO_INFO: nessun DAO li usa)
+    public final static String PARAMETERS = "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
+            + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048"
+            + "&rewriteBatchedStatements=true";
+
+    // Valori di default del pool di connessioni
+    public final static int POOL_MIN_SIZE = 2;
+    public final static int POOL_MAX_SIZE = 10;
+    public final static long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    public final static long POOL_MAX_LIFETIME_MILLIS = 30 * 60 * 1000;
+    public final static long POOL_BORROW_TIMEOUT_MILLIS = 10 * 1000;
+    public final static long POOL_LEAK_DETECTION_THRESHOLD_MILLIS = 60 * 1000;
+    public final static int POOL_VALIDATION_TIMEOUT_SECONDS = 2;
+    // Statement più lenti di così finiscono nel registro delle query lente di DaoMetrics (0 = disabilitato)
+    public final static long SLOW_QUERY_THRESHOLD_MILLIS = 250;
+
+    // Proprietà di sistema che sostituiscono i valori di default (es. -Dbiglietteria.db.host=db.example.org);
+    // con -Dbiglietteria.db.profilo=embedded tutti i DAO usano un database H2 in memoria (vedi EmbeddedDatabase)
+    public final static String PROP_PROFILO = "biglietteria.db.profilo";
+    public final static String PROP_HOST = "biglietteria.db.host";
+    public final static String PROP_USERNAME = "biglietteria.db.user";
+    public final static String PROP_PWD = "biglietteria.db.password";
+    public final static String PROP_SCHEMA = "biglietteria.db.schema";
+    public final static String PROP_SLOW_QUERY_MILLIS = "biglietteria.db.slowQueryMillis";
+    public final static String PROFILO_EMBEDDED = "embedded";
 
     //String url = "jdbc:mysql://localhost:3306/amici?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
 
@@ -20,6 +46,18 @@ public class DAOMySQLSettings {
     private String userName = "root";
     private String pwd = "password";
     private String schema = "biglietteria_se";
+    // URL JDBC completo: se impostato sostituisce host e schema (database incorporato)
+    private String url = null;
+    private boolean embedded = false;
+
+    private int poolMinSize = POOL_MIN_SIZE;
+    private int poolMaxSize = POOL_MAX_SIZE;
+    private long poolIdleTimeoutMillis = POOL_IDLE_TIMEOUT_MILLIS;
+    private long poolMaxLifetimeMillis = POOL_MAX_LIFETIME_MILLIS;
+    private long poolBorrowTimeoutMillis = POOL_BORROW_TIMEOUT_MILLIS;
+    private long poolLeakDetectionThresholdMillis = POOL_LEAK_DETECTION_THRESHOLD_MILLIS;
+    private int poolValidationTimeoutSeconds = POOL_VALIDATION_TIMEOUT_SECONDS;
+    private long slowQueryThresholdMillis = Long.getLong(PROP_SLOW_QUERY_MILLIS, SLOW_QUERY_THRESHOLD_MILLIS);
 
     public String getHost() {
         return host;
@@ -53,6 +91,93 @@ public class DAOMySQLSettings {
         this.schema = schema;
     }
 
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    /**
+     * URL JDBC usato dal pool: quello impostato con setUrl oppure quello MySQL costruito da host e schema.
+     *
+     * @return URL JDBC completo
+     */
+    public String getJdbcUrl() {
+        return url != null ? url : "jdbc:mysql://" + host + "/" + schema + PARAMETERS;
+    }
+
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    public void setPoolMinSize(int poolMinSize) {
+        this.poolMinSize = poolMinSize;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public void setPoolMaxSize(int poolMaxSize) {
+        this.poolMaxSize = poolMaxSize;
+    }
+
+    public long getPoolIdleTimeoutMillis() {
+        return poolIdleTimeoutMillis;
+    }
+
+    public void setPoolIdleTimeoutMillis(long poolIdleTimeoutMillis) {
+        this.poolIdleTimeoutMillis = poolIdleTimeoutMillis;
+    }
+
+    public long getPoolMaxLifetimeMillis() {
+        return poolMaxLifetimeMillis;
+    }
+
+    public void setPoolMaxLifetimeMillis(long poolMaxLifetimeMillis) {
+        this.poolMaxLifetimeMillis = poolMaxLifetimeMillis;
+    }
+
+    public long getPoolBorrowTimeoutMillis() {
+        return poolBorrowTimeoutMillis;
+    }
+
+    public void setPoolBorrowTimeoutMillis(long poolBorrowTimeoutMillis) {
+        this.poolBorrowTimeoutMillis = poolBorrowTimeoutMillis;
+    }
+
+    public long getPoolLeakDetectionThresholdMillis() {
+        return poolLeakDetectionThresholdMillis;
+    }
+
+    // 0 disabilita la rilevazione dei leak
+    public void setPoolLeakDetectionThresholdMillis(long poolLeakDetectionThresholdMillis) {
+        this.poolLeakDetectionThresholdMillis = poolLeakDetectionThresholdMillis;
+    }
+
+    public int getPoolValidationTimeoutSeconds() {
+        return poolValidationTimeoutSeconds;
+    }
+
+    public void setPoolValidationTimeoutSeconds(int poolValidationTimeoutSeconds) {
+        this.poolValidationTimeoutSeconds = poolValidationTimeoutSeconds;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    // 0 disabilita il registro delle query lente; a pool avviato si cambia anche via JMX (DaoMetrics)
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
     static{
         try {
             Class.forName(DRIVERNAME);
@@ -71,25 +196,89 @@ public class DAOMySQLSettings {
     }
 
     public static DAOMySQLSettings getDefaultDAOSettings(){
+        if (PROFILO_EMBEDDED.equalsIgnoreCase(System.getProperty(PROP_PROFILO))) {
+            return getEmbeddedDAOSettings(SCHEMA);
+        }
+        DAOMySQLSettings daoMySQLSettings = new DAOMySQLSettings();
+        daoMySQLSettings.host = System.getProperty(PROP_HOST, HOST);
+        daoMySQLSettings.userName = System.getProperty(PROP_USERNAME, USERNAME);
+        daoMySQLSettings.schema = System.getProperty(PROP_SCHEMA, SCHEMA);
+        daoMySQLSettings.pwd = System.getProperty(PROP_PWD, PWD);
+        return daoMySQLSettings;
+    }
+
+    /**
+     * Impostazioni per un database H2 in memoria in modalità MySQL, creato dallo script del database
+     * alla prima connessione. Database con nomi diversi sono indipendenti.
+     *
+     * @param nome nome del database in memoria
+     * @return impostazioni del database incorporato
+     */
+    public static DAOMySQLSettings getEmbeddedDAOSettings(String nome){
         DAOMySQLSettings daoMySQLSettings = new DAOMySQLSettings();
-        daoMySQLSettings.host = HOST;
-        daoMySQLSettings.userName = USERNAME;
-        daoMySQLSettings.schema = SCHEMA;
-        daoMySQLSettings.pwd = PWD;
+        daoMySQLSettings.host = null;
+        daoMySQLSettings.schema = nome;
+        daoMySQLSettings.userName = EmbeddedDatabase.USERNAME;
+        daoMySQLSettings.pwd = EmbeddedDatabase.PWD;
+        daoMySQLSettings.url = EmbeddedDatabase.url(nome);
+        daoMySQLSettings.embedded = true;
         return daoMySQLSettings;
     }
 
-    public static void setCurrentDAOMySQLSettings(DAOMySQLSettings daoMySQLSettings){
+    // Le impostazioni vengono lette alla creazione del pool: per cambiarle usare setCurrentDAOMySQLSettings
+    public static synchronized void setCurrentDAOMySQLSettings(DAOMySQLSettings daoMySQLSettings){
         currentDAOMySQLSettings = daoMySQLSettings;
+        closePool();
+        SeatInventory.getInstance().invalidateAll();
+        ReferenceDataCache.getInstance().invalidateAll();
+        EventSearchIndex.getInstance().invalidateAll();
+        TagIndex.getInstance().invalidateAll();
+        SchedulingEngine.getInstance().invalidateAll();
+    }
+
+    private static ConnectionPool pool = null;
+
+    // Pool condiviso da tutti i DAO, creato al primo utilizzo con le impostazioni correnti
+    private static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            if (currentDAOMySQLSettings == null){
+                currentDAOMySQLSettings = getDefaultDAOSettings();
+            }
+            if (currentDAOMySQLSettings.embedded) {
+                EmbeddedDatabase.inizializza(currentDAOMySQLSettings);
+            }
+            pool = new ConnectionPool(currentDAOMySQLSettings.getJdbcUrl(), currentDAOMySQLSettings.userName,
+                    currentDAOMySQLSettings.pwd, currentDAOMySQLSettings);
+        }
+        return pool;
+    }
+
+    /**
+     * Statistiche del pool di connessioni, per il monitoraggio.
+     *
+     * @return fotografia dello stato del pool
+     * @throws SQLException se il pool non può essere creato
+     */
+    public static ConnectionPoolStats getPoolStats() throws SQLException {
+        return getPool().getStats();
+    }
+
+    /**
+     * Chiude il pool di connessioni (ad esempio alla chiusura dell'applicazione).
+     * Il primo accesso successivo al database ne crea uno nuovo.
+     */
+    public static synchronized void closePool() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     // Metodo per ottenere direttamente uno Statement dal database
     // Lo statement è l'oggetto JDBC che permette di eseguire query SQL
+    // La connessione viene presa dal pool e vi ritorna quando lo statement (o la sua connessione) viene chiuso
     public static Statement getStatement() throws SQLException{
-        if (currentDAOMySQLSettings == null){
-            currentDAOMySQLSettings = getDefaultDAOSettings();
-        }
-        return DriverManager.getConnection("jdbc:mysql://" + currentDAOMySQLSettings.host  + "/" + currentDAOMySQLSettings.schema + PARAMETERS, currentDAOMySQLSettings.userName, currentDAOMySQLSettings.pwd).createStatement();
+        return getPool().getStatement();
     }
 
     public static void closeStatement(Statement st) throws SQLException{
@@ -98,11 +287,8 @@ public class DAOMySQLSettings {
     }
 
     // Metodo per ottenere direttamente una Connection al database
+    // close() sulla connessione la restituisce al pool
     public static Connection getConnection() throws SQLException {
-        if (currentDAOMySQLSettings == null){
-            currentDAOMySQLSettings = getDefaultDAOSettings();
-        }
-        String url = "jdbc:mysql://" + currentDAOMySQLSettings.host + "/" + currentDAOMySQLSettings.schema + PARAMETERS;
-        return DriverManager.getConnection(url, currentDAOMySQLSettings.userName, currentDAOMySQLSettings.pwd);
+        return getPool().getConnection();
     }
 }
@@ -0,0 +1,109 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Fotografia (immutabile) delle metriche di un metodo DAO raccolte da {@link DaoMetrics}.
+ * La latenza è il tempo per cui il metodo ha tenuto la connessione del pool (dal prestito a close()),
+ * l'acquisizione il tempo di attesa per ottenerla.
+ */
+public class DaoMethodStats {
+
+    private final String method;
+    private final long calls;
+    private final long errors;
+    private final long rowsRead;
+    private final long rowsUpdated;
+    private final long slowQueries;
+    private final long totalMillis;
+    private final long avgMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final long avgAcquireMicros;
+    private final long p99AcquireMicros;
+
+    @ConstructorProperties({"method", "calls", "errors", "rowsRead", "rowsUpdated", "slowQueries", "totalMillis",
+            "avgMicros", "p50Micros", "p90Micros", "p99Micros", "maxMicros", "avgAcquireMicros", "p99AcquireMicros"})
+    public DaoMethodStats(String method, long calls, long errors, long rowsRead, long rowsUpdated, long slowQueries,
+                          long totalMillis, long avgMicros, long p50Micros, long p90Micros, long p99Micros,
+                          long maxMicros, long avgAcquireMicros, long p99AcquireMicros) {
+        this.method = method;
+        this.calls = calls;
+        this.errors = errors;
+        this.rowsRead = rowsRead;
+        this.rowsUpdated = rowsUpdated;
+        this.slowQueries = slowQueries;
+        this.totalMillis = totalMillis;
+        this.avgMicros = avgMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+        this.avgAcquireMicros = avgAcquireMicros;
+        this.p99AcquireMicros = p99AcquireMicros;
+    }
+
+    /** @return classe e metodo che hanno preso la connessione (es. EventoDAOMySQLImpl.selectPage) */
+    public String getMethod() { return method; }
+
+    /** @return chiamate, cioè connessioni prese dal metodo */
+    public long getCalls() { return calls; }
+
+    /** @return chiamate in cui almeno un'operazione JDBC ha lanciato SQLException */
+    public long getErrors() { return errors; }
+
+    /** @return righe lette dai ResultSet */
+    public long getRowsRead() { return rowsRead; }
+
+    /** @return righe inserite, modificate o cancellate */
+    public long getRowsUpdated() { return rowsUpdated; }
+
+    /** @return statement oltre la soglia delle query lente */
+    public long getSlowQueries() { return slowQueries; }
+
+    /** @return tempo totale passato nel metodo con la connessione in mano (millisecondi) */
+    public long getTotalMillis() { return totalMillis; }
+
+    /** @return latenza media (microsecondi) */
+    public long getAvgMicros() { return avgMicros; }
+
+    /** @return mediana della latenza (microsecondi) */
+    public long getP50Micros() { return p50Micros; }
+
+    /** @return 90° percentile della latenza (microsecondi) */
+    public long getP90Micros() { return p90Micros; }
+
+    /** @return 99° percentile della latenza (microsecondi) */
+    public long getP99Micros() { return p99Micros; }
+
+    /** @return latenza massima (microsecondi) */
+    public long getMaxMicros() { return maxMicros; }
+
+    /** @return tempo medio di acquisizione della connessione (microsecondi) */
+    public long getAvgAcquireMicros() { return avgAcquireMicros; }
+
+    /** @return 99° percentile del tempo di acquisizione della connessione (microsecondi) */
+    public long getP99AcquireMicros() { return p99AcquireMicros; }
+
+    /** @return frazione di chiamate con errori, tra 0 e 1 */
+    public double getErrorRate() { return calls == 0 ? 0 : (double) errors / calls; }
+
+    @Override
+    public String toString() {
+        return "DaoMethodStats{" +
+                "method=" + method +
+                ", calls=" + calls +
+                ", errors=" + errors +
+                ", rowsRead=" + rowsRead +
+                ", rowsUpdated=" + rowsUpdated +
+                ", slow=" + slowQueries +
+                ", totalMs=" + totalMillis +
+                ", p50Us=" + p50Micros +
+                ", p99Us=" + p99Micros +
+                ", maxUs=" + maxMicros +
+                ", avgAcquireUs=" + avgAcquireMicros +
+                '}';
+    }
+}
@@ -0,0 +1,340 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Metriche dei DAO, raccolte dal {@link ConnectionPool} senza modificare i singoli DAO:
+ * ogni connessione prestata viene attribuita al metodo che l'ha chiesta (il primo frame dello stack
+ * fuori dal pool, es. EventoDAOMySQLImpl.selectPage) e alla schermata da cui parte la chiamata
+ * (il primo controller del package view nello stack).
+ *
+ * Per ogni metodo mantiene chiamate, errori SQL, righe lette e modificate, un istogramma della latenza
+ * (tempo con la connessione in mano) e uno del tempo di acquisizione della connessione.
+ * Gli statement più lenti della soglia (DAOMySQLSettings.setSlowQueryThresholdMillis oppure
+ * -Dbiglietteria.db.slowQueryMillis) vengono scritti nel log con livello WARNING e conservati
+ * in un registro delle ultime {@value #MAX_QUERY_LENTE}.
+ *
+ * Le metriche sono esportate via JMX come {@value #OBJECT_NAME} e stampate alla chiusura dell'applicazione.
+ */
+public final class DaoMetrics implements DaoMetricsMXBean {
+
+    public final static String OBJECT_NAME = "it.unicas.project.template.address:type=DaoMetrics";
+    public final static int MAX_QUERY_LENTE = 100;
+
+    private final static String PACKAGE_VIEW = "it.unicas.project.template.address.view.";
+    private final static String SENZA_SCHERMATA = "(nessuna)";
+    // Frame esaminati per trovare metodo e schermata: oltre, lo stack è tutto JavaFX o thread pool
+    private final static int PROFONDITA_STACK = 48;
+    private final static int MAX_SQL_NEL_LOG = 500;
+
+    private static final Logger logger = Logger.getLogger(DaoMetrics.class.getName());
+    private static final StackWalker walker = StackWalker.getInstance();
+    private static final DateTimeFormatter ORA = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static DaoMetrics metrics = null;
+
+    private final ConcurrentMap<String, Metodo> metodi = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> schermate = new ConcurrentHashMap<>();
+    private final Deque<String> queryLente = new ArrayDeque<>();
+    private volatile long sogliaQueryLentaNanos =
+            TimeUnit.MILLISECONDS.toNanos(DAOMySQLSettings.SLOW_QUERY_THRESHOLD_MILLIS);
+
+    private DaoMetrics() {
+    }
+
+    /**
+     * Restituisce l'istanza singleton delle metriche, registrandola su JMX al primo accesso.
+     *
+     * @return istanza singleton DaoMetrics
+     */
+    public static synchronized DaoMetrics getInstance() {
+        if (metrics == null) {
+            metrics = new DaoMetrics();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            } catch (JMException | SecurityException e) {
+                logger.log(Level.FINE, "DaoMetrics non registrato su JMX", e);
+            }
+        }
+        return metrics;
+    }
+
+    /***********************************
+     RACCOLTA (chiamata dal pool)
+     **************************************/
+
+    /**
+     * Metodo DAO e schermata a cui attribuire una connessione.
+     */
+    static final class Origine {
+        final String metodo;
+        final String schermata;
+
+        Origine(String metodo, String schermata) {
+            this.metodo = metodo;
+            this.schermata = schermata;
+        }
+    }
+
+    /**
+     * Individua dallo stack il metodo che sta prendendo una connessione: il primo frame fuori
+     * dall'infrastruttura del pool, risalendo i metodi (e le lambda) della stessa classe fino al
+     * punto d'ingresso; poi il primo controller della view, se c'è.
+     * StackWalker legge solo i frame esaminati, al più {@value #PROFONDITA_STACK}.
+     *
+     * @return origine della chiamata corrente
+     */
+    static Origine origine() {
+        return walker.walk(frames -> origine(frames.limit(PROFONDITA_STACK).iterator(),
+                StackWalker.StackFrame::getClassName, StackWalker.StackFrame::getMethodName));
+    }
+
+    /**
+     * Come {@link #origine()}, ma da uno stack già catturato (quello che il pool conserva per
+     * segnalare le connessioni non restituite), senza leggere lo stack una seconda volta.
+     *
+     * @param stack stack del chiamante
+     * @return origine della chiamata
+     */
+    static Origine origine(StackTraceElement[] stack) {
+        return origine(Arrays.asList(stack).subList(0, Math.min(stack.length, PROFONDITA_STACK)).iterator(),
+                StackTraceElement::getClassName, StackTraceElement::getMethodName);
+    }
+
+    private static <F> Origine origine(Iterator<F> it, Function<F, String> nomeClasse, Function<F, String> nomeMetodo) {
+        String classe = null;
+        String metodo = null;
+        boolean ingressoTrovato = false;
+        while (it.hasNext()) {
+            F f = it.next();
+            String c = classeEsterna(nomeClasse.apply(f));
+            if (classe == null) {
+                if (infrastruttura(c)) {
+                    continue;
+                }
+                classe = c;
+                metodo = nomeMetodo.apply(f);
+            } else if (!ingressoTrovato && c.equals(classe)) {
+                if (!nomeMetodo.apply(f).startsWith("lambda$")) {
+                    metodo = nomeMetodo.apply(f);
+                }
+            } else {
+                ingressoTrovato = true;
+            }
+            if (c.startsWith(PACKAGE_VIEW)) {
+                return new Origine(nomeSemplice(classe) + "." + metodo, nomeSemplice(c));
+            }
+        }
+        return classe == null ? new Origine("(sconosciuto)", SENZA_SCHERMATA)
+                : new Origine(nomeSemplice(classe) + "." + metodo, SENZA_SCHERMATA);
+    }
+
+    /**
+     * Registra la fine di un prestito di connessione.
+     *
+     * @param origine metodo e schermata
+     * @param durataNanos tempo dal prestito alla restituzione
+     * @param acquisizioneNanos tempo di attesa per ottenere la connessione
+     * @param righeLette righe lette dai ResultSet
+     * @param righeModificate righe restituite dagli executeUpdate/executeBatch
+     * @param lente statement oltre la soglia
+     * @param errore true se un'operazione JDBC ha lanciato SQLException
+     */
+    void registra(Origine origine, long durataNanos, long acquisizioneNanos, long righeLette,
+                  long righeModificate, int lente, boolean errore) {
+        Metodo m = metodi.computeIfAbsent(origine.metodo, k -> new Metodo());
+        m.latenza.registra(durataNanos);
+        m.acquisizione.registra(acquisizioneNanos);
+        m.righeLette.add(righeLette);
+        m.righeModificate.add(righeModificate);
+        m.lente.add(lente);
+        if (errore) {
+            m.errori.increment();
+        }
+        schermate.computeIfAbsent(origine.schermata, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * @param nanos durata di uno statement
+     * @return true se supera la soglia delle query lente
+     */
+    boolean isLenta(long nanos) {
+        long soglia = sogliaQueryLentaNanos;
+        return soglia > 0 && nanos >= soglia;
+    }
+
+    /**
+     * Scrive una query lenta nel log e nel registro delle ultime query lente.
+     *
+     * @param origine metodo e schermata
+     * @param sql testo dello statement (null se non noto)
+     * @param nanos durata dell'esecuzione
+     */
+    void queryLenta(Origine origine, String sql, long nanos) {
+        String testo = sql == null ? "?" : sql.replaceAll("\\s+", " ").trim();
+        if (testo.length() > MAX_SQL_NEL_LOG) {
+            testo = testo.substring(0, MAX_SQL_NEL_LOG) + "...";
+        }
+        String voce = LocalTime.now().format(ORA) + " " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms "
+                + origine.metodo + " [" + origine.schermata + "]: " + testo;
+        logger.warning("Query lenta: " + voce);
+        synchronized (queryLente) {
+            queryLente.addFirst(voce);
+            if (queryLente.size() > MAX_QUERY_LENTE) {
+                queryLente.removeLast();
+            }
+        }
+    }
+
+    /***********************************
+     CONSULTAZIONE
+     **************************************/
+
+    @Override
+    public List<DaoMethodStats> getMethods() {
+        List<DaoMethodStats> risultato = new ArrayList<>();
+        for (Map.Entry<String, Metodo> e : metodi.entrySet()) {
+            Metodo m = e.getValue();
+            risultato.add(new DaoMethodStats(
+                    e.getKey(),
+                    m.latenza.getConteggio(),
+                    m.errori.sum(),
+                    m.righeLette.sum(),
+                    m.righeModificate.sum(),
+                    m.lente.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(m.latenza.getSomma()),
+                    micros(m.latenza.getMedia()),
+                    micros(m.latenza.percentile(0.50)),
+                    micros(m.latenza.percentile(0.90)),
+                    micros(m.latenza.percentile(0.99)),
+                    micros(m.latenza.getMassimo()),
+                    micros(m.acquisizione.getMedia()),
+                    micros(m.acquisizione.percentile(0.99))));
+        }
+        risultato.sort(Comparator.comparingLong(DaoMethodStats::getTotalMillis).reversed()
+                .thenComparing(DaoMethodStats::getMethod));
+        return risultato;
+    }
+
+    @Override
+    public Map<String, Long> getCallsByScreen() {
+        Map<String, Long> risultato = new LinkedHashMap<>();
+        schermate.entrySet().stream()
+                .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                .forEach(e -> risultato.put(e.getKey(), e.getValue().sum()));
+        return risultato;
+    }
+
+    @Override
+    public List<String> getSlowQueries() {
+        synchronized (queryLente) {
+            return new ArrayList<>(queryLente);
+        }
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(sogliaQueryLentaNanos);
+    }
+
+    // 0 disabilita il registro delle query lente
+    @Override
+    public void setSlowQueryThresholdMillis(long millis) {
+        sogliaQueryLentaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+    }
+
+    @Override
+    public void reset() {
+        for (Metodo m : metodi.values()) {
+            m.azzera();
+        }
+        schermate.clear();
+        synchronized (queryLente) {
+            queryLente.clear();
+        }
+    }
+
+    /**
+     * Tabella leggibile delle metriche per metodo e per schermata.
+     *
+     * @return report su più righe
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-52s %8s %6s %9s %9s %9s %9s %9s %10s %8s%n", "metodo DAO", "chiamate", "errori",
+                "righe", "tot ms", "p50 ms", "p99 ms", "max ms", "acq p99 ms", "lente"));
+        for (DaoMethodStats s : getMethods()) {
+            sb.append(String.format("%-52s %8d %6d %9d %9d %9.2f %9.2f %9.2f %10.2f %8d%n", s.getMethod(),
+                    s.getCalls(), s.getErrors(), s.getRowsRead() + s.getRowsUpdated(), s.getTotalMillis(),
+                    s.getP50Micros() / 1e3, s.getP99Micros() / 1e3, s.getMaxMicros() / 1e3,
+                    s.getP99AcquireMicros() / 1e3, s.getSlowQueries()));
+        }
+        Map<String, Long> perSchermata = getCallsByScreen();
+        if (!perSchermata.isEmpty()) {
+            sb.append("Connessioni per schermata:");
+            perSchermata.forEach((k, v) -> sb.append(' ').append(k).append('=').append(v));
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static boolean infrastruttura(String classe) {
+        return classe.equals(ConnectionPool.class.getName())
+                || classe.equals(DAOMySQLSettings.class.getName())
+                || classe.equals(DaoMetrics.class.getName());
+    }
+
+    private static String classeEsterna(String classe) {
+        int dollaro = classe.indexOf('$');
+        return dollaro < 0 ? classe : classe.substring(0, dollaro);
+    }
+
+    private static String nomeSemplice(String classe) {
+        return classe.substring(classe.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Contatori e istogrammi di un metodo DAO.
+     */
+    private static final class Metodo {
+        final LatencyHistogram latenza = new LatencyHistogram();
+        final LatencyHistogram acquisizione = new LatencyHistogram();
+        final LongAdder errori = new LongAdder();
+        final LongAdder righeLette = new LongAdder();
+        final LongAdder righeModificate = new LongAdder();
+        final LongAdder lente = new LongAdder();
+
+        void azzera() {
+            latenza.azzera();
+            acquisizione.azzera();
+            errori.reset();
+            righeLette.reset();
+            righeModificate.reset();
+            lente.reset();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interfaccia JMX di {@link DaoMetrics}, registrata come
+ * {@value DaoMetrics#OBJECT_NAME} (visibile ad esempio con jconsole o VisualVM).
+ */
+public interface DaoMetricsMXBean {
+
+    /**
+     * @return metriche per metodo DAO, dal più costoso (tempo totale) al meno costoso
+     */
+    List<DaoMethodStats> getMethods();
+
+    /**
+     * @return connessioni prese per schermata (controller della view che ha originato la chiamata)
+     */
+    Map<String, Long> getCallsByScreen();
+
+    /**
+     * @return ultime query lente, dalla più recente
+     */
+    List<String> getSlowQueries();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long millis);
+
+    /**
+     * Azzera tutte le metriche e il registro delle query lente.
+     */
+    void reset();
+}
@@ -0,0 +1,150 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Database H2 in memoria in modalità MySQL, per provare i DAO (test di carico, benchmark, demo)
+ * senza un server MySQL. Si attiva con {@link DAOMySQLSettings#getEmbeddedDAOSettings(String)}
+ * oppure, per tutta l'applicazione, con -Dbiglietteria.db.profilo=embedded.
+ *
+ * Alla prima connessione il database viene creato dallo stesso script usato per MySQL
+ * (tabelle e dati di esempio, senza le migrazioni), con poche sostituzioni testuali per le
+ * parti che H2 non riconosce. Il database resta in memoria finché la JVM è attiva.
+ *
+ * Lo script viene cercato nel percorso indicato da -Dbiglietteria.db.script oppure nella cartella
+ * di lavoro e in quella superiore (per i moduli Maven).
+ */
+public final class EmbeddedDatabase {
+
+    public final static String USERNAME = "sa";
+    public final static String PWD = "";
+    public final static String SCRIPT = "CreazioneDatabase&Entry.sql";
+    public final static String PROP_SCRIPT = "biglietteria.db.script";
+
+    // Nomi di tabelle e colonne in minuscolo e confronti tra stringhe senza distinzione
+    // maiuscole/minuscole, come con la collation utf8mb3_general_ci di MySQL
+    private final static String PARAMETERS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+
+    private final static String INIZIO_DDL = "-- 2. CREAZIONE TABELLE";
+    private final static String INIZIO_MIGRAZIONI = "-- 4. MIGRAZIONI";
+
+    private static final Logger logger = Logger.getLogger(EmbeddedDatabase.class.getName());
+
+    // Database già creati in questa JVM
+    private static final Set<String> inizializzati = new HashSet<>();
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * @param nome nome del database in memoria
+     * @return URL JDBC del database H2
+     */
+    public static String url(String nome) {
+        return "jdbc:h2:mem:" + nome + PARAMETERS;
+    }
+
+    /**
+     * Crea tabelle e dati di esempio, se non è già stato fatto per questo database.
+     *
+     * @param settings impostazioni del database incorporato
+     * @throws SQLException se lo script non si trova o un'istruzione fallisce
+     */
+    static synchronized void inizializza(DAOMySQLSettings settings) throws SQLException {
+        String url = settings.getJdbcUrl();
+        if (inizializzati.contains(url)) {
+            return;
+        }
+
+        List<String> istruzioni;
+        try {
+            istruzioni = istruzioni(new String(Files.readAllBytes(trovaScript()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new SQLException("In inizializza(): script del database non leggibile: " + e.getMessage());
+        }
+
+        try (Connection conn = DriverManager.getConnection(url, settings.getUserName(), settings.getPwd());
+             Statement st = conn.createStatement()) {
+
+            try (ResultSet rs = conn.getMetaData().getTables(null, null, "eventi", null)) {
+                if (rs.next()) {
+                    inizializzati.add(url);
+                    return;
+                }
+            }
+
+            logger.info("Creazione del database incorporato " + url + " (" + istruzioni.size() + " istruzioni)");
+            for (String sql : istruzioni) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    throw new SQLException("In inizializza(): " + e.getMessage() + "\n" + sql, e);
+                }
+            }
+        }
+        inizializzati.add(url);
+    }
+
+    /**
+     * Estrae dallo script MySQL le istruzioni di creazione delle tabelle e di inserimento dei dati,
+     * adattate ad H2: niente schema esplicito, opzioni di tabella e indice solo MySQL rimosse.
+     *
+     * @param script testo dello script
+     * @return istruzioni SQL, senza il ';' finale
+     */
+    static List<String> istruzioni(String script) {
+        int inizio = script.indexOf(INIZIO_DDL);
+        int fine = script.indexOf(INIZIO_MIGRAZIONI);
+        if (inizio < 0) {
+            throw new IllegalArgumentException("Script del database senza la sezione '" + INIZIO_DDL + "'");
+        }
+        String testo = script.substring(inizio, fine > inizio ? fine : script.length())
+                .replace("`Biglietteria_SE`.", "")
+                .replace("ENGINE = InnoDB", "")
+                .replace(" VISIBLE", "")
+                .replace(" COLLATE utf8mb3_general_ci", "");
+
+        List<String> istruzioni = new ArrayList<>();
+        StringBuilder corrente = new StringBuilder();
+        for (String riga : testo.split("\n")) {
+            String r = riga.trim();
+            if (r.isEmpty() || r.startsWith("--")) {
+                continue;
+            }
+            corrente.append(riga).append('\n');
+            if (r.endsWith(";")) {
+                String sql = corrente.toString().trim();
+                istruzioni.add(sql.substring(0, sql.length() - 1));
+                corrente.setLength(0);
+            }
+        }
+        return istruzioni;
+    }
+
+    private static Path trovaScript() throws IOException {
+        String indicato = System.getProperty(PROP_SCRIPT);
+        if (indicato != null) {
+            return Paths.get(indicato);
+        }
+        for (Path candidato : new Path[]{Paths.get(SCRIPT), Paths.get("..", SCRIPT)}) {
+            if (Files.isReadable(candidato)) {
+                return candidato;
+            }
+        }
+        throw new IOException(SCRIPT + " non trovato nella cartella di lavoro: indicarlo con -D" + PROP_SCRIPT);
+    }
+}
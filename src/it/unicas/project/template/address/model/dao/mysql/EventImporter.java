@@ -0,0 +1,789 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.Collaboratore;
+import it.unicas.project.template.address.model.EventImportReport;
+import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.Luogo;
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Importazione massiva di eventi da file CSV o JSON per un'organizzazione.
+ *
+ * Il file viene letto un evento per volta. Ogni riga viene controllata (campi obbligatori, lunghezze,
+ * importo, data e orari, tipo, luogo e collaboratori esistenti) e confrontata con le disponibilità di
+ * {@link SchedulingEngine} e con le righe precedenti dello stesso file non ancora salvate: una riga che
+ * occupa un luogo o un collaboratore già impegnato viene scartata. Le righe valide vengono salvate con
+ * {@link EventoDAOMySQLImpl#insertAll} a blocchi di {@link #RIGHE_PER_COMMIT} (configurabile), ciascuno
+ * nella sua transazione: se un blocco fallisce vengono scartate solo le sue righe e l'importazione prosegue.
+ *
+ * Colonne (CSV, con intestazione e separatore ',' o ';') o campi (JSON, array di oggetti):
+ * titolo, descrizione, costi, data, inizio, fine, tag, note, tipo, luogo, collaboratori.
+ * Tipo, luogo e collaboratori si indicano per id o per nome; i collaboratori in CSV sono separati da '|',
+ * in JSON sono un array. Sono obbligatori titolo, costi, data, inizio, fine, tipo e luogo.
+ */
+public class EventImporter {
+
+    public static final int RIGHE_PER_COMMIT = 100;
+
+    private static final List<String> CAMPI = List.of("titolo", "descrizione", "costi", "data", "inizio", "fine",
+            "tag", "note", "tipo", "luogo", "collaboratori");
+    private static final List<String> OBBLIGATORI = List.of("titolo", "costi", "data", "inizio", "fine", "tipo", "luogo");
+    private static final DateTimeFormatter DATA_ITALIANA = DateTimeFormatter.ofPattern("d/M/uuuu").withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter ORARIO = DateTimeFormatter.ofPattern("H:mm[:ss]");
+
+    /**
+     * Formato del file da importare.
+     */
+    public enum Formato {
+        CSV, JSON;
+
+        /**
+         * @param nomeFile nome del file
+         * @return JSON per i file .json, CSV altrimenti
+         */
+        public static Formato daNomeFile(String nomeFile) {
+            return nomeFile.toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    private static EventImporter eventImporter = null;
+    private static final Logger logger = Logger.getLogger(EventImporter.class.getName());
+
+    private EventImporter() {
+    }
+
+    /**
+     * Restituisce l'istanza singleton dell'importatore.
+     *
+     * @return istanza singleton EventImporter
+     */
+    public static synchronized EventImporter getInstance() {
+        if (eventImporter == null) {
+            eventImporter = new EventImporter();
+        }
+        return eventImporter;
+    }
+
+    /******************************************
+     IMPORTAZIONE
+     ********************************************/
+
+    /**
+     * Importa gli eventi di un file salvandoli a blocchi di {@link #RIGHE_PER_COMMIT} righe.
+     *
+     * @param sorgente contenuto del file (non viene chiuso)
+     * @param formato formato del file
+     * @param idOrganizzazione organizzazione a cui appartengono gli eventi
+     * @return eventi salvati e righe scartate
+     * @throws DAOException se non si riescono a leggere tipi, luoghi o collaboratori
+     */
+    public EventImportReport importa(Reader sorgente, Formato formato, int idOrganizzazione) throws DAOException {
+        return importa(sorgente, formato, idOrganizzazione, RIGHE_PER_COMMIT);
+    }
+
+    /**
+     * Importa gli eventi di un file salvandoli a blocchi di righePerCommit righe. Un errore di sintassi
+     * o di lettura interrompe l'importazione: i blocchi già salvati restano e le righe valide lette fin lì
+     * vengono salvate.
+     *
+     * @param sorgente contenuto del file (non viene chiuso)
+     * @param formato formato del file
+     * @param idOrganizzazione organizzazione a cui appartengono gli eventi
+     * @param righePerCommit righe valide salvate in ogni transazione
+     * @return eventi salvati e righe scartate
+     * @throws DAOException se non si riescono a leggere tipi, luoghi o collaboratori
+     */
+    public EventImportReport importa(Reader sorgente, Formato formato, int idOrganizzazione, int righePerCommit) throws DAOException {
+        if (righePerCommit < 1) {
+            throw new IllegalArgumentException("Righe per commit non valide: " + righePerCommit);
+        }
+
+        Importazione imp = new Importazione(idOrganizzazione, righePerCommit);
+        Lettore lettore = formato == Formato.JSON ? new LettoreJson(sorgente) : new LettoreCsv(sorgente);
+        try {
+            Record r;
+            while ((r = lettore.prossimo()) != null) {
+                imp.righeLette++;
+                imp.aggiungi(r);
+            }
+        } catch (FormatoNonValido e) {
+            imp.errori.add(new EventImportReport.Errore(e.riga, e.getMessage()));
+        } catch (IOException e) {
+            imp.errori.add(new EventImportReport.Errore(lettore.riga(), "Lettura interrotta: " + e.getMessage()));
+        }
+        imp.scrivi();
+
+        imp.errori.sort((a, b) -> Integer.compare(a.getRiga(), b.getRiga()));
+        EventImportReport report = new EventImportReport(imp.righeLette, imp.importati, imp.errori);
+        logger.info("Importazione eventi per l'organizzazione " + idOrganizzazione + ": " + report);
+        return report;
+    }
+
+    /**
+     * Stato di un'importazione: dati di riferimento, blocco in attesa di essere salvato
+     * e occupazioni delle sue righe (non ancora note a {@link SchedulingEngine}).
+     */
+    private static final class Importazione {
+        final int idOrganizzazione;
+        final int righePerCommit;
+        final ReferenceDataCache riferimenti = ReferenceDataCache.getInstance();
+        final Map<Integer, Collaboratore> collaboratoriPerId = new HashMap<>();
+        final Map<String, List<Collaboratore>> collaboratoriPerNome = new HashMap<>();
+
+        int righeLette = 0;
+        final List<Integer> importati = new ArrayList<>();
+        final List<EventImportReport.Errore> errori = new ArrayList<>();
+
+        List<Riga> blocco = new ArrayList<>();
+        Map<Integer, IntervalTree> luoghiBlocco = new HashMap<>();
+        Map<Integer, IntervalTree> collaboratoriBlocco = new HashMap<>();
+
+        Importazione(int idOrganizzazione, int righePerCommit) throws DAOException {
+            this.idOrganizzazione = idOrganizzazione;
+            this.righePerCommit = righePerCommit;
+            for (Collaboratore c : CollaboratoreDAOMySQLImpl.getInstance().select((Collaboratore) null)) {
+                collaboratoriPerId.put(c.getId(), c);
+                collaboratoriPerNome.computeIfAbsent(chiave(c.getNome()), k -> new ArrayList<>()).add(c);
+            }
+        }
+
+        void aggiungi(Record r) throws DAOException {
+            Riga riga;
+            try {
+                riga = valida(r);
+                verificaDisponibilita(riga);
+            } catch (RigaNonValida e) {
+                errori.add(new EventImportReport.Errore(r.riga, e.getMessage()));
+                return;
+            }
+
+            long inizio = riga.intervallo[0];
+            long fine = riga.intervallo[1];
+            luoghiBlocco.computeIfAbsent(riga.evento.getIdLuogoEvento(), k -> new IntervalTree()).aggiungi(inizio, fine, r.riga);
+            for (Collaboratore c : riga.collaboratori) {
+                collaboratoriBlocco.computeIfAbsent(c.getId(), k -> new IntervalTree()).aggiungi(inizio, fine, r.riga);
+            }
+            blocco.add(riga);
+            if (blocco.size() >= righePerCommit) {
+                scrivi();
+            }
+        }
+
+        // Salva il blocco in una transazione; dopo il commit le sue occupazioni sono in SchedulingEngine
+        void scrivi() {
+            if (blocco.isEmpty()) {
+                return;
+            }
+            List<Evento> eventi = new ArrayList<>();
+            List<List<Collaboratore>> collaboratori = new ArrayList<>();
+            for (Riga r : blocco) {
+                eventi.add(r.evento);
+                collaboratori.add(r.collaboratori);
+            }
+            try {
+                EventoDAOMySQLImpl.getInstance().insertAll(eventi, collaboratori);
+                for (Evento e : eventi) {
+                    importati.add(e.getId());
+                }
+            } catch (DAOException e) {
+                logger.warning("In importa(): blocco di " + blocco.size() + " righe non salvato (" + e.getMessage() + ")");
+                for (Riga r : blocco) {
+                    errori.add(new EventImportReport.Errore(r.numero, "Salvataggio non riuscito: " + e.getMessage()));
+                }
+            }
+            blocco = new ArrayList<>();
+            luoghiBlocco = new HashMap<>();
+            collaboratoriBlocco = new HashMap<>();
+        }
+
+        /******************************************
+         CONTROLLI
+         ********************************************/
+
+        private Riga valida(Record r) throws RigaNonValida, DAOException {
+            if (r.errore != null) {
+                throw new RigaNonValida(r.errore);
+            }
+            for (String campo : r.campi.keySet()) {
+                if (!CAMPI.contains(campo)) {
+                    throw new RigaNonValida("Campo sconosciuto '" + campo + "'");
+                }
+            }
+            for (String campo : OBBLIGATORI) {
+                if (testo(r, campo).isEmpty()) {
+                    throw new RigaNonValida("Il campo '" + campo + "' è obbligatorio");
+                }
+            }
+
+            String titolo = lunghezza(r, "titolo", 45);
+            String descrizione = lunghezza(r, "descrizione", 400);
+            String tag = lunghezza(r, "tag", 45);
+            String note = lunghezza(r, "note", 400);
+            BigDecimal costi = costi(testo(r, "costi"));
+            String data = data(testo(r, "data"));
+            String inizio = orario(testo(r, "inizio"), "inizio");
+            String fine = orario(testo(r, "fine"), "fine");
+            if (inizio.equals(fine)) {
+                throw new RigaNonValida("Orario di inizio e di fine coincidono");
+            }
+
+            int idTipo = tipo(testo(r, "tipo"));
+            Luogo luogo = luogo(testo(r, "luogo"));
+            List<Collaboratore> collaboratori = collaboratori(testo(r, "collaboratori"));
+
+            Evento e = new Evento(0, titolo, descrizione, costi, data, inizio, fine, tag, note,
+                    idTipo, idOrganizzazione, luogo.getId());
+            return new Riga(r.riga, e, collaboratori, SchedulingEngine.intervallo(data, inizio, fine), luogo.getNome());
+        }
+
+        private void verificaDisponibilita(Riga r) throws RigaNonValida, DAOException {
+            SchedulingEngine scheduling = SchedulingEngine.getInstance();
+            long[] iv = r.intervallo;
+
+            int idLuogo = r.evento.getIdLuogoEvento();
+            if (!scheduling.luogoLibero(idLuogo, iv) || occupato(luoghiBlocco, idLuogo, iv)) {
+                throw new RigaNonValida("Il luogo '" + r.nomeLuogo + "' è già occupato in quell'orario");
+            }
+            for (Collaboratore c : r.collaboratori) {
+                if (!scheduling.collaboratoreLibero(c.getId(), iv) || occupato(collaboratoriBlocco, c.getId(), iv)) {
+                    throw new RigaNonValida("Il collaboratore '" + c.getNome() + "' è già impegnato in quell'orario");
+                }
+            }
+        }
+
+        private static boolean occupato(Map<Integer, IntervalTree> alberi, int id, long[] iv) {
+            IntervalTree albero = alberi.get(id);
+            return albero != null && albero.sovrapposto(iv[0], iv[1]);
+        }
+
+        private static String testo(Record r, String campo) {
+            String valore = r.campi.get(campo);
+            return valore == null ? "" : valore.trim();
+        }
+
+        private static String lunghezza(Record r, String campo, int massimo) throws RigaNonValida {
+            String valore = testo(r, campo);
+            if (valore.length() > massimo) {
+                throw new RigaNonValida("Il campo '" + campo + "' supera i " + massimo + " caratteri");
+            }
+            return valore;
+        }
+
+        // Come nella creazione dell'evento: importo non negativo con al massimo due decimali (DECIMAL(10,2))
+        private static BigDecimal costi(String valore) throws RigaNonValida {
+            try {
+                BigDecimal prezzo = new BigDecimal(valore.replace(',', '.'));
+                if (prezzo.signum() >= 0 && prezzo.scale() <= 2 && prezzo.precision() - prezzo.scale() <= 8) {
+                    return prezzo.setScale(2);
+                }
+            } catch (NumberFormatException e) {
+                // messaggio sotto
+            }
+            throw new RigaNonValida("Il campo 'costi' deve essere un importo (es. 12 oppure 12,50): " + valore);
+        }
+
+        private static String data(String valore) throws RigaNonValida {
+            try {
+                return (valore.contains("/") ? LocalDate.parse(valore, DATA_ITALIANA) : LocalDate.parse(valore)).toString();
+            } catch (DateTimeParseException e) {
+                throw new RigaNonValida("Data non valida (aaaa-mm-gg oppure gg/mm/aaaa): " + valore);
+            }
+        }
+
+        private static String orario(String valore, String campo) throws RigaNonValida {
+            try {
+                return LocalTime.parse(valore, ORARIO).toString();
+            } catch (DateTimeParseException e) {
+                throw new RigaNonValida("Orario di " + campo + " non valido (hh:mm): " + valore);
+            }
+        }
+
+        private int tipo(String valore) throws RigaNonValida, DAOException {
+            ReferenceDataCache.Tabella tabella = ReferenceDataCache.Tabella.TIPO_EVENTO;
+            int id = numero(valore);
+            if (id > 0 && riferimenti.getNome(tabella, id) != null) {
+                return id;
+            }
+            id = id > 0 ? -1 : riferimenti.getId(tabella, valore);
+            if (id < 0) {
+                throw new RigaNonValida("Tipo di evento inesistente: " + valore);
+            }
+            return id;
+        }
+
+        private Luogo luogo(String valore) throws RigaNonValida, DAOException {
+            int id = numero(valore);
+            if (id > 0) {
+                Luogo luogo = riferimenti.getLuogo(id);
+                if (luogo != null) {
+                    return luogo;
+                }
+            } else {
+                for (Luogo luogo : riferimenti.getLuoghi()) {
+                    if (valore.equalsIgnoreCase(luogo.getNome())) {
+                        return luogo;
+                    }
+                }
+            }
+            throw new RigaNonValida("Luogo inesistente: " + valore);
+        }
+
+        // Collaboratori separati da '|', senza ripetizioni (un doppione violerebbe la chiave di evento_collaboratore)
+        private List<Collaboratore> collaboratori(String valore) throws RigaNonValida {
+            Map<Integer, Collaboratore> trovati = new LinkedHashMap<>();
+            for (String nome : valore.split("\\|")) {
+                nome = nome.trim();
+                if (nome.isEmpty()) {
+                    continue;
+                }
+                int id = numero(nome);
+                Collaboratore c;
+                if (id > 0) {
+                    c = collaboratoriPerId.get(id);
+                } else {
+                    List<Collaboratore> omonimi = collaboratoriPerNome.getOrDefault(chiave(nome), List.of());
+                    if (omonimi.size() > 1) {
+                        throw new RigaNonValida("Più collaboratori si chiamano '" + nome + "': indicare l'id");
+                    }
+                    c = omonimi.isEmpty() ? null : omonimi.get(0);
+                }
+                if (c == null) {
+                    throw new RigaNonValida("Collaboratore inesistente: " + nome);
+                }
+                trovati.put(c.getId(), c);
+            }
+            return new ArrayList<>(trovati.values());
+        }
+
+        // Id positivo se il valore è un numero, 0 se è un nome
+        private static int numero(String valore) {
+            if (valore.isEmpty() || valore.length() > 9 || !valore.chars().allMatch(Character::isDigit)) {
+                return 0;
+            }
+            return Integer.parseInt(valore);
+        }
+
+        private static String chiave(String nome) {
+            return nome == null ? "" : nome.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Riga valida in attesa di essere salvata.
+     */
+    private static final class Riga {
+        final int numero;
+        final Evento evento;
+        final List<Collaboratore> collaboratori;
+        final long[] intervallo;
+        final String nomeLuogo;
+
+        Riga(int numero, Evento evento, List<Collaboratore> collaboratori, long[] intervallo, String nomeLuogo) {
+            this.numero = numero;
+            this.evento = evento;
+            this.collaboratori = collaboratori;
+            this.intervallo = intervallo;
+            this.nomeLuogo = nomeLuogo;
+        }
+    }
+
+    private static final class RigaNonValida extends Exception {
+        RigaNonValida(String messaggio) {
+            super(messaggio);
+        }
+    }
+
+    /******************************************
+     LETTURA
+     ********************************************/
+
+    /**
+     * Evento letto dal file: campi per nome (minuscolo) oppure un errore che riguarda solo questa riga.
+     */
+    private static final class Record {
+        final int riga;
+        final Map<String, String> campi;
+        final String errore;
+
+        Record(int riga, Map<String, String> campi, String errore) {
+            this.riga = riga;
+            this.campi = campi;
+            this.errore = errore;
+        }
+    }
+
+    /**
+     * Errore che impedisce di continuare a leggere il file.
+     */
+    private static final class FormatoNonValido extends Exception {
+        final int riga;
+
+        FormatoNonValido(int riga, String messaggio) {
+            super(messaggio);
+            this.riga = riga;
+        }
+    }
+
+    private interface Lettore {
+        /**
+         * @return prossimo evento, null a fine file
+         */
+        Record prossimo() throws IOException, FormatoNonValido;
+
+        /**
+         * @return riga corrente nel file
+         */
+        int riga();
+    }
+
+    /**
+     * CSV con intestazione: campi tra virgolette (anche su più righe, "" per le virgolette), righe vuote ignorate.
+     * Il separatore (',' o ';') è quello più frequente nell'intestazione.
+     */
+    private static final class LettoreCsv implements Lettore {
+        private final Reader in;
+        private int riga = 1;
+        private int prossimo = -2;
+        private char separatore = ',';
+        private List<String> intestazione = null;
+
+        LettoreCsv(Reader in) {
+            this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+        }
+
+        @Override
+        public int riga() {
+            return riga;
+        }
+
+        @Override
+        public Record prossimo() throws IOException, FormatoNonValido {
+            if (intestazione == null) {
+                leggiIntestazione();
+            }
+            List<String> campi;
+            int inizio;
+            do {
+                inizio = riga;
+                campi = campi();
+                if (campi == null) {
+                    return null;
+                }
+            } while (campi.size() == 1 && campi.get(0).isBlank());
+
+            if (campi.size() != intestazione.size()) {
+                return new Record(inizio, Map.of(), campi.size() + " colonne invece di " + intestazione.size());
+            }
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < campi.size(); i++) {
+                record.put(intestazione.get(i), campi.get(i));
+            }
+            return new Record(inizio, record, null);
+        }
+
+        private void leggiIntestazione() throws IOException, FormatoNonValido {
+            StringBuilder linea = new StringBuilder();
+            int c;
+            while ((c = leggi()) != -1 && c != '\n') {
+                linea.append((char) c);
+            }
+            if (!linea.isEmpty() && linea.charAt(0) == '\uFEFF') {
+                linea.deleteCharAt(0);
+            }
+            if (linea.toString().isBlank()) {
+                throw new FormatoNonValido(1, "File vuoto o senza intestazione");
+            }
+            long virgole = linea.chars().filter(ch -> ch == ',').count();
+            long puntiEVirgola = linea.chars().filter(ch -> ch == ';').count();
+            separatore = puntiEVirgola > virgole ? ';' : ',';
+
+            List<String> nomi = new LettoreCsv(new StringReader(linea.toString()), separatore).campi();
+            intestazione = new ArrayList<>();
+            for (String nome : nomi) {
+                String campo = nome.trim().toLowerCase(Locale.ROOT);
+                if (!CAMPI.contains(campo)) {
+                    throw new FormatoNonValido(1, "Colonna sconosciuta '" + nome.trim() + "' (ammesse: " + String.join(", ", CAMPI) + ")");
+                }
+                if (intestazione.contains(campo)) {
+                    throw new FormatoNonValido(1, "Colonna ripetuta '" + campo + "'");
+                }
+                intestazione.add(campo);
+            }
+            for (String campo : OBBLIGATORI) {
+                if (!intestazione.contains(campo)) {
+                    throw new FormatoNonValido(1, "Manca la colonna '" + campo + "'");
+                }
+            }
+            riga = 2;
+        }
+
+        private LettoreCsv(Reader in, char separatore) {
+            this(in);
+            this.separatore = separatore;
+        }
+
+        // Campi della prossima riga logica, null a fine file
+        private List<String> campi() throws IOException, FormatoNonValido {
+            int c = leggi();
+            if (c == -1) {
+                return null;
+            }
+            List<String> campi = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean virgolette = false;
+            int rigaVirgolette = riga;
+            while (true) {
+                if (virgolette) {
+                    if (c == -1) {
+                        throw new FormatoNonValido(rigaVirgolette, "Virgolette non chiuse");
+                    }
+                    if (c == '"') {
+                        int dopo = leggi();
+                        if (dopo == '"') {
+                            campo.append('"');
+                        } else {
+                            virgolette = false;
+                            c = dopo;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            riga++;
+                        }
+                        campo.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    if (c == '\n') {
+                        riga++;
+                    }
+                    campi.add(campo.toString());
+                    return campi;
+                } else if (c == separatore) {
+                    campi.add(campo.toString());
+                    campo.setLength(0);
+                } else if (c == '"' && campo.toString().isBlank()) {
+                    campo.setLength(0);
+                    virgolette = true;
+                    rigaVirgolette = riga;
+                } else {
+                    campo.append((char) c);
+                }
+                c = leggi();
+            }
+        }
+
+        // Carattere successivo senza '\r' (righe terminate da \n o \r\n)
+        private int leggi() throws IOException {
+            int c;
+            do {
+                c = in.read();
+            } while (c == '\r');
+            return c;
+        }
+    }
+
+    /**
+     * Array JSON di oggetti piatti: valori stringa, numero, true/false, null (campo assente)
+     * o array di valori semplici (uniti con '|', come la colonna CSV dei collaboratori).
+     */
+    private static final class LettoreJson implements Lettore {
+        private final Reader in;
+        private int riga = 1;
+        private int c;
+        private boolean iniziato = false;
+        private boolean finito = false;
+
+        LettoreJson(Reader in) {
+            this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+        }
+
+        @Override
+        public int riga() {
+            return riga;
+        }
+
+        @Override
+        public Record prossimo() throws IOException, FormatoNonValido {
+            if (!iniziato) {
+                iniziato = true;
+                avanza();
+                if (c == '\uFEFF') {
+                    avanza();
+                }
+                spazi();
+                atteso('[');
+                spazi();
+                if (c == ']') {
+                    finito = true;
+                }
+            }
+            if (finito) {
+                return null;
+            }
+
+            spazi();
+            int inizio = riga;
+            Map<String, String> campi = oggetto();
+            spazi();
+            if (c == ']') {
+                finito = true;
+            } else {
+                atteso(',');
+            }
+            return new Record(inizio, campi, null);
+        }
+
+        private Map<String, String> oggetto() throws IOException, FormatoNonValido {
+            atteso('{');
+            Map<String, String> campi = new HashMap<>();
+            spazi();
+            if (c == '}') {
+                avanza();
+                return campi;
+            }
+            while (true) {
+                spazi();
+                String nome = stringa().trim().toLowerCase(Locale.ROOT);
+                spazi();
+                atteso(':');
+                spazi();
+                String valore = c == '[' ? array() : valore();
+                if (valore != null) {
+                    campi.put(nome, valore);
+                }
+                spazi();
+                if (c == '}') {
+                    avanza();
+                    return campi;
+                }
+                atteso(',');
+            }
+        }
+
+        private String array() throws IOException, FormatoNonValido {
+            atteso('[');
+            List<String> valori = new ArrayList<>();
+            spazi();
+            if (c == ']') {
+                avanza();
+                return "";
+            }
+            while (true) {
+                spazi();
+                String v = valore();
+                if (v != null) {
+                    valori.add(v);
+                }
+                spazi();
+                if (c == ']') {
+                    avanza();
+                    return String.join("|", valori);
+                }
+                atteso(',');
+            }
+        }
+
+        // Valore semplice (null per il letterale null)
+        private String valore() throws IOException, FormatoNonValido {
+            if (c == '"') {
+                return stringa();
+            }
+            if (c == '{' || c == '[') {
+                throw new FormatoNonValido(riga, "Oggetti e array annidati non sono ammessi");
+            }
+            StringBuilder s = new StringBuilder();
+            while (c != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+                s.append((char) c);
+                avanza();
+            }
+            String letterale = s.toString();
+            if (letterale.equals("null")) {
+                return null;
+            }
+            if (letterale.equals("true") || letterale.equals("false")
+                    || (!letterale.isEmpty() && (Character.isDigit(letterale.charAt(0)) || letterale.charAt(0) == '-'))) {
+                return letterale;
+            }
+            throw new FormatoNonValido(riga, c == -1 ? "File JSON incompleto" : "Valore JSON non valido vicino a '" + letterale + (char) c + "'");
+        }
+
+        private String stringa() throws IOException, FormatoNonValido {
+            atteso('"');
+            StringBuilder s = new StringBuilder();
+            while (c != '"') {
+                if (c == -1) {
+                    throw new FormatoNonValido(riga, "Stringa JSON non chiusa");
+                }
+                if (c == '\\') {
+                    avanza();
+                    switch (c) {
+                        case '"', '\\', '/' -> s.append((char) c);
+                        case 'b' -> s.append('\b');
+                        case 'f' -> s.append('\f');
+                        case 'n' -> s.append('\n');
+                        case 'r' -> s.append('\r');
+                        case 't' -> s.append('\t');
+                        case 'u' -> {
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                avanza();
+                                hex[i] = (char) c;
+                            }
+                            try {
+                                s.append((char) Integer.parseInt(new String(hex), 16));
+                            } catch (NumberFormatException e) {
+                                throw new FormatoNonValido(riga, "Sequenza \\u non valida");
+                            }
+                        }
+                        default -> throw new FormatoNonValido(riga, "Sequenza di escape non valida");
+                    }
+                } else {
+                    s.append((char) c);
+                }
+                avanza();
+            }
+            avanza();
+            return s.toString();
+        }
+
+        private void atteso(char atteso) throws IOException, FormatoNonValido {
+            if (c != atteso) {
+                throw new FormatoNonValido(riga, c == -1
+                        ? "File JSON incompleto"
+                        : "Atteso '" + atteso + "' invece di '" + (char) c + "'");
+            }
+            avanza();
+        }
+
+        private void spazi() throws IOException {
+            while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                avanza();
+            }
+        }
+
+        private void avanza() throws IOException {
+            c = in.read();
+            if (c == '\n') {
+                riga++;
+            }
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.EventoFiltro;
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertito in memoria per la ricerca testuale sugli eventi (titolo, descrizione e tag).
+ *
+ * Ogni parola (minuscola, senza accenti) ha la lista ordinata degli eventi che la contengono, con un peso
+ * che vale 3 per ogni occorrenza nel titolo, 2 nei tag e 1 nella descrizione; i risultati sono ordinati
+ * per rilevanza con BM25 su questi pesi. Le parole della ricerca devono esserci tutte; l'ultima (o una
+ * che termina con '*') vale anche come prefisso, così "conc" trova "concerto" (fino a
+ * {@value #MAX_ESPANSIONI_PREFISSO} parole, le più frequenti). Per gli eventi trovati
+ * vengono contati i tag (faccette), che si possono poi richiedere con {@link EventoFiltro#setTag}.
+ *
+ * L'indice viene costruito alla prima ricerca leggendo la tabella 'eventi' e poi tenuto allineato da
+ * {@link EventoDAOMySQLImpl} a ogni inserimento, modifica e cancellazione. Le modifiche fatte da altre
+ * istanze dell'applicazione compaiono alla ricostruzione periodica ({@link #TTL_MINUTI} minuti),
+ * eseguita in background mentre le ricerche continuano sulla copia corrente.
+ */
+public class EventSearchIndex extends ReloadableSnapshot<EventSearchIndex.Indice> {
+
+    public static final long TTL_MINUTI = 5;
+
+    private static final int PESO_TITOLO = 3;
+    private static final int PESO_TAG = 2;
+    private static final int PESO_DESCRIZIONE = 1;
+    // Parametri di BM25 e peso di una parola trovata solo come prefisso
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PESO_PREFISSO = 0.8f;
+
+    private static final int MIN_LUNGHEZZA_PREFISSO = 2;
+    private static final int MAX_ESPANSIONI_PREFISSO = 64;
+    private static final int MAX_PAROLE = 8;
+    private static final int MAX_FACCETTE = 10;
+
+    private static final Pattern SEGNI_DIACRITICI = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOPWORD = Set.of(
+            "il", "lo", "la", "gli", "le", "un", "uno", "una", "di", "da", "del", "dello", "della", "dei",
+            "degli", "delle", "dell", "al", "allo", "alla", "ai", "agli", "alle", "all", "nel", "nello",
+            "nella", "nei", "negli", "nelle", "nell", "sul", "sulla", "sui", "su", "con", "per", "tra", "fra",
+            "ed", "che", "non", "the", "and", "of", "in", "to", "for", "with");
+
+    private static EventSearchIndex indiceRicerca = null;
+    private static final Logger logger = Logger.getLogger(EventSearchIndex.class.getName());
+
+    private EventSearchIndex() {
+        super(TTL_MINUTI);
+    }
+
+    /**
+     * Restituisce l'istanza singleton dell'indice di ricerca.
+     *
+     * @return istanza singleton EventSearchIndex
+     */
+    public static synchronized EventSearchIndex getInstance() {
+        if (indiceRicerca == null) {
+            indiceRicerca = new EventSearchIndex();
+        }
+        return indiceRicerca;
+    }
+
+    /******************************************
+     RICERCA
+     ********************************************/
+
+    /**
+     * Esito della ricerca sull'indice: id degli eventi in ordine di rilevanza.
+     */
+    static final class Risultato {
+        final int[] idEventi;
+        final int totale;
+        final Map<String, Integer> tag;
+
+        Risultato(int[] idEventi, int totale, Map<String, Integer> tag) {
+            this.idEventi = idEventi;
+            this.totale = totale;
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Cerca gli eventi che contengono tutte le parole di filtro.getTesto(), che hanno i tag di filtro.getTag()
+     * (tutti o almeno uno, vedi {@link EventoFiltro#isTuttiITag()}, letti da {@link TagIndex}) e che
+     * rispettano gli altri criteri del filtro (organizzazione, luogo, date).
+     * Senza testo gli eventi trovati sono ordinati per data e orario di inizio.
+     *
+     * @param filtro criteri di ricerca
+     * @param massimo numero massimo di eventi restituiti
+     * @return id dei primi eventi, totale trovati e faccette dei tag
+     * @throws DAOException se l'indice va caricato e la lettura degli eventi fallisce
+     */
+    Risultato cerca(EventoFiltro filtro, int massimo) throws DAOException {
+        List<Parola> parole = parole(filtro.getTesto());
+        int[] conTag = filtro.getTag().isEmpty() ? null
+                : TagIndex.getInstance().eventi(filtro.getTag(), filtro.isTuttiITag());
+
+        return leggiDa(indice -> indice.cerca(parole, conTag, filtro, massimo));
+    }
+
+    /******************************************
+     AGGIORNAMENTO
+     ********************************************/
+
+    /**
+     * Indicizza un evento appena inserito o modificato (sostituisce la versione precedente).
+     * Se l'indice non è ancora stato caricato non fa nulla: l'evento verrà letto con gli altri.
+     *
+     * @param e evento, con id
+     */
+    public void aggiorna(Evento e) {
+        modifica(new Modifica(e.getId(), e)::applica);
+    }
+
+    /**
+     * Toglie un evento cancellato dall'indice.
+     *
+     * @param idEvento id dell'evento
+     */
+    public void rimuovi(int idEvento) {
+        modifica(new Modifica(idEvento, null)::applica);
+    }
+
+    /**
+     * @return eventi indicizzati, 0 se l'indice non è caricato
+     */
+    public int size() {
+        return leggiSeCaricato(indice -> indice.vivi, 0);
+    }
+
+    /******************************************
+     CARICAMENTO
+     ********************************************/
+
+    @Override
+    protected void caricato(Indice nuovo, long millis) {
+        logger.info("EventSearchIndex: " + nuovo.vivi + " eventi, " + nuovo.termini.size()
+                + " parole indicizzate in " + millis + " ms");
+    }
+
+    @Override
+    protected Indice leggi() throws DAOException {
+        Indice nuovo = new Indice();
+
+        String sql = "SELECT idEvento, titolo, descrizione, tagTematici, dataEvento, orarioInizio, " +
+                "ORGANIZZAZIONE_idORGANIZZAZIONE, LUOGO_EVENTO_idLUOGO_EVENTO FROM eventi ORDER BY idEvento";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                nuovo.aggiungi(rs.getInt("idEvento"), rs.getString("titolo"), rs.getString("descrizione"),
+                        rs.getString("tagTematici"), rs.getString("dataEvento"), rs.getString("orarioInizio"),
+                        rs.getInt("ORGANIZZAZIONE_idORGANIZZAZIONE"), rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO"));
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In leggi(): " + sq.getMessage());
+        }
+        return nuovo;
+    }
+
+    /******************************************
+     TESTO
+     ********************************************/
+
+    /**
+     * Divide un testo in parole: minuscole, senza accenti, separate da tutto ciò che non è lettera o cifra.
+     *
+     * @param testo testo da dividere (null = nessuna parola)
+     * @return parole nell'ordine del testo
+     */
+    static List<String> tokenizza(String testo) {
+        List<String> parole = new ArrayList<>();
+        if (testo == null) {
+            return parole;
+        }
+        String t = SEGNI_DIACRITICI.matcher(Normalizer.normalize(testo, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        int inizio = -1;
+        for (int i = 0; i <= t.length(); i++) {
+            boolean parte = i < t.length() && Character.isLetterOrDigit(t.charAt(i));
+            if (parte && inizio < 0) {
+                inizio = i;
+            } else if (!parte && inizio >= 0) {
+                parole.add(t.substring(inizio, i));
+                inizio = -1;
+            }
+        }
+        return parole;
+    }
+
+    private static boolean indicizzabile(String parola) {
+        return parola.length() >= 2 && !STOPWORD.contains(parola);
+    }
+
+    /**
+     * Parola della ricerca: l'ultima del testo (se non è seguita da uno spazio) e quelle che terminano
+     * con '*' valgono anche come prefisso.
+     */
+    private static final class Parola {
+        final String testo;
+        final boolean prefisso;
+
+        Parola(String testo, boolean prefisso) {
+            this.testo = testo;
+            this.prefisso = prefisso;
+        }
+    }
+
+    private static List<Parola> parole(String testo) {
+        List<Parola> parole = new ArrayList<>();
+        if (testo == null || testo.isBlank()) {
+            return parole;
+        }
+        String[] pezzi = testo.trim().split("\\s+");
+        boolean ultimaAperta = !Character.isWhitespace(testo.charAt(testo.length() - 1));
+        for (int k = 0; k < pezzi.length && parole.size() < MAX_PAROLE; k++) {
+            boolean asterisco = pezzi[k].endsWith("*");
+            boolean prefisso = asterisco || (k == pezzi.length - 1 && ultimaAperta);
+            List<String> token = tokenizza(pezzi[k]);
+            for (int j = 0; j < token.size() && parole.size() < MAX_PAROLE; j++) {
+                String t = token.get(j);
+                boolean comePrefisso = prefisso && j == token.size() - 1 && t.length() >= MIN_LUNGHEZZA_PREFISSO
+                        && (asterisco || !STOPWORD.contains(t));
+                if (comePrefisso || indicizzabile(t)) {
+                    parole.add(new Parola(t, comePrefisso));
+                }
+            }
+        }
+        return parole;
+    }
+
+    /******************************************
+     STRUTTURE DELL'INDICE
+     ********************************************/
+
+    /**
+     * Modifica di un evento: indicizzazione (evento != null) o rimozione.
+     */
+    private static final class Modifica {
+        final int idEvento;
+        final Evento evento;
+
+        Modifica(int idEvento, Evento evento) {
+            this.idEvento = idEvento;
+            this.evento = evento;
+        }
+
+        void applica(Indice indice) {
+            if (evento == null) {
+                indice.rimuovi(idEvento);
+            } else {
+                indice.aggiungi(evento.getId(), evento.getTitolo(), evento.getDescrizione(), evento.getTagTematici(),
+                        evento.getDataEvento(), evento.getOrarioInizio(), evento.getIdOrganizzazione(),
+                        evento.getIdLuogoEvento());
+            }
+        }
+    }
+
+    /**
+     * Lista degli eventi (numeri di documento, ordinati) che contengono una parola, con il peso della parola.
+     */
+    private static final class Postings {
+        final String termine;
+        int[] doc = new int[4];
+        short[] peso = new short[4];
+        int size = 0;
+
+        Postings(String termine) {
+            this.termine = termine;
+        }
+
+        void aggiungi(int d, int p) {
+            int pos = Arrays.binarySearch(doc, 0, size, d);
+            short valore = (short) Math.min(p, Short.MAX_VALUE);
+            if (pos >= 0) {
+                peso[pos] = valore;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == doc.length) {
+                doc = Arrays.copyOf(doc, size * 2);
+                peso = Arrays.copyOf(peso, size * 2);
+            }
+            System.arraycopy(doc, pos, doc, pos + 1, size - pos);
+            System.arraycopy(peso, pos, peso, pos + 1, size - pos);
+            doc[pos] = d;
+            peso[pos] = valore;
+            size++;
+        }
+
+        void rimuovi(int d) {
+            int pos = Arrays.binarySearch(doc, 0, size, d);
+            if (pos >= 0) {
+                System.arraycopy(doc, pos + 1, doc, pos, size - pos - 1);
+                System.arraycopy(peso, pos + 1, peso, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Contenuto dell'indice. Ogni evento occupa un numero di documento (posizione negli array);
+     * i numeri degli eventi cancellati vengono riusati.
+     */
+    static final class Indice {
+        // ordinato, per espandere i prefissi
+        final TreeMap<String, Postings> termini = new TreeMap<>();
+        final Map<Integer, Integer> docPerEvento = new HashMap<>();
+        final Deque<Integer> liberi = new ArrayDeque<>();
+        int numDoc = 0;
+        int vivi = 0;
+        long lunghezzaTotale = 0;
+
+        // per documento; idEvento 0 = documento libero
+        int[] idEvento = new int[16];
+        int[] idOrganizzazione = new int[16];
+        int[] idLuogo = new int[16];
+        int[] giorno = new int[16];
+        int[] secondi = new int[16];
+        int[] lunghezza = new int[16];
+        Postings[][] terminiDoc = new Postings[16][];
+        String[][] tagDoc = new String[16][];
+
+        void aggiungi(int id, String titolo, String descrizione, String tagTematici, String data, String orario,
+                      int idOrg, int idLuo) {
+            rimuovi(id);
+
+            Map<String, Integer> pesi = new LinkedHashMap<>();
+            int lung = pesa(pesi, tokenizza(titolo), PESO_TITOLO)
+                    + pesa(pesi, tokenizza(tagTematici), PESO_TAG)
+                    + pesa(pesi, tokenizza(descrizione), PESO_DESCRIZIONE);
+
+            int d = liberi.isEmpty() ? numDoc++ : liberi.pop();
+            if (d == idEvento.length) {
+                int n = d * 2;
+                idEvento = Arrays.copyOf(idEvento, n);
+                idOrganizzazione = Arrays.copyOf(idOrganizzazione, n);
+                idLuogo = Arrays.copyOf(idLuogo, n);
+                giorno = Arrays.copyOf(giorno, n);
+                secondi = Arrays.copyOf(secondi, n);
+                lunghezza = Arrays.copyOf(lunghezza, n);
+                terminiDoc = Arrays.copyOf(terminiDoc, n);
+                tagDoc = Arrays.copyOf(tagDoc, n);
+            }
+
+            Postings[] suoi = new Postings[pesi.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> e : pesi.entrySet()) {
+                Postings p = termini.computeIfAbsent(e.getKey(), Postings::new);
+                p.aggiungi(d, e.getValue());
+                suoi[i++] = p;
+            }
+
+            idEvento[d] = id;
+            idOrganizzazione[d] = idOrg;
+            idLuogo[d] = idLuo;
+            giorno[d] = giorno(data);
+            secondi[d] = secondi(orario);
+            lunghezza[d] = lung;
+            terminiDoc[d] = suoi;
+            tagDoc[d] = TagIndex.dividi(tagTematici).toArray(new String[0]);
+            docPerEvento.put(id, d);
+            vivi++;
+            lunghezzaTotale += lung;
+        }
+
+        void rimuovi(int id) {
+            Integer d = docPerEvento.remove(id);
+            if (d == null) {
+                return;
+            }
+            for (Postings p : terminiDoc[d]) {
+                p.rimuovi(d);
+                if (p.size == 0) {
+                    termini.remove(p.termine);
+                }
+            }
+            vivi--;
+            lunghezzaTotale -= lunghezza[d];
+            idEvento[d] = 0;
+            terminiDoc[d] = null;
+            tagDoc[d] = null;
+            liberi.push(d);
+        }
+
+        private static int pesa(Map<String, Integer> pesi, List<String> parole, int peso) {
+            int lung = 0;
+            for (String p : parole) {
+                if (indicizzabile(p)) {
+                    pesi.merge(p, peso, Integer::sum);
+                    lung += peso;
+                }
+            }
+            return lung;
+        }
+
+        Risultato cerca(List<Parola> parole, int[] conTag, EventoFiltro filtro, int massimo) {
+            float[] punti = null;
+            byte[] trovate = null;
+            int[] candidati;
+            int numCandidati = 0;
+
+            if (!parole.isEmpty()) {
+                // le parole con meno eventi per prime: i candidati sono quelli della prima e si riducono via via
+                List<List<Postings>> espansioni = new ArrayList<>();
+                for (Parola p : parole) {
+                    List<Postings> ps = espandi(p);
+                    if (ps.isEmpty()) {
+                        return new Risultato(new int[0], 0, new LinkedHashMap<>());
+                    }
+                    espansioni.add(ps);
+                }
+                List<Integer> ordine = new ArrayList<>();
+                for (int i = 0; i < parole.size(); i++) {
+                    ordine.add(i);
+                }
+                ordine.sort(Comparator.comparingInt(i -> frequenza(espansioni.get(i))));
+
+                punti = new float[numDoc];
+                trovate = new byte[numDoc];
+                candidati = new int[Math.min(numDoc, frequenza(espansioni.get(ordine.get(0))))];
+                float media = vivi == 0 ? 1 : (float) lunghezzaTotale / vivi;
+
+                for (int k = 0; k < ordine.size(); k++) {
+                    Parola parola = parole.get(ordine.get(k));
+                    for (Postings p : espansioni.get(ordine.get(k))) {
+                        float idf = (float) Math.log(1 + (vivi - p.size + 0.5) / (p.size + 0.5));
+                        float fattore = p.termine.equals(parola.testo) ? 1f : PESO_PREFISSO;
+                        for (int j = 0; j < p.size; j++) {
+                            int d = p.doc[j];
+                            if (trovate[d] != k) {
+                                continue; // manca una parola precedente, o già contata per un altro prefisso
+                            }
+                            trovate[d] = (byte) (k + 1);
+                            if (k == 0) {
+                                candidati[numCandidati++] = d;
+                            }
+                            float tf = p.peso[j];
+                            float norma = K1 * (1 - B + B * lunghezza[d] / media);
+                            punti[d] += fattore * idf * tf * (K1 + 1) / (tf + norma);
+                        }
+                    }
+                }
+            } else if (conTag != null) {
+                // solo tag: i candidati sono gli eventi con i tag
+                candidati = new int[conTag.length];
+                for (int id : conTag) {
+                    Integer d = docPerEvento.get(id);
+                    if (d != null) {
+                        candidati[numCandidati++] = d;
+                    }
+                }
+            } else {
+                candidati = new int[numDoc];
+                for (int d = 0; d < numDoc; d++) {
+                    if (idEvento[d] != 0) {
+                        candidati[numCandidati++] = d;
+                    }
+                }
+            }
+
+            // dal peggiore al migliore: rilevanza, poi data e orario (prima i più vicini), poi id
+            final float[] p = punti;
+            Comparator<Integer> peggiore = (a, b) -> {
+                if (p != null && p[a] != p[b]) return Float.compare(p[a], p[b]);
+                if (giorno[a] != giorno[b]) return Integer.compare(giorno[b], giorno[a]);
+                if (secondi[a] != secondi[b]) return Integer.compare(secondi[b], secondi[a]);
+                return Integer.compare(idEvento[b], idEvento[a]);
+            };
+            PriorityQueue<Integer> migliori = new PriorityQueue<>(peggiore);
+            Map<String, Integer> conteggioTag = new HashMap<>();
+            int totale = 0;
+            int richieste = parole.size();
+
+            for (int i = 0; i < numCandidati; i++) {
+                int d = candidati[i];
+                if ((trovate != null && trovate[d] != richieste) || idEvento[d] == 0
+                        || !rispetta(d, filtro) || (conTag != null && Arrays.binarySearch(conTag, idEvento[d]) < 0)) {
+                    continue;
+                }
+                totale++;
+                for (String t : tagDoc[d]) {
+                    conteggioTag.merge(t, 1, Integer::sum);
+                }
+                if (massimo > 0) {
+                    if (migliori.size() < massimo) {
+                        migliori.add(d);
+                    } else if (peggiore.compare(d, migliori.peek()) > 0) {
+                        migliori.poll();
+                        migliori.add(d);
+                    }
+                }
+            }
+
+            int[] ids = new int[migliori.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = idEvento[migliori.poll()];
+            }
+
+            Map<String, Integer> faccette = new LinkedHashMap<>();
+            conteggioTag.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(MAX_FACCETTE)
+                    .forEach(e -> faccette.put(e.getKey(), e.getValue()));
+            return new Risultato(ids, totale, faccette);
+        }
+
+        private List<Postings> espandi(Parola parola) {
+            List<Postings> ps = new ArrayList<>();
+            if (!parola.prefisso) {
+                Postings p = termini.get(parola.testo);
+                if (p != null) {
+                    ps.add(p);
+                }
+                return ps;
+            }
+            // oltre MAX_ESPANSIONI_PREFISSO parole si tengono quelle con più eventi (più la parola esatta,
+            // se c'è): le escluse sono le più rare e tolgono meno risultati delle prime in ordine alfabetico
+            Postings esatta = null;
+            PriorityQueue<Postings> frequenti = new PriorityQueue<>(Comparator.comparingInt((Postings p) -> p.size));
+            for (Postings p : termini.subMap(parola.testo, true, parola.testo + Character.MAX_VALUE, true).values()) {
+                if (p.termine.equals(parola.testo)) {
+                    esatta = p;
+                    continue;
+                }
+                frequenti.add(p);
+                if (frequenti.size() > MAX_ESPANSIONI_PREFISSO - (esatta == null ? 0 : 1)) {
+                    frequenti.poll();
+                }
+            }
+            if (esatta != null) {
+                ps.add(esatta);
+            }
+            List<Postings> altre = new ArrayList<>(frequenti);
+            altre.sort(Comparator.comparing((Postings p) -> p.termine));
+            ps.addAll(altre);
+            return ps;
+        }
+
+        private static int frequenza(List<Postings> ps) {
+            int n = 0;
+            for (Postings p : ps) {
+                n += p.size;
+            }
+            return n;
+        }
+
+        private boolean rispetta(int d, EventoFiltro f) {
+            if (f.getIdOrganizzazione() != null && idOrganizzazione[d] != f.getIdOrganizzazione()) return false;
+            if (f.getIdLuogo() != null && idLuogo[d] != f.getIdLuogo()) return false;
+            if (f.getDataDa() != null && giorno[d] < f.getDataDa().toEpochDay()) return false;
+            if (f.getDataA() != null && giorno[d] > f.getDataA().toEpochDay()) return false;
+            if (f.getInizioDopo() != null) {
+                long g = f.getInizioDopo().toLocalDate().toEpochDay();
+                int s = f.getInizioDopo().toLocalTime().toSecondOfDay();
+                if (giorno[d] < g || (giorno[d] == g && secondi[d] < s)) return false;
+            }
+            return true;
+        }
+
+        // Data non leggibile: l'evento non supera nessun filtro sulle date
+        private static int giorno(String data) {
+            try {
+                return data == null ? Integer.MIN_VALUE : (int) LocalDate.parse(data).toEpochDay();
+            } catch (DateTimeParseException e) {
+                return Integer.MIN_VALUE;
+            }
+        }
+
+        private static int secondi(String orario) {
+            try {
+                return orario == null ? 0 : LocalTime.parse(orario).toSecondOfDay();
+            } catch (DateTimeParseException e) {
+                return 0;
+            }
+        }
+    }
+}
@@ -7,8 +7,10 @@ import it.unicas.project.template.address.model.dao.DAOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.logging.Logger;
+import java.util.Map;
 
 /**
  * DAO per la tabella 'eventi' e operazioni correlate.
@@ -17,12 +19,14 @@ import java.util.logging.Logger;
  */
 public class EventoDAOMySQLImpl implements DAO<Evento> {
 
+    // righe scritte da ciascuna INSERT di insertAll()
+    private static final int RIGHE_PER_INSERT = 500;
+
     private EventoDAOMySQLImpl() {
     }
 
     // usa il tipo concreto, non l'interfaccia
     private static EventoDAOMySQLImpl dao = null;
-    private static Logger logger = null;
 
     /**
      * Restituisce l'istanza singleton del DAO Evento.
@@ -32,7 +36,6 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
     public static EventoDAOMySQLImpl getInstance() {
         if (dao == null) {
             dao = new EventoDAOMySQLImpl();
-            logger = Logger.getLogger(EventoDAOMySQLImpl.class.getName());
         }
         return dao;
     }
@@ -49,20 +52,21 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
     public void insert(Evento e) throws DAOException {}
 
     /**
-     * Inserisce un evento e associa i collaboratori (transazionale).
+     * Inserisce un evento e associa i collaboratori e i tag (transazionale).
      *
      * @param e evento da inserire
      * @param listColl lista di collaboratori da collegare all'evento
      * @throws DAOException in caso di errore SQL
      */
     public void insert(Evento e, List<Collaboratore> listColl) throws DAOException {
-        String sqlEvento = "INSERT INTO biglietteria_se.eventi (" +
+        String sqlEvento = "INSERT INTO eventi (" +
                 "titolo, descrizione, costi, dataEvento, orarioInizio, orarioFine, " +
                 "tagTematici, noteOrganizzative, TIPO_EVENTO_idTIPO_EVENTO, " +
                 "ORGANIZZAZIONE_idORGANIZZAZIONE, LUOGO_EVENTO_idLUOGO_EVENTO) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         String sqlColl = "INSERT INTO evento_collaboratore (COLLABORATORI_idCOLLABORATORI, EVENTI_idEvento) VALUES (?, ?)";
+        List<String> tag = TagIndex.dividi(e.getTagTematici());
 
         try (Connection conn = DAOMySQLSettings.getConnection()) {
             conn.setAutoCommit(false); // inizio transazione atomica
@@ -71,7 +75,7 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
             try (PreparedStatement pst = conn.prepareStatement(sqlEvento, Statement.RETURN_GENERATED_KEYS)) {
                 pst.setString(1, e.getTitolo());
                 pst.setString(2, e.getDescrizione());
-                pst.setString(3, e.getCosti());
+                pst.setBigDecimal(3, e.getCosti());
                 pst.setString(4, e.getDataEvento());
                 pst.setString(5, e.getOrarioInizio());
                 pst.setString(6, e.getOrarioFine());
@@ -104,10 +108,169 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
                 pstColl.executeBatch(); // esegue tutti gli insert insieme
             }
 
+            //Inserisci i tag dell'evento
+            scriviTag(conn, Map.of(e.getId(), tag));
+
             conn.commit(); // commit transazione
         } catch (SQLException sq) {
             throw new DAOException("In insert(): " + sq.getMessage());
         }
+
+        TagIndex.getInstance().aggiorna(e.getId(), tag);
+        EventSearchIndex.getInstance().aggiorna(e);
+        SchedulingEngine.getInstance().aggiorna(e, listColl);
+    }
+
+    /**
+     * Inserisce più eventi con i loro collaboratori e tag in un'unica transazione (importazione massiva).
+     *
+     * Gli eventi sono scritti con INSERT a più righe (fino a {@link #RIGHE_PER_INSERT} per istruzione)
+     * invece che con un'istruzione per evento: gli id generati arrivano nell'ordine delle righe e vengono
+     * salvati negli oggetti Evento. I collegamenti con i collaboratori sono un batch JDBC, che il driver
+     * MySQL riscrive in INSERT a più righe (rewriteBatchedStatements in {@link DAOMySQLSettings#PARAMETERS}).
+     * Se una scrittura fallisce la transazione viene annullata e non viene salvato nessun evento.
+     *
+     * @param eventi eventi da inserire
+     * @param collaboratori collaboratori di ciascun evento, nello stesso ordine di eventi
+     * @throws DAOException in caso di errore SQL
+     */
+    public void insertAll(List<Evento> eventi, List<List<Collaboratore>> collaboratori) throws DAOException {
+        if (eventi.size() != collaboratori.size()) {
+            throw new DAOException("In insertAll(): " + eventi.size() + " eventi e " + collaboratori.size() + " liste di collaboratori");
+        }
+        if (eventi.isEmpty()) {
+            return;
+        }
+
+        String colonne = "INSERT INTO eventi (" +
+                "titolo, descrizione, costi, dataEvento, orarioInizio, orarioFine, " +
+                "tagTematici, noteOrganizzative, TIPO_EVENTO_idTIPO_EVENTO, " +
+                "ORGANIZZAZIONE_idORGANIZZAZIONE, LUOGO_EVENTO_idLUOGO_EVENTO) VALUES ";
+        Map<Integer, List<String>> tagPerEvento = new HashMap<>();
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                // Eventi, a gruppi di RIGHE_PER_INSERT righe
+                for (int da = 0; da < eventi.size(); da += RIGHE_PER_INSERT) {
+                    List<Evento> gruppo = eventi.subList(da, Math.min(da + RIGHE_PER_INSERT, eventi.size()));
+                    String sql = colonne + String.join(", ", Collections.nCopies(gruppo.size(), "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+                    try (PreparedStatement pst = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                        int i = 1;
+                        for (Evento e : gruppo) {
+                            pst.setString(i++, e.getTitolo());
+                            pst.setString(i++, e.getDescrizione());
+                            pst.setBigDecimal(i++, e.getCosti());
+                            pst.setString(i++, e.getDataEvento());
+                            pst.setString(i++, e.getOrarioInizio());
+                            pst.setString(i++, e.getOrarioFine());
+                            pst.setString(i++, e.getTagTematici());
+                            pst.setString(i++, e.getNoteOrganizzative());
+                            pst.setInt(i++, e.getIdTipoEvento());
+                            pst.setInt(i++, e.getIdOrganizzazione());
+                            pst.setInt(i++, e.getIdLuogoEvento());
+                        }
+                        pst.executeUpdate();
+
+                        try (ResultSet rs = pst.getGeneratedKeys()) {
+                            for (Evento e : gruppo) {
+                                if (!rs.next()) {
+                                    throw new DAOException("In insertAll(): ID evento non generato");
+                                }
+                                e.setId(rs.getInt(1));
+                            }
+                        }
+                    }
+                }
+
+                // Collegamenti con i collaboratori in un solo batch
+                String sqlColl = "INSERT INTO evento_collaboratore (COLLABORATORI_idCOLLABORATORI, EVENTI_idEvento) VALUES (?, ?)";
+                try (PreparedStatement pst = conn.prepareStatement(sqlColl)) {
+                    for (int k = 0; k < eventi.size(); k++) {
+                        for (Collaboratore c : collaboratori.get(k)) {
+                            pst.setInt(1, c.getId());
+                            pst.setInt(2, eventi.get(k).getId());
+                            pst.addBatch();
+                        }
+                    }
+                    pst.executeBatch();
+                }
+
+                for (Evento e : eventi) {
+                    tagPerEvento.put(e.getId(), TagIndex.dividi(e.getTagTematici()));
+                }
+                scriviTag(conn, tagPerEvento);
+
+                conn.commit();
+
+            } catch (SQLException | DAOException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In insertAll(): " + sq.getMessage());
+        }
+
+        for (int k = 0; k < eventi.size(); k++) {
+            Evento e = eventi.get(k);
+            TagIndex.getInstance().aggiorna(e.getId(), tagPerEvento.get(e.getId()));
+            EventSearchIndex.getInstance().aggiorna(e);
+            SchedulingEngine.getInstance().aggiorna(e, collaboratori.get(k));
+        }
+    }
+
+    /**
+     * Scrive i tag di uno o più eventi in evento_tag, creando in tag quelli nuovi. Tutte le scritture sono
+     * a batch: una INSERT IGNORE per i nomi, una SELECT per gli id, una INSERT per i collegamenti.
+     * Va chiamato nella transazione che scrive gli eventi (le righe precedenti vanno cancellate prima).
+     *
+     * @param conn connessione della transazione
+     * @param tagPerEvento id dell'evento → tag normalizzati (TagIndex.dividi)
+     * @throws SQLException in caso di errore SQL
+     */
+    private void scriviTag(Connection conn, Map<Integer, List<String>> tagPerEvento) throws SQLException {
+        List<String> nomi = new ArrayList<>(new LinkedHashSet<>(
+                tagPerEvento.values().stream().flatMap(List::stream).toList()));
+        if (nomi.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("INSERT IGNORE INTO tag (nome) VALUES (?)")) {
+            for (String t : nomi) {
+                ps.setString(1, t);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        Map<String, Integer> idTag = new HashMap<>();
+        String sqlId = "SELECT idTAG, nome FROM tag WHERE nome IN (" + String.join(", ", Collections.nCopies(nomi.size(), "?")) + ")";
+        try (PreparedStatement ps = conn.prepareStatement(sqlId)) {
+            for (int i = 0; i < nomi.size(); i++) {
+                ps.setString(i + 1, nomi.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    idTag.put(TagIndex.normalizza(rs.getString(2)), rs.getInt(1));
+                }
+            }
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO evento_tag (EVENTI_idEvento, TAG_idTAG) VALUES (?, ?)")) {
+            for (Map.Entry<Integer, List<String>> e : tagPerEvento.entrySet()) {
+                for (String t : e.getValue()) {
+                    Integer id = idTag.get(t);
+                    if (id != null) {
+                        ps.setInt(1, e.getKey());
+                        ps.setInt(2, id);
+                        ps.addBatch();
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
     }
 
     ////////////////////
@@ -123,44 +286,163 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
     public List<Evento> select(Evento e) throws DAOException {
 
         ArrayList<Evento> lista = new ArrayList<>();
-        try {
 
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "select * from eventi";
 
-            String sql = "select * from eventi";
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
+            while (rs.next()) {
+                lista.add(leggiEvento(rs));
             }
 
-            ResultSet rs = st.executeQuery(sql);
-            while (rs.next()) {
-                lista.add(new Evento(
-                        rs.getInt("idEvento"),
-                        rs.getString("titolo"),
-                        rs.getString("descrizione"),
-                        rs.getString("costi"),
-                        rs.getString("dataEvento"),
-                        rs.getString("orarioInizio"),
-                        rs.getString("orarioFine"),
-                        rs.getString("tagTematici"),
-                        rs.getString("noteOrganizzative"),
-                        rs.getInt("TIPO_EVENTO_idTIPO_EVENTO"),
-                        rs.getInt("ORGANIZZAZIONE_idORGANIZZAZIONE"),
-                        rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO")
-                ));
+        } catch (SQLException sq) {
+            throw new DAOException("In select(): " + sq.getMessage());
+        }
+        return lista;
+    }
+
+    // Colonne mostrate negli elenchi: descrizione e note (fino a 400 caratteri) si leggono con selectById
+    private static final String COLONNE_SINTESI =
+            "e.idEvento, e.titolo, e.costi, e.dataEvento, e.orarioInizio, e.orarioFine, e.tagTematici, " +
+                    "e.TIPO_EVENTO_idTIPO_EVENTO, e.ORGANIZZAZIONE_idORGANIZZAZIONE, e.LUOGO_EVENTO_idLUOGO_EVENTO";
+
+    /**
+     * Seleziona una pagina di eventi che soddisfano il filtro, ordinati per data, orario di inizio e id.
+     * La paginazione è a chiave (keyset): la pagina successiva parte dall'ultimo evento della precedente,
+     * così il costo non cresce con il numero di pagine già lette come accadrebbe con OFFSET.
+     * Gli eventi restituiti non contengono descrizione e note organizzative.
+     *
+     * @param filtro criteri di ricerca (null per nessun filtro)
+     * @param ultimo ultimo evento della pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di eventi della pagina
+     * @return eventi della pagina; meno di dimensione se è l'ultima
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<Evento> selectPage(EventoFiltro filtro, Evento ultimo, int dimensione) throws DAOException {
+
+        List<Evento> lista = new ArrayList<>();
+        List<Object> parametri = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder("SELECT " + COLONNE_SINTESI + " FROM eventi e WHERE 1 = 1");
+
+        if (filtro != null) {
+            if (filtro.getIdOrganizzazione() != null) {
+                sql.append(" AND e.ORGANIZZAZIONE_idORGANIZZAZIONE = ?");
+                parametri.add(filtro.getIdOrganizzazione());
+            }
+            if (filtro.getIdLuogo() != null) {
+                sql.append(" AND e.LUOGO_EVENTO_idLUOGO_EVENTO = ?");
+                parametri.add(filtro.getIdLuogo());
+            }
+            if (filtro.getDataDa() != null) {
+                sql.append(" AND e.dataEvento >= ?");
+                parametri.add(filtro.getDataDa().toString());
+            }
+            if (filtro.getDataA() != null) {
+                sql.append(" AND e.dataEvento <= ?");
+                parametri.add(filtro.getDataA().toString());
+            }
+            if (filtro.getInizioDopo() != null) {
+                String data = filtro.getInizioDopo().toLocalDate().toString();
+                String ora = filtro.getInizioDopo().toLocalTime().withNano(0).toString();
+                sql.append(" AND (e.dataEvento > ? OR (e.dataEvento = ? AND e.orarioInizio >= ?))");
+                parametri.add(data);
+                parametri.add(data);
+                parametri.add(ora);
+            }
+            if (filtro.getTesto() != null && !filtro.getTesto().isBlank()) {
+                sql.append(" AND e.titolo LIKE ?");
+                parametri.add("%" + escapeLike(filtro.getTesto().trim()) + "%");
             }
+        }
+
+        if (ultimo != null) {
+            // equivale a (dataEvento, orarioInizio, idEvento) > (?, ?, ?), scritto in forma che usa l'indice
+            sql.append(" AND (e.dataEvento > ? OR (e.dataEvento = ? AND (e.orarioInizio > ? " +
+                    "OR (e.orarioInizio = ? AND e.idEvento > ?))))");
+            parametri.add(ultimo.getDataEvento());
+            parametri.add(ultimo.getDataEvento());
+            parametri.add(ultimo.getOrarioInizio());
+            parametri.add(ultimo.getOrarioInizio());
+            parametri.add(ultimo.getId());
+        }
+
+        sql.append(" ORDER BY e.dataEvento, e.orarioInizio, e.idEvento LIMIT ?");
+        parametri.add(dimensione);
 
-            DAOMySQLSettings.closeStatement(st);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < parametri.size(); i++) {
+                ps.setObject(i + 1, parametri.get(i));
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(leggiEventoSintesi(rs));
+                }
+            }
 
         } catch (SQLException sq) {
-            throw new DAOException("In select(): " + sq.getMessage());
+            throw new DAOException("In selectPage(): " + sq.getMessage());
         }
         return lista;
     }
 
+    /**
+     * Ricerca testuale sugli eventi: tutte le parole di filtro.getTesto() devono comparire nel titolo,
+     * nella descrizione o nei tag (l'ultima anche come inizio di parola), e l'evento deve avere tutti i tag
+     * di filtro.getTag(). Gli altri criteri del filtro si applicano come in selectPage.
+     * La ricerca avviene su {@link EventSearchIndex}; dal database si leggono solo gli eventi restituiti.
+     *
+     * @param filtro criteri di ricerca
+     * @param massimo numero massimo di eventi restituiti
+     * @return eventi dal più rilevante (senza descrizione e note), totale trovati e tag più frequenti
+     * @throws DAOException in caso di errore SQL
+     */
+    public EventSearchResult cerca(EventoFiltro filtro, int massimo) throws DAOException {
+
+        EventSearchIndex.Risultato risultato = EventSearchIndex.getInstance().cerca(filtro, massimo);
+        int[] ids = risultato.idEventi;
+        if (ids.length == 0) {
+            return new EventSearchResult(new ArrayList<>(), risultato.totale, risultato.tag);
+        }
+
+        String sql = "SELECT " + COLONNE_SINTESI + " FROM eventi e WHERE e.idEvento IN (" +
+                String.join(", ", Collections.nCopies(ids.length, "?")) + ")";
+
+        Map<Integer, Evento> trovati = new HashMap<>();
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < ids.length; i++) {
+                ps.setInt(i + 1, ids[i]);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Evento ev = leggiEventoSintesi(rs);
+                    trovati.put(ev.getId(), ev);
+                }
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In cerca(): " + sq.getMessage());
+        }
+
+        // stesso ordine dell'indice; un evento cancellato nel frattempo da un'altra istanza viene saltato
+        List<Evento> lista = new ArrayList<>();
+        for (int id : ids) {
+            Evento ev = trovati.get(id);
+            if (ev != null) {
+                lista.add(ev);
+            }
+        }
+        return new EventSearchResult(lista, risultato.totale, risultato.tag);
+    }
+
     /**
      * Seleziona eventi per organizzazione.
      *
@@ -171,39 +453,21 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
     public List<Evento> selectByOrganizzazione(int idOrganizzazione) throws DAOException {
 
         ArrayList<Evento> lista = new ArrayList<>();
-        try {
 
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "select * from eventi " +
+                "where ORGANIZZAZIONE_idORGANIZZAZIONE = ?";
 
-            String sql = "select * from eventi " +
-                    "where ORGANIZZAZIONE_idORGANIZZAZIONE = " + idOrganizzazione;
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+            ps.setInt(1, idOrganizzazione);
 
-            ResultSet rs = st.executeQuery(sql);
-            while (rs.next()) {
-                lista.add(new Evento(
-                        rs.getInt("idEvento"),
-                        rs.getString("titolo"),
-                        rs.getString("descrizione"),
-                        rs.getString("costi"),
-                        rs.getString("dataEvento"),
-                        rs.getString("orarioInizio"),
-                        rs.getString("orarioFine"),
-                        rs.getString("tagTematici"),
-                        rs.getString("noteOrganizzative"),
-                        rs.getInt("TIPO_EVENTO_idTIPO_EVENTO"),
-                        rs.getInt("ORGANIZZAZIONE_idORGANIZZAZIONE"),
-                        rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO")
-                ));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(leggiEvento(rs));
+                }
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
             throw new DAOException("In selectByOrganizzazione(): " + sq.getMessage());
         }
@@ -212,6 +476,8 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
 
     /**
      * Restituisce un report vendite per gli eventi di una organizzazione (solo eventi passati).
+     * Posti venduti e incasso vengono dal riepilogo 'vendite_evento' (una riga per evento, vedi
+     * {@link VenditeDAOMySQLImpl}); gli eventi sono cercati con l'indice su organizzazione e data.
      *
      * @param idOrganizzazione id organizzazione
      * @return lista di report vendite evento
@@ -221,40 +487,85 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
 
         List<ReportEventoVendite> lista = new ArrayList<>();
 
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            String sql =
-                    "SELECT e.idEvento, e.titolo, e.dataEvento, COUNT(p.idPOSTI)AS postiVenduti, e.costi as costoPosti " +
-                            "FROM eventi e " +
-                            "LEFT JOIN posti p ON e.idEvento = p.EVENTI_idEvento " +
-                            "WHERE e.ORGANIZZAZIONE_idORGANIZZAZIONE = " + idOrganizzazione + " " +
-                            "AND DATE(e.dataEvento) < CURDATE() " +     // SOLO EVENTI PASSATI
-                            "GROUP BY e.idEvento, e.titolo, e.dataEvento, e.costi " +
-                            "ORDER BY e.dataEvento ASC";
-
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException ex) {
-                logger.severe("SQL: " + sql);
+        String sql =
+                "SELECT e.idEvento, e.titolo, e.dataEvento, e.costi AS costoPosti, " +
+                        "COALESCE(v.postiVenduti, 0) AS postiVenduti, COALESCE(v.incasso, 0) AS incasso " +
+                        "FROM eventi e " +
+                        "LEFT JOIN vendite_evento v ON v.EVENTI_idEvento = e.idEvento " +
+                        "WHERE e.ORGANIZZAZIONE_idORGANIZZAZIONE = ? " +
+                        "AND e.dataEvento < CURDATE() " +     // SOLO EVENTI PASSATI
+                        "ORDER BY e.dataEvento ASC";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idOrganizzazione);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(new ReportEventoVendite(
+                            rs.getInt("idEvento"),
+                            rs.getString("titolo"),
+                            rs.getString("dataEvento"),
+                            rs.getInt("postiVenduti"),
+                            rs.getBigDecimal("costoPosti"),
+                            rs.getBigDecimal("incasso")
+                    ));
+                }
             }
 
-            ResultSet rs = st.executeQuery(sql);
+        } catch (SQLException sq) {
+            throw new DAOException("In selectReportVenditeByOrganizzazione(): " + sq.getMessage());
+        }
 
-            while (rs.next()) {
-                lista.add(new ReportEventoVendite(
-                        rs.getInt("idEvento"),
-                        rs.getString("titolo"),
-                        rs.getString("dataEvento"),
-                        rs.getInt("postiVenduti"),
-                        rs.getInt("costoPosti")
-                ));
-            }
+        return lista;
+    }
 
-            DAOMySQLSettings.closeStatement(st);
+    /**
+     * Restituisce gli eventi di una organizzazione in un intervallo di date insieme a nome e capienza
+     * del luogo e al numero di posti prenotati, con un'unica query raggruppata (usata dal calendario).
+     *
+     * @param idOrganizzazione id organizzazione
+     * @param dataDa prima data dell'intervallo (yyyy-MM-dd, inclusa)
+     * @param dataA ultima data dell'intervallo (yyyy-MM-dd, inclusa)
+     * @return occupazione degli eventi, ordinati per data e orario di inizio
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<OccupazioneEvento> selectOccupazioneByOrganizzazione(int idOrganizzazione, String dataDa, String dataA) throws DAOException {
+
+        List<OccupazioneEvento> lista = new ArrayList<>();
+
+        // raggruppando per le chiavi di eventi e luogo_evento tutte le loro colonne sono determinate
+        String sql =
+                "SELECT e.*, l.luogo AS nomeLuogo, l.maxPosti, COUNT(p.idPOSTI) AS postiPrenotati " +
+                        "FROM eventi e " +
+                        "LEFT JOIN luogo_evento l ON l.idLUOGO_EVENTO = e.LUOGO_EVENTO_idLUOGO_EVENTO " +
+                        "LEFT JOIN posti p ON p.EVENTI_idEvento = e.idEvento " +
+                        "WHERE e.ORGANIZZAZIONE_idORGANIZZAZIONE = ? " +
+                        "AND e.dataEvento BETWEEN ? AND ? " +
+                        "GROUP BY e.idEvento, l.idLUOGO_EVENTO " +
+                        "ORDER BY e.dataEvento, e.orarioInizio";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idOrganizzazione);
+            ps.setString(2, dataDa);
+            ps.setString(3, dataA);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(new OccupazioneEvento(
+                            leggiEvento(rs),
+                            rs.getString("nomeLuogo"),
+                            rs.getInt("maxPosti"),
+                            rs.getInt("postiPrenotati")
+                    ));
+                }
+            }
 
         } catch (SQLException sq) {
-            throw new DAOException("In selectReportVenditeByOrganizzazione(): " + sq.getMessage());
+            throw new DAOException("In selectOccupazioneByOrganizzazione(): " + sq.getMessage());
         }
 
         return lista;
@@ -269,36 +580,19 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
      */
     public Evento selectById(int idEvento) throws DAOException {
         Evento result = null;
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
 
-            String sql = "SELECT * FROM eventi WHERE idEvento = " + idEvento;
+        String sql = "SELECT * FROM eventi WHERE idEvento = ?";
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ResultSet rs = st.executeQuery(sql);
-            if (rs.next()) {
-                result = new Evento(
-                        rs.getInt("idEvento"),
-                        rs.getString("titolo"),
-                        rs.getString("descrizione"),
-                        rs.getString("costi"),
-                        rs.getString("dataEvento"),
-                        rs.getString("orarioInizio"),
-                        rs.getString("orarioFine"),
-                        rs.getString("tagTematici"),
-                        rs.getString("noteOrganizzative"),
-                        rs.getInt("TIPO_EVENTO_idTIPO_EVENTO"),
-                        rs.getInt("ORGANIZZAZIONE_idORGANIZZAZIONE"),
-                        rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO")
-                );
-            }
+            ps.setInt(1, idEvento);
 
-            DAOMySQLSettings.closeStatement(st);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    result = leggiEvento(rs);
+                }
+            }
 
         } catch (SQLException sq) {
             throw new DAOException("In selectById(): " + sq.getMessage());
@@ -309,43 +603,52 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
     ////////////////////
 
     /**
-     * Cancella un evento e relativi record figli (evento_collaboratore).
+     * Cancella un evento e relativi record figli (evento_collaboratore; evento_tag viene cancellata a cascata)
+     * in un'unica transazione: se l'evento non si può cancellare i collaboratori restano assegnati.
      *
      * @param e evento da cancellare
      * @throws DAOException in caso di errore SQL
      */
     @Override
     public void delete(Evento e) throws DAOException {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
+        // Prima cancelliamo eventuali record figli, poi l'evento stesso
+        String sqlFigli = "DELETE FROM evento_collaboratore WHERE EVENTI_idEvento = ?";
+        String sqlEvento = "DELETE FROM eventi WHERE idEvento = ?";
 
-            // Prima cancelliamo eventuali record figli
-            String sqlFigli = "DELETE FROM evento_collaboratore WHERE EVENTI_idEvento = " + e.getId();
-            try {
-                logger.info("SQL figli: " + sqlFigli);
-            } catch (NullPointerException npe) {
-                logger.severe("SQL figli: " + sqlFigli);
-            }
-            st.executeUpdate(sqlFigli);
+        int rows;
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            conn.setAutoCommit(false);
 
-            // Poi cancelliamo l'evento stesso
-            String sqlEvento = "DELETE FROM eventi WHERE idEvento = " + e.getId();
             try {
-                logger.info("SQL evento: " + sqlEvento);
-            } catch (NullPointerException npe) {
-                logger.severe("SQL evento: " + sqlEvento);
-            }
-            int rows = st.executeUpdate(sqlEvento);
+                try (PreparedStatement ps = conn.prepareStatement(sqlFigli)) {
+                    ps.setInt(1, e.getId());
+                    ps.executeUpdate();
+                }
+
+                try (PreparedStatement ps = conn.prepareStatement(sqlEvento)) {
+                    ps.setInt(1, e.getId());
+                    rows = ps.executeUpdate();
+                }
 
-            DAOMySQLSettings.closeStatement(st);
+                if (rows == 0) {
+                    conn.rollback();
+                    throw new DAOException("Nessun evento trovato con ID: " + e.getId());
+                }
+                conn.commit();
 
-            if (rows == 0) {
-                throw new DAOException("Nessun evento trovato con ID: " + e.getId());
+            } catch (SQLException sq) {
+                conn.rollback();
+                throw sq;
             }
 
         } catch (SQLException sq) {
             throw new DAOException("In delete(): " + sq.getMessage());
         }
+
+        SeatInventory.getInstance().invalidate(e.getId());
+        TagIndex.getInstance().rimuovi(e.getId());
+        EventSearchIndex.getInstance().rimuovi(e.getId());
+        SchedulingEngine.getInstance().rimuovi(e.getId());
     }
 
     @Override
@@ -354,13 +657,14 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
     ////////////////////
 
     /**
-     * Aggiorna evento e collaboratori in transazione.
+     * Aggiorna evento, collaboratori e tag in transazione.
      *
      * @param e evento aggiornato
      * @param collaboratori lista di collaboratori da associare
      * @throws DAOException in caso di errore o rollback
      */
     public void updateEventoConCollaboratori(Evento e, List<Collaboratore> collaboratori) throws DAOException {
+        List<String> tag = TagIndex.dividi(e.getTagTematici());
         Connection conn = null;
         try {
             conn = DAOMySQLSettings.getConnection();
@@ -371,7 +675,7 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
             try (PreparedStatement pst = conn.prepareStatement(sqlUpdateEvento)) {
                 pst.setString(1, e.getTitolo());
                 pst.setString(2, e.getDescrizione());
-                pst.setString(3, e.getCosti());
+                pst.setBigDecimal(3, e.getCosti());
                 pst.setString(4, e.getDataEvento());
                 pst.setString(5, e.getOrarioInizio());
                 pst.setString(6, e.getOrarioFine());
@@ -402,7 +706,17 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
                 pst.executeBatch();
             }
 
+            // Sostituisco i tag
+            try (PreparedStatement pst = conn.prepareStatement("DELETE FROM evento_tag WHERE EVENTI_idEvento=?")) {
+                pst.setInt(1, e.getId());
+                pst.executeUpdate();
+            }
+            scriviTag(conn, Map.of(e.getId(), tag));
+
             conn.commit(); // conferma transazione
+            TagIndex.getInstance().aggiorna(e.getId(), tag);
+            EventSearchIndex.getInstance().aggiorna(e);
+            SchedulingEngine.getInstance().aggiorna(e, collaboratori);
         } catch (SQLException ex) {
             if (conn != null) {
                 try { conn.rollback(); } catch (SQLException e1) { e1.printStackTrace(); }
@@ -417,87 +731,6 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
 
     ///////////////////
 
-    /**
-     * Cancella prenotazioni posti per un evento.
-     *
-     * @param idEvento id evento
-     * @param posti lista id posti da rimuovere
-     * @throws DAOException in caso di errore SQL
-     */
-    public void deleteSeatReservation(int idEvento, List<Integer> posti) throws DAOException {
-        if (posti == null || posti.isEmpty()) {
-            return;
-        }
-
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            StringBuilder sql = new StringBuilder();
-            sql.append("DELETE FROM posti WHERE EVENTI_idEvento = ")
-                    .append(idEvento)
-                    .append(" AND idPOSTI IN (");
-
-            for (int i = 0; i < posti.size(); i++) {
-                sql.append(posti.get(i));
-                if (i < posti.size() - 1) {
-                    sql.append(", ");
-                }
-            }
-            sql.append(")");
-
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
-
-            st.executeUpdate(sql.toString());
-            DAOMySQLSettings.closeStatement(st);
-
-        } catch (SQLException sq) {
-            throw new DAOException("In deleteSeatReservation(): " + sq.getMessage());
-        }
-    }
-
-    /**
-     * Inserisce prenotazioni posti per un evento.
-     *
-     * @param idEvento id evento
-     * @param posti lista id posti da inserire
-     * @throws DAOException in caso di errore SQL
-     */
-    public void insertSeatReservation(int idEvento, List<Integer> posti) throws DAOException {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            StringBuilder sql = new StringBuilder();
-            sql.append("INSERT INTO posti (idPOSTI, EVENTI_idEvento) VALUES ");
-
-            for (int i = 0; i < posti.size(); i++) {
-                sql.append("('")
-                        .append(posti.get(i))
-                        .append("', '")
-                        .append(idEvento)
-                        .append("')");
-                if (i < posti.size() - 1) {
-                    sql.append(", ");
-                }
-            }
-
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
-
-            st.executeUpdate(sql.toString());
-            DAOMySQLSettings.closeStatement(st);
-
-        } catch (SQLException sq) {
-            throw new DAOException("In insertSeatReservation(): " + sq.getMessage());
-        }
-    }
-
     /**
      * Restituisce la lista degli id posti già prenotati per un evento.
      *
@@ -508,26 +741,21 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
     public List<Integer> selectReservedSeats(int idEvento) throws DAOException {
 
         ArrayList<Integer> lista = new ArrayList<>();
-        try {
 
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "select idPOSTI from posti " +
+                "where EVENTI_idEvento = ?";
 
-            String sql = "select * from posti " +
-                    "where EVENTI_idEvento = " + idEvento;
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+            ps.setInt(1, idEvento);
 
-            ResultSet rs = st.executeQuery(sql);
-            while (rs.next()) {
-                lista.add(rs.getInt("idPOSTI"));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(rs.getInt("idPOSTI"));
+                }
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
             throw new DAOException("In selectReservedSeats(): " + sq.getMessage());
         }
@@ -536,20 +764,43 @@ public class EventoDAOMySQLImpl implements DAO<Evento> {
 
     ////////////////////
 
-    private void verifyObject(Evento e) throws DAOException {
-
+    private Evento leggiEventoSintesi(ResultSet rs) throws SQLException {
+        return new Evento(
+                rs.getInt("idEvento"),
+                rs.getString("titolo"),
+                null,
+                rs.getBigDecimal("costi"),
+                rs.getString("dataEvento"),
+                rs.getString("orarioInizio"),
+                rs.getString("orarioFine"),
+                rs.getString("tagTematici"),
+                null,
+                rs.getInt("TIPO_EVENTO_idTIPO_EVENTO"),
+                rs.getInt("ORGANIZZAZIONE_idORGANIZZAZIONE"),
+                rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO")
+        );
     }
 
-    private void executeUpdate(String query) throws DAOException{
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-            int n = st.executeUpdate(query);
-
-            DAOMySQLSettings.closeStatement(st);
+    // I caratteri jolly di LIKE nel testo cercato vanno presi alla lettera
+    private static String escapeLike(String testo) {
+        return testo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
-        } catch (SQLException e) {
-            throw new DAOException("In insert(): " + e.getMessage());
-        }
+    private Evento leggiEvento(ResultSet rs) throws SQLException {
+        return new Evento(
+                rs.getInt("idEvento"),
+                rs.getString("titolo"),
+                rs.getString("descrizione"),
+                rs.getBigDecimal("costi"),
+                rs.getString("dataEvento"),
+                rs.getString("orarioInizio"),
+                rs.getString("orarioFine"),
+                rs.getString("tagTematici"),
+                rs.getString("noteOrganizzative"),
+                rs.getInt("TIPO_EVENTO_idTIPO_EVENTO"),
+                rs.getInt("ORGANIZZAZIONE_idORGANIZZAZIONE"),
+                rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO")
+        );
     }
 
 }
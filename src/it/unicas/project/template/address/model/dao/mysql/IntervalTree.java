@@ -0,0 +1,160 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Albero di intervalli semiaperti [inizio, fine) identificati dall'id dell'evento.
+ *
+ * È un treap (albero binario di ricerca bilanciato con priorità casuali) ordinato per inizio e id,
+ * in cui ogni nodo conosce la fine massima del suo sottoalbero: inserimento, rimozione e la domanda
+ * "c'è un intervallo che si sovrappone a [inizio, fine)?" costano O(log n) in media.
+ * Non è thread-safe: lo protegge {@link SchedulingEngine}.
+ */
+class IntervalTree {
+
+    private static final class Nodo {
+        final long inizio;
+        final long fine;
+        final int id;
+        final int priorita = ThreadLocalRandom.current().nextInt();
+        long fineMassima;
+        Nodo sinistro;
+        Nodo destro;
+
+        Nodo(long inizio, long fine, int id) {
+            this.inizio = inizio;
+            this.fine = fine;
+            this.id = id;
+            this.fineMassima = fine;
+        }
+    }
+
+    private Nodo radice = null;
+    private int size = 0;
+
+    /**
+     * Aggiunge un intervallo (un id non deve comparire due volte con lo stesso inizio).
+     *
+     * @param inizio inizio, incluso
+     * @param fine fine, esclusa (maggiore di inizio)
+     * @param id id dell'evento
+     */
+    void aggiungi(long inizio, long fine, int id) {
+        radice = aggiungi(radice, new Nodo(inizio, fine, id));
+        size++;
+    }
+
+    /**
+     * Toglie l'intervallo con l'inizio e l'id indicati, se presente.
+     *
+     * @param inizio inizio dell'intervallo
+     * @param id id dell'evento
+     */
+    void rimuovi(long inizio, int id) {
+        radice = rimuovi(radice, inizio, id);
+    }
+
+    /**
+     * @param inizio inizio, incluso
+     * @param fine fine, esclusa
+     * @return true se almeno un intervallo si sovrappone a [inizio, fine)
+     */
+    boolean sovrapposto(long inizio, long fine) {
+        // Se il sottoalbero sinistro arriva oltre l'inizio e non contiene sovrapposizioni, il suo intervallo
+        // che finisce dopo l'inizio comincia dopo la fine: a maggior ragione quelli a destra
+        Nodo x = radice;
+        while (x != null) {
+            if (x.inizio < fine && x.fine > inizio) {
+                return true;
+            }
+            x = x.sinistro != null && x.sinistro.fineMassima > inizio ? x.sinistro : x.destro;
+        }
+        return false;
+    }
+
+    /**
+     * @return numero di intervalli
+     */
+    int size() {
+        return size;
+    }
+
+    private static int confronta(long inizio, int id, Nodo n) {
+        return inizio != n.inizio ? Long.compare(inizio, n.inizio) : Integer.compare(id, n.id);
+    }
+
+    private static Nodo aggiungi(Nodo n, Nodo nuovo) {
+        if (n == null) {
+            return nuovo;
+        }
+        if (confronta(nuovo.inizio, nuovo.id, n) < 0) {
+            n.sinistro = aggiungi(n.sinistro, nuovo);
+            if (n.sinistro.priorita > n.priorita) {
+                n = ruotaADestra(n);
+            }
+        } else {
+            n.destro = aggiungi(n.destro, nuovo);
+            if (n.destro.priorita > n.priorita) {
+                n = ruotaASinistra(n);
+            }
+        }
+        aggiorna(n);
+        return n;
+    }
+
+    private Nodo rimuovi(Nodo n, long inizio, int id) {
+        if (n == null) {
+            return null;
+        }
+        int c = confronta(inizio, id, n);
+        if (c < 0) {
+            n.sinistro = rimuovi(n.sinistro, inizio, id);
+        } else if (c > 0) {
+            n.destro = rimuovi(n.destro, inizio, id);
+        } else {
+            size--;
+            return unisci(n.sinistro, n.destro);
+        }
+        aggiorna(n);
+        return n;
+    }
+
+    // Unisce due treap in cui tutte le chiavi di a precedono quelle di b
+    private static Nodo unisci(Nodo a, Nodo b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priorita > b.priorita) {
+            a.destro = unisci(a.destro, b);
+            aggiorna(a);
+            return a;
+        }
+        b.sinistro = unisci(a, b.sinistro);
+        aggiorna(b);
+        return b;
+    }
+
+    private static Nodo ruotaADestra(Nodo n) {
+        Nodo s = n.sinistro;
+        n.sinistro = s.destro;
+        s.destro = n;
+        aggiorna(n);
+        aggiorna(s);
+        return s;
+    }
+
+    private static Nodo ruotaASinistra(Nodo n) {
+        Nodo d = n.destro;
+        n.destro = d.sinistro;
+        d.sinistro = n;
+        aggiorna(n);
+        aggiorna(d);
+        return d;
+    }
+
+    private static void aggiorna(Nodo n) {
+        long massimo = n.fine;
+        if (n.sinistro != null) massimo = Math.max(massimo, n.sinistro.fineMassima);
+        if (n.destro != null) massimo = Math.max(massimo, n.destro.fineMassima);
+        n.fineMassima = massimo;
+    }
+}
@@ -0,0 +1,114 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma di latenze (nanosecondi) a bucket log-lineari, sul modello di HdrHistogram:
+ * ogni potenza di due è divisa in 32 bucket uguali, quindi i percentili
+ * hanno un errore relativo massimo di circa il 3% con memoria costante (meno di 10 KB)
+ * e registrazione senza lock.
+ *
+ * I valori oltre {@link #MASSIMO} (circa 18 minuti) finiscono nell'ultimo bucket;
+ * il massimo esatto viene comunque conservato a parte.
+ */
+final class LatencyHistogram {
+
+    private static final int BIT_SOTTO_BUCKET = 5;
+    private static final int SOTTO_BUCKET = 1 << BIT_SOTTO_BUCKET;
+    static final long MASSIMO = (1L << 40) - 1;
+    private static final int BUCKET = indice(MASSIMO) + 1;
+
+    private final AtomicLongArray conteggi = new AtomicLongArray(BUCKET);
+    private final LongAdder totale = new LongAdder();
+    private final LongAdder somma = new LongAdder();
+    private final AtomicLong massimo = new AtomicLong();
+
+    /**
+     * @param nanos durata da registrare (i valori negativi valgono 0)
+     */
+    void registra(long nanos) {
+        long v = Math.max(0, nanos);
+        conteggi.incrementAndGet(indice(Math.min(v, MASSIMO)));
+        totale.increment();
+        somma.add(v);
+        massimo.accumulateAndGet(v, Math::max);
+    }
+
+    long getConteggio() {
+        return totale.sum();
+    }
+
+    long getMassimo() {
+        return massimo.get();
+    }
+
+    long getMedia() {
+        long n = totale.sum();
+        return n == 0 ? 0 : somma.sum() / n;
+    }
+
+    long getSomma() {
+        return somma.sum();
+    }
+
+    /**
+     * Percentile calcolato sui bucket: restituisce il valore più alto equivalente al bucket
+     * in cui cade il percentile, mai oltre il massimo registrato.
+     *
+     * @param p percentile tra 0 e 1 (es. 0.99)
+     * @return valore in nanosecondi, 0 se l'istogramma è vuoto
+     */
+    long percentile(double p) {
+        long[] copia = new long[BUCKET];
+        long n = 0;
+        for (int i = 0; i < BUCKET; i++) {
+            copia[i] = conteggi.get(i);
+            n += copia[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long soglia = Math.max(1, (long) Math.ceil(p * n));
+        long cumulato = 0;
+        for (int i = 0; i < BUCKET; i++) {
+            cumulato += copia[i];
+            if (cumulato >= soglia) {
+                return Math.min(limiteSuperiore(i), massimo.get());
+            }
+        }
+        return massimo.get();
+    }
+
+    void azzera() {
+        for (int i = 0; i < BUCKET; i++) {
+            conteggi.set(i, 0);
+        }
+        totale.reset();
+        somma.reset();
+        massimo.set(0);
+    }
+
+    /*
+     * I valori sotto SOTTO_BUCKET hanno un bucket ciascuno; per gli altri, se v è in
+     * [2^(m+5), 2^(m+6)) i bucket hanno ampiezza 2^m e l'indice è dato dai 5 bit dopo il più alto.
+     */
+    static int indice(long v) {
+        if (v < SOTTO_BUCKET) {
+            return (int) v;
+        }
+        int m = 63 - Long.numberOfLeadingZeros(v) - BIT_SOTTO_BUCKET;
+        int sotto = (int) (v >>> m) - SOTTO_BUCKET;
+        return SOTTO_BUCKET + m * SOTTO_BUCKET + sotto;
+    }
+
+    static long limiteSuperiore(int indice) {
+        if (indice < SOTTO_BUCKET) {
+            return indice;
+        }
+        int m = (indice - SOTTO_BUCKET) / SOTTO_BUCKET;
+        int sotto = (indice - SOTTO_BUCKET) % SOTTO_BUCKET;
+        return ((long) (SOTTO_BUCKET + sotto + 1) << m) - 1;
+    }
+}
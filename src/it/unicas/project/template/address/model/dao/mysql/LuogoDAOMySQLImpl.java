@@ -1,17 +1,17 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
-import it.unicas.project.template.address.model.Cliente;
-import it.unicas.project.template.address.model.Evento;
 import it.unicas.project.template.address.model.Luogo;
+import it.unicas.project.template.address.model.SeatLayout;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.SQLDataException;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.logging.Logger;
+import java.util.Map;
 
 /**
  * DAO per la tabella 'luogo_evento'.
@@ -24,7 +24,6 @@ public class LuogoDAOMySQLImpl implements DAO<Luogo> {
     }
 
     private static LuogoDAOMySQLImpl dao = null;
-    private static Logger logger = null;
 
     /**
      * Restituisce l'istanza singleton del DAO Luogo.
@@ -34,39 +33,51 @@ public class LuogoDAOMySQLImpl implements DAO<Luogo> {
     public static LuogoDAOMySQLImpl getInstance() {
         if (dao == null) {
             dao = new LuogoDAOMySQLImpl();
-            logger = Logger.getLogger(LuogoDAOMySQLImpl.class.getName());
         }
         return dao;
     }
     @Override
     public void insert(Luogo e) throws DAOException {
+        ReferenceDataCache.getInstance().invalidate(ReferenceDataCache.Tabella.LUOGO_EVENTO);
     }
 
     /**
-     * Seleziona luoghi (filtrando per id se fornito nell'oggetto Luogo).
+     * Seleziona il luogo con l'id indicato nell'oggetto Luogo.
+     * La lettura passa per {@link ReferenceDataCache}: la tabella viene interrogata solo se la copia
+     * in memoria è scaduta o non contiene l'id.
      *
      * @param e oggetto Luogo usato come filtro
-     * @return lista di Luogo
+     * @return lista con il luogo trovato (vuota se non esiste)
      * @throws DAOException in caso di errore SQL
      */
     @Override
     public List<Luogo> select(Luogo e) throws DAOException {
 
         ArrayList <Luogo> lista = new ArrayList<>();
-        try {
 
-            Statement st = DAOMySQLSettings.getStatement();
+        Luogo luogo = ReferenceDataCache.getInstance().getLuogo(e.getId());
+        if (luogo != null) {
+            lista.add(luogo);
+        }
+        return lista;
+    }
+
+    /**
+     * Legge dal DB tutti i luoghi (usato da {@link ReferenceDataCache} per caricare la tabella).
+     *
+     * @return lista di tutti i luoghi, ordinati per id
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<Luogo> selectAll() throws DAOException {
+
+        ArrayList <Luogo> lista = new ArrayList<>();
 
-            int id = e.getId();
-            String sql = "select * from luogo_evento WHERE idLUOGO_EVENTO = " + e.getId();
+        String sql = "select * from luogo_evento ORDER BY idLUOGO_EVENTO";
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
 
-            ResultSet rs = st.executeQuery(sql);
             while (rs.next()) {
                 lista.add(new Luogo(
                         rs.getString("luogo"),
@@ -75,84 +86,74 @@ public class LuogoDAOMySQLImpl implements DAO<Luogo> {
                 ));
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
-            throw new DAOException("In select(): " + sq.getMessage());
+            throw new DAOException("In selectAll(): " + sq.getMessage());
         }
         return lista;
     }
 
-    @Override
-    public void delete(Luogo e) throws DAOException {
-
-    }
-
-    @Override
-    public void update(Luogo e) throws DAOException {
-
-    }
-
     /**
-     * Trova i luoghi disponibili per una data e intervallo orario (nessun evento sovrapposto).
+     * Legge dal DB i settori di tutti i luoghi, nell'ordine in cui si susseguono le file
+     * (usato da {@link ReferenceDataCache} per costruire le disposizioni dei posti).
+     * I luoghi senza settori non compaiono nella mappa.
      *
-     * @param dataEvento data evento
-     * @param orarioInizio orario inizio
-     * @param orarioFine orario fine
-     * @return lista di luoghi disponibili
+     * @return mappa id luogo → settori in ordine
      * @throws DAOException in caso di errore SQL
      */
-    public List<Luogo> selectLuoghiDisponibili(String dataEvento, String orarioInizio, String orarioFine) throws DAOException{
-
-        ArrayList<Luogo> lista = new ArrayList<>();
+    public Map<Integer, List<SeatLayout.Settore>> selectSettori() throws DAOException {
 
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
+        Map<Integer, List<SeatLayout.Settore>> settori = new HashMap<>();
 
-            String sql = "SELECT l.* " +
-                    "FROM biglietteria_se.luogo_evento l " +
-                    "LEFT JOIN biglietteria_se.eventi e " +
-                    "ON e.LUOGO_EVENTO_idLUOGO_EVENTO = l.idLUOGO_EVENTO " +
-                    "AND e.dataEvento = '" + dataEvento + "' " +
-                    "AND e.orarioInizio < '" + orarioFine + "' " +
-                    "AND e.orarioFine > '" + orarioInizio + "' " +
-                    "WHERE e.idEvento IS NULL;";
+        String sql = "SELECT LUOGO_EVENTO_idLUOGO_EVENTO, nome, file, postiPerFila, categoria " +
+                "FROM settore_posti ORDER BY LUOGO_EVENTO_idLUOGO_EVENTO, ordine";
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
 
-            ResultSet rs = st.executeQuery(sql);
             while (rs.next()) {
-                lista.add(new Luogo(rs.getString("luogo"),
-                        rs.getInt("maxPosti"),
-                        rs.getInt("idLUOGO_EVENTO")));
+                settori.computeIfAbsent(rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO"), k -> new ArrayList<>())
+                        .add(new SeatLayout.Settore(
+                                rs.getString("nome"),
+                                rs.getInt("file"),
+                                rs.getInt("postiPerFila"),
+                                rs.getString("categoria")));
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
-            throw new DAOException("In selectLuoghiDisponibili(): " + sq.getMessage());
+            throw new DAOException("In selectSettori(): " + sq.getMessage());
         }
-        return lista;
+        return settori;
     }
 
-    private void verifyObject(Luogo e) throws DAOException {
+    @Override
+    public void delete(Luogo e) throws DAOException {
+        ReferenceDataCache.getInstance().invalidate(ReferenceDataCache.Tabella.LUOGO_EVENTO);
+    }
 
+    @Override
+    public void update(Luogo e) throws DAOException {
+        ReferenceDataCache.getInstance().invalidate(ReferenceDataCache.Tabella.LUOGO_EVENTO);
     }
 
-    private void executeUpdate(String query) throws DAOException{
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-            int n = st.executeUpdate(query);
+    /**
+     * Trova i luoghi disponibili per una data e intervallo orario (nessun evento sovrapposto,
+     * anche a cavallo della mezzanotte: vedi {@link SchedulingEngine}).
+     * I luoghi sono letti da {@link ReferenceDataCache}.
+     *
+     * @param dataEvento data evento
+     * @param orarioInizio orario inizio
+     * @param orarioFine orario fine (se non successivo all'inizio, il giorno dopo)
+     * @return lista di luoghi disponibili (vuota se data o orari mancano o non sono validi)
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<Luogo> selectLuoghiDisponibili(String dataEvento, String orarioInizio, String orarioFine) throws DAOException{
+        return SchedulingEngine.getInstance().luoghiLiberi(ReferenceDataCache.getInstance().getLuoghi(),
+                dataEvento, orarioInizio, orarioFine);
+    }
 
-            DAOMySQLSettings.closeStatement(st);
+    private void verifyObject(Luogo e) throws DAOException {
 
-        } catch (SQLException e) {
-            throw new DAOException("In insert(): " + e.getMessage());
-        }
     }
 
-}
+}
\ No newline at end of file
@@ -4,13 +4,12 @@ import it.unicas.project.template.address.model.Organizzazione;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * DAO per la tabella 'organizzazione'.
@@ -22,7 +21,6 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
     }
 
     private static DAO dao = null;
-    private static Logger logger = null;
 
     /**
      * Restituisce l'istanza singleton del DAO Organizzazione.
@@ -32,7 +30,6 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
     public static DAO getInstance() {
         if (dao == null) {
             dao = new OrganizzazioneDAOMySQLImpl();
-            logger = Logger.getLogger(OrganizzazioneDAOMySQLImpl.class.getName());
         }
         return dao;
     }
@@ -48,19 +45,13 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
     public List<Organizzazione> select(Organizzazione a) throws DAOException {
 
         ArrayList<Organizzazione> lista = new ArrayList<>();
-        try {
 
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "select * from organizzazione";
 
-            String sql = "select * from organizzazione";
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
-
-            ResultSet rs = st.executeQuery(sql);
             while (rs.next()) {
                 lista.add(new Organizzazione(rs.getString("nome"),
                         rs.getString("email"),
@@ -69,8 +60,6 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
                         rs.getInt("idORGANIZZAZIONE")));
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
             throw new DAOException("In select(): " + sq.getMessage());
         }
@@ -88,15 +77,17 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
         if (a == null || a.getId() == null){
             throw new DAOException("In delete: idORGANIZZAZIONE cannot be null");
         }
-        String query = "DELETE FROM organizzazione WHERE idORGANIZZAZIONE='" + a.getId() + "';";
+        String query = "DELETE FROM organizzazione WHERE idORGANIZZAZIONE = ?";
 
-        try{
-            logger.info("SQL: " + query);
-        } catch (NullPointerException nullPointerException){
-            System.out.println("SQL: " + query);
-        }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setInt(1, a.getId());
+            ps.executeUpdate();
 
-        executeUpdate(query);
+        } catch (SQLException e) {
+            throw new DAOException("In delete(): " + e.getMessage());
+        }
     }
 
     /**
@@ -108,26 +99,19 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
     @Override
     public void insert(Organizzazione a) throws DAOException {
 
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            String sql =
-                    "INSERT INTO organizzazione (" +
-                            "TIPOLOGIA_ORGANIZZAZIONE_idTIPOLOGIA_ORGANIZZAZIONE, nome, email, password" +
-                            ") VALUES ('"
-                            + a.getTipo() + "', '"
-                            + a.getNome() + "', '"
-                            + a.getEmail() + "', '"
-                            + a.getPassword() + "');";
-
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException nullPointerException) {
-                logger.severe("SQL: " + sql);
-            }
+        String sql =
+                "INSERT INTO organizzazione (" +
+                        "TIPOLOGIA_ORGANIZZAZIONE_idTIPOLOGIA_ORGANIZZAZIONE, nome, email, password" +
+                        ") VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            st.executeUpdate(sql);
-            DAOMySQLSettings.closeStatement(st);
+            ps.setInt(1, a.getTipo());
+            ps.setString(2, a.getNome());
+            ps.setString(3, a.getEmail());
+            ps.setString(4, a.getPassword());
+            ps.executeUpdate();
 
         } catch (SQLException sq) {
             throw new DAOException("In insert(): " + sq.getMessage());
@@ -145,14 +129,35 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
     public void update(Organizzazione a) throws DAOException {
         verifyObject(a);
 
-        String query = "UPDATE organizzazione SET nome = '" + a.getNome() + "', email = '" + a.getEmail() + "', password = '" + a.getPassword()  + "'";
-        query = query + " WHERE idORGANIZZAZIONE = " + a.getId() + ";";
-        logger.info("SQL: " + query);
+        String query = "UPDATE organizzazione SET nome = ?, email = ?, password = ? WHERE idORGANIZZAZIONE = ?";
 
-        executeUpdate(query);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setString(1, a.getNome());
+            ps.setString(2, a.getEmail());
+            ps.setString(3, a.getPassword());
+            ps.setInt(4, a.getId());
+            ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new DAOException("In update(): " + e.getMessage());
+        }
 
     }
 
+    /**
+     * Verifica se l'email è già registrata, come organizzazione o come cliente
+     * (vedi {@link ClienteDAOMySQLImpl#existsByEmail(String)}).
+     *
+     * @param email email da verificare (confronto senza distinzione maiuscole/minuscole)
+     * @return true se l'email è già in uso
+     * @throws DAOException in caso di errore SQL
+     */
+    public boolean existsByEmail(String email) throws DAOException {
+        return ClienteDAOMySQLImpl.emailRegistrata(email);
+    }
+
     /**
      * Recupera un'organizzazione per email e password (autenticazione).
      *
@@ -165,28 +170,23 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
 
         String sql = "SELECT * FROM organizzazione WHERE email = ? AND password = ?";
 
-        try {
-            PreparedStatement ps = DAOMySQLSettings.getStatement().getConnection().prepareStatement(sql);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
             ps.setString(1, email);
             ps.setString(2, password);
 
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-
-                Organizzazione o = new Organizzazione(
-                        rs.getString("nome"),
-                        rs.getString("email"),
-                        rs.getString("password"),
-                        rs.getInt("TIPOLOGIA_ORGANIZZAZIONE_idTIPOLOGIA_ORGANIZZAZIONE"),
-                        rs.getInt("idORGANIZZAZIONE")
-                );
-
-                DAOMySQLSettings.closeStatement(ps);
-                return o;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new Organizzazione(
+                            rs.getString("nome"),
+                            rs.getString("email"),
+                            rs.getString("password"),
+                            rs.getInt("TIPOLOGIA_ORGANIZZAZIONE_idTIPOLOGIA_ORGANIZZAZIONE"),
+                            rs.getInt("idORGANIZZAZIONE")
+                    );
+                }
             }
-
-            DAOMySQLSettings.closeStatement(ps);
             return null;
 
         } catch (SQLException e) {
@@ -203,16 +203,4 @@ public class OrganizzazioneDAOMySQLImpl implements DAO<Organizzazione> {
             throw new DAOException("In select: any field can be null");
         }
     }
-
-    private void executeUpdate(String query) throws DAOException{
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-            int n = st.executeUpdate(query);
-
-            DAOMySQLSettings.closeStatement(st);
-
-        } catch (SQLException e) {
-            throw new DAOException("In insert(): " + e.getMessage());
-        }
-    }
 }
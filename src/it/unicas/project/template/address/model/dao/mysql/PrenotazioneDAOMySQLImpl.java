@@ -1,19 +1,27 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
+import it.unicas.project.template.address.model.Evento;
 import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.PrenotazioneEvento;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
 
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * DAO per la tabella 'prenotazione'.
  * Gestisce creazione, aggiornamento, cancellazione e ricerche di prenotazioni.
+ *
+ * I posti di una prenotazione sono le righe di 'prenotazione_posto' (id numerici, una riga per posto);
+ * la colonna postiPrenotati resta come testo da mostrare ("A1, A2") e non viene più riletta
+ * per ricavare i posti.
  */
 public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
 
@@ -21,7 +29,9 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
     }
 
     private static PrenotazioneDAOMySQLImpl dao = null;
-    private static Logger logger = null;
+
+    private static final String SQL_POSTO_PRENOTAZIONE =
+            "INSERT INTO prenotazione_posto (PRENOTAZIONE_idPRENOTAZIONE, EVENTI_idEvento, idPOSTI, prezzo) VALUES (?, ?, ?, ?)";
 
     /**
      * Restituisce l'istanza singleton del DAO Prenotazione.
@@ -31,7 +41,6 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
     public static PrenotazioneDAOMySQLImpl getInstance() {
         if (dao == null) {
             dao = new PrenotazioneDAOMySQLImpl();
-            logger = Logger.getLogger(PrenotazioneDAOMySQLImpl.class.getName());
         }
         return dao;
     }
@@ -46,31 +55,17 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
     @Override
     public List<Prenotazione> select(Prenotazione p) throws DAOException {
         ArrayList<Prenotazione> lista = new ArrayList<>();
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-            String sql = "SELECT * FROM prenotazione";
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException e) {
-                logger.severe("SQL: " + sql);
-            }
+        String sql = "SELECT * FROM prenotazione";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
 
-            ResultSet rs = st.executeQuery(sql);
             while (rs.next()) {
-                lista.add(new Prenotazione(
-                        rs.getInt("idPRENOTAZIONE"),
-                        rs.getString("data"),
-                        rs.getString("time"),
-                        rs.getString("postiPrenotati"),
-                        rs.getInt("CLIENTE_idCLIENTE"),
-                        rs.getInt("EVENTI_idEvento"),
-                        rs.getInt("STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE")
-                ));
+                lista.add(leggiPrenotazione(rs));
             }
 
-            DAOMySQLSettings.closeStatement(st);
-
         } catch (SQLException sq) {
             throw new DAOException("In select(): " + sq.getMessage());
         }
@@ -85,25 +80,19 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
      */
     @Override
     public void insert(Prenotazione p) throws DAOException {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
 
-            String sql = "INSERT INTO prenotazione (data, time, postiPrenotati, CLIENTE_idCLIENTE, EVENTI_idEvento, STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE) VALUES ('"
-                    + p.getData() + "', '"
-                    + p.getTime() + "', '"
-                    + p.getPostoPrenotato() + "', "
-                    + p.getClienteId() + ", "
-                    + p.getEventoId() + ", "
-                    + p.getStatoPrenotazioneId() + ")";
+        String sql = "INSERT INTO prenotazione (data, time, postiPrenotati, CLIENTE_idCLIENTE, EVENTI_idEvento, STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE) VALUES (?, ?, ?, ?, ?, ?)";
 
-            try {
-                logger.info("SQL: " + sql);
-            } catch (NullPointerException e) {
-                logger.severe("SQL: " + sql);
-            }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            st.executeUpdate(sql);
-            DAOMySQLSettings.closeStatement(st);
+            ps.setString(1, p.getData());
+            ps.setString(2, p.getTime());
+            ps.setString(3, p.getPostoPrenotato());
+            ps.setInt(4, p.getClienteId());
+            ps.setInt(5, p.getEventoId());
+            ps.setInt(6, p.getStatoPrenotazioneId());
+            ps.executeUpdate();
 
         } catch (SQLException sq) {
             throw new DAOException("In insert(): " + sq.getMessage());
@@ -120,17 +109,25 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
     public void update(Prenotazione p) throws DAOException {
         verifyObject(p);
 
-        String query = "UPDATE prenotazione SET data = '" + p.getData() + "', "
-                + "time = '" + p.getTime() + "', "
-                + "postiPrenotati = " + p.getPostoPrenotato() + ", "
-                + "CLIENTE_idCLIENTE = " + p.getClienteId() + ", "
-                + "EVENTI_idEvento = " + p.getEventoId() + ", "
-                + "STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE = " + p.getStatoPrenotazioneId() + " "
-                + "WHERE idPRENOTAZIONE = " + p.getIdPrenotazione() + ";";
+        String query = "UPDATE prenotazione SET data = ?, time = ?, postiPrenotati = ?, CLIENTE_idCLIENTE = ?, "
+                + "EVENTI_idEvento = ?, STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE = ? "
+                + "WHERE idPRENOTAZIONE = ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
 
-        logger.info("SQL: " + query);
+            ps.setString(1, p.getData());
+            ps.setString(2, p.getTime());
+            ps.setString(3, p.getPostoPrenotato());
+            ps.setInt(4, p.getClienteId());
+            ps.setInt(5, p.getEventoId());
+            ps.setInt(6, p.getStatoPrenotazioneId());
+            ps.setInt(7, p.getIdPrenotazione());
+            ps.executeUpdate();
 
-        executeUpdate(query);
+        } catch (SQLException e) {
+            throw new DAOException("In update(): " + e.getMessage());
+        }
     }
 
     /**
@@ -144,15 +141,17 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
         if (p == null || p.getIdPrenotazione() == null) {
             throw new DAOException("In delete: idPRENOTAZIONE cannot be null");
         }
-        String query = "DELETE FROM prenotazione WHERE idPRENOTAZIONE='" + p.getIdPrenotazione() + "';";
+        String query = "DELETE FROM prenotazione WHERE idPRENOTAZIONE = ?";
 
-        try {
-            logger.info("SQL: " + query);
-        } catch (NullPointerException e) {
-            System.out.println("SQL: " + query);
-        }
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setInt(1, p.getIdPrenotazione());
+            ps.executeUpdate();
 
-        executeUpdate(query);
+        } catch (SQLException e) {
+            throw new DAOException("In delete(): " + e.getMessage());
+        }
     }
 
     /**
@@ -165,28 +164,20 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
      */
     public List<Prenotazione> selectByClienteAndEvento(int idCliente, int idEvento) throws DAOException {
         ArrayList<Prenotazione> lista = new ArrayList<>();
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
 
-            String sql = "SELECT * FROM prenotazione WHERE CLIENTE_idCLIENTE=" + idCliente +
-                    " AND EVENTI_idEvento=" + idEvento;
+        String sql = "SELECT * FROM prenotazione WHERE CLIENTE_idCLIENTE = ? AND EVENTI_idEvento = ?";
 
-            logger.info("SQL: " + sql);
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ResultSet rs = st.executeQuery(sql);
-            while (rs.next()) {
-                lista.add(new Prenotazione(
-                        rs.getInt("idPRENOTAZIONE"),
-                        rs.getString("data"),
-                        rs.getString("time"),
-                        rs.getString("postiPrenotati"),
-                        rs.getInt("CLIENTE_idCLIENTE"),
-                        rs.getInt("EVENTI_idEvento"),
-                        rs.getInt("STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE")
-                ));
-            }
+            ps.setInt(1, idCliente);
+            ps.setInt(2, idEvento);
 
-            DAOMySQLSettings.closeStatement(st);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(leggiPrenotazione(rs));
+                }
+            }
 
         } catch (SQLException sq) {
             throw new DAOException("In selectByClienteAndEvento(): " + sq.getMessage());
@@ -194,6 +185,290 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
         return lista;
     }
 
+    /**
+     * Seleziona una pagina delle prenotazioni di un cliente, dalla più recente, con titolo, data, orari
+     * e luogo dell'evento letti nella stessa query. La ricerca usa l'indice sul cliente
+     * (fk_PRENOTAZIONE_CLIENTE1_idx, che contiene anche la chiave primaria usata per l'ordinamento):
+     * il costo dipende dalle prenotazioni del cliente, non da quelle presenti nel sistema.
+     * La pagina successiva parte dall'ultima prenotazione della precedente (paginazione a chiave).
+     *
+     * @param idCliente id del cliente
+     * @param ultima ultima prenotazione della pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di prenotazioni della pagina
+     * @return prenotazioni della pagina; meno di dimensione se è l'ultima
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<PrenotazioneEvento> selectByCliente(int idCliente, PrenotazioneEvento ultima, int dimensione) throws DAOException {
+        ArrayList<PrenotazioneEvento> lista = new ArrayList<>();
+
+        String sql = "SELECT p.*, e.idEvento, e.titolo, e.costi, e.dataEvento, e.orarioInizio, e.orarioFine, e.tagTematici, "
+                + "e.TIPO_EVENTO_idTIPO_EVENTO, e.ORGANIZZAZIONE_idORGANIZZAZIONE, e.LUOGO_EVENTO_idLUOGO_EVENTO, "
+                + "l.luogo AS nomeLuogo "
+                + "FROM prenotazione p "
+                + "LEFT JOIN eventi e ON e.idEvento = p.EVENTI_idEvento "
+                + "LEFT JOIN luogo_evento l ON l.idLUOGO_EVENTO = e.LUOGO_EVENTO_idLUOGO_EVENTO "
+                + "WHERE p.CLIENTE_idCLIENTE = ?"
+                + (ultima != null ? " AND p.idPRENOTAZIONE < ?" : "")
+                + " ORDER BY p.idPRENOTAZIONE DESC LIMIT ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            ps.setInt(i++, idCliente);
+            if (ultima != null) {
+                ps.setInt(i++, ultima.getIdPrenotazione());
+            }
+            ps.setInt(i, dimensione);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(new PrenotazioneEvento(leggiPrenotazione(rs), leggiEvento(rs), rs.getString("nomeLuogo")));
+                }
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In selectByCliente(): " + sq.getMessage());
+        }
+        return lista;
+    }
+
+    /**
+     * Conta le prenotazioni di un cliente (solo indice sul cliente, senza leggere le righe).
+     *
+     * @param idCliente id del cliente
+     * @return numero di prenotazioni
+     * @throws DAOException in caso di errore SQL
+     */
+    public int countByCliente(int idCliente) throws DAOException {
+
+        String sql = "SELECT COUNT(*) FROM prenotazione WHERE CLIENTE_idCLIENTE = ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idCliente);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In countByCliente(): " + sq.getMessage());
+        }
+    }
+
+    /******************************************
+     POSTI DELLE PRENOTAZIONI
+     ********************************************/
+
+    /**
+     * Salva i posti di una prenotazione in 'prenotazione_posto', con un'unica batch.
+     * Usato da {@link BookingEngine} e {@link WaitlistPromoter} dentro la transazione che crea la prenotazione.
+     *
+     * @param conn connessione della transazione
+     * @param idPrenotazione id della prenotazione appena inserita
+     * @param idEvento id evento
+     * @param posti id dei posti
+     * @param prezzo prezzo pagato per ogni posto ({@link VenditeDAOMySQLImpl#prezzo})
+     * @throws SQLException in caso di errore SQL (la transazione va annullata)
+     */
+    static void insertPosti(Connection conn, int idPrenotazione, int idEvento, List<Integer> posti, BigDecimal prezzo) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_POSTO_PRENOTAZIONE)) {
+            for (Integer posto : posti) {
+                ps.setInt(1, idPrenotazione);
+                ps.setInt(2, idEvento);
+                ps.setInt(3, posto);
+                ps.setBigDecimal(4, prezzo);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Restituisce gli id dei posti di una prenotazione (chiave primaria di 'prenotazione_posto').
+     *
+     * @param idPrenotazione id della prenotazione
+     * @return id dei posti, in ordine crescente
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<Integer> selectPosti(int idPrenotazione) throws DAOException {
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            return leggiPosti(conn, idPrenotazione);
+        } catch (SQLException sq) {
+            throw new DAOException("In selectPosti(): " + sq.getMessage());
+        }
+    }
+
+    /**
+     * Restituisce la prenotazione che occupa un posto di un evento (indice unico su evento e posto).
+     *
+     * @param idEvento id evento
+     * @param idPosto id del posto
+     * @return prenotazione, null se il posto non appartiene a nessuna prenotazione
+     * @throws DAOException in caso di errore SQL
+     */
+    public Prenotazione selectByPosto(int idEvento, int idPosto) throws DAOException {
+
+        String sql = "SELECT p.* FROM prenotazione_posto pp " +
+                "JOIN prenotazione p ON p.idPRENOTAZIONE = pp.PRENOTAZIONE_idPRENOTAZIONE " +
+                "WHERE pp.EVENTI_idEvento = ? AND pp.idPOSTI = ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idEvento);
+            ps.setInt(2, idPosto);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? leggiPrenotazione(rs) : null;
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In selectByPosto(): " + sq.getMessage());
+        }
+    }
+
+    /**
+     * Annulla una prenotazione: libera i suoi posti ed elimina la prenotazione, in un'unica transazione.
+     * La riga della prenotazione viene prima bloccata (SELECT ... FOR UPDATE): due annullamenti concorrenti
+     * della stessa prenotazione si serializzano e il secondo non trova più nulla da cancellare, per cui
+     * posti e riepiloghi delle vendite vengono toccati una volta sola. Le righe di 'prenotazione_posto'
+     * si cancellano a cascata con la prenotazione e i riepiloghi scendono degli stessi posti e del prezzo
+     * pagato per ciascuno.
+     * Evento e cliente vengono letti dalla riga bloccata, non dall'oggetto passato, che può non essere aggiornato.
+     * Inventario dei posti e mappe aperte vengono aggiornati dopo il commit.
+     *
+     * @param p prenotazione da annullare (conta solo l'id, obbligatorio)
+     * @return id dei posti liberati, vuota se la prenotazione era già stata annullata
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<Integer> annulla(Prenotazione p) throws DAOException {
+        if (p == null || p.getIdPrenotazione() == null) {
+            throw new DAOException("In annulla(): idPRENOTAZIONE cannot be null");
+        }
+
+        String sqlBlocca = "SELECT EVENTI_idEvento, CLIENTE_idCLIENTE FROM prenotazione WHERE idPRENOTAZIONE = ? FOR UPDATE";
+        String sqlElimina = "DELETE FROM prenotazione WHERE idPRENOTAZIONE = ?";
+
+        List<Integer> posti;
+        // sostituiti dai valori del database appena la riga è bloccata
+        int idEvento = p.getEventoId() == null ? 0 : p.getEventoId();
+        int idCliente = p.getClienteId() == null ? 0 : p.getClienteId();
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(sqlBlocca)) {
+                    ps.setInt(1, p.getIdPrenotazione());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return new ArrayList<>();
+                        }
+                        idEvento = rs.getInt("EVENTI_idEvento");
+                        idCliente = rs.getInt("CLIENTE_idCLIENTE");
+                    }
+                }
+
+                posti = leggiPosti(conn, p.getIdPrenotazione());
+                BigDecimal pagato;
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT COALESCE(SUM(prezzo), 0) FROM prenotazione_posto WHERE PRENOTAZIONE_idPRENOTAZIONE = ?")) {
+                    ps.setInt(1, p.getIdPrenotazione());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        pagato = rs.getBigDecimal(1);
+                    }
+                }
+
+                // Solo chi cancella davvero la prenotazione libera i posti e aggiorna le vendite
+                try (PreparedStatement ps = conn.prepareStatement(sqlElimina)) {
+                    ps.setInt(1, p.getIdPrenotazione());
+                    if (ps.executeUpdate() != 1) {
+                        conn.rollback();
+                        return new ArrayList<>();
+                    }
+                }
+
+                if (!posti.isEmpty()) {
+                    String sqlLibera = "DELETE FROM posti WHERE EVENTI_idEvento = ? AND idPOSTI IN ("
+                            + String.join(", ", Collections.nCopies(posti.size(), "?")) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(sqlLibera)) {
+                        ps.setInt(1, idEvento);
+                        for (int i = 0; i < posti.size(); i++) {
+                            ps.setInt(i + 2, posti.get(i));
+                        }
+                        ps.executeUpdate();
+                    }
+                }
+                VenditeDAOMySQLImpl.registra(conn, idEvento, -posti.size(), pagato.negate());
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException sq) {
+            SeatInventory.getInstance().invalidate(idEvento);
+            throw new DAOException("In annulla(): " + sq.getMessage());
+        }
+
+        SeatInventory.getInstance().markFree(idEvento, posti);
+        SeatEventBus.getInstance().publish(idEvento, posti, false, idCliente);
+        return posti;
+    }
+
+    private static List<Integer> leggiPosti(Connection conn, int idPrenotazione) throws SQLException {
+        List<Integer> posti = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT idPOSTI FROM prenotazione_posto WHERE PRENOTAZIONE_idPRENOTAZIONE = ? ORDER BY idPOSTI")) {
+            ps.setInt(1, idPrenotazione);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    posti.add(rs.getInt(1));
+                }
+            }
+        }
+        return posti;
+    }
+
+    // Evento della riga di selectByCliente (null se l'evento non esiste più)
+    private Evento leggiEvento(ResultSet rs) throws SQLException {
+        int idEvento = rs.getInt("idEvento");
+        if (rs.wasNull()) {
+            return null;
+        }
+        return new Evento(
+                idEvento,
+                rs.getString("titolo"),
+                null,
+                rs.getBigDecimal("costi"),
+                rs.getString("dataEvento"),
+                rs.getString("orarioInizio"),
+                rs.getString("orarioFine"),
+                rs.getString("tagTematici"),
+                null,
+                rs.getInt("TIPO_EVENTO_idTIPO_EVENTO"),
+                rs.getInt("ORGANIZZAZIONE_idORGANIZZAZIONE"),
+                rs.getInt("LUOGO_EVENTO_idLUOGO_EVENTO")
+        );
+    }
+
+    private Prenotazione leggiPrenotazione(ResultSet rs) throws SQLException {
+        return new Prenotazione(
+                rs.getInt("idPRENOTAZIONE"),
+                rs.getString("data"),
+                rs.getString("time"),
+                rs.getString("postiPrenotati"),
+                rs.getInt("CLIENTE_idCLIENTE"),
+                rs.getInt("EVENTI_idEvento"),
+                rs.getInt("STATO_PRENOTAZIONE_idSTATO_PRENOTAZIONE")
+        );
+    }
+
     private void verifyObject(Prenotazione p) throws DAOException {
         if (p == null || p.getData() == null || p.getTime() == null ||
                 p.getPostoPrenotato() == null || p.getClienteId() == null ||
@@ -201,14 +476,4 @@ public class PrenotazioneDAOMySQLImpl implements DAO<Prenotazione> {
             throw new DAOException("In update: any field cannot be null");
         }
     }
-
-    private void executeUpdate(String query) throws DAOException {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-            st.executeUpdate(query);
-            DAOMySQLSettings.closeStatement(st);
-        } catch (SQLException e) {
-            throw new DAOException("In executeUpdate(): " + e.getMessage());
-        }
-    }
 }
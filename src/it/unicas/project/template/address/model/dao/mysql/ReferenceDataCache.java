@@ -0,0 +1,357 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.Luogo;
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Cache read-through delle tabelle di riferimento: luoghi, tipi di evento, tipi di organizzazione
+ * e tipi di collaboratore. Sono tabelle piccole che cambiano di rado: ognuna viene letta per intero
+ * con una query e tenuta in memoria fino alla scadenza del suo TTL o a un'invalidazione esplicita
+ * (da chiamare dopo ogni scrittura su quella tabella).
+ *
+ * Un id assente dalla copia in memoria provoca una rilettura della tabella (al più una al secondo),
+ * così un luogo o un tipo appena inserito da un'altra istanza viene trovato senza attendere il TTL.
+ *
+ * Insieme ai luoghi vengono letti i loro settori ('settore_posti'): la {@link SeatLayout} di un luogo
+ * è costruita al primo uso e resta valida finché resta valida la copia dei luoghi.
+ */
+public class ReferenceDataCache {
+
+    /**
+     * Tabelle gestite dalla cache, con il TTL di default.
+     */
+    public enum Tabella {
+        LUOGO_EVENTO("luogo_evento", "idLUOGO_EVENTO", 10),
+        TIPO_EVENTO("tipo_evento", "idTIPO_EVENTO", 60),
+        TIPO_ORGANIZZAZIONE("tipo_organizzazione", "idTIPO_ORGANIZZAZIONE", 60),
+        TIPO_COLLABORATORI("tipo_collaboratori", "idTIPO_COLLABORATORI", 60);
+
+        private final String nome;
+        private final String chiave;
+        private final long ttlMinutiDefault;
+
+        Tabella(String nome, String chiave, long ttlMinutiDefault) {
+            this.nome = nome;
+            this.chiave = chiave;
+            this.ttlMinutiDefault = ttlMinutiDefault;
+        }
+    }
+
+    // Intervallo minimo tra due riletture causate da id non trovati
+    private static final long RILETTURA_MIN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static ReferenceDataCache cache = null;
+    private static final Logger logger = Logger.getLogger(ReferenceDataCache.class.getName());
+
+    private final Map<Tabella, Copia> copie = new ConcurrentHashMap<>();
+    private final Map<Tabella, Long> ttlNanos = new ConcurrentHashMap<>();
+    private final Map<Tabella, AtomicLong> hits = new EnumMap<>(Tabella.class);
+    private final Map<Tabella, AtomicLong> misses = new EnumMap<>(Tabella.class);
+
+    private ReferenceDataCache() {
+        for (Tabella t : Tabella.values()) {
+            ttlNanos.put(t, TimeUnit.MINUTES.toNanos(t.ttlMinutiDefault));
+            hits.put(t, new AtomicLong());
+            misses.put(t, new AtomicLong());
+        }
+    }
+
+    /**
+     * Restituisce l'istanza singleton della cache.
+     *
+     * @return istanza singleton ReferenceDataCache
+     */
+    public static synchronized ReferenceDataCache getInstance() {
+        if (cache == null) {
+            cache = new ReferenceDataCache();
+        }
+        return cache;
+    }
+
+    /******************************************
+     LETTURA
+     ********************************************/
+
+    /**
+     * Restituisce il luogo con l'id indicato.
+     *
+     * @param idLuogo id del luogo
+     * @return luogo, null se non esiste
+     * @throws DAOException in caso di errore SQL durante il caricamento
+     */
+    public Luogo getLuogo(int idLuogo) throws DAOException {
+        return (Luogo) cerca(Tabella.LUOGO_EVENTO, idLuogo);
+    }
+
+    /**
+     * Restituisce la disposizione dei posti di un luogo: quella dei suoi settori oppure,
+     * se il luogo non ha settori, {@link SeatLayout#standard(int)} con maxPosti posti.
+     *
+     * @param idLuogo id del luogo
+     * @return disposizione dei posti, null se il luogo non esiste
+     * @throws DAOException in caso di errore SQL durante il caricamento
+     */
+    public SeatLayout getLayout(int idLuogo) throws DAOException {
+        Luogo luogo = getLuogo(idLuogo);
+        if (luogo == null) {
+            return null;
+        }
+        // copia appena usata da getLuogo (la ricarica solo se nel frattempo è stata invalidata)
+        Copia letta = copie.get(Tabella.LUOGO_EVENTO);
+        Copia c = letta != null ? letta : carica(Tabella.LUOGO_EVENTO);
+        return c.layouts.computeIfAbsent(idLuogo, id -> {
+            List<SeatLayout.Settore> settori = c.settori.get(id);
+            return settori != null ? new SeatLayout(settori) : SeatLayout.standard(luogo.getMaxPosti());
+        });
+    }
+
+    /**
+     * Restituisce tutti i luoghi, ordinati per id.
+     *
+     * @return lista dei luoghi
+     * @throws DAOException in caso di errore SQL durante il caricamento
+     */
+    public List<Luogo> getLuoghi() throws DAOException {
+        List<Luogo> luoghi = new ArrayList<>();
+        for (Object o : righe(Tabella.LUOGO_EVENTO).values()) {
+            luoghi.add((Luogo) o);
+        }
+        return luoghi;
+    }
+
+    /**
+     * Restituisce il nome di una riga di una tabella di tipi (tipo evento, organizzazione, collaboratore).
+     *
+     * @param tabella tabella di tipi
+     * @param id id della riga
+     * @return nome, null se l'id non esiste
+     * @throws DAOException in caso di errore SQL durante il caricamento
+     */
+    public String getNome(Tabella tabella, int id) throws DAOException {
+        verificaTipi(tabella);
+        return (String) cerca(tabella, id);
+    }
+
+    /**
+     * Restituisce l'id di una riga di una tabella di tipi a partire dal nome (senza distinzione maiuscole).
+     *
+     * @param tabella tabella di tipi
+     * @param nome nome cercato
+     * @return id, -1 se il nome non esiste
+     * @throws DAOException in caso di errore SQL durante il caricamento
+     */
+    public int getId(Tabella tabella, String nome) throws DAOException {
+        verificaTipi(tabella);
+        if (nome == null) {
+            return -1;
+        }
+        for (Map.Entry<Integer, Object> riga : righe(tabella).entrySet()) {
+            if (nome.equalsIgnoreCase((String) riga.getValue())) {
+                return riga.getKey();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Restituisce tutte le righe di una tabella di tipi, ordinate per id.
+     *
+     * @param tabella tabella di tipi
+     * @return mappa id → nome (non modificabile)
+     * @throws DAOException in caso di errore SQL durante il caricamento
+     */
+    public Map<Integer, String> getNomi(Tabella tabella) throws DAOException {
+        verificaTipi(tabella);
+        Map<Integer, String> nomi = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Object> riga : righe(tabella).entrySet()) {
+            nomi.put(riga.getKey(), (String) riga.getValue());
+        }
+        return Collections.unmodifiableMap(nomi);
+    }
+
+    /******************************************
+     GESTIONE
+     ********************************************/
+
+    /**
+     * Carica subito tutte le tabelle (all'avvio dell'applicazione).
+     *
+     * @throws DAOException in caso di errore SQL
+     */
+    public void preload() throws DAOException {
+        for (Tabella t : Tabella.values()) {
+            carica(t);
+        }
+        logger.info("ReferenceDataCache: tabelle di riferimento caricate");
+    }
+
+    /**
+     * Scarta la copia in memoria di una tabella: la lettura successiva la ricarica dal DB.
+     * Va chiamato dopo ogni scrittura sulla tabella.
+     *
+     * @param tabella tabella modificata
+     */
+    public void invalidate(Tabella tabella) {
+        copie.remove(tabella);
+    }
+
+    /**
+     * Scarta tutte le copie in memoria (ad esempio quando cambia il database di riferimento).
+     */
+    public void invalidateAll() {
+        copie.clear();
+    }
+
+    /**
+     * Imposta il tempo di validità della copia in memoria di una tabella.
+     *
+     * @param tabella tabella
+     * @param durata durata
+     * @param unita unità di misura della durata
+     */
+    public void setTtl(Tabella tabella, long durata, TimeUnit unita) {
+        ttlNanos.put(tabella, unita.toNanos(durata));
+    }
+
+    /**
+     * @param tabella tabella
+     * @return letture servite dalla memoria
+     */
+    public long getHits(Tabella tabella) {
+        return hits.get(tabella).get();
+    }
+
+    /**
+     * @param tabella tabella
+     * @return letture che hanno richiesto una query al DB
+     */
+    public long getMisses(Tabella tabella) {
+        return misses.get(tabella).get();
+    }
+
+    /**
+     * @return riepilogo di hit e miss per tabella, per il log
+     */
+    public String getStatistiche() {
+        StringBuilder sb = new StringBuilder("ReferenceDataCache{");
+        for (Tabella t : Tabella.values()) {
+            if (t.ordinal() > 0) sb.append(", ");
+            sb.append(t.nome).append(": hit=").append(getHits(t)).append(" miss=").append(getMisses(t));
+        }
+        return sb.append('}').toString();
+    }
+
+    /******************************************
+     CARICAMENTO
+     ********************************************/
+
+    private Object cerca(Tabella t, int id) throws DAOException {
+        Copia c = copie.get(t);
+        if (c != null && !scaduta(t, c)) {
+            Object valore = c.righe.get(id);
+            // id assente da una copia appena letta: non esiste, inutile rileggere
+            if (valore != null || System.nanoTime() - c.caricataNanos < RILETTURA_MIN_NANOS) {
+                hits.get(t).incrementAndGet();
+                return valore;
+            }
+        }
+        misses.get(t).incrementAndGet();
+        return carica(t).righe.get(id);
+    }
+
+    private Map<Integer, Object> righe(Tabella t) throws DAOException {
+        Copia c = copie.get(t);
+        if (c != null && !scaduta(t, c)) {
+            hits.get(t).incrementAndGet();
+            return c.righe;
+        }
+        misses.get(t).incrementAndGet();
+        return carica(t).righe;
+    }
+
+    private boolean scaduta(Tabella t, Copia c) {
+        return System.nanoTime() - c.caricataNanos > ttlNanos.get(t);
+    }
+
+    // Una sola rilettura per volta: chi arriva mentre è in corso usa la copia appena caricata
+    private synchronized Copia carica(Tabella t) throws DAOException {
+        long richiesta = System.nanoTime();
+        Copia c = copie.get(t);
+        if (c != null && c.caricataNanos > richiesta - RILETTURA_MIN_NANOS && !scaduta(t, c)) {
+            return c;
+        }
+
+        Map<Integer, Object> righe = new LinkedHashMap<>();
+        Map<Integer, List<SeatLayout.Settore>> settori = Collections.emptyMap();
+        if (t == Tabella.LUOGO_EVENTO) {
+            for (Luogo l : LuogoDAOMySQLImpl.getInstance().selectAll()) {
+                righe.put(l.getId(), l);
+            }
+            settori = LuogoDAOMySQLImpl.getInstance().selectSettori();
+        } else {
+            righe.putAll(leggiTipi(t));
+        }
+
+        c = new Copia(Collections.unmodifiableMap(righe), settori, System.nanoTime());
+        copie.put(t, c);
+        return c;
+    }
+
+    private Map<Integer, String> leggiTipi(Tabella t) throws DAOException {
+        Map<Integer, String> nomi = new LinkedHashMap<>();
+
+        String sql = "SELECT " + t.chiave + ", nome FROM " + t.nome + " ORDER BY " + t.chiave;
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                nomi.put(rs.getInt(t.chiave), rs.getString("nome"));
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In leggiTipi(): " + sq.getMessage());
+        }
+        return nomi;
+    }
+
+    private static void verificaTipi(Tabella t) {
+        if (t == Tabella.LUOGO_EVENTO) {
+            throw new IllegalArgumentException("luogo_evento non è una tabella di tipi: usare getLuogo()");
+        }
+    }
+
+    /**
+     * Copia in memoria di una tabella, con l'istante di caricamento.
+     * Per i luoghi contiene anche i settori e le disposizioni dei posti già costruite.
+     */
+    private static final class Copia {
+        final Map<Integer, Object> righe;
+        final Map<Integer, List<SeatLayout.Settore>> settori;
+        final Map<Integer, SeatLayout> layouts = new ConcurrentHashMap<>();
+        final long caricataNanos;
+
+        Copia(Map<Integer, Object> righe, Map<Integer, List<SeatLayout.Settore>> settori, long caricataNanos) {
+            this.righe = righe;
+            this.settori = settori;
+            this.caricataNanos = caricataNanos;
+        }
+    }
+}
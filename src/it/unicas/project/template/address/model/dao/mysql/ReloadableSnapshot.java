@@ -0,0 +1,222 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Struttura in memoria letta dal database al primo utilizzo, tenuta allineata dalle scritture di questa
+ * istanza e ricaricata in background ogni TTL per raccogliere le modifiche delle altre istanze.
+ * È la base di {@link TagIndex}, {@link EventSearchIndex} e {@link SchedulingEngine}, che forniscono
+ * solo la lettura dal database ({@link #leggi()}) e le proprie ricerche e modifiche.
+ *
+ * Letture e modifiche usano un ReentrantReadWriteLock; il ricaricamento legge il database senza lock,
+ * mentre le ricerche continuano sulla copia corrente, e le modifiche arrivate nel frattempo vengono
+ * riapplicate alla copia nuova prima di sostituirla. Le ricerche usano sempre la copia restituita da
+ * {@link #attuale()}, quindi un {@link #invalidateAll()} concorrente non le lascia senza dati.
+ *
+ * @param <S> contenuto in memoria, modificato solo sotto il write lock
+ */
+abstract class ReloadableSnapshot<S> {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Copia corrente e istante in cui è stata letta, null finché non viene caricata (protetti da lock)
+    private S corrente = null;
+    private long creatoNanos;
+    // Modifiche arrivate durante un ricaricamento, da riapplicare alla nuova copia (protetto da lock)
+    private List<Consumer<S>> inSospeso = null;
+    private final Object caricamento = new Object();
+    private final AtomicBoolean ricaricamentoInCorso = new AtomicBoolean(false);
+    private volatile long ttlNanos;
+
+    /**
+     * @param ttlMinuti minuti dopo i quali la copia viene ricaricata in background
+     */
+    protected ReloadableSnapshot(long ttlMinuti) {
+        ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinuti);
+    }
+
+    /**
+     * Legge dal database una copia completa.
+     *
+     * @return nuova copia
+     * @throws DAOException in caso di errore SQL
+     */
+    protected abstract S leggi() throws DAOException;
+
+    /**
+     * Chiamato dopo che una copia appena letta ha sostituito la precedente.
+     *
+     * @param nuova copia caricata
+     * @param millis durata della lettura
+     */
+    protected void caricato(S nuova, long millis) {
+    }
+
+    /**
+     * Carica subito la copia in memoria (all'avvio dell'applicazione).
+     *
+     * @throws DAOException in caso di errore SQL
+     */
+    public void preload() throws DAOException {
+        attuale();
+    }
+
+    /**
+     * Scarta la copia in memoria (ad esempio quando cambia il database di riferimento):
+     * l'utilizzo successivo la ricarica.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            corrente = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Imposta ogni quanto la copia in memoria viene ricaricata dal database.
+     *
+     * @param durata durata
+     * @param unita unità di misura della durata
+     */
+    public void setTtl(long durata, TimeUnit unita) {
+        ttlNanos = unita.toNanos(durata);
+    }
+
+    /**
+     * Esegue una lettura sulla copia corrente (caricandola se manca) sotto il read lock.
+     *
+     * @param lettura lettura da eseguire
+     * @param <R> tipo del risultato
+     * @return risultato della lettura
+     * @throws DAOException se la copia va caricata e la lettura dal database fallisce
+     */
+    protected final <R> R leggiDa(Function<S, R> lettura) throws DAOException {
+        S s = attuale();
+        lock.readLock().lock();
+        try {
+            return lettura.apply(s);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Come {@link #leggiDa} ma senza caricare: se la copia non c'è restituisce il valore indicato.
+     *
+     * @param lettura lettura da eseguire
+     * @param seManca risultato se la copia non è caricata
+     * @param <R> tipo del risultato
+     * @return risultato della lettura o seManca
+     */
+    protected final <R> R leggiSeCaricato(Function<S, R> lettura, R seManca) {
+        lock.readLock().lock();
+        try {
+            return corrente == null ? seManca : lettura.apply(corrente);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applica una modifica alla copia corrente (se caricata) e la conserva per la copia in caricamento.
+     *
+     * @param modifica modifica da applicare, sotto il write lock
+     */
+    protected final void modifica(Consumer<S> modifica) {
+        lock.writeLock().lock();
+        try {
+            if (corrente != null) {
+                modifica.accept(corrente);
+            }
+            if (inSospeso != null) {
+                inSospeso.add(modifica);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce la copia corrente, caricandola se manca; se è scaduta ne avvia il ricaricamento in background.
+     * Il riferimento restituito resta valido anche dopo un invalidateAll() e va letto sotto il read lock.
+     */
+    private S attuale() throws DAOException {
+        S s;
+        long creata;
+        lock.readLock().lock();
+        try {
+            s = corrente;
+            creata = creatoNanos;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (s == null) {
+            return ricarica(true);
+        }
+        if (System.nanoTime() - creata > ttlNanos && ricaricamentoInCorso.compareAndSet(false, true)) {
+            AsyncDAO.getInstance().submit(() -> {
+                try {
+                    ricarica(false);
+                } finally {
+                    ricaricamentoInCorso.set(false);
+                }
+                return null;
+            }).exceptionally(ex -> {
+                logger.log(Level.WARNING, "Ricaricamento di " + getClass().getSimpleName() + " non riuscito", ex);
+                return null;
+            });
+        }
+        return s;
+    }
+
+    // Un solo caricamento per volta: chi aspetta una copia mancante usa quella appena caricata da altri
+    private S ricarica(boolean soloSeManca) throws DAOException {
+        synchronized (caricamento) {
+            lock.writeLock().lock();
+            try {
+                if (soloSeManca && corrente != null) {
+                    return corrente;
+                }
+                inSospeso = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long inizio = System.nanoTime();
+            S nuova = null;
+            try {
+                nuova = leggi();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (nuova != null) {
+                        for (Consumer<S> m : inSospeso) {
+                            m.accept(nuova);
+                        }
+                        corrente = nuova;
+                        creatoNanos = inizio;
+                    }
+                    inSospeso = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            caricato(nuova, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inizio));
+            return nuova;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.Collaboratore;
+import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.Luogo;
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Disponibilità di luoghi e collaboratori per la programmazione degli eventi.
+ *
+ * Per ogni luogo e ogni collaboratore tiene un {@link IntervalTree} con gli intervalli occupati dai suoi
+ * eventi, su una linea del tempo continua (secondi dal 1970-01-01): un evento che finisce a un orario
+ * non successivo a quello di inizio (es. 22:00 - 01:00) termina il giorno dopo e occupa anche
+ * la prima parte di quel giorno. Sapere se una risorsa è libera in [inizio, fine) costa O(log n).
+ *
+ * Gli intervalli vengono letti da 'eventi' ed 'evento_collaboratore' al primo utilizzo, aggiornati da
+ * {@link EventoDAOMySQLImpl} a ogni inserimento, modifica e cancellazione e ricaricati in background
+ * ogni {@link #TTL_MINUTI} minuti per raccogliere gli eventi creati da altre istanze.
+ */
+public class SchedulingEngine extends ReloadableSnapshot<SchedulingEngine.Calendario> {
+
+    public static final long TTL_MINUTI = 5;
+
+    private static final long SECONDI_AL_GIORNO = 86400;
+
+    private static SchedulingEngine schedulingEngine = null;
+
+    private SchedulingEngine() {
+        super(TTL_MINUTI);
+    }
+
+    /**
+     * Restituisce l'istanza singleton del motore di programmazione.
+     *
+     * @return istanza singleton SchedulingEngine
+     */
+    public static synchronized SchedulingEngine getInstance() {
+        if (schedulingEngine == null) {
+            schedulingEngine = new SchedulingEngine();
+        }
+        return schedulingEngine;
+    }
+
+    /******************************************
+     DISPONIBILITÀ
+     ********************************************/
+
+    /**
+     * Filtra i luoghi che non hanno eventi sovrapposti all'intervallo indicato.
+     *
+     * @param luoghi luoghi candidati
+     * @param dataEvento data (yyyy-MM-dd)
+     * @param orarioInizio orario di inizio (HH:mm o HH:mm:ss)
+     * @param orarioFine orario di fine; se non è successivo all'inizio si intende il giorno dopo
+     * @return luoghi liberi, nell'ordine ricevuto; vuota se data o orari mancano o non sono validi
+     * @throws DAOException in caso di errore SQL al caricamento
+     */
+    public List<Luogo> luoghiLiberi(List<Luogo> luoghi, String dataEvento, String orarioInizio, String orarioFine) throws DAOException {
+        return liberi(luoghi, Luogo::getId, true, dataEvento, orarioInizio, orarioFine);
+    }
+
+    /**
+     * Filtra i collaboratori che non sono assegnati a eventi sovrapposti all'intervallo indicato.
+     *
+     * @param collaboratori collaboratori candidati
+     * @param dataEvento data (yyyy-MM-dd)
+     * @param orarioInizio orario di inizio (HH:mm o HH:mm:ss)
+     * @param orarioFine orario di fine; se non è successivo all'inizio si intende il giorno dopo
+     * @return collaboratori liberi, nell'ordine ricevuto; vuota se data o orari mancano o non sono validi
+     * @throws DAOException in caso di errore SQL al caricamento
+     */
+    public List<Collaboratore> collaboratoriLiberi(List<Collaboratore> collaboratori, String dataEvento,
+                                                   String orarioInizio, String orarioFine) throws DAOException {
+        return liberi(collaboratori, Collaboratore::getId, false, dataEvento, orarioInizio, orarioFine);
+    }
+
+    private <T> List<T> liberi(List<T> risorse, ToIntFunction<T> id, boolean luoghi,
+                               String dataEvento, String orarioInizio, String orarioFine) throws DAOException {
+        List<T> lista = new ArrayList<>();
+        long[] intervallo = intervallo(dataEvento, orarioInizio, orarioFine);
+        if (intervallo == null) {
+            // senza un intervallo (es. orario non ancora scelto) nessuna risorsa risulta libera
+            return lista;
+        }
+
+        return leggiDa(c -> {
+            Map<Integer, IntervalTree> alberi = luoghi ? c.perLuogo : c.perCollaboratore;
+            for (T r : risorse) {
+                IntervalTree albero = alberi.get(id.applyAsInt(r));
+                if (albero == null || !albero.sovrapposto(intervallo[0], intervallo[1])) {
+                    lista.add(r);
+                }
+            }
+            return lista;
+        });
+    }
+
+    /**
+     * @param idLuogo id del luogo
+     * @param intervallo {inizio, fine} restituito da {@link #intervallo}
+     * @return true se il luogo non ha eventi sovrapposti all'intervallo
+     * @throws DAOException in caso di errore SQL al caricamento
+     */
+    boolean luogoLibero(int idLuogo, long[] intervallo) throws DAOException {
+        return libero(true, idLuogo, intervallo);
+    }
+
+    /**
+     * @param idCollaboratore id del collaboratore
+     * @param intervallo {inizio, fine} restituito da {@link #intervallo}
+     * @return true se il collaboratore non è assegnato a eventi sovrapposti all'intervallo
+     * @throws DAOException in caso di errore SQL al caricamento
+     */
+    boolean collaboratoreLibero(int idCollaboratore, long[] intervallo) throws DAOException {
+        return libero(false, idCollaboratore, intervallo);
+    }
+
+    private boolean libero(boolean luogo, int id, long[] intervallo) throws DAOException {
+        return leggiDa(c -> {
+            IntervalTree albero = (luogo ? c.perLuogo : c.perCollaboratore).get(id);
+            return albero == null || !albero.sovrapposto(intervallo[0], intervallo[1]);
+        });
+    }
+
+    /**
+     * Converte data e orari di un evento in un intervallo [inizio, fine) in secondi dal 1970-01-01.
+     * Una fine non successiva all'inizio cade il giorno dopo (evento a cavallo della mezzanotte).
+     *
+     * @param dataEvento data (yyyy-MM-dd)
+     * @param orarioInizio orario di inizio
+     * @param orarioFine orario di fine
+     * @return {inizio, fine}, null se data o orari mancano o non sono validi
+     */
+    static long[] intervallo(String dataEvento, String orarioInizio, String orarioFine) {
+        if (dataEvento == null || orarioInizio == null || orarioFine == null) {
+            return null;
+        }
+        try {
+            long giorno = LocalDate.parse(dataEvento.trim()).toEpochDay() * SECONDI_AL_GIORNO;
+            long inizio = giorno + LocalTime.parse(orarioInizio.trim()).toSecondOfDay();
+            long fine = giorno + LocalTime.parse(orarioFine.trim()).toSecondOfDay();
+            if (fine <= inizio) {
+                fine += SECONDI_AL_GIORNO;
+            }
+            return new long[]{inizio, fine};
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /******************************************
+     AGGIORNAMENTO
+     ********************************************/
+
+    /**
+     * Registra luogo, orari e collaboratori di un evento appena inserito o modificato
+     * (sostituisce quelli precedenti). Se gli intervalli non sono ancora caricati non fa nulla.
+     *
+     * @param e evento, con id
+     * @param collaboratori collaboratori assegnati all'evento
+     */
+    public void aggiorna(Evento e, List<Collaboratore> collaboratori) {
+        int[] idCollaboratori = new int[collaboratori.size()];
+        for (int i = 0; i < idCollaboratori.length; i++) {
+            idCollaboratori[i] = collaboratori.get(i).getId();
+        }
+        modifica(new Modifica(e.getId(), new Occupazione(
+                intervallo(e.getDataEvento(), e.getOrarioInizio(), e.getOrarioFine()), e.getIdLuogoEvento(), idCollaboratori))::applica);
+    }
+
+    /**
+     * Libera luogo e collaboratori di un evento cancellato.
+     *
+     * @param idEvento id dell'evento
+     */
+    public void rimuovi(int idEvento) {
+        modifica(new Modifica(idEvento, null)::applica);
+    }
+
+    /******************************************
+     CARICAMENTO
+     ********************************************/
+
+    @Override
+    protected Calendario leggi() throws DAOException {
+        Map<Integer, long[]> intervalli = new HashMap<>();
+        Map<Integer, Integer> luoghi = new HashMap<>();
+        Map<Integer, List<Integer>> collaboratori = new HashMap<>();
+
+        String sqlEventi = "SELECT idEvento, dataEvento, orarioInizio, orarioFine, LUOGO_EVENTO_idLUOGO_EVENTO FROM eventi";
+        String sqlCollaboratori = "SELECT EVENTI_idEvento, COLLABORATORI_idCOLLABORATORI FROM evento_collaboratore";
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+
+            try (PreparedStatement ps = conn.prepareStatement(sqlEventi);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long[] intervallo = intervallo(rs.getString(2), rs.getString(3), rs.getString(4));
+                    if (intervallo != null) {
+                        intervalli.put(rs.getInt(1), intervallo);
+                        luoghi.put(rs.getInt(1), rs.getInt(5));
+                    }
+                }
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(sqlCollaboratori);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    collaboratori.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getInt(2));
+                }
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In leggi(): " + sq.getMessage());
+        }
+
+        Calendario nuovo = new Calendario();
+        for (Map.Entry<Integer, long[]> e : intervalli.entrySet()) {
+            List<Integer> coll = collaboratori.getOrDefault(e.getKey(), List.of());
+            int[] idCollaboratori = coll.stream().mapToInt(Integer::intValue).toArray();
+            nuovo.aggiungi(e.getKey(), new Occupazione(e.getValue(), luoghi.get(e.getKey()), idCollaboratori));
+        }
+        return nuovo;
+    }
+
+    /******************************************
+     STRUTTURE
+     ********************************************/
+
+    /**
+     * Intervallo occupato da un evento, con il suo luogo e i suoi collaboratori.
+     */
+    private static final class Occupazione {
+        final long[] intervallo;
+        final int idLuogo;
+        final int[] idCollaboratori;
+
+        Occupazione(long[] intervallo, int idLuogo, int[] idCollaboratori) {
+            this.intervallo = intervallo;
+            this.idLuogo = idLuogo;
+            this.idCollaboratori = idCollaboratori;
+        }
+    }
+
+    /**
+     * Nuova occupazione di un evento (occupazione != null) o sua rimozione.
+     */
+    private static final class Modifica {
+        final int idEvento;
+        final Occupazione occupazione;
+
+        Modifica(int idEvento, Occupazione occupazione) {
+            this.idEvento = idEvento;
+            this.occupazione = occupazione;
+        }
+
+        void applica(Calendario c) {
+            c.rimuovi(idEvento);
+            if (occupazione != null && occupazione.intervallo != null) {
+                c.aggiungi(idEvento, occupazione);
+            }
+        }
+    }
+
+    static final class Calendario {
+        final Map<Integer, IntervalTree> perLuogo = new HashMap<>();
+        final Map<Integer, IntervalTree> perCollaboratore = new HashMap<>();
+        // occupazione di ogni evento, per toglierla dagli alberi quando l'evento cambia
+        final Map<Integer, Occupazione> perEvento = new HashMap<>();
+
+        void aggiungi(int idEvento, Occupazione o) {
+            long inizio = o.intervallo[0];
+            long fine = o.intervallo[1];
+            perLuogo.computeIfAbsent(o.idLuogo, k -> new IntervalTree()).aggiungi(inizio, fine, idEvento);
+            for (int c : o.idCollaboratori) {
+                perCollaboratore.computeIfAbsent(c, k -> new IntervalTree()).aggiungi(inizio, fine, idEvento);
+            }
+            perEvento.put(idEvento, o);
+        }
+
+        void rimuovi(int idEvento) {
+            Occupazione o = perEvento.remove(idEvento);
+            if (o == null) {
+                return;
+            }
+            togli(perLuogo, o.idLuogo, o.intervallo[0], idEvento);
+            for (int c : o.idCollaboratori) {
+                togli(perCollaboratore, c, o.intervallo[0], idEvento);
+            }
+        }
+
+        private static void togli(Map<Integer, IntervalTree> alberi, int risorsa, long inizio, int idEvento) {
+            IntervalTree albero = alberi.get(risorsa);
+            if (albero != null) {
+                albero.rimuovi(inizio, idEvento);
+                if (albero.size() == 0) {
+                    alberi.remove(risorsa);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Canale publish/subscribe delle variazioni di disponibilità dei posti.
+ *
+ * Prenotazioni, annullamenti, promozioni dalla lista d'attesa e hold pubblicano, per evento,
+ * i posti diventati occupati o liberi; le mappe posti aperte si iscrivono all'evento visualizzato
+ * e aggiornano solo i posti cambiati, senza rileggere la mappa.
+ *
+ * Con più istanze dell'applicazione sullo stesso database ogni variazione viene anche scritta
+ * nella tabella 'posti_changelog'; un poller legge le righe scritte dalle altre istanze, le pubblica
+ * agli iscritti locali nell'ordine di idCHANGELOG e aggiorna {@link SeatInventory}. Le righe più vecchie di
+ * CHANGELOG_RETENTION_MINUTES vengono cancellate dallo stesso poller.
+ *
+ * Gli id del changelog non diventano visibili in ordine: una transazione può fare commit di un id
+ * più basso dopo che ne è già stato letto uno più alto. Il poller quindi non riparte dall'ultimo id letto
+ * ma dal primo id mancante (un "buco"), rilegge le righe successive e salta quelle già consegnate;
+ * un buco che resta vuoto per ATTESA_BUCHI_MILLIS (insert annullato) viene abbandonato.
+ */
+public class SeatEventBus {
+
+    /**
+     * Ricevitore delle variazioni di un evento. Viene chiamato dal thread che pubblica
+     * (o dal thread del poller): le viste devono passare al thread JavaFX.
+     */
+    public interface SeatListener {
+        void postiCambiati(Variazione variazione);
+    }
+
+    /**
+     * Iscrizione a un evento; chiuderla smette di ricevere le variazioni.
+     */
+    public interface Iscrizione extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Posti di un evento diventati occupati (prenotati o bloccati da una hold) oppure liberi.
+     */
+    public static final class Variazione {
+        private final int idEvento;
+        private final List<Integer> posti;
+        private final boolean occupati;
+        private final int idCliente;
+
+        /**
+         * @param idEvento id evento
+         * @param posti id dei posti cambiati
+         * @param occupati true se i posti sono diventati occupati, false se liberi
+         * @param idCliente cliente che ha causato la variazione, -1 se non noto
+         */
+        public Variazione(int idEvento, List<Integer> posti, boolean occupati, int idCliente) {
+            this.idEvento = idEvento;
+            this.posti = Collections.unmodifiableList(new ArrayList<>(posti));
+            this.occupati = occupati;
+            this.idCliente = idCliente;
+        }
+
+        /**
+         * @return id evento
+         */
+        public int getIdEvento() {
+            return idEvento;
+        }
+
+        /**
+         * @return id dei posti cambiati
+         */
+        public List<Integer> getPosti() {
+            return posti;
+        }
+
+        /**
+         * @return true se i posti sono diventati occupati, false se liberi
+         */
+        public boolean isOccupati() {
+            return occupati;
+        }
+
+        /**
+         * @return cliente che ha causato la variazione, -1 se non noto
+         */
+        public int getIdCliente() {
+            return idCliente;
+        }
+
+        @Override
+        public String toString() {
+            return "Variazione{evento=" + idEvento + ", posti=" + posti +
+                    (occupati ? " occupati" : " liberi") + ", cliente=" + idCliente + "}";
+        }
+    }
+
+    public static final long POLL_PERIOD_MILLIS = 2000;
+    public static final int CHANGELOG_RETENTION_MINUTES = 10;
+
+    private static final int POLL_BATCH = 1000;
+    // Oltre questo tempo un id mancante è considerato un insert annullato e non si aspetta più
+    private static final long ATTESA_BUCHI_MILLIS = 30_000;
+    // Pulizia del changelog ogni PULIZIA_OGNI letture (circa un minuto)
+    private static final int PULIZIA_OGNI = 30;
+
+    private static SeatEventBus bus = null;
+    private static final Logger logger = Logger.getLogger(SeatEventBus.class.getName());
+
+    // Identifica le righe del changelog scritte da questa istanza, che il poller salta
+    private final String istanza = UUID.randomUUID().toString();
+
+    private final Map<Integer, List<SeatListener>> iscritti = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService poller;
+    // Tutte le righe con id <= ultimoLetto sono state consegnate (o i loro id abbandonati)
+    private long ultimoLetto = -1;
+    // Righe con id > ultimoLetto già consegnate, da saltare quando vengono rilette
+    private final Set<Long> consegnati = new HashSet<>();
+    // Id mancanti dopo ultimoLetto, con l'istante in cui sono stati visti mancare la prima volta
+    private final Map<Long, Long> buchi = new HashMap<>();
+    private int letture = 0;
+
+    private SeatEventBus() {
+    }
+
+    /**
+     * Restituisce l'istanza singleton del canale.
+     *
+     * @return istanza singleton SeatEventBus
+     */
+    public static synchronized SeatEventBus getInstance() {
+        if (bus == null) {
+            bus = new SeatEventBus();
+        }
+        return bus;
+    }
+
+    /**
+     * Iscrive un listener alle variazioni dei posti di un evento e avvia il poller del changelog,
+     * se non è già attivo.
+     *
+     * @param idEvento id evento
+     * @param listener listener
+     * @return iscrizione da chiudere quando la vista non mostra più l'evento
+     */
+    public Iscrizione subscribe(int idEvento, SeatListener listener) {
+        iscritti.computeIfAbsent(idEvento, k -> new CopyOnWriteArrayList<>()).add(listener);
+        avviaPoller();
+
+        return () -> iscritti.computeIfPresent(idEvento, (k, lista) -> {
+            lista.remove(listener);
+            return lista.isEmpty() ? null : lista;
+        });
+    }
+
+    /**
+     * Pubblica una variazione agli iscritti locali e la scrive nel changelog per le altre istanze.
+     * Va chiamato dopo il commit della scrittura che ha cambiato i posti.
+     *
+     * @param variazione variazione da pubblicare
+     */
+    public void publish(Variazione variazione) {
+        if (variazione.getPosti().isEmpty()) {
+            return;
+        }
+        notifica(variazione);
+        scriviChangelog(variazione);
+    }
+
+    /**
+     * Scorciatoia per {@link #publish(Variazione)}.
+     *
+     * @param idEvento id evento
+     * @param posti id dei posti cambiati
+     * @param occupati true se diventati occupati, false se liberi
+     * @param idCliente cliente che ha causato la variazione, -1 se non noto
+     */
+    public void publish(int idEvento, List<Integer> posti, boolean occupati, int idCliente) {
+        publish(new Variazione(idEvento, posti, occupati, idCliente));
+    }
+
+    /**
+     * Ferma il poller (chiusura dell'applicazione). Non fa nulla se il canale non è mai stato usato.
+     */
+    public static synchronized void shutdown() {
+        if (bus != null) {
+            if (bus.poller != null) {
+                bus.poller.shutdownNow();
+            }
+            bus = null;
+        }
+    }
+
+    /******************************************
+     CONSEGNA LOCALE
+     ********************************************/
+
+    private void notifica(Variazione v) {
+        List<SeatListener> lista = iscritti.get(v.getIdEvento());
+        if (lista == null) {
+            return;
+        }
+        for (SeatListener l : lista) {
+            try {
+                l.postiCambiati(v);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Errore nel listener dei posti", e);
+            }
+        }
+    }
+
+    /******************************************
+     CHANGELOG (PIÙ ISTANZE)
+     ********************************************/
+
+    private void scriviChangelog(Variazione v) {
+        String sql = "INSERT INTO posti_changelog (EVENTI_idEvento, idPOSTI, occupato, CLIENTE_idCLIENTE, istanza) " +
+                "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            for (Integer posto : v.getPosti()) {
+                ps.setInt(1, v.getIdEvento());
+                ps.setInt(2, posto);
+                ps.setBoolean(3, v.isOccupati());
+                if (v.getIdCliente() >= 0) {
+                    ps.setInt(4, v.getIdCliente());
+                } else {
+                    ps.setNull(4, Types.INTEGER);
+                }
+                ps.setString(5, istanza);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+        } catch (SQLException e) {
+            // le altre istanze si riallineano alla prossima lettura della mappa
+            logger.log(Level.WARNING, "Changelog posti non scritto: " + e.getMessage());
+        }
+    }
+
+    private synchronized void avviaPoller() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "biglietteria-seat-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::leggiChangelog, POLL_PERIOD_MILLIS, POLL_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void leggiChangelog() {
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+
+            // prima lettura: si parte dalla fine, le variazioni precedenti sono già nella mappa
+            if (ultimoLetto < 0) {
+                try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(idCHANGELOG), 0) FROM posti_changelog");
+                     ResultSet rs = ps.executeQuery()) {
+                    ultimoLetto = rs.next() ? rs.getLong(1) : 0;
+                }
+                return;
+            }
+
+            // si leggono anche le righe di questa istanza: servono a distinguere i buchi veri
+            String sql = "SELECT idCHANGELOG, EVENTI_idEvento, idPOSTI, occupato, CLIENTE_idCLIENTE, istanza " +
+                    "FROM posti_changelog WHERE idCHANGELOG > ? ORDER BY idCHANGELOG LIMIT " + POLL_BATCH;
+
+            List<Variazione> variazioni = new ArrayList<>();
+            long ultimoId = ultimoLetto;
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setLong(1, ultimoLetto);
+                try (ResultSet rs = ps.executeQuery()) {
+                    // righe consecutive dello stesso evento, tipo e cliente diventano una sola variazione
+                    Chiave corrente = null;
+                    List<Integer> posti = new ArrayList<>();
+
+                    while (rs.next()) {
+                        long id = rs.getLong("idCHANGELOG");
+                        ultimoId = id;
+                        if (!consegnati.add(id) || istanza.equals(rs.getString("istanza"))) {
+                            continue;
+                        }
+                        int idCliente = rs.getInt("CLIENTE_idCLIENTE");
+                        if (rs.wasNull()) idCliente = -1;
+                        Chiave k = new Chiave(rs.getInt("EVENTI_idEvento"), rs.getBoolean("occupato"), idCliente);
+
+                        if (!k.equals(corrente) && !posti.isEmpty()) {
+                            variazioni.add(new Variazione(corrente.idEvento(), posti, corrente.occupato(), corrente.idCliente()));
+                            posti = new ArrayList<>();
+                        }
+                        corrente = k;
+                        posti.add(rs.getInt("idPOSTI"));
+                    }
+                    if (!posti.isEmpty()) {
+                        variazioni.add(new Variazione(corrente.idEvento(), posti, corrente.occupato(), corrente.idCliente()));
+                    }
+                }
+            }
+
+            for (Variazione v : variazioni) {
+                applicaAInventario(v);
+                notifica(v);
+            }
+
+            avanzaCursore(ultimoId);
+
+            if (++letture % PULIZIA_OGNI == 0) {
+                // TIMESTAMPADD al posto di INTERVAL: funziona sia su MySQL sia su H2
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "DELETE FROM posti_changelog WHERE creato < TIMESTAMPADD(MINUTE, ?, NOW()) LIMIT " + POLL_BATCH)) {
+                    ps.setInt(1, -CHANGELOG_RETENTION_MINUTES);
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    // senza pulizia il changelog cresce senza limiti: va segnalato
+                    logger.log(Level.WARNING, "Pulizia del changelog posti non eseguita: " + e.getMessage());
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Lettura del changelog posti non eseguita: " + e.getMessage());
+        }
+    }
+
+    // Porta ultimoLetto fino al primo id mancante ancora atteso (le righe successive vengono rilette)
+    private void avanzaCursore(long ultimoId) {
+        long adesso = System.currentTimeMillis();
+        for (long id = ultimoLetto + 1; id <= ultimoId; id++) {
+            if (!consegnati.remove(id)) {
+                long vistoDa = buchi.computeIfAbsent(id, k -> adesso);
+                if (adesso - vistoDa < ATTESA_BUCHI_MILLIS) {
+                    break;
+                }
+            }
+            buchi.remove(id);
+            ultimoLetto = id;
+        }
+    }
+
+    // Il changelog non distingue hold e prenotazioni (solo queste sono nella bitmap):
+    // per una variazione remota la bitmap dell'evento viene riletta al prossimo accesso
+    private static void applicaAInventario(Variazione v) {
+        SeatInventory.getInstance().invalidate(v.getIdEvento());
+    }
+
+    private record Chiave(int idEvento, boolean occupato, int idCliente) {
+    }
+}
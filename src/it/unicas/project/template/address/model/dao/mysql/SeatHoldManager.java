@@ -0,0 +1,354 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Blocchi temporanei dei posti (hold) durante la selezione sulla mappa.
+ *
+ * Quando un cliente seleziona un posto viene scritta una riga in 'posti_hold' con una scadenza
+ * (HOLD_TTL_SECONDS); finché non scade, gli altri clienti vedono il posto come occupato e
+ * {@link BookingEngine} non lo assegna a nessun altro. Alla conferma la hold diventa una riga di 'posti'.
+ *
+ * Le hold scadute vengono cancellate a blocchi da un reaper periodico tramite l'indice sulla scadenza,
+ * senza scorrere la tabella. Le hold create da questa istanza sono tenute anche in una DelayQueue:
+ * quando una scade il listener viene avvisato (per deselezionare il posto nella UI).
+ *
+ * Creazione, rilascio e scadenza delle hold vengono pubblicati su {@link SeatEventBus},
+ * così le mappe posti degli altri clienti mostrano subito il posto come occupato o di nuovo libero.
+ */
+public class SeatHoldManager {
+
+    public final static int HOLD_TTL_SECONDS = 300;
+
+    private static final long REAPER_PERIOD_SECONDS = 15;
+    private static final int REAPER_BATCH = 500;
+
+    private static SeatHoldManager manager = null;
+    private static final Logger logger = Logger.getLogger(SeatHoldManager.class.getName());
+
+    private final DelayQueue<Hold> holdLocali = new DelayQueue<>();
+    private final ScheduledExecutorService reaper;
+    private volatile HoldListener listener;
+
+    /**
+     * Ricevitore delle notifiche di scadenza delle hold create da questa istanza.
+     * Viene chiamato dal thread del reaper.
+     */
+    public interface HoldListener {
+        void holdScaduta(int idEvento, int seatId);
+    }
+
+    private SeatHoldManager() {
+        reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "biglietteria-hold-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        reaper.scheduleWithFixedDelay(this::reap, REAPER_PERIOD_SECONDS, REAPER_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Restituisce l'istanza singleton del gestore delle hold.
+     *
+     * @return istanza singleton SeatHoldManager
+     */
+    public static synchronized SeatHoldManager getInstance() {
+        if (manager == null) {
+            manager = new SeatHoldManager();
+        }
+        return manager;
+    }
+
+    /**
+     * Imposta il listener delle scadenze (uno solo: la mappa posti attualmente visualizzata).
+     *
+     * @param listener listener, null per rimuoverlo
+     */
+    public void setListener(HoldListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Blocca un posto per il cliente. Se il cliente ha già la hold sul posto, ne rinnova la scadenza.
+     *
+     * @param idEvento id evento
+     * @param seatId id numerico del posto
+     * @param idCliente id del cliente che seleziona il posto
+     * @return true se la hold è del cliente, false se il posto è prenotato o bloccato da un altro cliente
+     * @throws DAOException in caso di errore SQL (anche evento o cliente inesistente)
+     */
+    public boolean hold(int idEvento, int seatId, int idCliente) throws DAOException {
+        String sqlScaduta = "DELETE FROM posti_hold WHERE EVENTI_idEvento = ? AND idPOSTI = ? AND scadenza < NOW()";
+
+        String sqlInsert = "INSERT INTO posti_hold (EVENTI_idEvento, idPOSTI, CLIENTE_idCLIENTE, scadenza) " +
+                "SELECT ?, ?, ?, TIMESTAMPADD(SECOND, ?, NOW()) FROM DUAL " +
+                "WHERE NOT EXISTS (SELECT 1 FROM posti WHERE EVENTI_idEvento = ? AND idPOSTI = ?)";
+
+        String sqlRinnova = "UPDATE posti_hold SET scadenza = TIMESTAMPADD(SECOND, ?, NOW()) " +
+                "WHERE EVENTI_idEvento = ? AND idPOSTI = ? AND CLIENTE_idCLIENTE = ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            // pulizia, inserimento e rinnovo in un'unica transazione: una scadenza o un rinnovo
+            // concorrente non può inserirsi tra un'istruzione e l'altra
+            conn.setAutoCommit(false);
+
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(sqlScaduta)) {
+                    ps.setInt(1, idEvento);
+                    ps.setInt(2, seatId);
+                    ps.executeUpdate();
+                }
+
+                int righe;
+                try (PreparedStatement ps = conn.prepareStatement(sqlInsert)) {
+                    ps.setInt(1, idEvento);
+                    ps.setInt(2, seatId);
+                    ps.setInt(3, idCliente);
+                    ps.setInt(4, HOLD_TTL_SECONDS);
+                    ps.setInt(5, idEvento);
+                    ps.setInt(6, seatId);
+                    righe = ps.executeUpdate();
+                } catch (SQLException e) {
+                    // solo la chiave duplicata vuol dire "posto già bloccato"; gli altri errori
+                    // (evento o cliente inesistente, posto non valido) vanno segnalati
+                    if (!BookingEngine.isChiaveDuplicata(e)) {
+                        throw e;
+                    }
+                    righe = 0;
+                }
+
+                if (righe == 0) {
+                    // il posto è già bloccato o prenotato: va bene solo se la hold è nostra
+                    try (PreparedStatement ps = conn.prepareStatement(sqlRinnova)) {
+                        ps.setInt(1, HOLD_TTL_SECONDS);
+                        ps.setInt(2, idEvento);
+                        ps.setInt(3, seatId);
+                        ps.setInt(4, idCliente);
+                        righe = ps.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+                if (righe == 0) {
+                    return false;
+                }
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In hold(): " + sq.getMessage());
+        }
+
+        Hold h = new Hold(idEvento, seatId, idCliente);
+        boolean nuova = !holdLocali.remove(h);
+        holdLocali.add(h);
+        if (nuova) {
+            SeatEventBus.getInstance().publish(idEvento, List.of(seatId), true, idCliente);
+        }
+        return true;
+    }
+
+    /**
+     * Rilascia la hold del cliente su un posto (deselezione).
+     *
+     * @param idEvento id evento
+     * @param seatId id numerico del posto
+     * @param idCliente id cliente
+     * @throws DAOException in caso di errore SQL
+     */
+    public void release(int idEvento, int seatId, int idCliente) throws DAOException {
+        String sql = "DELETE FROM posti_hold WHERE EVENTI_idEvento = ? AND idPOSTI = ? AND CLIENTE_idCLIENTE = ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idEvento);
+            ps.setInt(2, seatId);
+            ps.setInt(3, idCliente);
+            ps.executeUpdate();
+
+        } catch (SQLException sq) {
+            throw new DAOException("In release(): " + sq.getMessage());
+        }
+
+        if (holdLocali.remove(new Hold(idEvento, seatId, idCliente))) {
+            SeatEventBus.getInstance().publish(idEvento, List.of(seatId), false, idCliente);
+        }
+    }
+
+    /**
+     * Rilascia tutte le hold create da questa istanza (chiusura dell'applicazione).
+     */
+    public void releaseAll() {
+        releaseAll(-1);
+    }
+
+    /**
+     * Rilascia le hold create da questa istanza su un evento (cambio dell'evento visualizzato).
+     *
+     * @param idEvento id evento, -1 per tutti gli eventi
+     */
+    public void releaseAll(int idEvento) {
+        List<Hold> attive = new ArrayList<>(holdLocali);
+        for (Hold h : attive) {
+            if (idEvento != -1 && h.idEvento != idEvento) {
+                continue;
+            }
+            try {
+                release(h.idEvento, h.seatId, h.idCliente);
+            } catch (DAOException e) {
+                logger.log(Level.WARNING, "Impossibile rilasciare la hold " + h, e);
+            }
+        }
+    }
+
+    /**
+     * Posti dell'evento bloccati (hold non scadute) da clienti diversi da quello indicato.
+     *
+     * @param idEvento id evento
+     * @param idCliente cliente corrente, le cui hold non vengono restituite
+     * @return bit i = posto i bloccato da un altro cliente
+     * @throws DAOException in caso di errore SQL
+     */
+    public BitSet heldByOthers(int idEvento, int idCliente) throws DAOException {
+        String sql = "SELECT idPOSTI FROM posti_hold " +
+                "WHERE EVENTI_idEvento = ? AND scadenza > NOW() AND CLIENTE_idCLIENTE <> ?";
+
+        BitSet bloccati = new BitSet();
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idEvento);
+            ps.setInt(2, idCliente);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bloccati.set(rs.getInt("idPOSTI"));
+                }
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In heldByOthers(): " + sq.getMessage());
+        }
+        return bloccati;
+    }
+
+    /**
+     * Dimentica le hold locali convertite in prenotazione da {@link BookingEngine}.
+     */
+    void converted(int idEvento, List<Integer> posti, int idCliente) {
+        for (Integer seatId : posti) {
+            holdLocali.remove(new Hold(idEvento, seatId, idCliente));
+        }
+    }
+
+    /**
+     * Rilascia le hold di questa istanza e ferma il reaper (chiusura dell'applicazione).
+     * Non fa nulla se il gestore non è mai stato usato.
+     */
+    public static synchronized void shutdown() {
+        if (manager != null) {
+            manager.releaseAll();
+            manager.reaper.shutdownNow();
+            manager = null;
+        }
+    }
+
+    private void reap() {
+        // 1) hold locali scadute: avvisa la UI
+        List<Hold> scadute = new ArrayList<>();
+        holdLocali.drainTo(scadute);
+        HoldListener l = listener;
+        for (Hold h : scadute) {
+            SeatEventBus.getInstance().publish(h.idEvento, List.of(h.seatId), false, h.idCliente);
+            if (l != null) {
+                try {
+                    l.holdScaduta(h.idEvento, h.seatId);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Errore nel listener delle hold", e);
+                }
+            }
+        }
+
+        // 2) righe scadute nel DB, a blocchi per non tenere lock a lungo
+        String sql = "DELETE FROM posti_hold WHERE scadenza < NOW() LIMIT " + REAPER_BATCH;
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int cancellate;
+            do {
+                cancellate = ps.executeUpdate();
+                if (cancellate > 0) {
+                    logger.fine("Reaper: cancellate " + cancellate + " hold scadute");
+                }
+            } while (cancellate == REAPER_BATCH);
+
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Reaper hold non eseguito: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hold creata da questa istanza, con la sua scadenza locale.
+     */
+    private static final class Hold implements Delayed {
+        final int idEvento;
+        final int seatId;
+        final int idCliente;
+        final long scadenzaNanos;
+
+        Hold(int idEvento, int seatId, int idCliente) {
+            this.idEvento = idEvento;
+            this.seatId = seatId;
+            this.idCliente = idCliente;
+            this.scadenzaNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(HOLD_TTL_SECONDS);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(scadenzaNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        // uguaglianza sul posto, non sulla scadenza: serve per remove() al rilascio/rinnovo
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Hold)) return false;
+            Hold h = (Hold) o;
+            return idEvento == h.idEvento && seatId == h.seatId && idCliente == h.idCliente;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idEvento, seatId, idCliente);
+        }
+
+        @Override
+        public String toString() {
+            return "Hold{evento=" + idEvento + ", posto=" + seatId + ", cliente=" + idCliente + "}";
+        }
+    }
+}
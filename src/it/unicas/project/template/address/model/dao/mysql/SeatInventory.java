@@ -0,0 +1,233 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Inventario in memoria dei posti occupati di ogni evento.
+ * Per ogni evento mantiene una bitmap (long[]) in cui il bit i vale 1 se il posto con id i è occupato;
+ * la bitmap viene caricata una sola volta dalla tabella 'posti' e poi tenuta allineata da
+ * {@link BookingEngine}, {@link PrenotazioneDAOMySQLImpl#annulla} e {@link WaitlistPromoter}
+ * (write-through). Se una scrittura fallisce la bitmap dell'evento viene scartata e ricaricata
+ * al prossimo accesso, così un posto preso da un'altra istanza dell'applicazione non resta "libero".
+ *
+ * Gli id dei posti partono da 1 (A1 = 1) e seguono la {@link it.unicas.project.template.address.model.SeatLayout} del luogo.
+ */
+public class SeatInventory {
+
+    private SeatInventory() {
+    }
+
+    private static SeatInventory inventory = null;
+    private static final Logger logger = Logger.getLogger(SeatInventory.class.getName());
+
+    private final ConcurrentMap<Integer, SeatMap> mappe = new ConcurrentHashMap<>();
+
+    /**
+     * Restituisce l'istanza singleton dell'inventario posti.
+     *
+     * @return istanza singleton SeatInventory
+     */
+    public static synchronized SeatInventory getInstance() {
+        if (inventory == null) {
+            inventory = new SeatInventory();
+        }
+        return inventory;
+    }
+
+    /**
+     * Indica se un posto è libero.
+     *
+     * @param idEvento id evento
+     * @param seatId id numerico del posto (da 1)
+     * @return true se il posto non risulta prenotato
+     * @throws DAOException se il caricamento iniziale dal DB fallisce
+     */
+    public boolean isFree(int idEvento, int seatId) throws DAOException {
+        return !mappa(idEvento).get(seatId);
+    }
+
+    /**
+     * Numero di posti prenotati per l'evento.
+     *
+     * @param idEvento id evento
+     * @return posti occupati
+     * @throws DAOException se il caricamento iniziale dal DB fallisce
+     */
+    public int countOccupied(int idEvento) throws DAOException {
+        return mappa(idEvento).cardinality();
+    }
+
+    /**
+     * Numero di posti liberi tra 1 e capacity.
+     *
+     * @param idEvento id evento
+     * @param capacity numero di posti del luogo
+     * @return posti liberi (mai negativo)
+     * @throws DAOException se il caricamento iniziale dal DB fallisce
+     */
+    public int countFree(int idEvento, int capacity) throws DAOException {
+        return Math.max(0, capacity - mappa(idEvento).cardinality(capacity));
+    }
+
+    /**
+     * Primo posto libero tra 1 e capacity.
+     *
+     * @param idEvento id evento
+     * @param capacity numero di posti del luogo
+     * @return id del primo posto libero, -1 se l'evento è esaurito
+     * @throws DAOException se il caricamento iniziale dal DB fallisce
+     */
+    public int firstFree(int idEvento, int capacity) throws DAOException {
+        return mappa(idEvento).firstClear(capacity);
+    }
+
+    /**
+     * Copia dei posti occupati dell'evento (bit i = posto i occupato), da usare per disegnare la mappa
+     * senza interrogare l'inventario posto per posto.
+     *
+     * @param idEvento id evento
+     * @return BitSet indipendente dall'inventario
+     * @throws DAOException se il caricamento iniziale dal DB fallisce
+     */
+    public BitSet snapshot(int idEvento) throws DAOException {
+        return mappa(idEvento).toBitSet();
+    }
+
+    /**
+     * Scarta la bitmap di un evento: verrà ricaricata dal DB al prossimo accesso.
+     *
+     * @param idEvento id evento
+     */
+    public void invalidate(int idEvento) {
+        mappe.remove(idEvento);
+    }
+
+    /**
+     * Scarta tutte le bitmap (es. cambio di database).
+     */
+    public void invalidateAll() {
+        mappe.clear();
+    }
+
+    /**
+     * Segna i posti come occupati dopo un inserimento andato a buon fine.
+     * Se la bitmap dell'evento non è ancora stata caricata non fa nulla.
+     */
+    void markOccupied(int idEvento, List<Integer> posti) {
+        SeatMap m = mappe.get(idEvento);
+        if (m != null) {
+            m.set(posti, true);
+        }
+    }
+
+    /**
+     * Segna i posti come liberi dopo una cancellazione andata a buon fine.
+     * Se la bitmap dell'evento non è ancora stata caricata non fa nulla.
+     */
+    void markFree(int idEvento, List<Integer> posti) {
+        SeatMap m = mappe.get(idEvento);
+        if (m != null) {
+            m.set(posti, false);
+        }
+    }
+
+    private SeatMap mappa(int idEvento) throws DAOException {
+        SeatMap m = mappe.get(idEvento);
+        if (m != null) {
+            return m;
+        }
+
+        // caricamento fuori dalla mappa: se due thread caricano insieme vince il primo
+        SeatMap caricata = new SeatMap();
+        caricata.set(EventoDAOMySQLImpl.getInstance().selectReservedSeats(idEvento), true);
+        logger.fine("Caricati " + caricata.cardinality() + " posti occupati per l'evento " + idEvento);
+
+        SeatMap esistente = mappe.putIfAbsent(idEvento, caricata);
+        return esistente != null ? esistente : caricata;
+    }
+
+    /**
+     * Bitmap dei posti occupati di un singolo evento; cresce al bisogno.
+     */
+    private static final class SeatMap {
+
+        private long[] words = new long[4]; // 256 posti, sufficiente per i luoghi attuali
+        private int cardinality = 0;
+
+        synchronized boolean get(int seatId) {
+            int w = seatId >>> 6;
+            return seatId >= 0 && w < words.length && (words[w] & (1L << seatId)) != 0;
+        }
+
+        synchronized void set(List<Integer> posti, boolean occupato) {
+            for (Integer seatId : posti) {
+                if (seatId == null || seatId < 0) continue;
+                int w = seatId >>> 6;
+                if (w >= words.length) {
+                    if (!occupato) continue;
+                    long[] nuovo = new long[Math.max(words.length * 2, w + 1)];
+                    System.arraycopy(words, 0, nuovo, 0, words.length);
+                    words = nuovo;
+                }
+                long mask = 1L << seatId;
+                boolean giaOccupato = (words[w] & mask) != 0;
+                if (occupato && !giaOccupato) {
+                    words[w] |= mask;
+                    cardinality++;
+                } else if (!occupato && giaOccupato) {
+                    words[w] &= ~mask;
+                    cardinality--;
+                }
+            }
+        }
+
+        synchronized BitSet toBitSet() {
+            return BitSet.valueOf(words);
+        }
+
+        synchronized int cardinality() {
+            return cardinality;
+        }
+
+        /** Posti occupati con id tra 1 e capacity. */
+        synchronized int cardinality(int capacity) {
+            if (capacity <= 0) return 0;
+            int last = Math.min(capacity >>> 6, words.length - 1);
+            int count = 0;
+            for (int w = 0; w <= last; w++) {
+                long word = words[w];
+                if (w == 0) word &= ~1L; // il bit 0 non corrisponde a nessun posto
+                if (w == capacity >>> 6) word &= mascheraFinoA(capacity);
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        /** Primo id libero tra 1 e capacity, -1 se non ce ne sono. */
+        synchronized int firstClear(int capacity) {
+            int lastWord = capacity >>> 6;
+            for (int w = 0; w <= lastWord; w++) {
+                long word = w < words.length ? words[w] : 0L;
+                if (w == 0) word |= 1L;
+                long liberi = ~word;
+                if (liberi != 0) {
+                    int seatId = (w << 6) + Long.numberOfTrailingZeros(liberi);
+                    return seatId <= capacity ? seatId : -1;
+                }
+            }
+            return -1;
+        }
+
+        /** Maschera dei bit 0..(capacity % 64) della parola che contiene capacity. */
+        private static long mascheraFinoA(int capacity) {
+            int bit = capacity & 63;
+            return bit == 63 ? -1L : (1L << (bit + 1)) - 1;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Indice in memoria tag → eventi, letto dalle tabelle 'tag' ed 'evento_tag'.
+ *
+ * Per ogni tag tiene gli id degli eventi in un array di int ordinato, così le ricerche per più tag
+ * sono intersezioni (tutti i tag) o unioni (almeno uno) di array ordinati, senza LIKE sul campo
+ * tagTematici. L'indice viene caricato al primo utilizzo, aggiornato da {@link EventoDAOMySQLImpl}
+ * quando scrive i tag di un evento e ricaricato in background ogni {@link #TTL_MINUTI} minuti per
+ * raccogliere le modifiche delle altre istanze.
+ */
+public class TagIndex extends ReloadableSnapshot<TagIndex.Indice> {
+
+    public static final long TTL_MINUTI = 5;
+
+    private static final Pattern SEPARATORI = Pattern.compile("[,;#]");
+    private static final int LUNGHEZZA_MASSIMA = 45;
+
+    private static TagIndex tagIndex = null;
+
+    private TagIndex() {
+        super(TTL_MINUTI);
+    }
+
+    /**
+     * Restituisce l'istanza singleton dell'indice dei tag.
+     *
+     * @return istanza singleton TagIndex
+     */
+    public static synchronized TagIndex getInstance() {
+        if (tagIndex == null) {
+            tagIndex = new TagIndex();
+        }
+        return tagIndex;
+    }
+
+    /******************************************
+     TAG
+     ********************************************/
+
+    /**
+     * Normalizza un tag: senza spazi ai lati e ripetuti, minuscolo, al massimo 45 caratteri (colonna tag.nome).
+     *
+     * @param tag tag come scritto dall'utente
+     * @return tag normalizzato, vuoto se il tag è vuoto
+     */
+    public static String normalizza(String tag) {
+        String n = tag.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return n.length() > LUNGHEZZA_MASSIMA ? n.substring(0, LUNGHEZZA_MASSIMA).trim() : n;
+    }
+
+    /**
+     * Divide il campo tagTematici (tag separati da virgola, punto e virgola o '#') in tag normalizzati.
+     *
+     * @param tagTematici valore del campo (null = nessun tag)
+     * @return tag distinti, nell'ordine del campo
+     */
+    public static List<String> dividi(String tagTematici) {
+        Set<String> tag = new LinkedHashSet<>();
+        if (tagTematici != null) {
+            for (String t : SEPARATORI.split(tagTematici)) {
+                String n = normalizza(t);
+                if (!n.isEmpty()) {
+                    tag.add(n);
+                }
+            }
+        }
+        return new ArrayList<>(tag);
+    }
+
+    /******************************************
+     RICERCA
+     ********************************************/
+
+    /**
+     * Eventi che hanno tutti i tag indicati (tutti = true) o almeno uno (tutti = false).
+     *
+     * @param tag tag cercati, normalizzati o no
+     * @param tutti true per l'intersezione, false per l'unione
+     * @return id degli eventi in ordine crescente; vuoto se non ci sono tag
+     * @throws DAOException se l'indice va caricato e la lettura fallisce
+     */
+    public int[] eventi(Collection<String> tag, boolean tutti) throws DAOException {
+        if (tag.isEmpty()) {
+            return new int[0];
+        }
+        return leggiDa(indice -> {
+            List<Postings> liste = new ArrayList<>();
+            for (String t : tag) {
+                Postings p = indice.postings.get(normalizza(t));
+                if (p != null) {
+                    liste.add(p);
+                } else if (tutti) {
+                    return new int[0];
+                }
+            }
+            if (liste.isEmpty()) {
+                return new int[0];
+            }
+            return tutti ? interseca(liste) : unisci(liste);
+        });
+    }
+
+    /**
+     * @param massimo numero massimo di tag
+     * @return tag → numero di eventi con quel tag, dal più usato
+     * @throws DAOException se l'indice va caricato e la lettura fallisce
+     */
+    public Map<String, Integer> piuUsati(int massimo) throws DAOException {
+        return leggiDa(indice -> {
+            Map<String, Integer> risultato = new LinkedHashMap<>();
+            indice.postings.entrySet().stream()
+                    .filter(e -> e.getValue().size > 0)
+                    .sorted((a, b) -> a.getValue().size != b.getValue().size
+                            ? Integer.compare(b.getValue().size, a.getValue().size)
+                            : a.getKey().compareTo(b.getKey()))
+                    .limit(massimo)
+                    .forEach(e -> risultato.put(e.getKey(), e.getValue().size));
+            return risultato;
+        });
+    }
+
+    // Dalla lista più corta: ogni id viene cercato nelle altre con ricerca binaria a partire dall'ultima posizione
+    private static int[] interseca(List<Postings> liste) {
+        liste.sort((a, b) -> Integer.compare(a.size, b.size));
+        Postings prima = liste.get(0);
+        int[] risultato = new int[prima.size];
+        int n = 0;
+        int[] posizioni = new int[liste.size()];
+
+        candidati:
+        for (int i = 0; i < prima.size; i++) {
+            int id = prima.id[i];
+            for (int k = 1; k < liste.size(); k++) {
+                Postings p = liste.get(k);
+                int pos = Arrays.binarySearch(p.id, posizioni[k], p.size, id);
+                if (pos < 0) {
+                    posizioni[k] = -pos - 1;
+                    if (posizioni[k] == p.size) {
+                        break candidati; // una lista è finita: nessun altro id comune
+                    }
+                    continue candidati;
+                }
+                posizioni[k] = pos + 1;
+            }
+            risultato[n++] = id;
+        }
+        return Arrays.copyOf(risultato, n);
+    }
+
+    private static int[] unisci(List<Postings> liste) {
+        int totale = 0;
+        for (Postings p : liste) {
+            totale += p.size;
+        }
+        int[] tutti = new int[totale];
+        int n = 0;
+        for (Postings p : liste) {
+            System.arraycopy(p.id, 0, tutti, n, p.size);
+            n += p.size;
+        }
+        Arrays.sort(tutti);
+        int distinti = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinti == 0 || tutti[distinti - 1] != tutti[i]) {
+                tutti[distinti++] = tutti[i];
+            }
+        }
+        return Arrays.copyOf(tutti, distinti);
+    }
+
+    /******************************************
+     AGGIORNAMENTO
+     ********************************************/
+
+    /**
+     * Sostituisce i tag di un evento (dopo che sono stati scritti in evento_tag).
+     * Se l'indice non è ancora stato caricato non fa nulla: i tag verranno letti con gli altri.
+     *
+     * @param idEvento id dell'evento
+     * @param tag tag normalizzati dell'evento
+     */
+    public void aggiorna(int idEvento, Collection<String> tag) {
+        modifica(new Modifica(idEvento, new ArrayList<>(tag))::applica);
+    }
+
+    /**
+     * Toglie un evento cancellato dall'indice.
+     *
+     * @param idEvento id dell'evento
+     */
+    public void rimuovi(int idEvento) {
+        modifica(new Modifica(idEvento, null)::applica);
+    }
+
+    /******************************************
+     CARICAMENTO
+     ********************************************/
+
+    @Override
+    protected Indice leggi() throws DAOException {
+        Indice nuovo = new Indice();
+
+        // ordinate per tag ed evento: gli id si accodano già in ordine
+        String sql = "SELECT t.nome, et.EVENTI_idEvento FROM evento_tag et " +
+                "JOIN tag t ON t.idTAG = et.TAG_idTAG ORDER BY t.nome, et.EVENTI_idEvento";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            Postings corrente = null;
+            while (rs.next()) {
+                String nome = rs.getString(1);
+                int idEvento = rs.getInt(2);
+                if (corrente == null || !corrente.tag.equals(nome)) {
+                    corrente = nuovo.postings.computeIfAbsent(nome, Postings::new);
+                }
+                corrente.accoda(idEvento);
+                nuovo.tagPerEvento.computeIfAbsent(idEvento, k -> new ArrayList<>()).add(nome);
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In leggi(): " + sq.getMessage());
+        }
+        return nuovo;
+    }
+
+    /******************************************
+     STRUTTURE DELL'INDICE
+     ********************************************/
+
+    /**
+     * Nuovi tag di un evento (tag != null) o sua rimozione.
+     */
+    private static final class Modifica {
+        final int idEvento;
+        final List<String> tag;
+
+        Modifica(int idEvento, List<String> tag) {
+            this.idEvento = idEvento;
+            this.tag = tag;
+        }
+
+        void applica(Indice indice) {
+            List<String> vecchi = indice.tagPerEvento.remove(idEvento);
+            if (vecchi != null) {
+                for (String t : vecchi) {
+                    Postings p = indice.postings.get(t);
+                    if (p != null) {
+                        p.rimuovi(idEvento);
+                        if (p.size == 0) {
+                            indice.postings.remove(t);
+                        }
+                    }
+                }
+            }
+            if (tag != null && !tag.isEmpty()) {
+                for (String t : tag) {
+                    indice.postings.computeIfAbsent(t, Postings::new).aggiungi(idEvento);
+                }
+                indice.tagPerEvento.put(idEvento, tag);
+            }
+        }
+    }
+
+    /**
+     * Eventi con un tag: id ordinati in un array di int.
+     */
+    private static final class Postings {
+        final String tag;
+        int[] id = new int[4];
+        int size = 0;
+
+        Postings(String tag) {
+            this.tag = tag;
+        }
+
+        // id maggiore di tutti quelli presenti (caricamento)
+        void accoda(int idEvento) {
+            if (size == id.length) {
+                id = Arrays.copyOf(id, size * 2);
+            }
+            id[size++] = idEvento;
+        }
+
+        void aggiungi(int idEvento) {
+            int pos = Arrays.binarySearch(id, 0, size, idEvento);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == id.length) {
+                id = Arrays.copyOf(id, size * 2);
+            }
+            System.arraycopy(id, pos, id, pos + 1, size - pos);
+            id[pos] = idEvento;
+            size++;
+        }
+
+        void rimuovi(int idEvento) {
+            int pos = Arrays.binarySearch(id, 0, size, idEvento);
+            if (pos >= 0) {
+                System.arraycopy(id, pos + 1, id, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+
+    static final class Indice {
+        final Map<String, Postings> postings = new HashMap<>();
+        // tag di ogni evento, per togliere l'evento dalle liste quando cambia
+        final Map<Integer, List<String>> tagPerEvento = new HashMap<>();
+    }
+}
@@ -0,0 +1,230 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.IncassiCategoria;
+import it.unicas.project.template.address.model.VenditePeriodo;
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO dei riepiloghi delle vendite: 'vendite_evento' (totale per evento) e 'vendite_giorno'
+ * (vendite nette per evento e giorno).
+ *
+ * I riepiloghi non vengono ricalcolati dai posti: ogni vendita, promozione dalla lista d'attesa e
+ * annullamento li aggiorna con {@link #registra} nella stessa transazione che scrive i posti,
+ * quindi il report legge una riga per evento (o per giorno) invece di contare i posti venduti.
+ * L'incasso è il prezzo pagato, salvato su ogni posto in 'prenotazione_posto': un annullamento
+ * sottrae esattamente quanto era stato incassato, anche se nel frattempo il prezzo dell'evento è cambiato.
+ */
+public class VenditeDAOMySQLImpl {
+
+    private VenditeDAOMySQLImpl() {
+    }
+
+    private static VenditeDAOMySQLImpl dao = null;
+
+    // VALUES(colonna) invece dell'alias della riga inserita: è la forma accettata anche da H2 (EmbeddedDatabase)
+    private static final String SQL_VENDITE_EVENTO =
+            "INSERT INTO vendite_evento (EVENTI_idEvento, postiVenduti, incasso) VALUES (?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE postiVenduti = postiVenduti + VALUES(postiVenduti), " +
+                    "incasso = incasso + VALUES(incasso)";
+
+    private static final String SQL_VENDITE_GIORNO =
+            "INSERT INTO vendite_giorno (EVENTI_idEvento, giorno, postiVenduti, incasso) VALUES (?, CURDATE(), ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE postiVenduti = postiVenduti + VALUES(postiVenduti), " +
+                    "incasso = incasso + VALUES(incasso)";
+
+    /**
+     * Restituisce l'istanza singleton del DAO vendite.
+     *
+     * @return istanza singleton VenditeDAOMySQLImpl
+     */
+    public static synchronized VenditeDAOMySQLImpl getInstance() {
+        if (dao == null) {
+            dao = new VenditeDAOMySQLImpl();
+        }
+        return dao;
+    }
+
+    /**
+     * Legge il prezzo di un posto dell'evento, da salvare sui posti venduti nella stessa transazione.
+     *
+     * @param conn connessione della transazione
+     * @param idEvento id evento
+     * @return prezzo di un posto
+     * @throws SQLException se l'evento non esiste o in caso di errore SQL
+     */
+    static BigDecimal prezzo(Connection conn, int idEvento) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT costi FROM eventi WHERE idEvento = ?")) {
+            ps.setInt(1, idEvento);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Evento " + idEvento + " inesistente");
+                }
+                return rs.getBigDecimal(1);
+            }
+        }
+    }
+
+    /**
+     * Aggiorna i riepiloghi di un evento: totale e giorno corrente.
+     * Va chiamato dentro la transazione che vende o libera i posti, prima del commit.
+     *
+     * @param conn connessione della transazione
+     * @param idEvento id evento
+     * @param deltaPosti posti venduti (positivo) o liberati da un annullamento (negativo)
+     * @param deltaIncasso importo pagato per quei posti (negativo per un annullamento)
+     * @throws SQLException in caso di errore SQL (la transazione va annullata)
+     */
+    static void registra(Connection conn, int idEvento, int deltaPosti, BigDecimal deltaIncasso) throws SQLException {
+        if (deltaPosti == 0) {
+            return;
+        }
+        for (String sql : new String[]{SQL_VENDITE_EVENTO, SQL_VENDITE_GIORNO}) {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, idEvento);
+                ps.setInt(2, deltaPosti);
+                ps.setBigDecimal(3, deltaIncasso);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Restituisce numero di eventi, posti venduti, incasso totale, incasso medio per evento e prezzo medio
+     * degli eventi passati di un'organizzazione, per categoria (tipo di evento) e in totale.
+     * Le categorie sono calcolate dal database in un'unica query aggregata (GROUP BY) sul riepilogo
+     * 'vendite_evento': il costo dipende dal numero di eventi, non dai posti venduti. Il totale è la somma
+     * delle righe, fatta qui invece che con WITH ROLLUP, che il database incorporato (H2) non supporta.
+     *
+     * @param idOrganizzazione id organizzazione
+     * @return una riga per categoria con eventi passati, seguita dal totale
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<IncassiCategoria> selectIncassiPerCategoria(int idOrganizzazione) throws DAOException {
+
+        List<IncassiCategoria> lista = new ArrayList<>();
+
+        String sql = "SELECT e.TIPO_EVENTO_idTIPO_EVENTO AS idTipo, COUNT(*) AS eventi, " +
+                "COALESCE(SUM(v.postiVenduti), 0) AS posti, COALESCE(SUM(v.incasso), 0) AS incasso, " +
+                "SUM(e.costi) AS sommaPrezzi " +
+                "FROM eventi e " +
+                "LEFT JOIN vendite_evento v ON v.EVENTI_idEvento = e.idEvento " +
+                "WHERE e.ORGANIZZAZIONE_idORGANIZZAZIONE = ? AND e.dataEvento < CURDATE() " +
+                "GROUP BY e.TIPO_EVENTO_idTIPO_EVENTO ORDER BY e.TIPO_EVENTO_idTIPO_EVENTO";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idOrganizzazione);
+
+            int eventiTotali = 0;
+            int postiTotali = 0;
+            BigDecimal incassoTotale = BigDecimal.ZERO;
+            BigDecimal prezziTotali = BigDecimal.ZERO;
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int idTipo = rs.getInt("idTipo");
+                    String categoria = ReferenceDataCache.getInstance().getNome(ReferenceDataCache.Tabella.TIPO_EVENTO, idTipo);
+                    int eventi = rs.getInt("eventi");
+                    int posti = rs.getInt("posti");
+                    BigDecimal incasso = rs.getBigDecimal("incasso");
+                    BigDecimal sommaPrezzi = rs.getBigDecimal("sommaPrezzi");
+
+                    lista.add(riga(idTipo, categoria != null ? categoria : "Tipo " + idTipo,
+                            eventi, posti, incasso, sommaPrezzi));
+
+                    eventiTotali += eventi;
+                    postiTotali += posti;
+                    incassoTotale = incassoTotale.add(incasso);
+                    prezziTotali = prezziTotali.add(sommaPrezzi);
+                }
+            }
+
+            if (eventiTotali > 0) {
+                lista.add(riga(-1, "Totale", eventiTotali, postiTotali, incassoTotale, prezziTotali));
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In selectIncassiPerCategoria(): " + sq.getMessage());
+        }
+        return lista;
+    }
+
+    // Medie per evento, arrotondate al centesimo
+    private static IncassiCategoria riga(int id, String categoria, int eventi, int posti,
+                                         BigDecimal incasso, BigDecimal sommaPrezzi) {
+        BigDecimal n = BigDecimal.valueOf(eventi);
+        return new IncassiCategoria(id, categoria, eventi, posti, incasso,
+                incasso.divide(n, 2, RoundingMode.HALF_UP),
+                sommaPrezzi.divide(n, 2, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Restituisce l'andamento delle vendite degli eventi di un'organizzazione, per giorno o per settimana
+     * (settimane da lunedì). I periodi senza vendite non compaiono.
+     * Il database somma per giorno; le settimane si ottengono qui accorpando i giorni, così la query
+     * non usa funzioni sulle date diverse tra MySQL e il database incorporato.
+     *
+     * @param idOrganizzazione id organizzazione
+     * @param granularita giorni o settimane
+     * @param da primo giorno (incluso)
+     * @param a ultimo giorno (incluso)
+     * @return vendite per periodo, in ordine cronologico
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<VenditePeriodo> selectAndamento(int idOrganizzazione, VenditePeriodo.Granularita granularita,
+                                                LocalDate da, LocalDate a) throws DAOException {
+
+        List<VenditePeriodo> lista = new ArrayList<>();
+
+        String sql = "SELECT g.giorno AS giorno, SUM(g.postiVenduti) AS posti, SUM(g.incasso) AS incasso " +
+                "FROM eventi e " +
+                "JOIN vendite_giorno g ON g.EVENTI_idEvento = e.idEvento " +
+                "WHERE e.ORGANIZZAZIONE_idORGANIZZAZIONE = ? AND g.giorno BETWEEN ? AND ? " +
+                "GROUP BY g.giorno ORDER BY g.giorno";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idOrganizzazione);
+            ps.setDate(2, Date.valueOf(da));
+            ps.setDate(3, Date.valueOf(a));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate giorno = rs.getDate("giorno").toLocalDate();
+                    LocalDate inizio = granularita == VenditePeriodo.Granularita.SETTIMANA
+                            ? giorno.with(DayOfWeek.MONDAY)
+                            : giorno;
+                    int posti = rs.getInt("posti");
+                    BigDecimal incasso = rs.getBigDecimal("incasso");
+
+                    // i giorni arrivano in ordine: un giorno della stessa settimana si somma all'ultima riga
+                    VenditePeriodo ultimo = lista.isEmpty() ? null : lista.get(lista.size() - 1);
+                    if (ultimo != null && ultimo.getInizio().equals(inizio)) {
+                        lista.set(lista.size() - 1, new VenditePeriodo(inizio,
+                                ultimo.getPostiVenduti() + posti, ultimo.getIncasso().add(incasso)));
+                    } else {
+                        lista.add(new VenditePeriodo(inizio, posti, incasso));
+                    }
+                }
+            }
+
+        } catch (SQLException sq) {
+            throw new DAOException("In selectAndamento(): " + sq.getMessage());
+        }
+        return lista;
+    }
+}
@@ -1,9 +1,10 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import it.unicas.project.template.address.model.dao.DAOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -39,18 +40,20 @@ public class WaitlistDAOMySQLImpl {
      * @throws DAOException in caso di errore SQL
      */
     public void insertWaitlist(int idEvento, int idCliente) throws DAOException {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "INSERT INTO lista_attesa (data, ora, EVENTI_idEvento, CLIENTE_idCLIENTE) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
             LocalDate today = LocalDate.now();
             LocalTime now = LocalTime.now().withNano(0);
 
-            String sql = "INSERT INTO lista_attesa (data, ora, EVENTI_idEvento, CLIENTE_idCLIENTE) VALUES ('"
-                    + today.toString() + "', '"
-                    + now.toString() + "', "
-                    + idEvento + ", "
-                    + idCliente + ")";
-            st.executeUpdate(sql);
-            DAOMySQLSettings.closeStatement(st);
+            ps.setString(1, today.toString());
+            ps.setString(2, now.toString());
+            ps.setInt(3, idEvento);
+            ps.setInt(4, idCliente);
+            ps.executeUpdate();
+
         } catch (SQLException e) {
             throw new DAOException("Errore insertWaitlist: " + e.getMessage());
         }
@@ -65,16 +68,20 @@ public class WaitlistDAOMySQLImpl {
      */
     public List<Integer> selectWaitlistByEvento(int idEvento) throws DAOException {
         List<Integer> lista = new ArrayList<>();
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-
-            String sql = "SELECT CLIENTE_idCLIENTE FROM lista_attesa WHERE EVENTI_idEvento=" + idEvento
-                    + " ORDER BY data ASC, ora ASC";
-            ResultSet rs = st.executeQuery(sql);
-            while (rs.next()) {
-                lista.add(rs.getInt("CLIENTE_idCLIENTE"));
+
+        String sql = "SELECT CLIENTE_idCLIENTE FROM lista_attesa WHERE EVENTI_idEvento = ?"
+                + " ORDER BY data ASC, ora ASC";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idEvento);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(rs.getInt("CLIENTE_idCLIENTE"));
+                }
             }
-            DAOMySQLSettings.closeStatement(st);
         } catch (SQLException e) {
             throw new DAOException("Errore selectWaitlistByEvento: " + e.getMessage());
         }
@@ -89,11 +96,15 @@ public class WaitlistDAOMySQLImpl {
      * @throws DAOException in caso di errore SQL
      */
     public void removeFromWaitlist(int idEvento, int idCliente) throws DAOException {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
-            String sql = "DELETE FROM lista_attesa WHERE EVENTI_idEvento=" + idEvento + " AND CLIENTE_idCLIENTE=" + idCliente;
-            st.executeUpdate(sql);
-            DAOMySQLSettings.closeStatement(st);
+        String sql = "DELETE FROM lista_attesa WHERE EVENTI_idEvento = ? AND CLIENTE_idCLIENTE = ?";
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, idEvento);
+            ps.setInt(2, idCliente);
+            ps.executeUpdate();
+
         } catch (SQLException e) {
             throw new DAOException("Errore removeFromWaitlist: " + e.getMessage());
         }
@@ -108,23 +119,24 @@ public class WaitlistDAOMySQLImpl {
      * @throws DAOException in caso di errore SQL
      */
     public boolean isInWaitlist(int idEvento, int idCliente) throws DAOException {
-        try {
-            Statement st = DAOMySQLSettings.getStatement();
+        String sql = "SELECT 1 FROM lista_attesa " +
+                "WHERE EVENTI_idEvento = ?" +
+                " AND CLIENTE_idCLIENTE = ?" +
+                " LIMIT 1";
 
-            String sql = "SELECT 1 FROM lista_attesa " +
-                    "WHERE EVENTI_idEvento=" + idEvento +
-                    " AND CLIENTE_idCLIENTE=" + idCliente +
-                    " LIMIT 1";
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ResultSet rs = st.executeQuery(sql);
-            boolean exists = rs.next();
+            ps.setInt(1, idEvento);
+            ps.setInt(2, idCliente);
 
-            DAOMySQLSettings.closeStatement(st);
-            return exists;
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
 
         } catch (SQLException e) {
             throw new DAOException("Errore isInWaitlist: " + e.getMessage());
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Promozione dalla lista d'attesa quando si liberano dei posti (annullamento di una prenotazione).
+ *
+ * Per ogni posto liberato il primo cliente in attesa riceve un posto libero e una prenotazione attiva;
+ * prelievo dalla lista d'attesa, posto e prenotazione sono salvati nella stessa transazione.
+ * I clienti in testa alla lista vengono letti con SELECT ... FOR UPDATE SKIP LOCKED: due annullamenti
+ * contemporanei sullo stesso evento si dividono i clienti in attesa invece di promuovere due volte
+ * lo stesso cliente, e nessuno dei due resta bloccato ad aspettare l'altro.
+ *
+ * I posti candidati vengono presi dalla bitmap di {@link SeatInventory}; ogni posto è poi inserito
+ * come in {@link BookingEngine} (chiave duplicata = posto occupato), quindi un posto preso nel frattempo
+ * da un acquirente (o bloccato da una hold altrui) viene semplicemente saltato.
+ */
+public class WaitlistPromoter {
+
+    private WaitlistPromoter() {
+    }
+
+    private static WaitlistPromoter promoter = null;
+    private static final Logger logger = Logger.getLogger(WaitlistPromoter.class.getName());
+
+    private static final int MAX_TENTATIVI = 3;
+
+    // Posti assegnati a ogni cliente promosso (la lista d'attesa non registra quanti posti voleva)
+    private static final int POSTI_PER_CLIENTE = 1;
+
+    private static final String SQL_IN_ATTESA =
+            "SELECT CLIENTE_idCLIENTE FROM lista_attesa WHERE EVENTI_idEvento = ? " +
+                    "ORDER BY data ASC, ora ASC LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_RIMUOVI_ATTESA =
+            "DELETE FROM lista_attesa WHERE EVENTI_idEvento = ? AND CLIENTE_idCLIENTE = ?";
+
+    /**
+     * Restituisce l'istanza singleton del servizio di promozione.
+     *
+     * @return istanza singleton WaitlistPromoter
+     */
+    public static synchronized WaitlistPromoter getInstance() {
+        if (promoter == null) {
+            promoter = new WaitlistPromoter();
+        }
+        return promoter;
+    }
+
+    /**
+     * Promuove fino a postiLiberati clienti in attesa per l'evento, ciascuno con un posto.
+     *
+     * @param evento evento di cui sono stati liberati dei posti
+     * @param postiLiberati numero di posti liberati
+     * @return prenotazioni create per i clienti promossi (vuota se la lista d'attesa è vuota)
+     * @throws DAOException in caso di errore SQL
+     */
+    public List<Prenotazione> promuovi(Evento evento, int postiLiberati) throws DAOException {
+        if (evento == null || postiLiberati <= 0) {
+            return new ArrayList<>();
+        }
+
+        int idEvento = evento.getId();
+        SeatLayout layout = ReferenceDataCache.getInstance().getLayout(evento.getIdLuogoEvento());
+        if (layout == null) {
+            throw new DAOException("In promuovi(): luogo dell'evento " + idEvento + " non trovato");
+        }
+
+        for (int tentativo = 1; ; tentativo++) {
+            List<Integer> assegnati = new ArrayList<>();
+            try {
+                List<Prenotazione> promosse = eseguiTransazione(idEvento, layout, postiLiberati, assegnati);
+
+                SeatInventory.getInstance().markOccupied(idEvento, assegnati);
+                SeatEventBus.getInstance().publish(idEvento, assegnati, true, -1);
+                if (!promosse.isEmpty()) {
+                    logger.info("Evento " + idEvento + ": promossi " + promosse.size() + " clienti dalla lista d'attesa");
+                }
+                return promosse;
+
+            } catch (SQLException sq) {
+                SeatInventory.getInstance().invalidate(idEvento);
+                if (BookingEngine.isRitentabile(sq) && tentativo < MAX_TENTATIVI) {
+                    logger.warning("In promuovi(): tentativo " + tentativo + " fallito (" + sq.getMessage() + "), riprovo");
+                    continue;
+                }
+                throw new DAOException("In promuovi(): " + sq.getMessage());
+            }
+        }
+    }
+
+    private List<Prenotazione> eseguiTransazione(int idEvento, SeatLayout layout, int postiLiberati,
+                                                 List<Integer> assegnati) throws SQLException, DAOException {
+        List<Prenotazione> promosse = new ArrayList<>();
+
+        // bitmap letta prima della transazione: è solo un elenco di candidati, l'inserimento in 'posti' decide
+        BitSet occupati = SeatInventory.getInstance().snapshot(idEvento);
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                BigDecimal prezzo = VenditeDAOMySQLImpl.prezzo(conn, idEvento);
+                List<Integer> clienti = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(SQL_IN_ATTESA)) {
+                    ps.setInt(1, idEvento);
+                    ps.setInt(2, postiLiberati / POSTI_PER_CLIENTE);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            clienti.add(rs.getInt("CLIENTE_idCLIENTE"));
+                        }
+                    }
+                }
+
+                if (clienti.isEmpty()) {
+                    conn.rollback();
+                    return promosse;
+                }
+
+                String data = LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+                String ora = LocalTime.now().withNano(0).toString();
+                int candidato = 0;
+
+                try (PreparedStatement psPosto = conn.prepareStatement(BookingEngine.SQL_POSTO);
+                     PreparedStatement psPrenotazione = conn.prepareStatement(BookingEngine.SQL_PRENOTAZIONE, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement psRimuovi = conn.prepareStatement(SQL_RIMUOVI_ATTESA)) {
+
+                    for (Integer idCliente : clienti) {
+                        List<Integer> posti = new ArrayList<>();
+
+                        while (posti.size() < POSTI_PER_CLIENTE) {
+                            candidato = occupati.nextClearBit(candidato + 1);
+                            if (!layout.contiene(candidato)) break;
+
+                            if (BookingEngine.inserisciPosto(psPosto, idEvento, candidato, idCliente)) {
+                                posti.add(candidato);
+                            }
+                        }
+
+                        // posti finiti: il cliente (e chi lo segue) resta in lista d'attesa
+                        if (posti.size() < POSTI_PER_CLIENTE) {
+                            if (!posti.isEmpty()) {
+                                liberaPosti(conn, idEvento, posti);
+                            }
+                            break;
+                        }
+
+                        Prenotazione p = new Prenotazione(0, data, ora, etichette(layout, posti), idCliente, idEvento, 1);
+                        psPrenotazione.setString(1, p.getData());
+                        psPrenotazione.setString(2, p.getTime());
+                        psPrenotazione.setString(3, p.getPostoPrenotato());
+                        psPrenotazione.setInt(4, p.getClienteId());
+                        psPrenotazione.setInt(5, p.getEventoId());
+                        psPrenotazione.setInt(6, p.getStatoPrenotazioneId());
+                        psPrenotazione.executeUpdate();
+                        p.setIdPrenotazione(BookingEngine.idGenerato(psPrenotazione));
+                        PrenotazioneDAOMySQLImpl.insertPosti(conn, p.getIdPrenotazione(), idEvento, posti, prezzo);
+
+                        psRimuovi.setInt(1, idEvento);
+                        psRimuovi.setInt(2, idCliente);
+                        psRimuovi.executeUpdate();
+
+                        assegnati.addAll(posti);
+                        promosse.add(p);
+                    }
+                }
+
+                VenditeDAOMySQLImpl.registra(conn, idEvento, assegnati.size(), prezzo.multiply(BigDecimal.valueOf(assegnati.size())));
+
+                conn.commit();
+                return promosse;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                assegnati.clear();
+                throw e;
+            }
+        }
+    }
+
+    private static void liberaPosti(Connection conn, int idEvento, List<Integer> posti) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM posti WHERE EVENTI_idEvento = ? AND idPOSTI = ?")) {
+            for (Integer posto : posti) {
+                ps.setInt(1, idEvento);
+                ps.setInt(2, posto);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // Posti in formato "A1, A2" come nelle prenotazioni fatte dalla mappa dei posti
+    private static String etichette(SeatLayout layout, List<Integer> posti) {
+        StringBuilder sb = new StringBuilder();
+        for (Integer posto : posti) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(layout.getEtichetta(posto));
+        }
+        return sb.toString();
+    }
+}
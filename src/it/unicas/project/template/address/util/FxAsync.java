@@ -0,0 +1,173 @@
+package it.unicas.project.template.address.util;
+
+import it.unicas.project.template.address.model.dao.mysql.AsyncDAO;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Collegamento tra {@link AsyncDAO} e il thread JavaFX.
+ *
+ * Ogni controller crea uno {@link Scope}: le chiamate avviate dallo scope eseguono la query in background
+ * e i callback sul thread JavaFX (Platform.runLater). Quando la vista viene sostituita (navigazione)
+ * lo scope si chiude, cancella le chiamate ancora in corso e non esegue più callback sulla vista vecchia.
+ */
+public class FxAsync {
+
+    private FxAsync() {
+    }
+
+    /**
+     * Crea un nuovo scope per le chiamate asincrone di un controller.
+     *
+     * @return scope aperto
+     */
+    public static Scope scope() {
+        return new Scope();
+    }
+
+    /**
+     * Insieme delle chiamate asincrone avviate da una vista.
+     */
+    public static final class Scope {
+
+        private final Set<CompletableFuture<?>> inCorso = ConcurrentHashMap.newKeySet();
+        private volatile boolean chiuso = false;
+
+        private Scope() {
+        }
+
+        /**
+         * Esegue la chiamata al DAO in background e il callback corrispondente sul thread JavaFX.
+         *
+         * @param call chiamata al DAO
+         * @param onSuccess callback con il risultato
+         * @param onError callback con l'eccezione della chiamata
+         * @param <T> tipo del risultato
+         * @return future della chiamata, cancellabile
+         */
+        public <T> CompletableFuture<T> run(AsyncDAO.DAOCall<T> call, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            if (chiuso) {
+                CompletableFuture<T> annullata = new CompletableFuture<>();
+                annullata.cancel(false);
+                return annullata;
+            }
+
+            return traccia(AsyncDAO.getInstance().submit(call), onSuccess, onError);
+        }
+
+        /**
+         * Esegue sul thread JavaFX il callback di un lavoro avviato fuori dallo scope (ad esempio una
+         * scrittura che deve completarsi anche se la vista viene chiusa). Alla chiusura dello scope
+         * viene scartato solo il callback: il lavoro non viene cancellato né interrotto.
+         *
+         * @param lavoro future del lavoro, di solito restituito da {@link AsyncDAO#submit}
+         * @param onSuccess callback con il risultato
+         * @param onError callback con l'eccezione del lavoro
+         * @param <T> tipo del risultato
+         * @return future del solo callback, cancellabile senza effetti sul lavoro
+         */
+        public <T> CompletableFuture<T> segui(CompletableFuture<T> lavoro, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            if (chiuso) {
+                CompletableFuture<T> annullata = new CompletableFuture<>();
+                annullata.cancel(false);
+                return annullata;
+            }
+
+            // copia dipendente: cancelAll() cancella questa, non il lavoro
+            return traccia(lavoro.thenApply(risultato -> risultato), onSuccess, onError);
+        }
+
+        // Tiene la future tra quelle in corso e ne porta l'esito sul thread JavaFX
+        private <T> CompletableFuture<T> traccia(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            inCorso.add(future);
+
+            future.whenComplete((risultato, ex) -> {
+                inCorso.remove(future);
+                if (future.isCancelled()) {
+                    return;
+                }
+                Platform.runLater(() -> {
+                    // la vista può essere stata chiusa mentre il callback era in attesa
+                    if (chiuso || future.isCancelled()) {
+                        return;
+                    }
+                    if (ex == null) {
+                        onSuccess.accept(risultato);
+                    } else {
+                        onError.accept(causa(ex));
+                    }
+                });
+            });
+            return future;
+        }
+
+        /**
+         * Cancella tutte le chiamate in corso; lo scope resta utilizzabile.
+         */
+        public void cancelAll() {
+            for (CompletableFuture<?> f : inCorso) {
+                f.cancel(true);
+            }
+            inCorso.clear();
+        }
+
+        /**
+         * Cancella le chiamate in corso e rifiuta le successive.
+         */
+        public void close() {
+            chiuso = true;
+            cancelAll();
+        }
+
+        /**
+         * @return true se lo scope è stato chiuso
+         */
+        public boolean isClosed() {
+            return chiuso;
+        }
+
+        /**
+         * Chiude lo scope quando il nodo esce dalla finestra: il nodo viene rimosso dalla scena
+         * (cambio del centro del layout) oppure la sua scena viene sostituita nella Stage.
+         *
+         * @param node nodo radice della vista
+         * @return questo scope
+         */
+        public Scope bindTo(Node node) {
+            node.sceneProperty().addListener((obs, vecchia, nuova) -> {
+                if (vecchia != null && nuova == null) {
+                    close();
+                } else if (nuova != null) {
+                    osservaFinestra(nuova);
+                }
+            });
+            if (node.getScene() != null) {
+                osservaFinestra(node.getScene());
+            }
+            return this;
+        }
+
+        private void osservaFinestra(Scene scene) {
+            scene.windowProperty().addListener((obs, vecchia, nuova) -> {
+                if (vecchia != null && nuova == null) {
+                    close();
+                }
+            });
+        }
+
+        private static Throwable causa(Throwable ex) {
+            if ((ex instanceof CompletionException || ex instanceof CancellationException) && ex.getCause() != null) {
+                return ex.getCause();
+            }
+            return ex;
+        }
+    }
+}
@@ -3,11 +3,10 @@ package it.unicas.project.template.address.view;
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.Cliente;
 import it.unicas.project.template.address.model.Evento;
-import it.unicas.project.template.address.model.Luogo;
+import it.unicas.project.template.address.model.OccupazioneEvento;
 import it.unicas.project.template.address.model.Organizzazione;
-import it.unicas.project.template.address.model.dao.DAOException;
 import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.LuogoDAOMySQLImpl;
+import it.unicas.project.template.address.util.FxAsync;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -23,6 +22,7 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller della vista calendario.
@@ -39,6 +39,7 @@ public class CalendarViewController {
     @FXML private GridPane weekGrid;
     @FXML private GridPane monthGrid;
     @FXML private Button newEventButton;
+    @FXML private ProgressIndicator loadingIndicator;
 
     private MainApp mainApp;
     private Organizzazione organizzazioneLoggata;
@@ -49,6 +50,13 @@ public class CalendarViewController {
     private YearMonth meseCorrente = YearMonth.now();
     private LocalDate settimanaInizio = oggi.with(DayOfWeek.MONDAY);
 
+    // Luogo e posti prenotati per id evento, letti con gli eventi in un'unica query:
+    // il disegno delle celle non interroga il DB
+    private Map<Integer, OccupazioneEvento> occupazioni = new HashMap<>();
+
+    private final FxAsync.Scope async = FxAsync.scope();
+    private CompletableFuture<List<OccupazioneEvento>> caricamentoEventi;
+
     /**
      * Metodo chiamato automaticamente da JavaFX dopo il caricamento dell'FXML.
      * Imposta la vista di default (mensile) e avvia il redraw.
@@ -58,6 +66,7 @@ public class CalendarViewController {
 
         boolean isOrganizzazione = mainApp != null && mainApp.getLoggedOrganizzazione() != null;
         monthViewCheckBox.setSelected(true);
+        async.bindTo(monthGrid);
 
         ridisegnaCalendario();
     }
@@ -138,17 +147,52 @@ public class CalendarViewController {
     }
 
     /**
-     * Recupera gli eventi dell'organizzazione dal DB e li memorizza in memoria.
+     * Recupera in background gli eventi dell'organizzazione nel periodo visualizzato, con luogo
+     * e posti prenotati (una sola query), li memorizza in memoria e ridisegna il calendario.
+     * Un nuovo caricamento annulla il precedente.
      */
     public void caricaEventi() {
         if (organizzazioneLoggata == null)
             return;
 
-        try {
-            eventi = EventoDAOMySQLImpl.getInstance().selectByOrganizzazione(organizzazioneLoggata.getId());
-        } catch (DAOException e) {
-            e.printStackTrace();
+        if (caricamentoEventi != null) {
+            caricamentoEventi.cancel(true);
         }
+        mostraCaricamento(true);
+
+        int idOrganizzazione = organizzazioneLoggata.getId();
+
+        // il periodo copre sia il mese sia la settimana correnti, così il cambio vista non richiede query
+        LocalDate inizioMese = meseCorrente.atDay(1);
+        LocalDate fineMese = meseCorrente.atEndOfMonth();
+        LocalDate fineSettimana = settimanaInizio.plusDays(6);
+        String dataDa = (settimanaInizio.isBefore(inizioMese) ? settimanaInizio : inizioMese).toString();
+        String dataA = (fineSettimana.isAfter(fineMese) ? fineSettimana : fineMese).toString();
+
+        caricamentoEventi = async.run(
+                () -> EventoDAOMySQLImpl.getInstance().selectOccupazioneByOrganizzazione(idOrganizzazione, dataDa, dataA),
+                caricati -> {
+                    List<Evento> lista = new ArrayList<>();
+                    Map<Integer, OccupazioneEvento> perEvento = new HashMap<>();
+                    for (OccupazioneEvento o : caricati) {
+                        lista.add(o.getEvento());
+                        perEvento.put(o.getIdEvento(), o);
+                    }
+                    eventi = lista;
+                    occupazioni = perEvento;
+                    mostraCaricamento(false);
+                    ridisegnaCalendario();
+
+                }, ex -> {
+                    ex.printStackTrace();
+                    mostraCaricamento(false);
+                    currentPeriodLabel.setText("Errore nel caricamento degli eventi");
+                });
+    }
+
+    private void mostraCaricamento(boolean inCorso) {
+        loadingIndicator.setVisible(inCorso);
+        newEventButton.setDisable(inCorso);
     }
 
     /**
@@ -263,18 +307,11 @@ public class CalendarViewController {
             int maxPosti = 0;
             int postiPrenotati = 0;
 
-            try {
-                List<Luogo> luoghi = LuogoDAOMySQLImpl.getInstance().select(new Luogo("", 0, e.getIdLuogoEvento()));
-                if (!luoghi.isEmpty()) {
-                    Luogo luogo = luoghi.get(0);
-                    postoNome = luogo.getNome();
-                    maxPosti = luogo.getMaxPosti();
-
-                    List<Integer> posti = EventoDAOMySQLImpl.getInstance().selectReservedSeats(e.getId());
-                    postiPrenotati = posti.size();
-                }
-            } catch (DAOException ex) {
-                ex.printStackTrace();
+            OccupazioneEvento occupazione = occupazioni.get(e.getId());
+            if (occupazione != null && occupazione.getNomeLuogo() != null) {
+                postoNome = occupazione.getNomeLuogo();
+                maxPosti = occupazione.getMaxPosti();
+                postiPrenotati = occupazione.getPostiPrenotati();
             }
 
             boolean disponibile = postiPrenotati < maxPosti;
@@ -313,18 +350,10 @@ public class CalendarViewController {
 
             String colore;
 
-            try {
-                List<Luogo> luoghi = LuogoDAOMySQLImpl.getInstance().select(new Luogo("", 0, e.getIdLuogoEvento()));
-                if (!luoghi.isEmpty()) {
-                    Luogo luogo = luoghi.get(0);
-                    int maxPosti = luogo.getMaxPosti();
-                    List<Integer> posti = EventoDAOMySQLImpl.getInstance().selectReservedSeats(e.getId());
-                    colore = (posti.size() < maxPosti) ? "#4CAF50" : "#F44336";
-                } else {
-                    colore = "#4CAF50"; //verde
-                }
-            } catch (DAOException ex) {
-                ex.printStackTrace();
+            OccupazioneEvento occupazione = occupazioni.get(e.getId());
+            if (occupazione != null && occupazione.getNomeLuogo() != null) {
+                colore = occupazione.isDisponibile() ? "#4CAF50" : "#F44336";
+            } else {
                 colore = "#4CAF50"; //verde
             }
 
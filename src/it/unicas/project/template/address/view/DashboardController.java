@@ -2,20 +2,40 @@ package it.unicas.project.template.address.view;
 
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.Cliente;
+import it.unicas.project.template.address.model.EventImportReport;
 import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.EventoFiltro;
+import it.unicas.project.template.address.model.Luogo;
 import it.unicas.project.template.address.model.Organizzazione;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.EventImporter;
 import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.ReferenceDataCache;
+import it.unicas.project.template.address.model.dao.mysql.TagIndex;
+import it.unicas.project.template.address.util.FxAsync;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.VBox;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import javafx.stage.FileChooser;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller per la dashboard principale.
@@ -24,11 +44,26 @@ import java.util.List;
  */
 public class DashboardController {
 
+    private static final String TUTTI_I_LUOGHI = "Tutti i luoghi";
+
+    // Eventi letti per ogni pagina e posizione della barra oltre la quale si carica la successiva
+    private static final int EVENTI_PER_PAGINA = 30;
+    private static final double SOGLIA_SCORRIMENTO = 0.9;
+    // Eventi mostrati per una ricerca testuale (ordinati per rilevanza, senza pagine successive)
+    private static final int RISULTATI_RICERCA = 100;
+    // Tag più usati mostrati sopra la lista quando non si cerca nulla
+    private static final int TAG_PIU_USATI = 12;
+    // Righe scartate elencate nel riepilogo di un'importazione (le altre sono nel dettaglio)
+    private static final int ERRORI_IN_RIEPILOGO = 10;
+
     private MainApp mainApp;
 
     @FXML
     private ComboBox<String> placeFilterCombo;
 
+    @FXML
+    private TextField searchField;
+
     @FXML
     private DatePicker startDateFilterPicker;
 
@@ -39,19 +74,46 @@ public class DashboardController {
     @FXML
     private Label headerLabel;
 
+    @FXML
+    private ScrollPane eventsScrollPane;
+
     @FXML
     private VBox eventsListBox;
 
+    @FXML
+    private FlowPane tagFacetsBox;
+
     @FXML
     private EventDetailController eventDetailController;
     @FXML
     private Button calendarButton;
+    @FXML
+    private Button importButton;
 
     public BorderPane eventDetail;
 
     private Cliente clienteLoggato;
     private Organizzazione organizzazioneLoggata;
 
+    // Query in background: chiuse automaticamente quando la dashboard viene sostituita
+    private final FxAsync.Scope async = FxAsync.scope();
+
+    // Nome del luogo mostrato nel filtro -> id del luogo
+    private final Map<String, Integer> idLuoghi = new HashMap<>();
+    private boolean aggiornamentoLuoghi = false;
+
+    // Stato della paginazione: filtro applicato, ultimo evento mostrato (cursore) e pagina in corso
+    private EventoFiltro filtroCorrente;
+    private Evento ultimoEvento;
+    private boolean ultimaPagina;
+    private int generazione = 0;
+    private CompletableFuture<?> caricamentoPagina;
+    private ProgressIndicator indicatorePagina;
+
+    // Tag scelti sopra la lista: gli eventi mostrati devono averli tutti (tuttiITag) o almeno uno
+    private final Set<String> tagSelezionati = new LinkedHashSet<>();
+    private boolean tuttiITag = true;
+
     // ===============================================
     //  INIZIALIZZAZIONE DELLA DASHBOARD
     // ===============================================
@@ -61,19 +123,23 @@ public class DashboardController {
      */
     @FXML
     private void initialize() {
+        async.bindTo(eventsListBox);
 
         // -----------------------------
         //  POPOLA FILTRO LUOGHI
         // -----------------------------
-        placeFilterCombo.getItems().addAll(
-                "Tutti i luoghi",
-                "Bar Caracas",
-                "Teatro Centrale",
-                "Auditorium Comunale",
-                "Galleria d'Arte Moderna",
-                "Sala Conferenze Biblioteca"
-        );
+        placeFilterCombo.getItems().add(TUTTI_I_LUOGHI);
         placeFilterCombo.getSelectionModel().selectFirst();
+        caricaLuoghi();
+
+        // -----------------------------
+        //  PAGINA SUCCESSIVA QUANDO LA LISTA ARRIVA IN FONDO
+        // -----------------------------
+        eventsScrollPane.vvalueProperty().addListener((obs, oldV, newV) -> {
+            if (newV.doubleValue() >= SOGLIA_SCORRIMENTO) {
+                caricaPaginaSuccessiva();
+            }
+        });
 
         LocalDate today = LocalDate.now();
         startDateFilterPicker.setValue(today);
@@ -129,116 +195,298 @@ public class DashboardController {
     }
 
     /**
-     * Carica gli eventi dal DB applicando i filtri correnti e popola la lista eventi.
+     * Popola il filtro luoghi con i luoghi presenti nel DB (dalla cache delle tabelle di riferimento).
      */
-    private void loadEvents() {
-        eventsListBox.getChildren().clear();
-
-        String luogoFiltro = placeFilterCombo.getSelectionModel().getSelectedItem();
-        LocalDate dataInizioFiltro = startDateFilterPicker.getValue();
-        LocalDate dataFineFiltro = endDateFilterPicker.getValue();
-
-
-        try {
-            List<Evento> eventi;
+    private void caricaLuoghi() {
+        async.run(() -> ReferenceDataCache.getInstance().getLuoghi(), luoghi -> {
+            String selezionato = placeFilterCombo.getSelectionModel().getSelectedItem();
+
+            idLuoghi.clear();
+            List<String> nomi = new ArrayList<>();
+            nomi.add(TUTTI_I_LUOGHI);
+            for (Luogo l : luoghi) {
+                idLuoghi.put(l.getNome(), l.getId());
+                nomi.add(l.getNome());
+            }
 
-            // Se è organizzazione loggata → solo eventi di quella organizzazione
-            if (organizzazioneLoggata != null) {
-                eventi = EventoDAOMySQLImpl.getInstance()
-                        .selectByOrganizzazione(organizzazioneLoggata.getId());
+            // cambiare le voci non deve far partire un nuovo caricamento degli eventi
+            aggiornamentoLuoghi = true;
+            placeFilterCombo.getItems().setAll(nomi);
+            if (selezionato != null && nomi.contains(selezionato)) {
+                placeFilterCombo.getSelectionModel().select(selezionato);
             } else {
-                // cliente o utente generico → tutti gli eventi
-                eventi = EventoDAOMySQLImpl.getInstance().select(null);
+                placeFilterCombo.getSelectionModel().selectFirst();
             }
+            aggiornamentoLuoghi = false;
 
-            if (eventi.isEmpty()) {
-                Label empty = new Label("Nessun evento disponibile.");
-                empty.setStyle("-fx-text-fill: #777;");
-                eventsListBox.getChildren().add(empty);
-                return;
-            }
+        }, ex -> ex.printStackTrace());
+    }
 
-            boolean almenoUno = false;
+    /**
+     * Ricarica la lista eventi dalla prima pagina applicando i filtri correnti.
+     * I filtri sono applicati dalla query (EventoDAOMySQLImpl.selectPage); le pagine successive
+     * vengono lette quando la lista viene scorsa fino in fondo. Con un testo o dei tag da cercare
+     * la lista mostra invece i risultati della ricerca (EventoDAOMySQLImpl.cerca), dal più rilevante.
+     * Un nuovo caricamento annulla il precedente.
+     */
+    private void loadEvents() {
+        if (caricamentoPagina != null) {
+            caricamentoPagina.cancel(true);
+            caricamentoPagina = null;
+        }
+        generazione++;
 
-            for (Evento ev : eventi) {
+        filtroCorrente = creaFiltro();
+        ultimoEvento = null;
+        ultimaPagina = false;
 
-                // se l'evento passa i filtri, aggiungo l'evento alla lista con un bottone che rimanda al dettaglio dell'evento
-                if (!passaFiltri(ev, luogoFiltro, dataInizioFiltro, dataFineFiltro)) {
-                    continue;
-                }
+        eventsListBox.getChildren().clear();
+        eventsScrollPane.setVvalue(0);
+
+        String testo = filtroCorrente.getTesto();
+        boolean ricerca = (testo != null && !testo.isBlank()) || !filtroCorrente.getTag().isEmpty();
+        if (ricerca) {
+            cercaEventi();
+        } else {
+            caricaTagPiuUsati();
+            caricaPagina();
+        }
+    }
 
-                almenoUno = true;
+    /**
+     * Esegue in background la ricerca testuale con il filtro corrente e mostra i risultati e i tag più frequenti.
+     */
+    private void cercaEventi() {
+        EventoFiltro filtro = filtroCorrente;
+        int questaGenerazione = generazione;
+        ultimaPagina = true; // i risultati arrivano tutti insieme
+
+        indicatorePagina = indicatoreCaricamento();
+        eventsListBox.getChildren().add(indicatorePagina);
+
+        caricamentoPagina = async.run(
+                () -> EventoDAOMySQLImpl.getInstance().cerca(filtro, RISULTATI_RICERCA),
+                risultato -> {
+                    if (questaGenerazione != generazione) return;
+                    caricamentoPagina = null;
+                    eventsListBox.getChildren().remove(indicatorePagina);
+                    mostraTag(risultato.getTag());
+                    mostraPagina(risultato.getEventi(), true);
+                    ultimaPagina = true;
+                    if (risultato.getTotale() > risultato.getEventi().size()) {
+                        Label altri = new Label("Mostrati i " + risultato.getEventi().size() + " più rilevanti su "
+                                + risultato.getTotale() + ": restringi la ricerca per vedere gli altri.");
+                        altri.setWrapText(true);
+                        altri.setStyle("-fx-text-fill: #777;");
+                        eventsListBox.getChildren().add(altri);
+                    }
+                },
+                ex -> {
+                    if (questaGenerazione != generazione) return;
+                    ex.printStackTrace();
+                    caricamentoPagina = null;
+                    Label error = new Label("Errore nella ricerca degli eventi.");
+                    error.setStyle("-fx-text-fill: red;");
+                    eventsListBox.getChildren().remove(indicatorePagina);
+                    eventsListBox.getChildren().add(error);
+                });
+    }
 
-                String text = ev.getTitolo();
-                if (ev.getDataEvento() != null) {
-                    text += " - " + ev.getDataEvento();
-                }
+    /**
+     * Mostra sopra la lista i tag più usati nel catalogo (TagIndex), da cui partire per filtrare per tag.
+     */
+    private void caricaTagPiuUsati() {
+        int questaGenerazione = generazione;
+        async.run(() -> TagIndex.getInstance().piuUsati(TAG_PIU_USATI),
+                tag -> {
+                    if (questaGenerazione == generazione) mostraTag(tag);
+                },
+                ex -> ex.printStackTrace());
+    }
 
-                Button b = new Button(text);
-                b.setMaxWidth(Double.MAX_VALUE);
-                b.setStyle(
-                        "-fx-background-color: #f5f7fb;" +
-                                "-fx-background-radius: 10;" +
-                                "-fx-padding: 10;" +
-                                "-fx-text-alignment: LEFT;"
-                );
-
-                b.setOnAction(ae -> showEventoDetail(ev));
-                eventsListBox.getChildren().add(b);
-            }
+    /**
+     * Mostra sopra la lista i tag con il numero di eventi: i più frequenti tra i risultati della ricerca
+     * o i più usati nel catalogo. Un clic aggiunge o toglie il tag dal filtro; i tag scelti restano
+     * visibili anche se non più tra i frequenti. Con almeno due tag scelti compare il pulsante che
+     * passa da "tutti i tag" ad "almeno un tag".
+     *
+     * @param conteggi tag → numero di eventi, dal più frequente
+     */
+    private void mostraTag(Map<String, Integer> conteggi) {
+        tagFacetsBox.getChildren().clear();
+        boolean visibile = !conteggi.isEmpty() || !tagSelezionati.isEmpty();
+        tagFacetsBox.setVisible(visibile);
+        tagFacetsBox.setManaged(visibile);
+        if (!visibile) {
+            return;
+        }
 
-            if (!almenoUno) {
-                Label empty = new Label("Nessun evento corrisponde ai filtri selezionati.");
-                empty.setStyle("-fx-text-fill: #777;");
-                eventsListBox.getChildren().add(empty);
-            }
+        if (tagSelezionati.size() >= 2) {
+            ToggleButton modo = new ToggleButton(tuttiITag ? "Tutti i tag" : "Almeno un tag");
+            modo.setSelected(tuttiITag);
+            modo.setStyle("-fx-font-size: 11px; -fx-font-weight: bold; -fx-background-radius: 12; -fx-padding: 2 8;");
+            modo.setOnAction(ae -> {
+                tuttiITag = !tuttiITag;
+                loadEvents();
+            });
+            tagFacetsBox.getChildren().add(modo);
+        }
+
+        Map<String, Integer> tag = new LinkedHashMap<>();
+        for (String t : tagSelezionati) {
+            tag.put(t, conteggi.get(t));
+        }
+        conteggi.forEach(tag::putIfAbsent);
+
+        tag.forEach((t, n) -> {
+            ToggleButton b = new ToggleButton(n != null ? t + " (" + n + ")" : t);
+            b.setSelected(tagSelezionati.contains(t));
+            b.setStyle("-fx-font-size: 11px; -fx-background-radius: 12; -fx-padding: 2 8;");
+            b.setOnAction(ae -> {
+                if (!tagSelezionati.remove(t)) {
+                    tagSelezionati.add(t);
+                }
+                loadEvents();
+            });
+            tagFacetsBox.getChildren().add(b);
+        });
+    }
 
-        } catch (DAOException e) {
-            e.printStackTrace();
-            Label error = new Label("Errore nel caricamento degli eventi.");
-            error.setStyle("-fx-text-fill: red;");
-            eventsListBox.getChildren().add(error);
+    /**
+     * Legge la pagina successiva, se esiste e non è già in lettura.
+     */
+    private void caricaPaginaSuccessiva() {
+        if (filtroCorrente == null || caricamentoPagina != null || ultimaPagina) {
+            return;
         }
+        caricaPagina();
+    }
+
+    /**
+     * Legge in background la pagina che segue l'ultimo evento mostrato e la accoda alla lista.
+     */
+    private void caricaPagina() {
+        EventoFiltro filtro = filtroCorrente;
+        Evento cursore = ultimoEvento;
+        int questaGenerazione = generazione;
+
+        indicatorePagina = indicatoreCaricamento();
+        eventsListBox.getChildren().add(indicatorePagina);
+
+        caricamentoPagina = async.run(
+                () -> EventoDAOMySQLImpl.getInstance().selectPage(filtro, cursore, EVENTI_PER_PAGINA),
+                pagina -> {
+                    // risultato di un caricamento già sostituito da uno più recente
+                    if (questaGenerazione != generazione) return;
+                    caricamentoPagina = null;
+                    eventsListBox.getChildren().remove(indicatorePagina);
+                    mostraPagina(pagina, cursore == null);
+                },
+                ex -> {
+                    if (questaGenerazione != generazione) return;
+                    ex.printStackTrace();
+                    caricamentoPagina = null;
+                    ultimaPagina = true;
+                    Label error = new Label("Errore nel caricamento degli eventi.");
+                    error.setStyle("-fx-text-fill: red;");
+                    eventsListBox.getChildren().remove(indicatorePagina);
+                    eventsListBox.getChildren().add(error);
+                });
     }
 
     /**
-     * Verifica se un evento passa i filtri corrente (luogo e intervallo date).
+     * Accoda alla lista un bottone per ogni evento della pagina.
      *
-     * @param ev evento da valutare
-     * @param luogoFiltro filtro luogo selezionato
-     * @param dataInizioFiltro data inizio filtro (nullable)
-     * @param dataFineFiltro data fine filtro (nullable)
-     * @return true se l'evento soddisfa i filtri
+     * @param pagina eventi letti
+     * @param primaPagina true se è la prima pagina del filtro corrente
      */
-    private boolean passaFiltri(Evento ev, String luogoFiltro, LocalDate dataInizioFiltro, LocalDate dataFineFiltro) {
-
-        // ----- filtro per data (intervallo) -----
-        LocalDate dataEvento;
-        if (ev.getDataEvento() != null) {
-            try {
-                dataEvento = LocalDate.parse(ev.getDataEvento()); // nel formato yyyy-MM-dd
-            } catch (Exception ex) {
-                return false; // data non parsabile => scarto
+    private void mostraPagina(List<Evento> pagina, boolean primaPagina) {
+        ultimaPagina = pagina.size() < EVENTI_PER_PAGINA;
+
+        if (primaPagina && pagina.isEmpty()) {
+            Label empty = new Label("Nessun evento corrisponde ai filtri selezionati.");
+            empty.setStyle("-fx-text-fill: #777;");
+            eventsListBox.getChildren().add(empty);
+            return;
+        }
+
+        // per ogni evento aggiungo alla lista un bottone che rimanda al dettaglio dell'evento
+        for (Evento ev : pagina) {
+            String text = ev.getTitolo();
+            if (ev.getDataEvento() != null) {
+                text += " - " + ev.getDataEvento();
             }
 
-            if (dataInizioFiltro != null && dataEvento.isBefore(dataInizioFiltro)) return false;
-            if (dataFineFiltro != null && dataEvento.isAfter(dataFineFiltro)) return false;
+            Button b = new Button(text);
+            b.setMaxWidth(Double.MAX_VALUE);
+            b.setStyle(
+                    "-fx-background-color: #f5f7fb;" +
+                            "-fx-background-radius: 10;" +
+                            "-fx-padding: 10;" +
+                            "-fx-text-alignment: LEFT;"
+            );
+
+            b.setOnAction(ae -> apriDettaglio(ev));
+            eventsListBox.getChildren().add(b);
+        }
+
+        if (!pagina.isEmpty()) {
+            ultimoEvento = pagina.get(pagina.size() - 1);
+        }
 
-            // se è oggi e l'orario di inizio è passato, non mostrare
-            if (dataEvento.isEqual(LocalDate.now())) {
-                LocalTime oraInizio = parseOrario(ev.getOrarioInizio());
-                if (oraInizio == null) return false; // orario non parsabile => scarto
-                if (oraInizio.isBefore(LocalTime.now())) return false;
+        // se la pagina non riempie la lista non compare la barra di scorrimento: si legge subito la successiva
+        Platform.runLater(() -> {
+            if (eventsListBox.getHeight() <= eventsScrollPane.getViewportBounds().getHeight()) {
+                caricaPaginaSuccessiva();
             }
+        });
+    }
+
+    private ProgressIndicator indicatoreCaricamento() {
+        ProgressIndicator pi = new ProgressIndicator();
+        pi.setMaxSize(40, 40);
+        return pi;
+    }
+
+    /**
+     * Costruisce il filtro della query dai valori della UI.
+     * L'organizzazione loggata vede solo i propri eventi; gli eventi già iniziati non vengono mostrati.
+     *
+     * @return filtro per EventoDAOMySQLImpl.selectPage
+     */
+    private EventoFiltro creaFiltro() {
+        EventoFiltro filtro = new EventoFiltro();
+
+        if (organizzazioneLoggata != null) {
+            filtro.setIdOrganizzazione(organizzazioneLoggata.getId());
         }
 
-        // ----- filtro per luogo -----
-        if (luogoFiltro != null && !"Tutti i luoghi".equals(luogoFiltro)) {
-            String luogoEvento = ReceiptController.getNomeLuogoDaEvento(ev);
-            if (luogoEvento == null || !luogoFiltro.equals(luogoEvento)) return false;
+        String luogo = placeFilterCombo.getSelectionModel().getSelectedItem();
+        if (luogo != null && !TUTTI_I_LUOGHI.equals(luogo)) {
+            filtro.setIdLuogo(idLuoghi.get(luogo));
         }
 
-        return true;
+        filtro.setDataDa(startDateFilterPicker.getValue());
+        filtro.setDataA(endDateFilterPicker.getValue());
+        filtro.setInizioDopo(LocalDateTime.now());
+        filtro.setTesto(searchField.getText());
+        filtro.setTag(tagSelezionati);
+        filtro.setTuttiITag(tuttiITag);
+        return filtro;
+    }
+
+    /**
+     * Legge l'evento completo (descrizione e note non sono nella lista) e ne mostra il dettaglio.
+     *
+     * @param ev evento selezionato nella lista
+     */
+    private void apriDettaglio(Evento ev) {
+        async.run(() -> EventoDAOMySQLImpl.getInstance().selectById(ev.getId()),
+                completo -> showEventoDetail(completo != null ? completo : ev),
+                ex -> {
+                    ex.printStackTrace();
+                    showEventoDetail(ev);
+                });
     }
 
     // ===============================================
@@ -277,6 +525,8 @@ public class DashboardController {
 
             calendarButton.setVisible(false);
             calendarButton.setManaged(false);
+            importButton.setVisible(false);
+            importButton.setManaged(false);
 
             loadEvents();
 
@@ -292,6 +542,8 @@ public class DashboardController {
 
             calendarButton.setVisible(true);
             calendarButton.setManaged(true);
+            importButton.setVisible(true);
+            importButton.setManaged(true);
 
             loadEvents();
         }
@@ -307,12 +559,14 @@ public class DashboardController {
      */
     @FXML
     private void onFilterChanged(ActionEvent event) {
+        if (aggiornamentoLuoghi) return;
+
         String luogo = placeFilterCombo.getSelectionModel().getSelectedItem();
         LocalDate dataInizio = startDateFilterPicker.getValue();
         LocalDate dataFine = endDateFilterPicker.getValue();
 
         System.out.println("Filtro cambiato -> Luogo: " + luogo +
-                ", Dal: " + dataInizio + ", Al: " + dataFine);
+                ", Dal: " + dataInizio + ", Al: " + dataFine + ", Testo: " + searchField.getText());
 
         // reset evento selezionato
         if (eventDetailController != null) {
@@ -334,6 +588,9 @@ public class DashboardController {
     @FXML
     private void onResetFilters(ActionEvent event) {
         placeFilterCombo.getSelectionModel().selectFirst();
+        searchField.clear();
+        tagSelezionati.clear();
+        tuttiITag = true;
 
         LocalDate oggi = LocalDate.now();
         startDateFilterPicker.setValue(oggi);
@@ -399,21 +656,80 @@ public class DashboardController {
         }
     }
 
-    // UTILITY METHODS
-    private LocalTime parseOrario(String s) {
-        if (s == null || s.isBlank()) return null;
+    /**
+     * Importa gli eventi dell'organizzazione da un file CSV o JSON scelto dall'utente (in background)
+     * e mostra il riepilogo con le righe scartate.
+     *
+     * @param event evento JavaFX
+     */
+    @FXML
+    private void onImportEvents(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Importa eventi");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("File CSV o JSON", "*.csv", "*.json"));
+        File file = chooser.showOpenDialog(mainApp.getPrimaryStage());
+        if (file == null) {
+            return;
+        }
 
-        // Prova HH:mm
-        try {
-            return LocalTime.parse(s, DateTimeFormatter.ofPattern("HH:mm"));
-        } catch (DateTimeParseException ignored) {}
+        int idOrganizzazione = organizzazioneLoggata.getId();
+        importButton.setDisable(true);
+        async.run(() -> {
+                    try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                        return EventImporter.getInstance().importa(reader, EventImporter.Formato.daNomeFile(file.getName()), idOrganizzazione);
+                    } catch (IOException e) {
+                        throw new DAOException("In onImportEvents(): " + e.getMessage());
+                    }
+                },
+                report -> {
+                    importButton.setDisable(false);
+                    mostraRiepilogoImportazione(file.getName(), report);
+                    loadEvents();
+                },
+                ex -> {
+                    importButton.setDisable(false);
+                    ex.printStackTrace();
+                    Alert a = new Alert(Alert.AlertType.ERROR);
+                    a.setTitle("Importa eventi");
+                    a.setHeaderText(null);
+                    a.setContentText("Importazione non riuscita: " + ex.getMessage());
+                    a.showAndWait();
+                });
+    }
 
-        // Prova HH:mm:ss
-        try {
-            return LocalTime.parse(s, DateTimeFormatter.ofPattern("HH:mm:ss"));
-        } catch (DateTimeParseException ignored) {}
+    /**
+     * Mostra quanti eventi sono stati importati e le prime righe scartate; l'elenco completo è nel dettaglio.
+     *
+     * @param nomeFile nome del file importato
+     * @param report esito dell'importazione
+     */
+    private void mostraRiepilogoImportazione(String nomeFile, EventImportReport report) {
+        List<EventImportReport.Errore> errori = report.getErrori();
+        StringBuilder testo = new StringBuilder("Eventi letti: " + report.getRigheLette()
+                + "\nEventi importati: " + report.getIdImportati().size()
+                + "\nRighe scartate: " + errori.size());
+        for (int i = 0; i < Math.min(errori.size(), ERRORI_IN_RIEPILOGO); i++) {
+            testo.append("\n• ").append(errori.get(i));
+        }
+        if (errori.size() > ERRORI_IN_RIEPILOGO) {
+            testo.append("\n… e altre ").append(errori.size() - ERRORI_IN_RIEPILOGO).append(" (vedi dettagli)");
+        }
 
-        return null;
+        Alert a = new Alert(errori.isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+        a.setTitle("Importa eventi");
+        a.setHeaderText(nomeFile);
+        a.setContentText(testo.toString());
+        if (errori.size() > ERRORI_IN_RIEPILOGO) {
+            StringBuilder tutti = new StringBuilder();
+            for (EventImportReport.Errore e : errori) {
+                tutti.append(e).append('\n');
+            }
+            TextArea dettagli = new TextArea(tutti.toString());
+            dettagli.setEditable(false);
+            dettagli.setWrapText(true);
+            a.getDialogPane().setExpandableContent(dettagli);
+        }
+        a.showAndWait();
     }
 
 }
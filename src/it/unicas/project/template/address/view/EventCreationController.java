@@ -14,6 +14,7 @@ import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -164,8 +165,16 @@ public class EventCreationController {
     private void onOrarioFine()
     {
         // SELEZIONE ORARIO FINE → popola luoghiDisponibili -----------------------------
-        luoghiDisponibili.setDisable(false);
         luoghiDisponibili.getItems().clear();
+        collaboratoriDisponibili.getItems().clear();
+
+        // orario di fine svuotato (ad esempio cambiando l'orario di inizio): niente da cercare
+        if (dataEvento.getValue() == null || orarioInizio.getValue() == null || orarioFine.getValue() == null) {
+            luoghiDisponibili.setDisable(true);
+            collaboratoriDisponibili.setDisable(true);
+            return;
+        }
+        luoghiDisponibili.setDisable(false);
 
         // Chiamata al DB
         List<Luogo> listLuoghi;
@@ -251,7 +260,7 @@ public class EventCreationController {
                 (eventoCorrente == null ? -1 : eventoCorrente.getId()),  // id
                 titolo.getText(),
                 descrizione.getText(),
-                costi.getText(),
+                parsePrezzoSafe(costi.getText()),
                 dataEvento.getValue().toString(),
                 orarioInizio.getValue(),
                 orarioFine.getValue(),
@@ -317,10 +326,10 @@ public class EventCreationController {
         luoghiDisponibili.setStyle(luoghiDisponibili.getValue() == null ? "-fx-border-color: red;" : null);
 
         // MESSAGGIO DI ERRORE SE COSTI NON NUMERICO
-        if (parseIntSafe(costi.getText()) == null) {
+        if (parsePrezzoSafe(costi.getText()) == null) {
             costi.setStyle("-fx-border-color: red;");
             registerStatusLabel.setStyle("-fx-text-fill: red;");
-            registerStatusLabel.setText("Il campo 'Costo per posto' deve essere un valore numerico");
+            registerStatusLabel.setText("Il campo 'Costo per posto' deve essere un importo (es. 12 oppure 12,50)");
             return false;
         }
 
@@ -358,7 +367,7 @@ public class EventCreationController {
 
         titolo.setText(e.getTitolo());
         descrizione.setText(e.getDescrizione());
-        costi.setText(e.getCosti());
+        costi.setText(e.getCosti() != null ? e.getCosti().toPlainString() : "");
         tagTematici.setText(e.getTagTematici());
         noteOrganizzative.setText(e.getNoteOrganizzative());
         tipo.getSelectionModel().select(e.getIdTipoEvento()-1);
@@ -467,13 +476,17 @@ public class EventCreationController {
     }
 
     /**
-     * Parsing sicuro di Integer da String.
+     * Parsing sicuro di un prezzo in euro (virgola o punto come separatore, al più due decimali).
      *
      * @param s stringa da convertire
-     * @return Integer parsato o null se non convertibile
+     * @return prezzo con due decimali o null se non è un importo valido e non negativo
      */
-    private Integer parseIntSafe(String s) {
-        try { return Integer.parseInt(s); }
+    private BigDecimal parsePrezzoSafe(String s) {
+        try {
+            BigDecimal prezzo = new BigDecimal(s.trim().replace(',', '.'));
+            if (prezzo.signum() < 0 || prezzo.scale() > 2) return null;
+            return prezzo.setScale(2);
+        }
         catch (Exception e) { return null; }
     }
 
@@ -3,20 +3,33 @@ package it.unicas.project.template.address.view;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import it.unicas.project.template.address.MainApp;
+import it.unicas.project.template.address.model.BookingResult;
 import it.unicas.project.template.address.model.Cliente;
 import it.unicas.project.template.address.model.Prenotazione;
 import it.unicas.project.template.address.model.Evento;
 import it.unicas.project.template.address.model.Organizzazione;
-import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.PrenotazioneDAOMySQLImpl;
+import it.unicas.project.template.address.model.SeatLayout;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.mysql.AsyncDAO;
+import it.unicas.project.template.address.model.dao.mysql.BookingEngine;
+import it.unicas.project.template.address.model.dao.mysql.ReferenceDataCache;
+import it.unicas.project.template.address.model.dao.mysql.SeatEventBus;
+import it.unicas.project.template.address.model.dao.mysql.SeatHoldManager;
+import it.unicas.project.template.address.model.dao.mysql.SeatInventory;
 import it.unicas.project.template.address.model.dao.mysql.WaitlistDAOMySQLImpl;
+import it.unicas.project.template.address.util.FxAsync;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -39,6 +52,7 @@ public class EventDetailController {
     @FXML private Label eventPlaceLabel;
     @FXML private Label eventDateLabel;
     @FXML private HBox legendSelectedSeat;
+    @FXML private ScrollPane seatScrollPane;
     @FXML private GridPane seatGrid;
     @FXML private Label selectedSeatLabel;
     @FXML private Button editEventButton;
@@ -52,12 +66,28 @@ public class EventDetailController {
     private Organizzazione organizzazioneLoggata;
     private Prenotazione lastPrenotazione;
 
-    private int rows = 5;
-    private int cols = 10;
+    // Disposizione dei posti del luogo dell'evento visualizzato
+    private SeatLayout layout;
 
-    private final Set<String> occupiedSeats = new HashSet<>();
+    // Oltre questo numero di posti la mappa è disegnata su un Canvas invece che con un bottone per posto
+    private static final int SOGLIA_CANVAS = 500;
+    private static final double CELLA_CANVAS = 18;
+
+    // Stato "occupato" dei bottoni (vedi SeatMap.css); "selezionato" è lo stato :selected del ToggleButton
+    private static final PseudoClass OCCUPATO = PseudoClass.getPseudoClass("occupato");
+
+    private BitSet occupiedSeats = new BitSet();
     private List<String> selectedSeats = new ArrayList<>();
-    private ToggleButton selectedSeatButton = null;
+
+    // Mappa dell'evento visualizzato, costruita una sola volta per evento: bottoni per id del posto
+    // oppure canvas per i luoghi grandi. I cambi di stato aggiornano solo i posti interessati.
+    private final Map<Integer, ToggleButton> bottoniPosti = new HashMap<>();
+    private SeatCanvas seatCanvas;
+    private int idEventoMappa = -1;
+    private SeatEventBus.Iscrizione iscrizionePosti;
+
+    // Hold e prenotazione girano fuori dal thread JavaFX; lo scope si chiude quando la vista esce dalla finestra
+    private final FxAsync.Scope async = FxAsync.scope();
 
     /***********************************
      METODI
@@ -84,6 +114,15 @@ public class EventDetailController {
             viewReceiptButton.setVisible(false);
             viewReceiptButton.setManaged(false);
         }
+
+        async.bindTo(seatGrid);
+
+        // la vista esce dalla finestra: non servono più le variazioni dei posti
+        seatGrid.sceneProperty().addListener((obs, vecchia, nuova) -> {
+            if (nuova == null) {
+                chiudiIscrizionePosti();
+            }
+        });
     }
 
     /**
@@ -97,28 +136,98 @@ public class EventDetailController {
     }
 
     /**
-     * Gestisce il click su un posto (selettore ToggleButton): selezione/deselezione.
+     * Gestisce il click su un posto: selezione/deselezione.
+     * Il posto viene selezionato subito; la hold è scritta in background e, se un altro cliente
+     * l'ha già preso, il callback lo deseleziona e lo mostra occupato.
      *
-     * @param btn bottone del posto cliccato
-     * @param seatString rappresentazione testuale del posto (es. "A1")
+     * @param seatId id del posto cliccato
+     * @param selezionato true se il click seleziona il posto, false se lo deseleziona
      */
-    private void onSeatClicked(ToggleButton btn, String seatString) {
+    private void onSeatClicked(int seatId, boolean selezionato) {
+        String seatString = toSeatString(seatId);
         selectedSeatLabel.setStyle("-fx-text-fill: black;");
 
-        if (btn.isSelected()) {
-            stilePostoSelezionato(btn);
-            selectedSeatButton = btn;
+        if (selezionato) {
+            impostaSelezione(seatId, true);
             selectedSeats.add(seatString);
-
+            // blocca il posto per qualche minuto: gli altri clienti lo vedono occupato
+            bloccaPosto(seatId);
         }
         else {
-            stilePostoLibero(btn);
-            selectedSeatButton = null;
+            impostaSelezione(seatId, false);
             selectedSeats.remove(seatString);
+            rilasciaPosto(currentEvento, seatId);
         }
         updateSeatsLabel();
     }
 
+    /**
+     * Crea (o rinnova) in background la hold temporanea del cliente sul posto.
+     * Senza hold (errore SQL) la prenotazione resta comunque protetta dal BookingEngine.
+     *
+     * @param seatId id del posto
+     */
+    private void bloccaPosto(int seatId) {
+        if (clienteLoggato == null || currentEvento == null) return;
+
+        Evento evento = currentEvento;
+        int idCliente = clienteLoggato.getId();
+
+        async.run(() -> SeatHoldManager.getInstance().hold(evento.getId(), seatId, idCliente), preso -> {
+            boolean ancoraSelezionato = currentEvento == evento && selectedSeats.contains(toSeatString(seatId));
+            if (!preso) {
+                if (ancoraSelezionato) {
+                    String seatString = toSeatString(seatId);
+                    selectedSeats.remove(seatString);
+                    impostaSelezione(seatId, false);
+                    impostaOccupato(seatId, true);
+                    selectedSeatLabel.setText("Il posto " + seatString + " è appena stato scelto da un altro utente.");
+                    selectedSeatLabel.setStyle("-fx-text-fill: red;");
+                }
+            } else if (!ancoraSelezionato) {
+                // deselezionato (o evento cambiato) mentre la hold veniva scritta: il rilascio può averla preceduta
+                rilasciaPosto(evento, seatId);
+            }
+        }, ex -> System.err.println("Errore nel blocco del posto: " + ex.getMessage()));
+    }
+
+    /**
+     * Rilascia in background la hold del cliente sul posto deselezionato.
+     * Non passa dallo scope della vista: il rilascio deve avvenire anche se la vista viene chiusa.
+     *
+     * @param evento evento del posto
+     * @param seatId id del posto
+     */
+    private void rilasciaPosto(Evento evento, int seatId) {
+        if (clienteLoggato == null || evento == null) return;
+
+        int idCliente = clienteLoggato.getId();
+        AsyncDAO.getInstance().submit(() -> {
+            SeatHoldManager.getInstance().release(evento.getId(), seatId, idCliente);
+            return null;
+        }).exceptionally(ex -> {
+            System.err.println("Errore nel rilascio del posto: " + ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Chiamato quando una hold di questo cliente scade: il posto torna libero e viene deselezionato.
+     *
+     * @param idEvento evento della hold
+     * @param seatId id del posto
+     */
+    private void holdScaduta(int idEvento, int seatId) {
+        if (currentEvento == null || currentEvento.getId() != idEvento) return;
+
+        String seatString = toSeatString(seatId);
+        if (selectedSeats.remove(seatString)) {
+            impostaSelezione(seatId, false);
+            selectedSeatLabel.setText("Il blocco sul posto " + seatString + " è scaduto: selezionalo di nuovo.");
+            selectedSeatLabel.setStyle("-fx-text-fill: red;");
+        }
+    }
+
     /**
      * Conferma la prenotazione dei posti selezionati (se utente è cliente).
      */
@@ -129,7 +238,7 @@ public class EventDetailController {
             return;
         }
 
-        if (selectedSeatButton == null) {
+        if (selectedSeats.isEmpty()) {
             System.out.println("Nessun posto selezionato.");
             return;
         }
@@ -262,6 +371,21 @@ public class EventDetailController {
         // QUANDO L'UTENTE SELEZIONA UN EVENTO DALLA LISTA
         // VENGONO AGGIORNATI I DETTAGLI E LA MAPPA DEI POSTI
 
+        // le hold sull'evento visualizzato prima non servono più
+        if (clienteLoggato != null) {
+            if (currentEvento != null) {
+                int idEventoPrecedente = currentEvento.getId();
+                AsyncDAO.getInstance().submit(() -> {
+                    SeatHoldManager.getInstance().releaseAll(idEventoPrecedente);
+                    return null;
+                });
+            }
+            SeatHoldManager.getInstance().setListener((idEvento, seatId) ->
+                    Platform.runLater(() -> holdScaduta(idEvento, seatId)));
+        }
+        selectedSeats.clear();
+        chiudiIscrizionePosti();
+
         this.currentEvento = evento;   // <--- salva l'evento selezionato
 
         if (evento == null) {
@@ -284,12 +408,20 @@ public class EventDetailController {
         editEventButton.setVisible(canEdit);
         editEventButton.setManaged(canEdit);
 
-        recuperaPostiEvento();
-        generaMappaPosti();
+        // la mappa si costruisce solo quando cambia l'evento; altrimenti si aggiornano i posti cambiati
+        if (evento.getId() != idEventoMappa) {
+            caricaLayout();
+            recuperaPostiEvento();
+            generaMappaPosti();
+        } else {
+            aggiornaMappaPosti();
+        }
+        iscrizionePosti = SeatEventBus.getInstance().subscribe(evento.getId(),
+                v -> Platform.runLater(() -> applicaVariazione(v)));
 
         updateRoleUI();
 
-        int availableSeats = (rows * cols) - occupiedSeats.size();
+        int availableSeats = postiDisponibili();
         updateBookingButtons(availableSeats);
 
         // aggiorno lo stato della waitlist solo se l'evento è sold out e quindi il bottone è visibile
@@ -336,199 +468,306 @@ public class EventDetailController {
     }
 
     /**
-     * Genera la griglia dei posti (ToggleButton) sulla base di rows x cols,
-     * marcando i posti occupati e impostando handler sui posti liberi.
+     * Genera la mappa dei posti dell'evento corrente secondo la disposizione del luogo: una griglia
+     * di ToggleButton (uno per posto, nella sua fila e colonna) oppure, oltre SOGLIA_CANVAS posti, un unico SeatCanvas. Viene chiamata una volta per evento:
+     * i cambi successivi passano da impostaOccupato/impostaSelezione.
      */
     private void generaMappaPosti() {
 
         seatGrid.getChildren().clear();
-        selectedSeatButton = null;
+        bottoniPosti.clear();
+        seatCanvas = null;
         selectedSeatLabel.setText("nessuno");
 
         boolean isOrganizzazione = (organizzazioneLoggata != null && clienteLoggato == null);
+        seatGrid.getStyleClass().remove("mappa-organizzazione");
+        if (isOrganizzazione) {
+            seatGrid.getStyleClass().add("mappa-organizzazione");
+        }
+
+        if (layout.getCapacity() > SOGLIA_CANVAS) {
+            seatCanvas = new SeatCanvas(layout, CELLA_CANVAS);
+            seatCanvas.setSolaLettura(isOrganizzazione);
+            seatCanvas.setOccupati(occupiedSeats);
+            seatCanvas.setOnSeatClicked(seatId -> onSeatClicked(seatId, !seatCanvas.isSelezionato(seatId)));
+            seatScrollPane.setContent(seatCanvas);
 
-        for (int r = 0; r < rows; r++) {
-            char rowLetter = (char) ('A' + r);
-            for (int c = 0; c < cols; c++) {
-                String seatString = "" + rowLetter + (c + 1);
+        } else {
+            for (int seatId = 1; seatId <= layout.getCapacity(); seatId++) {
+                int id = seatId;
 
-                ToggleButton btn = new ToggleButton(seatString);
+                ToggleButton btn = new ToggleButton(toSeatString(id));
+                btn.getStyleClass().add("posto");
                 btn.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
                 GridPane.setHgrow(btn, Priority.ALWAYS);
                 GridPane.setVgrow(btn, Priority.ALWAYS);
 
-                if (occupiedSeats.contains(seatString)) {
-                    // posto occupato: rosso e disabilitato
-                    btn.setDisable(true);
-                    boolean isOrganizzazioneLogged = (organizzazioneLoggata != null && clienteLoggato == null);
-                    double opacityValue = isOrganizzazioneLogged ? 0.6 : 1.0;
-
-                    btn.setStyle(
-                            "-fx-background-color: #F44336;" +
-                                    "-fx-text-fill: white;" +
-                                    "-fx-opacity: " + opacityValue + ";"
-                    );
-                } else {
-                    // posto libero: verde
-                    stilePostoLibero(btn);
-
-                    if (isOrganizzazione) {
-                        // organizzazione: vede i posti ma NON può cliccarli
-                        btn.setDisable(true);
-                    } else {
-                        final String idForHandler = seatString;
-                        btn.setOnAction(e -> onSeatClicked(btn, idForHandler));
-                    }
-                }
+                // organizzazione: vede i posti ma NON può cliccarli (disabilitati da impostaOccupato)
+                btn.setOnAction(e -> onSeatClicked(id, btn.isSelected()));
 
-                seatGrid.add(btn, c, r);
+                bottoniPosti.put(id, btn);
+                seatGrid.add(btn, layout.getColonna(id), layout.getFila(id));
+                impostaOccupato(id, occupiedSeats.get(id));
             }
+            seatScrollPane.setContent(seatGrid);
         }
+
+        idEventoMappa = currentEvento.getId();
     }
 
     /**
-     * Recupera la lista di posti occupati per l'evento dal DB e popola occupiedSeats.
+     * Rilegge i posti occupati e aggiorna nella mappa solo quelli cambiati.
      */
-    private void recuperaPostiEvento() {
+    private void aggiornaMappaPosti() {
+        BitSet cambiati = (BitSet) occupiedSeats.clone();
+        recuperaPostiEvento();
+        cambiati.xor(occupiedSeats);
 
-        // RECUPERA I POSTI OCCUPATI DAL DB
+        for (int seatId = cambiati.nextSetBit(1); seatId >= 0; seatId = cambiati.nextSetBit(seatId + 1)) {
+            impostaOccupato(seatId, occupiedSeats.get(seatId));
+        }
+    }
 
-        if (currentEvento == null) return;
+    /**
+     * Segna un posto come occupato o libero nella mappa (bottone o canvas).
+     *
+     * @param seatId id del posto
+     * @param occupato true se il posto è prenotato o bloccato da un altro cliente
+     */
+    private void impostaOccupato(int seatId, boolean occupato) {
+        occupiedSeats.set(seatId, occupato);
 
-        occupiedSeats.clear();
-        try {
-            List<Integer> postiOccupatiDB = EventoDAOMySQLImpl.getInstance().selectReservedSeats(currentEvento.getId());
-            for (Integer seatId : postiOccupatiDB) {
-                String seatString = toSeatString(seatId);
-                occupiedSeats.add(seatString);
-            }
-        } catch (Exception e) {
-            System.err.println("Errore nel recupero dei posti occupati: " + e.getMessage());
+        if (seatCanvas != null) {
+            seatCanvas.setOccupato(seatId, occupato);
+            return;
+        }
+        ToggleButton btn = bottoniPosti.get(seatId);
+        if (btn != null) {
+            boolean isOrganizzazione = (organizzazioneLoggata != null && clienteLoggato == null);
+            btn.pseudoClassStateChanged(OCCUPATO, occupato);
+            btn.setDisable(occupato || isOrganizzazione);
         }
     }
 
     /**
-     * Prova a riservare i posti selezionati nel DB e aggiorna UI su successo o errore.
+     * Seleziona o deseleziona un posto nella mappa (bottone o canvas).
+     *
+     * @param seatId id del posto
+     * @param selezionato true per selezionarlo
      */
-    private void confermaPrenotazionePosto() {
-        // PROVA A INSERIRE LA PRENOTAZIONE NEL DB
-        // SE IL POSTO E' GIA' OCCUPATO, AGGIORNA L'INTERFACCIA DEI POSTI
-        // PER MOSTRARE CHE IL POSTO NON E' PIU' DISPONIBILE
-
-        List<Integer> seatsId = new ArrayList<>();
-        for (String seatString : selectedSeats) {
-            seatsId.add(toSeatId(seatString));
+    private void impostaSelezione(int seatId, boolean selezionato) {
+        if (seatCanvas != null) {
+            seatCanvas.setSelezionato(seatId, selezionato);
+            return;
         }
+        ToggleButton btn = bottoniPosti.get(seatId);
+        if (btn != null) {
+            btn.setSelected(selezionato);
+        }
+    }
 
-        try {
-            EventoDAOMySQLImpl.getInstance().insertSeatReservation(currentEvento.getId(), seatsId);
+    /**
+     * Applica una variazione ricevuta da SeatEventBus: aggiorna solo i bottoni dei posti cambiati.
+     * Se un posto selezionato da questo cliente risulta preso da un altro, viene deselezionato.
+     *
+     * @param v variazione dei posti
+     */
+    private void applicaVariazione(SeatEventBus.Variazione v) {
+        if (currentEvento == null || currentEvento.getId() != v.getIdEvento()) return;
 
-            // INVIA IL SEGNALE PER SALVARE LA PRENOTAZIONE E GENERARE LA RICEVUTA
-            String seatString = String.join(", ", selectedSeats);
-            sendSignalBookingSuccess(seatString);
+        // le variazioni causate da questo cliente sono già nella mappa
+        if (clienteLoggato != null && v.getIdCliente() == clienteLoggato.getId()) return;
 
-            recuperaPostiEvento();
-            generaMappaPosti();
+        List<String> persi = new ArrayList<>();
 
-            // Messaggio per più posti
-            String seatsJoined = String.join(", ", selectedSeats);
-            selectedSeatLabel.setText("I posti " + seatsJoined + " sono stati prenotati con successo.");
-            selectedSeatLabel.setStyle("-fx-text-fill: green;");
+        for (Integer seatId : v.getPosti()) {
+            if (!layout.contiene(seatId)) continue;
 
-            selectedSeats.clear();
+            String seatString = toSeatString(seatId);
+            if (v.isOccupati() && selectedSeats.remove(seatString)) {
+                impostaSelezione(seatId, false);
+                persi.add(seatString);
+            }
+            if (v.isOccupati() || !selectedSeats.contains(seatString)) {
+                impostaOccupato(seatId, v.isOccupati());
+            }
+        }
 
-        } catch (Exception e) {
-            System.err.println("Errore nella prenotazione dei posti: " + e.getMessage());
+        if (!persi.isEmpty()) {
+            selectedSeatLabel.setText("I posti " + String.join(", ", persi) + " sono stati presi da un altro utente.");
+            selectedSeatLabel.setStyle("-fx-text-fill: red;");
+        }
 
-            recuperaPostiEvento();
-            generaMappaPosti();
+        updateBookingButtons(postiDisponibili());
+    }
 
-            // Messaggio per più posti
-            String seatsJoined = String.join(", ", selectedSeats);
-            selectedSeatLabel.setText("Alcuni posti non sono più disponibili.");
-            selectedSeatLabel.setStyle("-fx-text-fill: red;");
+    private void chiudiIscrizionePosti() {
+        if (iscrizionePosti != null) {
+            iscrizionePosti.close();
+            iscrizionePosti = null;
+        }
+    }
 
-            selectedSeats.clear();
+    /**
+     * Legge da ReferenceDataCache la disposizione dei posti del luogo dell'evento corrente.
+     * Se il luogo non si trova la mappa mostra una sola fila vuota.
+     */
+    private void caricaLayout() {
+        try {
+            layout = ReferenceDataCache.getInstance().getLayout(currentEvento.getIdLuogoEvento());
+        } catch (DAOException e) {
+            layout = null;
+            System.err.println("Errore nel recupero della disposizione dei posti: " + e.getMessage());
+        }
+        if (layout == null) {
+            layout = SeatLayout.standard(1);
         }
+    }
 
+    /**
+     * Recupera i posti occupati per l'evento da SeatInventory, più quelli bloccati da altri clienti,
+     * e aggiorna occupiedSeats.
+     * Il DB viene letto solo la prima volta (o dopo un errore di scrittura che ha invalidato l'inventario).
+     */
+    private void recuperaPostiEvento() {
 
+        if (currentEvento == null) return;
+
+        try {
+            occupiedSeats = SeatInventory.getInstance().snapshot(currentEvento.getId());
+            // i posti bloccati temporaneamente da altri clienti si mostrano come occupati
+            int idCliente = clienteLoggato != null ? clienteLoggato.getId() : -1;
+            occupiedSeats.or(SeatHoldManager.getInstance().heldByOthers(currentEvento.getId(), idCliente));
+        } catch (DAOException e) {
+            occupiedSeats = new BitSet();
+            System.err.println("Errore nel recupero dei posti occupati: " + e.getMessage());
+        }
     }
 
     /**
-     * Aggiorna l'etichetta che mostra i posti attualmente selezionati.
+     * Numero di posti ancora liberi nella mappa dell'evento corrente.
+     *
+     * @return posti liberi
      */
-    private void updateSeatsLabel()
-    {
-        String seatString = String.join(", ", selectedSeats);
-        selectedSeatLabel.setText(seatString);
+    private int postiDisponibili() {
+        int capacity = layout.getCapacity();
+        return capacity - occupiedSeats.get(1, capacity + 1).cardinality();
     }
 
     /**
-     * Invia il segnale (crea Prenotazione DB e altre azioni) dopo che la prenotazione è stata confermata.
-     *
-     * @param selectedSeatStrings stringa costituita dai posti prenotati (es. "A1, B3")
+     * Riserva i posti selezionati e salva la prenotazione in un'unica transazione (BookingEngine).
+     * Se alcuni posti sono stati presi nel frattempo da un altro utente, nessun posto viene riservato:
+     * la mappa viene aggiornata e restano selezionati solo i posti ancora liberi, così l'utente
+     * può sostituire quelli persi e confermare di nuovo.
      */
-    private void sendSignalBookingSuccess(String selectedSeatStrings)
-    {
-        // DATI A DISPOSIZIONE
-        // selectedSeats: lista dei posti prenotati (es. ["A1", "B3", "C5"])
-        // currentEvento: l'evento per cui è stata fatta la prenotazione
-        // clienteLoggato: il cliente che ha effettuato la prenotazione
+    private void confermaPrenotazionePosto() {
         if (clienteLoggato == null || currentEvento == null || selectedSeats.isEmpty()) {
             System.err.println("Dati mancanti per la prenotazione.");
             return;
         }
 
-        try {
+        List<Integer> seatsId = new ArrayList<>();
+        for (String seatString : selectedSeats) {
+            seatsId.add(toSeatId(seatString));
+        }
 
-            String numeroPosto = String.join(", ", selectedSeats);
+        List<String> postiRichiesti = new ArrayList<>(selectedSeats);
+        String numeroPosto = String.join(", ", postiRichiesti);
+
+        LocalDate oggi = LocalDate.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        String dataFormattataOggi = oggi.format(formatter);
+
+        String ora = java.time.LocalTime.now().withNano(0).toString();
+
+        // stato prenotazione (1 = confermata : 0 = annullata, ad esempio)
+        Prenotazione prenotazione = new Prenotazione(
+                0,
+                dataFormattataOggi,
+                ora,
+                numeroPosto,
+                clienteLoggato.getId(),
+                currentEvento.getId(),
+                1
+        );
+
+        Evento evento = currentEvento;
+        confirmBookingButton.setDisable(true);
+        selectedSeatLabel.setText("Prenotazione in corso...");
+        selectedSeatLabel.setStyle("-fx-text-fill: black;");
 
-            LocalDate oggi = LocalDate.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-            String dataFormattataOggi = oggi.format(formatter);
+        // la prenotazione non passa dallo scope della vista: chiudendo la vista si scarta solo il callback,
+        // senza interrompere una scrittura che può essere già confermata
+        CompletableFuture<BookingResult> prenotazioneInCorso =
+                AsyncDAO.getInstance().submit(() -> BookingEngine.getInstance().prenota(prenotazione, seatsId));
 
-            String ora = java.time.LocalTime.now().withNano(0).toString();
+        async.segui(prenotazioneInCorso, esito -> {
+            confirmBookingButton.setDisable(false);
+            // l'utente è passato a un altro evento: la mappa attuale non riguarda questa prenotazione
+            if (currentEvento != evento) return;
 
-            // stato prenotazione (1 = confermata : 0 = annullata, ad esempio)
-            Prenotazione prenotazione = new Prenotazione(
-                    0,
-                    dataFormattataOggi,
-                    ora,
-                    numeroPosto,
-                    clienteLoggato.getId(),
-                    currentEvento.getId(),
-                    1
-            );
+            if (esito.isConfermata()) {
+                for (Integer seatId : seatsId) {
+                    impostaSelezione(seatId, false);
+                }
+            } else {
+                for (Integer seatId : esito.getPostiInConflitto()) {
+                    impostaSelezione(seatId, false);
+                }
+            }
+            aggiornaMappaPosti();
+            updateBookingButtons(postiDisponibili());
 
-            // Salva su DB
-            PrenotazioneDAOMySQLImpl.getInstance().insert(prenotazione);
+            if (esito.isConfermata()) {
+                // Salviamo anche in memoria l'ultima prenotazione
+                lastPrenotazione = esito.getPrenotazione();
 
-            // Salviamo anche in memoria l'ultima prenotazione
-            lastPrenotazione = prenotazione;
+                selectedSeatLabel.setText("Prenotazione confermata per i posti: " + numeroPosto);
+                selectedSeatLabel.setStyle("-fx-text-fill: green;");
 
-            // Aggiorna interfaccia
-            recuperaPostiEvento();
-            generaMappaPosti();
+                // Mostra il bottone "Visualizza ricevuta" SOLO SE CLIENTE
+                showReceiptButtonIfCliente();
 
-            int availableSeats = (rows * cols) - occupiedSeats.size();
-            updateBookingButtons(availableSeats);
+                selectedSeats.removeAll(postiRichiesti);
+            } else {
+                List<String> persi = new ArrayList<>();
+                for (Integer seatId : esito.getPostiInConflitto()) {
+                    persi.add(toSeatString(seatId));
+                }
+                selectedSeats.removeAll(persi);
 
-            String posti = String.join(", ", selectedSeats);
-            selectedSeatLabel.setText("Prenotazione confermata per i posti: " + posti);
-            selectedSeatLabel.setStyle("-fx-text-fill: green;");
+                String messaggio = "I posti " + String.join(", ", persi) + " non sono più disponibili.";
+                if (!selectedSeats.isEmpty()) {
+                    messaggio += " Restano selezionati: " + String.join(", ", selectedSeats) + ".";
+                }
+                selectedSeatLabel.setText(messaggio);
+                selectedSeatLabel.setStyle("-fx-text-fill: red;");
+            }
 
-            // Mostra il bottone "Visualizza ricevuta" SOLO SE CLIENTE
-            showReceiptButtonIfCliente();
+        }, ex -> {
+            System.err.println("Errore nella prenotazione dei posti: " + ex.getMessage());
+            confirmBookingButton.setDisable(false);
+            if (currentEvento != evento) return;
 
-            // Pulisce selezione
-            selectedSeats.clear();
-            selectedSeatButton = null;
+            for (Integer seatId : seatsId) {
+                impostaSelezione(seatId, false);
+            }
+            aggiornaMappaPosti();
 
-        } catch (Exception e) {
-            System.err.println("Errore durante la prenotazione: " + e.getMessage());
             selectedSeatLabel.setText("Errore nella conferma della prenotazione.");
             selectedSeatLabel.setStyle("-fx-text-fill: red;");
-        }
+
+            selectedSeats.removeAll(postiRichiesti);
+        });
+    }
+
+    /**
+     * Aggiorna l'etichetta che mostra i posti attualmente selezionati.
+     */
+    private void updateSeatsLabel()
+    {
+        String seatString = String.join(", ", selectedSeats);
+        selectedSeatLabel.setText(seatString);
     }
 
     /**
@@ -548,57 +787,23 @@ public class EventDetailController {
      **************************************/
 
     /**
-     * Converte un id numerico in stringa posto (es. 1 -> "A1").
+     * Converte un id numerico in stringa posto (es. 1 -> "A1") secondo la disposizione del luogo.
      *
      * @param seatId id numerico del posto
      * @return rappresentazione testuale del posto
      */
     private String toSeatString(int seatId) {
-        if (seatId < 0) throw new IllegalArgumentException("Indice negativo");
-
-        int row = (seatId-1) / cols;
-        int col = ((seatId-1) % cols) + 1;
-
-        char rowChar = (char) ('A' + row);
-
-        return "" + rowChar + col;
+        return layout.getEtichetta(seatId);
     }
 
 
     /**
-     * Converte una stringa posto (es. "A1") in id numerico interno.
+     * Converte una stringa posto (es. "A1") in id numerico interno secondo la disposizione del luogo.
      *
      * @param seatString rappresentazione testuale del posto
      * @return id numerico del posto
      */
     private int toSeatId(String seatString) {
-        if (seatString == null || seatString.length() < 2)
-            throw new IllegalArgumentException("Formato posto non valido: " + seatString);
-
-        char rowChar = seatString.toUpperCase().charAt(0);
-        int row = rowChar - 'A';
-
-        int col = Integer.parseInt(seatString.substring(1));
-
-        return row * cols + col;
-
-    }
-
-    /**
-     * Applica stile CSS per un posto libero.
-     *
-     * @param b ToggleButton del posto
-     */
-    private void stilePostoLibero(ToggleButton b) {
-        b.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
-    }
-
-    /**
-     * Applica stile CSS per un posto selezionato.
-     *
-     * @param b ToggleButton del posto
-     */
-    private void stilePostoSelezionato(ToggleButton b) {
-        b.setStyle("-fx-background-color: #FFC107; -fx-text-fill: black;");
+        return layout.getId(seatString);
     }
 }
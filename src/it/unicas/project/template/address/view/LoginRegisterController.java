@@ -7,26 +7,22 @@ import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
 import it.unicas.project.template.address.model.dao.mysql.ClienteDAOMySQLImpl;
 import it.unicas.project.template.address.model.dao.mysql.OrganizzazioneDAOMySQLImpl;
-import java.sql.ResultSet;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import java.net.URL;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.sql.Statement;
-import java.sql.SQLException;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javafx.scene.layout.VBox;
 import java.time.format.DateTimeFormatter;
 import javafx.animation.PauseTransition;
 import javafx.util.Duration;
-import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
+import it.unicas.project.template.address.model.dao.mysql.ReferenceDataCache;
+import it.unicas.project.template.address.util.FxAsync;
 import it.unicas.project.template.address.MainApp;
 
 /**
@@ -83,6 +79,12 @@ public class LoginRegisterController implements Initializable {
     private MainApp mainApp;
     private  Organizzazione utente;
 
+    private final FxAsync.Scope async = FxAsync.scope();
+
+    // Esito dell'autenticazione: al più uno dei due è valorizzato
+    private record EsitoLogin(Cliente cliente, Organizzazione organizzazione) {
+    }
+
     // Stili
     private static final String ERROR_STYLE = "-fx-border-color: red; -fx-border-width: 1px;";
     private static final String SUCCESS_STYLE = "-fx-text-fill: green;";
@@ -100,6 +102,7 @@ public class LoginRegisterController implements Initializable {
 
         loginStatusLabel.setText("");
         registerStatusLabel.setText("");
+        async.bindTo(loginButton);
 
         orgTipologiaComboBox.getItems().addAll("COMUNE", "ASSOCIAZIONE", "PICCOLA FONDAZIONE");
 
@@ -177,55 +180,79 @@ public class LoginRegisterController implements Initializable {
         }
 
         // Esecuzione Login
-        try {
-            executeLogin(email, password);
-
-        } catch (DAOException e) {
-
-            showErrorAlert("Errore Login", "Errore database", e.getMessage());
-
-        }
+        executeLogin(email, password);
 
     }
 
 
     /**
      * Logica di autenticazione che verifica prima il Cliente poi l'Organizzazione.
+     * Le query girano in background: nel frattempo il bottone di login è disabilitato
+     * e mostra un indicatore di avanzamento.
      *
      * @param email email inserita
      * @param password password inserita
-     * @throws DAOException in caso di errori nell'accesso al DB
      */
-    private void executeLogin(String email, String password) throws DAOException {
+    private void executeLogin(String email, String password) {
+
+        ProgressIndicator attesa = new ProgressIndicator();
+        attesa.setPrefSize(16, 16);
+        loginButton.setGraphic(attesa);
+        loginButton.setDisable(true);
+        loginStatusLabel.setStyle("");
+        loginStatusLabel.setText("Accesso in corso...");
+
+        async.run(() -> {
+
+            //Caso Cliente
+            Cliente cliente = ((ClienteDAOMySQLImpl) ClienteDAOMySQLImpl.getInstance())
+                    .getClienteEmailPassword(email, password);
+            if (cliente != null) {
+                return new EsitoLogin(cliente, null);
+            }
 
-        //Caso Cliente
-        Cliente cliente = ((ClienteDAOMySQLImpl) ClienteDAOMySQLImpl.getInstance())
-                .getClienteEmailPassword(email, password);
+            //Caso Organizzazione
+            Organizzazione org = ((OrganizzazioneDAOMySQLImpl) OrganizzazioneDAOMySQLImpl.getInstance())
+                    .getOrganizzazioneEmailPassword(email, password);
+            return new EsitoLogin(null, org);
 
-        // Se trovato Cliente con quella email e password, login OK
-        if (cliente != null) {
-            loginSuccess("Login effettuato (Cliente)");
-            mainApp.showDashboardAsCliente(cliente);
-            return;
-        }
+        }, esito -> {
+            fineAttesaLogin();
 
-        //Caso Organizzazione
-        Organizzazione org = ((OrganizzazioneDAOMySQLImpl) OrganizzazioneDAOMySQLImpl.getInstance())
-                .getOrganizzazioneEmailPassword(email, password);
+            // Se trovato Cliente con quella email e password, login OK
+            if (esito.cliente() != null) {
+                loginSuccess("Login effettuato (Cliente)");
+                mainApp.showDashboardAsCliente(esito.cliente());
+                return;
+            }
 
-        // Se trovato Organizzazione con quella email e password, login OK
-        if (org != null) {
-            loginSuccess("Login effettuato (Organizzatore)");
-            mainApp.showDashboardAsOrganizzazione(org);
-            return;
-        }
+            // Se trovato Organizzazione con quella email e password, login OK
+            if (esito.organizzazione() != null) {
+                loginSuccess("Login effettuato (Organizzatore)");
+                mainApp.showDashboardAsOrganizzazione(esito.organizzazione());
+                return;
+            }
+
+            // Nessun riscontro
+            loginStatusLabel.setStyle(ERROR_TEXT_STYLE);
+            loginStatusLabel.setText("Credenziali errate.");
+            loginPasswordField.clear();
+            setError(loginEmailField);
+            setError(loginPasswordField);
+
+        }, ex -> {
+            fineAttesaLogin();
+            loginStatusLabel.setText("");
+            showErrorAlert("Errore Login", "Errore database", ex.getMessage());
+        });
 
-        // Nessun riscontro
-        loginStatusLabel.setStyle(ERROR_TEXT_STYLE);
-        loginStatusLabel.setText("Credenziali errate.");
-        loginPasswordField.clear();
-        setError(loginEmailField);
-        setError(loginPasswordField);
+    }
+
+
+    private void fineAttesaLogin() {
+
+        loginButton.setGraphic(null);
+        loginButton.setDisable(false);
 
     }
 
@@ -263,7 +290,7 @@ public class LoginRegisterController implements Initializable {
 
             }
 
-        } catch (DAOException | SQLException e) {
+        } catch (DAOException e) {
 
             showErrorAlert("Errore Registrazione", "Impossibile registrare utente", e.getMessage());
 
@@ -356,9 +383,8 @@ public class LoginRegisterController implements Initializable {
      * Registra una nuova Organizzazione sul DB dopo validazione dei campi.
      *
      * @throws DAOException in caso di errore DB
-     * @throws SQLException in caso di errore SQL nella ricerca tipologia
      */
-    private void registerOrganizzazione() throws DAOException, SQLException {
+    private void registerOrganizzazione() throws DAOException {
 
         // Reset Stili e Messaggi
         resetStyles(regNomeField, orgTipologiaComboBox, regEmailField, regPasswordField);
@@ -456,51 +482,25 @@ public class LoginRegisterController implements Initializable {
      *
      * @param email email da verificare
      * @return true se l'email è già utilizzata
-     * @throws DAOException in caso di errore DB durante la lettura delle tabelle
+     * @throws DAOException in caso di errore DB
      */
     private boolean isEmailTaken(String email) throws DAOException {
 
-        List<Cliente> clienti = ClienteDAOMySQLImpl.getInstance().select(null);
-        for (Cliente c : clienti) {
-
-            if (c.getEmail().equalsIgnoreCase(email))
-                return true;
-
-        }
-
-        List<Organizzazione> orgs = OrganizzazioneDAOMySQLImpl.getInstance().select(null);
-        for (Organizzazione o : orgs) {
-
-            if (o.getEmail().equalsIgnoreCase(email))
-                return true;
-
-        }
-
-        return false;
+        return ((ClienteDAOMySQLImpl) ClienteDAOMySQLImpl.getInstance()).existsByEmail(email);
 
     }
 
     /**
-     * Esegue una query per ottenere l'ID della tipologia di organizzazione a dal nome.
+     * Restituisce l'ID della tipologia di organizzazione dal nome, dalla cache delle tabelle di riferimento.
      *
      * @param nomeTipologia nome della tipologia
      * @return id tipologia se trovato, -1 altrimenti
-     * @throws SQLException in caso di errore nella query
+     * @throws DAOException in caso di errore nel caricamento della tabella
      */
-    private int fetchIdTipologia(String nomeTipologia) throws SQLException {
-
-        String query = "SELECT idTIPO_ORGANIZZAZIONE FROM tipo_organizzazione WHERE nome='" + nomeTipologia + "'";
-        try (Statement st = DAOMySQLSettings.getStatement(); ResultSet rs = st.executeQuery(query)) {
-
-            if (rs.next()) {
-
-                return rs.getInt("idTIPO_ORGANIZZAZIONE");
-
-            }
-
-        }
+    private int fetchIdTipologia(String nomeTipologia) throws DAOException {
 
-        return -1;
+        return ReferenceDataCache.getInstance()
+                .getId(ReferenceDataCache.Tabella.TIPO_ORGANIZZAZIONE, nomeTipologia);
 
     }
 
@@ -2,21 +2,30 @@ package it.unicas.project.template.address.view;
 
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.Evento;
+import it.unicas.project.template.address.model.IncassiCategoria;
 import it.unicas.project.template.address.model.Organizzazione;
 import it.unicas.project.template.address.model.ReportEventoVendite;
-import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.VenditePeriodo;
 import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.VenditeDAOMySQLImpl;
+import it.unicas.project.template.address.util.FxAsync;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TextArea;
+import javafx.scene.layout.BorderPane;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,11 +44,16 @@ public class ReportController {
     private Organizzazione loggedOrganizzazione;
     private List<ReportEventoVendite> eventi_organizzazione;
 
+    // Settimane mostrate nella curva delle vendite
+    private static final int SETTIMANE_ANDAMENTO = 26;
+
     @FXML private TabPane tabPane;
 
     @FXML private Button logoutButton;
 
     @FXML private Button back;
+
+    private final FxAsync.Scope async = FxAsync.scope();
     /*************************************
      * GETTER AND SETTER
      ***************************************/
@@ -53,8 +67,6 @@ public class ReportController {
         this.loggedOrganizzazione = mainApp.getLoggedOrganizzazione();
 
         recuperaEventiOrganizzazioneDB();
-        plotReportVendite();
-        plotGuadagniEventi();
     }
 
     /**
@@ -62,6 +74,7 @@ public class ReportController {
      */
     @FXML
     public void initialize() {
+        async.bindTo(tabPane);
     }
 
     /**
@@ -133,7 +146,7 @@ public class ReportController {
 
         // Inserisci i dati reali dal DB
         for (ReportEventoVendite e : eventi_organizzazione) {
-            double guadagno = e.getPostiVenduti() * e.getCostoPosti(); // calcolo guadagno totale
+            double guadagno = e.getIncasso().doubleValue(); // incasso ai prezzi del momento della vendita
             serie.getData().add(new XYChart.Data<>(
                     "Titolo: " + e.getTitolo() + "\nData: " + e.getDataEvento(),
                     guadagno
@@ -147,17 +160,116 @@ public class ReportController {
     }
 
     /**
-     * Recupera i dati del DB relativi agli eventi dell'organizzazione loggata.
-     * Popola la lista eventi_organizzazione.
+     * Costruisce e aggiunge il grafico dell'andamento settimanale delle vendite (posti e incasso netti).
+     *
+     * @param settimane vendite per settimana, in ordine cronologico
+     */
+    private void plotAndamentoVendite(List<VenditePeriodo> settimane) {
+
+        CategoryAxis xAxis = new CategoryAxis();
+        NumberAxis yAxis = new NumberAxis();
+
+        xAxis.setLabel("Settimana");
+        yAxis.setLabel("Posti venduti / Incasso (€)");
+
+        LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
+        lineChart.setTitle("Andamento vendite (ultime " + SETTIMANE_ANDAMENTO + " settimane)");
+
+        XYChart.Series<String, Number> posti = new XYChart.Series<>();
+        posti.setName("Posti venduti");
+        XYChart.Series<String, Number> incasso = new XYChart.Series<>();
+        incasso.setName("Incasso");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yy");
+        for (VenditePeriodo v : settimane) {
+            String settimana = v.getInizio().format(formatter);
+            posti.getData().add(new XYChart.Data<>(settimana, v.getPostiVenduti()));
+            incasso.getData().add(new XYChart.Data<>(settimana, v.getIncasso()));
+        }
+
+        lineChart.getData().add(posti);
+        lineChart.getData().add(incasso);
+
+        addFixedTab("Andamento Vendite", lineChart);
+    }
+
+    /**
+     * Costruisce e aggiunge il grafico degli incassi per categoria, con i totali e le medie
+     * calcolati dal database (la riga di totale non compare tra le barre).
+     *
+     * @param categorie riepilogo per categoria, seguito dal totale
+     */
+    private void plotIncassiCategoria(List<IncassiCategoria> categorie) {
+
+        CategoryAxis xAxis = new CategoryAxis();
+        NumberAxis yAxis = new NumberAxis();
+
+        xAxis.setLabel("Categoria");
+        yAxis.setLabel("Incasso (€)");
+
+        BarChart<String, Number> barChart = new BarChart<>(xAxis, yAxis);
+        barChart.setTitle("Incassi per Categoria");
+
+        XYChart.Series<String, Number> incasso = new XYChart.Series<>();
+        incasso.setName("Incasso totale");
+        XYChart.Series<String, Number> medio = new XYChart.Series<>();
+        medio.setName("Incasso medio per evento");
+
+        Label totali = new Label("Nessun evento concluso.");
+        for (IncassiCategoria c : categorie) {
+            if (c.isTotale()) {
+                totali.setText("Eventi: " + c.getEventi()
+                        + "   Posti venduti: " + c.getPostiVenduti()
+                        + "   Incasso: " + c.getIncasso() + " €"
+                        + "   Media per evento: " + c.getIncassoMedio() + " €"
+                        + "   Prezzo medio: " + c.getPrezzoMedio() + " €");
+            } else {
+                incasso.getData().add(new XYChart.Data<>(c.getCategoria(), c.getIncasso()));
+                medio.getData().add(new XYChart.Data<>(c.getCategoria(), c.getIncassoMedio()));
+            }
+        }
+
+        barChart.getData().add(incasso);
+        barChart.getData().add(medio);
+
+        BorderPane contenuto = new BorderPane(barChart);
+        contenuto.setBottom(totali);
+        addFixedTab("Incassi per Categoria", contenuto);
+    }
+
+    /**
+     * Recupera in background i dati del DB relativi agli eventi dell'organizzazione loggata.
+     * Popola la lista eventi_organizzazione e disegna i grafici; nel frattempo mostra una tab di caricamento.
      */
     private void recuperaEventiOrganizzazioneDB()
     {
-        try {
-            eventi_organizzazione = EventoDAOMySQLImpl.getInstance()
-                    .selectReportVenditeByOrganizzazione(loggedOrganizzazione.getId());
-        } catch (DAOException e) {
-            throw new RuntimeException(e);
-        }
+        Tab caricamento = new Tab("Caricamento...", new ProgressIndicator());
+        caricamento.setClosable(false);
+        tabPane.getTabs().add(caricamento);
+
+        int idOrganizzazione = loggedOrganizzazione.getId();
+        async.run(() -> EventoDAOMySQLImpl.getInstance().selectReportVenditeByOrganizzazione(idOrganizzazione),
+                eventi -> {
+                    tabPane.getTabs().remove(caricamento);
+                    eventi_organizzazione = eventi;
+                    plotReportVendite();
+                    plotGuadagniEventi();
+                },
+                ex -> {
+                    ex.printStackTrace();
+                    caricamento.setText("Errore");
+                    caricamento.setContent(new Label("Errore nel caricamento dei dati di vendita."));
+                });
+
+        LocalDate oggi = LocalDate.now();
+        async.run(() -> VenditeDAOMySQLImpl.getInstance().selectAndamento(idOrganizzazione,
+                        VenditePeriodo.Granularita.SETTIMANA, oggi.minusWeeks(SETTIMANE_ANDAMENTO), oggi),
+                this::plotAndamentoVendite,
+                Throwable::printStackTrace);
+
+        async.run(() -> VenditeDAOMySQLImpl.getInstance().selectIncassiPerCategoria(idOrganizzazione),
+                this::plotIncassiCategoria,
+                Throwable::printStackTrace);
     }
 
     /**
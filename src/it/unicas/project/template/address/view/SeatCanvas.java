@@ -0,0 +1,149 @@
+package it.unicas.project.template.address.view;
+
+import it.unicas.project.template.address.model.SeatLayout;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Mappa posti disegnata su un unico Canvas, per i luoghi con migliaia di posti:
+ * un nodo solo invece di un ToggleButton per posto.
+ *
+ * I posti sono disegnati nella posizione (fila, colonna) della {@link SeatLayout} del luogo.
+ * Ogni cambio di stato ridisegna solo la cella del posto; l'etichetta viene scritta solo se
+ * la cella è abbastanza grande da leggerla.
+ */
+public class SeatCanvas extends Canvas {
+
+    private static final Color LIBERO = Color.web("#4CAF50");
+    private static final Color OCCUPATO = Color.web("#F44336");
+    private static final Color SELEZIONATO = Color.web("#FFC107");
+
+    private static final double SPAZIO = 2;
+    private static final double CELLA_MIN_ETICHETTA = 24;
+
+    private final SeatLayout layout;
+    private final double cella;
+
+    private final BitSet occupati = new BitSet();
+    private final BitSet selezionati = new BitSet();
+    private boolean solaLettura = false;
+    private IntConsumer onSeatClicked;
+
+    /**
+     * Crea la mappa e la disegna con tutti i posti liberi.
+     *
+     * @param layout disposizione dei posti del luogo
+     * @param cella lato della cella di un posto, in pixel
+     */
+    public SeatCanvas(SeatLayout layout, double cella) {
+        super(layout.getColonne() * cella, layout.getFile() * cella);
+        this.layout = layout;
+        this.cella = cella;
+
+        setOnMouseClicked(e -> {
+            int seatId = seatIdAt(e.getX(), e.getY());
+            if (seatId > 0 && !solaLettura && !occupati.get(seatId) && onSeatClicked != null) {
+                onSeatClicked.accept(seatId);
+            }
+        });
+        ridisegna();
+    }
+
+    /**
+     * @param onSeatClicked chiamato con l'id del posto libero cliccato
+     */
+    public void setOnSeatClicked(IntConsumer onSeatClicked) {
+        this.onSeatClicked = onSeatClicked;
+    }
+
+    /**
+     * @param solaLettura true per ignorare i click (organizzazione)
+     */
+    public void setSolaLettura(boolean solaLettura) {
+        this.solaLettura = solaLettura;
+    }
+
+    /**
+     * Sostituisce tutti i posti occupati, ridisegnando solo quelli cambiati.
+     *
+     * @param nuovi bit i = posto i occupato
+     */
+    public void setOccupati(BitSet nuovi) {
+        BitSet cambiati = (BitSet) occupati.clone();
+        cambiati.xor(nuovi);
+        occupati.clear();
+        occupati.or(nuovi);
+        for (int id = cambiati.nextSetBit(1); id > 0 && layout.contiene(id); id = cambiati.nextSetBit(id + 1)) {
+            disegnaPosto(id);
+        }
+    }
+
+    /**
+     * @param seatId id del posto
+     * @param occupato true se il posto è occupato
+     */
+    public void setOccupato(int seatId, boolean occupato) {
+        if (occupati.get(seatId) != occupato) {
+            occupati.set(seatId, occupato);
+            disegnaPosto(seatId);
+        }
+    }
+
+    /**
+     * @param seatId id del posto
+     * @param selezionato true se il posto è selezionato dal cliente
+     */
+    public void setSelezionato(int seatId, boolean selezionato) {
+        if (selezionati.get(seatId) != selezionato) {
+            selezionati.set(seatId, selezionato);
+            disegnaPosto(seatId);
+        }
+    }
+
+    /**
+     * @param seatId id del posto
+     * @return true se il posto è selezionato
+     */
+    public boolean isSelezionato(int seatId) {
+        return selezionati.get(seatId);
+    }
+
+    private int seatIdAt(double x, double y) {
+        if (x < 0 || y < 0) return -1;
+        return layout.getId((int) (y / cella), (int) (x / cella));
+    }
+
+    private void ridisegna() {
+        getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+        for (int id = 1; id <= layout.getCapacity(); id++) {
+            disegnaPosto(id);
+        }
+    }
+
+    private void disegnaPosto(int seatId) {
+        if (!layout.contiene(seatId)) return;
+
+        GraphicsContext g = getGraphicsContext2D();
+        double x = layout.getColonna(seatId) * cella;
+        double y = layout.getFila(seatId) * cella;
+        double lato = cella - SPAZIO;
+
+        Color colore = occupati.get(seatId) ? OCCUPATO : selezionati.get(seatId) ? SELEZIONATO : LIBERO;
+        g.clearRect(x, y, cella, cella);
+        g.setFill(colore);
+        g.fillRoundRect(x, y, lato, lato, 4, 4);
+
+        if (cella >= CELLA_MIN_ETICHETTA) {
+            g.setFill(colore == SELEZIONATO ? Color.BLACK : Color.WHITE);
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.CENTER);
+            g.fillText(layout.getEtichetta(seatId), x + lato / 2, y + lato / 2, lato);
+        }
+    }
+}
@@ -3,13 +3,13 @@ package it.unicas.project.template.address.view;
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.Cliente;
 import it.unicas.project.template.address.model.Evento;
-import it.unicas.project.template.address.model.Luogo;
 import it.unicas.project.template.address.model.Prenotazione;
+import it.unicas.project.template.address.model.PrenotazioneEvento;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.EventoDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.LuogoDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.AsyncDAO;
 import it.unicas.project.template.address.model.dao.mysql.PrenotazioneDAOMySQLImpl;
-import javafx.application.Platform;
+import it.unicas.project.template.address.model.dao.mysql.WaitlistPromoter;
+import it.unicas.project.template.address.util.FxAsync;
 import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -20,7 +20,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller per la pagina profilo utente (cliente).
@@ -42,19 +42,28 @@ public class UserProfileController {
     @FXML private Button indietroButton;
     @FXML private Button editProfileButton;
 
-    // ---- PRENOTAZIONI (TableView<Prenotazione>) ----
-    @FXML private TableView<Prenotazione> bookingTable;
-    @FXML private TableColumn<Prenotazione, String> eventColumn;
-    @FXML private TableColumn<Prenotazione, String> dateColumn;
-    @FXML private TableColumn<Prenotazione, String> placeColumn;
-    @FXML private TableColumn<Prenotazione, String> seatsColumn;
-    @FXML private TableColumn<Prenotazione, Void> actionColumn;
+    // ---- PRENOTAZIONI (TableView<PrenotazioneEvento>) ----
+    @FXML private TableView<PrenotazioneEvento> bookingTable;
+    @FXML private TableColumn<PrenotazioneEvento, String> eventColumn;
+    @FXML private TableColumn<PrenotazioneEvento, String> dateColumn;
+    @FXML private TableColumn<PrenotazioneEvento, String> placeColumn;
+    @FXML private TableColumn<PrenotazioneEvento, String> seatsColumn;
+    @FXML private TableColumn<PrenotazioneEvento, Void> actionColumn;
 
     @FXML private Button refreshBookingsButton;
+    @FXML private Button moreBookingsButton;
     @FXML private Label infoLabel;
 
-    // Cache evento: per evitare di ripetere la stessa query per tutte le colonne di quel singolo evento
-    private final Map<Integer, Evento> eventCache = new HashMap<>();
+    // Prenotazioni lette per ogni pagina della tabella
+    private static final int PRENOTAZIONI_PER_PAGINA = 50;
+
+    private final FxAsync.Scope async = FxAsync.scope();
+    private CompletableFuture<PrenotazioniCaricate> caricamentoPrenotazioni;
+    private int totalePrenotazioni;
+
+    // Pagina letta e numero totale di prenotazioni del cliente
+    private record PrenotazioniCaricate(List<PrenotazioneEvento> pagina, int totale) {
+    }
 
     /**
      * Inizializzazione delle colonne della TableView delle prenotazioni e setup dei bottoni di azione.
@@ -62,51 +71,38 @@ public class UserProfileController {
      */
     @FXML
     private void initialize() {
+        async.bindTo(bookingTable);
+
         eventColumn.setCellValueFactory(cd ->
                 Bindings.createStringBinding(() -> {
-                    Evento ev = getEventoForPrenotazione(cd.getValue());
+                    Evento ev = cd.getValue().getEvento();
                     return (ev != null) ? ev.getTitolo()
-                            : "Evento #" + cd.getValue().getEventoId();
+                            : "Evento #" + cd.getValue().getPrenotazione().getEventoId();
                 })
         );
 
         // Colonna DATA / ORA (dataEvento + orarioInizio - orarioFine)
         dateColumn.setCellValueFactory(cd ->
                 Bindings.createStringBinding(() -> {
-                    Evento ev = getEventoForPrenotazione(cd.getValue());
+                    Evento ev = cd.getValue().getEvento();
                     if (ev == null) return "-";
                     return ev.getDataEvento() + " " +
                             ev.getOrarioInizio() + " - " + ev.getOrarioFine();
                 })
         );
 
-        LuogoDAOMySQLImpl luogoDAO = LuogoDAOMySQLImpl.getInstance();
         // Colonna LUOGO
         placeColumn.setCellValueFactory(cd ->
                 Bindings.createStringBinding(() -> {
-                    Evento ev = getEventoForPrenotazione(cd.getValue());
-                    if (ev == null)
-                        return "-";
-
-                    try {
-
-                        List<Luogo> luoghi = luogoDAO.select(new Luogo(null, 0, ev.getIdLuogoEvento()));
-                        if (luoghi.isEmpty())
-                            return "-";
-
-                        return luoghi.get(0).getNome();
-
-                    } catch (DAOException ex) {
-                        ex.printStackTrace();
-                        return "-";
-                    }
+                    String luogo = cd.getValue().getNomeLuogo();
+                    return (luogo != null) ? luogo : "-";
                 })
         );
 
         // Colonna POSTI PRENOTATI (stringa in Prenotazione.postiPrenotati)
         seatsColumn.setCellValueFactory(cd ->
                 Bindings.createStringBinding(() -> {
-                    Prenotazione p = cd.getValue();
+                    Prenotazione p = cd.getValue().getPrenotazione();
                     String posti = p.getPostoPrenotato();  // campo "postiPrenotati"
                     if (posti == null || posti.isEmpty()) return "-";
                     // giusto per renderlo più leggibile
@@ -168,6 +164,17 @@ public class UserProfileController {
      * Recupera le prenotazioni del cliente loggato e popola la TableView.
      */
     private void caricaPrenotazioniCliente() {
+        caricaPrenotazioniCliente("");
+    }
+
+    /**
+     * Recupera in background la prima pagina delle prenotazioni del cliente loggato, con i dati
+     * di evento e luogo mostrati nelle colonne, e il numero totale di prenotazioni.
+     * Durante il caricamento la tabella mostra un indicatore di avanzamento.
+     *
+     * @param messaggio testo da mostrare in infoLabel a caricamento concluso (se ci sono prenotazioni)
+     */
+    private void caricaPrenotazioniCliente(String messaggio) {
         if (clienteLoggato == null) {
             bookingTable.setItems(FXCollections.observableArrayList());
             infoLabel.setText("Nessun cliente loggato.");
@@ -175,30 +182,80 @@ public class UserProfileController {
             return;
         }
 
-        try {
-            PrenotazioneDAOMySQLImpl prenDao = PrenotazioneDAOMySQLImpl.getInstance();
-
-            //Prendo tutte le prenotazioni
-            List<Prenotazione> tutte = prenDao.select(null);
-
-            // Filtro per CLIENTE_idCLIENTE = clienteLoggato.getId()
-            List<Prenotazione> delCliente = tutte.stream()
-                    .filter(p -> Objects.equals(p.getClienteId(), clienteLoggato.getId()))
-                    .collect(Collectors.toList());
-
-            bookingTable.setItems(FXCollections.observableArrayList(delCliente));
-            totalBookingsLabel.setText(String.valueOf(delCliente.size()));
+        if (caricamentoPrenotazioni != null) {
+            caricamentoPrenotazioni.cancel(true);
+        }
 
-            if (delCliente.isEmpty()) {
+        bookingTable.setItems(FXCollections.observableArrayList());
+        bookingTable.setPlaceholder(new ProgressIndicator());
+        refreshBookingsButton.setDisable(true);
+        mostraPulsanteAltre(false);
+
+        int idCliente = clienteLoggato.getId();
+        caricamentoPrenotazioni = async.run(() -> {
+            PrenotazioneDAOMySQLImpl dao = PrenotazioneDAOMySQLImpl.getInstance();
+            List<PrenotazioneEvento> pagina = dao.selectByCliente(idCliente, null, PRENOTAZIONI_PER_PAGINA);
+            int totale = pagina.size() < PRENOTAZIONI_PER_PAGINA ? pagina.size() : dao.countByCliente(idCliente);
+            return new PrenotazioniCaricate(pagina, totale);
+
+        }, caricate -> {
+            caricamentoPrenotazioni = null;
+            totalePrenotazioni = caricate.totale();
+            bookingTable.setPlaceholder(new Label("Nessuna prenotazione"));
+            bookingTable.setItems(FXCollections.observableArrayList(caricate.pagina()));
+            totalBookingsLabel.setText(String.valueOf(totalePrenotazioni));
+            refreshBookingsButton.setDisable(false);
+            mostraPulsanteAltre(caricate.pagina().size() < totalePrenotazioni);
+
+            if (caricate.pagina().isEmpty()) {
                 infoLabel.setText("Non hai prenotazioni.");
             } else {
-                infoLabel.setText("");
+                infoLabel.setText(messaggio);
             }
 
-        } catch (DAOException e) {
-            e.printStackTrace();
+        }, ex -> {
+            ex.printStackTrace();
+            caricamentoPrenotazioni = null;
+            bookingTable.setPlaceholder(new Label("Nessuna prenotazione"));
+            refreshBookingsButton.setDisable(false);
             infoLabel.setText("Errore nel caricamento delle prenotazioni.");
+        });
+    }
+
+    /**
+     * Accoda alla tabella la pagina successiva di prenotazioni, a partire dall'ultima mostrata.
+     */
+    private void caricaAltrePrenotazioni() {
+        List<PrenotazioneEvento> mostrate = bookingTable.getItems();
+        if (clienteLoggato == null || caricamentoPrenotazioni != null || mostrate.isEmpty()) {
+            return;
         }
+
+        int idCliente = clienteLoggato.getId();
+        PrenotazioneEvento ultima = mostrate.get(mostrate.size() - 1);
+        moreBookingsButton.setDisable(true);
+
+        caricamentoPrenotazioni = async.run(() -> new PrenotazioniCaricate(
+                PrenotazioneDAOMySQLImpl.getInstance().selectByCliente(idCliente, ultima, PRENOTAZIONI_PER_PAGINA),
+                totalePrenotazioni
+        ), caricate -> {
+            caricamentoPrenotazioni = null;
+            bookingTable.getItems().addAll(caricate.pagina());
+            moreBookingsButton.setDisable(false);
+            mostraPulsanteAltre(caricate.pagina().size() == PRENOTAZIONI_PER_PAGINA
+                    && bookingTable.getItems().size() < totalePrenotazioni);
+
+        }, ex -> {
+            ex.printStackTrace();
+            caricamentoPrenotazioni = null;
+            moreBookingsButton.setDisable(false);
+            infoLabel.setText("Errore nel caricamento delle prenotazioni.");
+        });
+    }
+
+    private void mostraPulsanteAltre(boolean visibile) {
+        moreBookingsButton.setVisible(visibile);
+        moreBookingsButton.setManaged(visibile);
     }
 
     /**
@@ -211,7 +268,7 @@ public class UserProfileController {
 
             {
                 cancelButton.setOnAction(e -> {
-                    Prenotazione pren = getTableView().getItems().get(getIndex());
+                    PrenotazioneEvento pren = getTableView().getItems().get(getIndex());
                     handleCancelBooking(pren);
                 });
             }
@@ -225,7 +282,7 @@ public class UserProfileController {
                     return;
                 }
 
-                Prenotazione pren = getTableView().getItems().get(getIndex());
+                PrenotazioneEvento pren = getTableView().getItems().get(getIndex());
                 boolean cancellabile = isPrenotazioneCancellabile(pren);
 
                 cancelButton.setDisable(!cancellabile);
@@ -241,13 +298,13 @@ public class UserProfileController {
      * @param p prenotazione da verificare
      * @return true se la prenotazione è ancora cancellabile
      */
-    private boolean isPrenotazioneCancellabile(Prenotazione p) {
+    private boolean isPrenotazioneCancellabile(PrenotazioneEvento p) {
         // Una prenotazione è cancellabile getStatoPrenotazioneId = 1 cioè è attiva
-        if (!Objects.equals(p.getStatoPrenotazioneId(), 1)) {
+        if (!Objects.equals(p.getPrenotazione().getStatoPrenotazioneId(), 1)) {
             return false;
         }
 
-        Evento ev = getEventoForPrenotazione(p);
+        Evento ev = p.getEvento();
         if (ev == null) return false;
 
         String dataStr = ev.getDataEvento();   // es. "2025-01-20"
@@ -268,14 +325,15 @@ public class UserProfileController {
     /**
      * Gestisce l'annullamento di una prenotazione (dialog di conferma, aggiornamento DB, waitlist).
      *
-     * @param p prenotazione da annullare
+     * @param pe prenotazione da annullare
      */
-    private void handleCancelBooking(Prenotazione p) {
-        if (!isPrenotazioneCancellabile(p)) {
+    private void handleCancelBooking(PrenotazioneEvento pe) {
+        if (!isPrenotazioneCancellabile(pe)) {
             return;
         }
 
-        Evento ev = getEventoForPrenotazione(p);
+        Prenotazione p = pe.getPrenotazione();
+        Evento ev = pe.getEvento();
         if (ev == null) {
             mostraAlert("Errore", "Impossibile recuperare i dati dell'evento.");
             return;
@@ -292,177 +350,51 @@ public class UserProfileController {
 
         conferma.showAndWait().ifPresent(result -> {
             if (result == ButtonType.OK) {
-                try {
-                    // 1) libera i posti in posti legati a questa prenotazione
-                    liberaPostiPrenotazione(p, ev);
-
-                    // 2) cancella la prenotazione dalla tabella prenotazione
-                    PrenotazioneDAOMySQLImpl.getInstance().delete(p);
-
-                    // assegna il posto a qualche cliente in waitlist
-                    assegnaPostoDaWaitlist(ev);
-
-                    // 4) ricarica la lista
-                    caricaPrenotazioniCliente();
-                    infoLabel.setText("Prenotazione annullata con successo.");
-
+                infoLabel.setText("Annullamento in corso...");
+                bookingTable.setDisable(true);
+
+                // annullamento e promozione non passano dallo scope della vista: lasciando la vista
+                // si scarta solo il callback, e i posti liberati vengono comunque offerti alla waitlist
+                CompletableFuture<Integer> annullamento = AsyncDAO.getInstance().submit(() -> {
+                    // 1) libera i posti della prenotazione e la cancella (un'unica transazione)
+                    int postiLiberati = PrenotazioneDAOMySQLImpl.getInstance().annulla(p).size();
+
+                    // 2) assegna i posti liberati ai clienti in waitlist
+                    assegnaPostoDaWaitlist(ev, postiLiberati);
+                    return postiLiberati;
+                });
 
+                async.segui(annullamento, postiLiberati -> {
+                    // 3) ricarica la lista
+                    bookingTable.setDisable(false);
+                    caricaPrenotazioniCliente("Prenotazione annullata con successo.");
 
-                } catch (DAOException e) {
-                    e.printStackTrace();
+                }, ex -> {
+                    ex.printStackTrace();
+                    bookingTable.setDisable(false);
+                    infoLabel.setText("");
                     mostraAlert("Errore",
                             "Si è verificato un errore durante l'annullamento.");
-                }
+                });
             }
         });
     }
 
     /**
-     * Quando un posto viene liberato prova ad assegnarlo alla prima persona in waitlist.
+     * Assegna i posti liberati ai primi clienti in waitlist (uno per posto), in un'unica transazione.
+     * Va chiamato fuori dal thread JavaFX (dal task di annullamento).
      *
      * @param ev evento relativo alla prenotazione annullata
+     * @param postiLiberati numero di posti liberati dall'annullamento
      */
-    private void assegnaPostoDaWaitlist(Evento ev) {
+    private void assegnaPostoDaWaitlist(Evento ev, int postiLiberati) {
         try {
-            List<Integer> waitlist = it.unicas.project.template.address.model.dao.mysql.WaitlistDAOMySQLImpl
-                    .getInstance().selectWaitlistByEvento(ev.getId());
-
-            if (!waitlist.isEmpty()) {
-                int primoClienteId = waitlist.get(0);
-
-                // Trova un posto libero
-                List<Integer> postiOccupati = EventoDAOMySQLImpl.getInstance()
-                        .selectReservedSeats(ev.getId());
-
-                Luogo luogoEvento = LuogoDAOMySQLImpl.getInstance().select(new Luogo(null, 0, ev.getIdLuogoEvento())).get(0);
-                int totalSeats = luogoEvento.getMaxPosti();
-                Integer postoLiberoId = null;
-
-                outer:
-                for (int i = 1; i <= totalSeats; i++) {
-                    if (!postiOccupati.contains(i)) {
-                        postoLiberoId = i;
-                        break outer;
-                    }
-                }
-
-                if (postoLiberoId != null) {
-                    // Converte ID posto in stringa tipo "A1"
-                    int row = (postoLiberoId - 1) / 10;
-                    int col = ((postoLiberoId - 1) % 10) + 1;
-                    char rowChar = (char) ('A' + row);
-                    String postoString = "" + rowChar + col;
-
-                    // Inserisce prenotazione per il cliente in waitlist
-                    LocalDate oggi = LocalDate.now();
-                    String dataFormattataOggi = oggi.format(java.time.format.DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-                    String ora = java.time.LocalTime.now().withNano(0).toString();
-
-                    Prenotazione pren = new Prenotazione(
-                            0,
-                            dataFormattataOggi,
-                            ora,
-                            postoString,
-                            primoClienteId,
-                            ev.getId(),
-                            1
-                    );
-
-                    PrenotazioneDAOMySQLImpl.getInstance().insert(pren);
-
-                    // Aggiorna la tabella "posti" con il nuovo posto occupato
-                    List<Integer> listaPosto = new ArrayList<>();
-                    listaPosto.add(postoLiberoId);
-                    EventoDAOMySQLImpl.getInstance().insertSeatReservation(ev.getId(), listaPosto);
-
-                    // Rimuove il cliente dalla waitlist
-                    it.unicas.project.template.address.model.dao.mysql.WaitlistDAOMySQLImpl
-                            .getInstance().removeFromWaitlist(ev.getId(), primoClienteId);
-                }
-
-            }
+            WaitlistPromoter.getInstance().promuovi(ev, postiLiberati);
         } catch (DAOException ex) {
             ex.printStackTrace();
         }
     }
 
-
-    /**
-     * Libera i posti associati a una prenotazione nell'archivio posti dell'evento.
-     *
-     * @param p prenotazione
-     * @param ev evento relativo
-     * @throws DAOException se ci sono errori DB
-     */
-    private void liberaPostiPrenotazione(Prenotazione p, Evento ev) throws DAOException {
-        //Recupero i posti prenotati per quell'evento dalla prenotazione
-        String postiStr = p.getPostoPrenotato(); // es. "A1,B3,C5"
-        if (postiStr == null || postiStr.isEmpty()) {
-            return;
-        }
-
-        // array di stringhe che rappresentano i posti: si divide ogni volta che c'è una virgola, punto e virgola o spazio
-        String[] tokens = postiStr.split("[,;\\s]+");
-
-        //per ogni token tipo "A1" pulisco e lo converto in id numerico.
-        List<Integer> seatIds = new ArrayList<>();
-        for (String seat : tokens) {
-            seat = seat.trim();
-            if (seat.isEmpty()) continue;
-            seatIds.add(toSeatId(seat));
-        }
-
-        // a questo punto il posto è un id numerico per cui posso chiamare il metodo di deleteSeatReservation
-        if (!seatIds.isEmpty()) {
-            EventoDAOMySQLImpl.getInstance()
-                    .deleteSeatReservation(ev.getId(), seatIds);
-        }
-    }
-
-    /**
-     * Converte una stringa posto (es. "A1") in id numerico interno.
-     *
-     * @param seatString stringa posto
-     * @return id numerico del posto
-     */
-    private int toSeatId(String seatString) {
-        int cols = 10; // come in EventDetailController
-        if (seatString == null || seatString.length() < 2)
-            throw new IllegalArgumentException("Formato posto non valido: " + seatString);
-
-        char rowChar = seatString.toUpperCase().charAt(0);
-        int row = rowChar - 'A';
-
-        int col = Integer.parseInt(seatString.substring(1));
-
-        return row * cols + col;
-    }
-
-    /**
-     * Restituisce l'oggetto Evento associato a una prenotazione, usando una cache locale per ottimizzare.
-     *
-     * @param p prenotazione
-     * @return Evento corrispondente o null se non trovato
-     */
-    private Evento getEventoForPrenotazione(Prenotazione p) {
-        if (p == null) return null;
-        Integer idEvento = p.getEventoId();
-        if (idEvento == null) return null;
-
-        if (eventCache.containsKey(idEvento)) {
-            return eventCache.get(idEvento);
-        }
-
-        try {
-            Evento ev = EventoDAOMySQLImpl.getInstance().selectById(idEvento);
-            eventCache.put(idEvento, ev);
-            return ev;
-        } catch (DAOException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
     // =========================================================
     // HANDLER FXML
     // =========================================================
@@ -503,6 +435,14 @@ public class UserProfileController {
         caricaPrenotazioniCliente();
     }
 
+    /**
+     * Mostra la pagina successiva delle prenotazioni.
+     */
+    @FXML
+    private void onMoreBookings() {
+        caricaAltrePrenotazioni();
+    }
+
     /**
      * Mostra un Alert informativo.
      *